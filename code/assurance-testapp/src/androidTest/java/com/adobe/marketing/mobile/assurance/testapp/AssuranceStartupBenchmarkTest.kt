@@ -0,0 +1,55 @@
+/*
+ * Copyright 2023 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance.testapp
+
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.core.app.ActivityScenario
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Checks that the launch milestones are recorded by [AssuranceStartupTrace] and logs them.
+ *
+ * The activity is launched in the already running test process, so these are not cold start
+ * numbers. `make startup-benchmark` compares the cold start time across the WebView startup modes
+ * with a stored Assurance session, and without a session.
+ */
+@RunWith(AndroidJUnit4::class)
+class AssuranceStartupBenchmarkTest {
+    companion object {
+        private const val FIRST_FRAME_TIMEOUT_MS = 10_000L
+        private const val POLL_INTERVAL_MS = 50L
+    }
+
+    @Test
+    fun reportStartupMilestones() {
+        ActivityScenario.launch(AssuranceTestAppActivity::class.java).use {
+            val deadline = SystemClock.uptimeMillis() + FIRST_FRAME_TIMEOUT_MS
+            while (AssuranceStartupTrace.firstFrameMillis < 0 &&
+                SystemClock.uptimeMillis() < deadline
+            ) {
+                SystemClock.sleep(POLL_INTERVAL_MS)
+            }
+
+            assertTrue(AssuranceStartupTrace.firstFrameMillis >= 0)
+            assertTrue(AssuranceStartupTrace.sdkRegistrationMillis >= 0)
+            Log.i(
+                AssuranceTestAppConstants.TAG,
+                "Startup benchmark: sdkRegistration=${AssuranceStartupTrace.sdkRegistrationMillis}ms, " +
+                    "firstFrame=${AssuranceStartupTrace.firstFrameMillis}ms"
+            )
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance.testapp
+
+import android.app.Activity
+import android.os.SystemClock
+import android.os.Trace
+import android.util.Log
+import android.view.ViewTreeObserver
+import com.adobe.marketing.mobile.assurance.testapp.AssuranceTestAppConstants.TAG
+
+/**
+ * Records the milestones of the test app's launch, so that the launch time added by the SDK
+ * (and in particular by the Assurance socket WebView) can be measured.
+ *
+ * Milestones are logged under the [TAG] and are also emitted as trace sections, which show up in
+ * Perfetto/systrace captures of the app's startup.
+ */
+object AssuranceStartupTrace {
+    private const val SECTION_SDK_REGISTRATION = "AEPSDK.registerExtensions"
+
+    @Volatile
+    private var appCreateTime = 0L
+
+    @Volatile
+    var sdkRegistrationMillis = -1L
+        private set
+
+    @Volatile
+    var sdkInitializedMillis = -1L
+        private set
+
+    @Volatile
+    var firstFrameMillis = -1L
+        private set
+
+    /**
+     * Marks the beginning of the app's startup. To be called at the start of Application.onCreate.
+     */
+    fun onAppCreate() {
+        appCreateTime = SystemClock.uptimeMillis()
+    }
+
+    /**
+     * Wraps the synchronous part of the SDK registration in a trace section and records its
+     * duration.
+     */
+    fun traceSdkRegistration(registration: () -> Unit) {
+        val start = SystemClock.uptimeMillis()
+        Trace.beginSection(SECTION_SDK_REGISTRATION)
+        try {
+            registration()
+        } finally {
+            Trace.endSection()
+            sdkRegistrationMillis = SystemClock.uptimeMillis() - start
+        }
+    }
+
+    /**
+     * Records the time elapsed since app creation when the SDK reports that it has initialized.
+     */
+    fun onSdkInitialized() {
+        sdkInitializedMillis = SystemClock.uptimeMillis() - appCreateTime
+        logMilestones()
+    }
+
+    /**
+     * Records the time elapsed since app creation when the provided activity draws its first
+     * frame, and reports the activity as fully drawn.
+     */
+    fun traceFirstFrame(activity: Activity) {
+        val decorView = activity.window.decorView
+        decorView.viewTreeObserver.addOnDrawListener(object : ViewTreeObserver.OnDrawListener {
+            override fun onDraw() {
+                if (firstFrameMillis >= 0) {
+                    return
+                }
+
+                firstFrameMillis = SystemClock.uptimeMillis() - appCreateTime
+                val listener = this
+                // listeners cannot be removed during dispatch
+                decorView.post {
+                    decorView.viewTreeObserver.removeOnDrawListener(listener)
+                    activity.reportFullyDrawn()
+                    logMilestones()
+                }
+            }
+        })
+    }
+
+    private fun logMilestones() {
+        Log.i(
+            TAG,
+            "Startup trace: sdkRegistration=${sdkRegistrationMillis}ms, " +
+                "sdkInitialized=${sdkInitializedMillis}ms, firstFrame=${firstFrameMillis}ms"
+        )
+    }
+}
@@ -28,19 +28,23 @@ class AssuranceTestApp : Application() {
 
     override fun onCreate() {
         super.onCreate()
+        AssuranceStartupTrace.onAppCreate()
 
         MobileCore.setApplication(this)
         MobileCore.setLogLevel(LoggingMode.VERBOSE)
         MobileCore.configureWithAppID(APP_ID)
 
-        MobileCore.registerExtensions(
-            listOf(
-                Assurance.EXTENSION,
-                Lifecycle.EXTENSION,
-                Signal.EXTENSION
-            )
-        ) {
-            Log.d(TAG, "AEP Mobile SDK initialization complete.");
+        AssuranceStartupTrace.traceSdkRegistration {
+            MobileCore.registerExtensions(
+                listOf(
+                    Assurance.EXTENSION,
+                    Lifecycle.EXTENSION,
+                    Signal.EXTENSION
+                )
+            ) {
+                AssuranceStartupTrace.onSdkInitialized()
+                Log.d(TAG, "AEP Mobile SDK initialization complete.");
+            }
         }
     }
 
@@ -47,6 +47,7 @@ import kotlinx.coroutines.launch
 class AssuranceTestAppActivity : ComponentActivity() {
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
+        AssuranceStartupTrace.traceFirstFrame(this)
 
         setContent {
             AepsdkassuranceandroidTheme {
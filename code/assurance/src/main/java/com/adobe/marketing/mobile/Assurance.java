@@ -14,6 +14,7 @@ package com.adobe.marketing.mobile;
 
 import androidx.annotation.NonNull;
 import com.adobe.marketing.mobile.assurance.AssuranceExtension;
+import com.adobe.marketing.mobile.assurance.AssurancePlugin;
 import com.adobe.marketing.mobile.services.Log;
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +30,7 @@ public class Assurance {
 
     private static final String DEEPLINK_SESSION_ID_KEY = "adb_validation_sessionid";
     private static final String START_SESSION_URL = "startSessionURL";
+    private static final int DEFAULT_PLUGIN_MAX_EVENTS_PER_SECOND = 20;
 
     // ========================================================================================
     // Public APIs
@@ -102,4 +104,35 @@ public class Assurance {
                         .build();
         MobileCore.dispatchEvent(startSessionEvent);
     }
+
+    /**
+     * Registers a plugin receiving the control events of Assurance sessions for its vendor and
+     * control type.
+     *
+     * <p>The plugin is added to the active session, if any, and to every session started
+     * afterwards. It may send up to 20 events per second; use {@link
+     * #registerPlugin(AssurancePlugin, int)} to change its quota.
+     *
+     * @param plugin the {@link AssurancePlugin} to be registered
+     * @return true if the plugin was registered, false if it is invalid or already registered
+     */
+    public static boolean registerPlugin(@NonNull final AssurancePlugin plugin) {
+        return registerPlugin(plugin, DEFAULT_PLUGIN_MAX_EVENTS_PER_SECOND);
+    }
+
+    /**
+     * Registers a plugin receiving the control events of Assurance sessions for its vendor and
+     * control type, with a quota on the events it may send.
+     *
+     * <p>Events sent by the plugin beyond {@code maxEventsPerSecond} are dropped, so that the
+     * plugin cannot starve the events forwarded by the Assurance extension.
+     *
+     * @param plugin the {@link AssurancePlugin} to be registered
+     * @param maxEventsPerSecond the number of events per second the plugin may send
+     * @return true if the plugin was registered, false if it is invalid or already registered
+     */
+    public static boolean registerPlugin(
+            @NonNull final AssurancePlugin plugin, final int maxEventsPerSecond) {
+        return AssuranceExtension.registerPlugin(plugin, maxEventsPerSecond);
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the html assets of the full screen takeovers once per process and keeps them in memory,
+ * so that showing the pin code or the status screen again does not read the asset again.
+ */
+final class AssuranceAssetCache {
+    private static final String LOG_TAG = "AssuranceAssetCache";
+    static final String PIN_DIALOG_HTML = "assets/PinDialog.html";
+    static final String STATUS_INFO_HTML = "assets/StatusInfo.html";
+
+    private static final ConcurrentHashMap<String, String> assets = new ConcurrentHashMap<>();
+
+    /** Receives the content of an asset loaded by {@link #load(String, AssetCallback)}. */
+    interface AssetCallback {
+        /**
+         * Invoked with the content of the asset. Not invoked if the asset could not be read.
+         *
+         * @param content the content of the asset
+         */
+        void onAssetLoaded(final String content);
+    }
+
+    private AssuranceAssetCache() {}
+
+    /**
+     * Retrieves the content of the asset at {@code path}. The {@code callback} is invoked right
+     * away if the asset has been read before, or on a blocking thread of the {@link
+     * AssuranceScheduler} once it has been read otherwise.
+     *
+     * @param path the path of the asset, relative to the class path
+     * @param callback the {@link AssetCallback} receiving the content
+     */
+    static void load(final String path, final AssetCallback callback) {
+        final String cachedContent = assets.get(path);
+
+        if (cachedContent != null) {
+            callback.onAssetLoaded(cachedContent);
+            return;
+        }
+
+        AssuranceScheduler.getInstance()
+                .executeBlockingTask(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                final String content = get(path);
+
+                                if (content != null) {
+                                    callback.onAssetLoaded(content);
+                                }
+                            }
+                        });
+    }
+
+    /**
+     * Retrieves the content of the asset at {@code path}, reading it on the calling thread if it
+     * has not been read before.
+     *
+     * @param path the path of the asset, relative to the class path
+     * @return the content of the asset, or null if it could not be read
+     */
+    static String get(final String path) {
+        final String cachedContent = assets.get(path);
+
+        if (cachedContent != null) {
+            return cachedContent;
+        }
+
+        final String content = read(path);
+
+        if (content == null) {
+            return null;
+        }
+
+        final String previousContent = assets.putIfAbsent(path, content);
+        return previousContent != null ? previousContent : content;
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        assets.clear();
+    }
+
+    private static String read(final String path) {
+        final ClassLoader cl = AssuranceAssetCache.class.getClassLoader();
+
+        if (cl == null) {
+            Log.error(Assurance.LOG_TAG, LOG_TAG, "Unable to get class loader to read %s.", path);
+            return null;
+        }
+
+        final InputStream is = cl.getResourceAsStream(path);
+
+        if (is == null) {
+            Log.error(Assurance.LOG_TAG, LOG_TAG, "Unable to open %s.", path);
+            return null;
+        }
+
+        try {
+            final Scanner s = new Scanner(is, "UTF-8").useDelimiter("\\A");
+            final String content = s.hasNext() ? s.next() : "";
+
+            if (content.isEmpty()) {
+                Log.error(Assurance.LOG_TAG, LOG_TAG, "Asset %s is empty.", path);
+                return null;
+            }
+
+            return content;
+        } finally {
+            try {
+                is.close();
+            } catch (final IOException ex) {
+                Log.debug(
+                        Assurance.LOG_TAG,
+                        LOG_TAG,
+                        "Unable to close %s: %s",
+                        path,
+                        ex.getLocalizedMessage());
+            }
+        }
+    }
+}
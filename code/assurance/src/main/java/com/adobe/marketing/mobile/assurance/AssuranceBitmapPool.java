@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.graphics.Bitmap;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A small pool of {@link Bitmap}s reused across screen captures, so that repeated captures of the
+ * same screen do not allocate a new full screen bitmap each time.
+ *
+ * <p>Only bitmaps of the exact requested size and configuration are reused. At most {@code
+ * maxSize} bitmaps are retained; bitmaps released beyond that are recycled.
+ */
+final class AssuranceBitmapPool {
+    static final int DEFAULT_MAX_SIZE = 2;
+
+    private final int maxSize;
+    private final ArrayDeque<Bitmap> bitmaps = new ArrayDeque<>();
+
+    AssuranceBitmapPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    AssuranceBitmapPool(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retrieves a bitmap of the given size and configuration, reusing a pooled bitmap if one
+     * matches. The contents of a reused bitmap are not cleared.
+     *
+     * @param width the width of the bitmap
+     * @param height the height of the bitmap
+     * @param config the {@link Bitmap.Config} of the bitmap
+     * @return a mutable {@link Bitmap} that the caller owns until it is released
+     */
+    synchronized Bitmap acquire(final int width, final int height, final Bitmap.Config config) {
+        final Iterator<Bitmap> iterator = bitmaps.iterator();
+
+        while (iterator.hasNext()) {
+            final Bitmap bitmap = iterator.next();
+
+            if (bitmap.getWidth() == width
+                    && bitmap.getHeight() == height
+                    && bitmap.getConfig() == config) {
+                iterator.remove();
+                return bitmap;
+            }
+        }
+
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Returns the {@code bitmap} to the pool. The caller must not use it afterwards.
+     *
+     * @param bitmap the {@link Bitmap} to be returned
+     */
+    synchronized void release(final Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+
+        if (bitmaps.contains(bitmap)) {
+            return;
+        }
+
+        bitmaps.offerFirst(bitmap);
+
+        while (bitmaps.size() > maxSize) {
+            bitmaps.pollLast().recycle();
+        }
+    }
+
+    /** Recycles all the pooled bitmaps. */
+    synchronized void clear() {
+        while (!bitmaps.isEmpty()) {
+            bitmaps.poll().recycle();
+        }
+    }
+
+    synchronized int size() {
+        return bitmaps.size();
+    }
+}
@@ -11,14 +11,7 @@
 
 package com.adobe.marketing.mobile.assurance;
 
-import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.RESPONSE_KEY_BLOB_ID;
-import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.RESPONSE_KEY_ERROR;
 import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_ENDPOINT_FORMAT;
-import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HEADER_KEY_ACCEPT;
-import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HEADER_KEY_CONTENT_LENGTH;
-import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HEADER_KEY_CONTENT_TYPE;
-import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HEADER_KEY_FILE_CONTENT_TYPE;
-import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HTTP_METHOD;
 import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_PATH_API;
 import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_PATH_FILEUPLOAD;
 import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_QUERY_KEY;
@@ -26,25 +19,135 @@ import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.U
 import android.net.Uri;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.Log;
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import org.json.JSONException;
-import org.json.JSONObject;
 
 class AssuranceBlob {
     private static final String LOG_TAG = "AssuranceBlob";
 
+    private static AssuranceBlobUploader uploader;
+
     interface BlobUploadCallback {
         void onSuccess(final String blobID);
 
         void onFailure(final String reason);
     }
 
+    /** Receives the progress of a blob upload. Invoked on the thread performing the upload. */
+    interface BlobUploadProgressListener {
+        /**
+         * Invoked each time a part of the blob has been written to the connection.
+         *
+         * @param bytesSent the number of bytes of the blob written so far
+         * @param totalBytes the size of the blob in bytes, -1 if unknown
+         */
+        void onProgress(final long bytesSent, final long totalBytes);
+    }
+
+    /**
+     * The data of a blob to be uploaded. The data is streamed to the connection from the {@link
+     * InputStream} returned by {@link #open()}, so that the blob does not have to be held in memory
+     * more than once.
+     */
+    abstract static class BlobSource {
+        /**
+         * Opens a new stream over the data of this blob. The caller is responsible for closing it.
+         *
+         * @return an {@link InputStream} positioned at the start of the blob
+         * @throws IOException if the data cannot be read
+         */
+        abstract InputStream open() throws IOException;
+
+        /**
+         * Retrieves the size of this blob.
+         *
+         * @return the size of the blob in bytes, -1 if it is not known in advance
+         */
+        abstract long getLength();
+
+        /**
+         * Indicates whether {@link #open()} can be called more than once, which is required to
+         * retry a failed upload.
+         *
+         * @return true if the blob can be read again, false otherwise
+         */
+        boolean isRepeatable() {
+            return true;
+        }
+
+        /**
+         * Creates a {@code BlobSource} over the given bytes. The array is not copied.
+         *
+         * @param data the data of the blob
+         * @return a repeatable {@link BlobSource} of known length
+         */
+        static BlobSource fromBytes(final byte[] data) {
+            return new BlobSource() {
+                @Override
+                InputStream open() {
+                    return new ByteArrayInputStream(data);
+                }
+
+                @Override
+                long getLength() {
+                    return data.length;
+                }
+            };
+        }
+
+        /**
+         * Creates a {@code BlobSource} over the contents of a file.
+         *
+         * @param file the {@link File} containing the blob
+         * @return a repeatable {@link BlobSource} of known length
+         */
+        static BlobSource fromFile(final File file) {
+            return new BlobSource() {
+                @Override
+                InputStream open() throws IOException {
+                    return new FileInputStream(file);
+                }
+
+                @Override
+                long getLength() {
+                    return file.length();
+                }
+            };
+        }
+
+        /**
+         * Creates a {@code BlobSource} over an already open stream. Since the stream can only be
+         * read once, uploads from such a source are not retried.
+         *
+         * @param inputStream the {@link InputStream} of the blob, closed once the upload completes
+         * @param length the size of the blob in bytes, -1 if unknown
+         * @return a non-repeatable {@link BlobSource}
+         */
+        static BlobSource fromStream(final InputStream inputStream, final long length) {
+            return new BlobSource() {
+                @Override
+                InputStream open() {
+                    return inputStream;
+                }
+
+                @Override
+                long getLength() {
+                    return length;
+                }
+
+                @Override
+                boolean isRepeatable() {
+                    return false;
+                }
+            };
+        }
+    }
+
     /**
      * Sends a binary blob of data to Project Assurance server to be recorded as an 'asset' for the
      * current session.
@@ -64,7 +167,7 @@ class AssuranceBlob {
      * @param blobData byte array containing the data to transmit
      * @param contentType {@link String} containing the MIME type of the blob. Null, will default to
      *     application/octet-stream
-     * @param contentType the active {@link AssuranceSession} to which the blob is uploaded
+     * @param session the active {@link AssuranceSession} to which the blob is uploaded
      * @param callback callback to be executed when the upload has completed (either successfully or
      *     with an error condition)
      */
@@ -79,134 +182,58 @@ class AssuranceBlob {
             return;
         }
 
+        upload(BlobSource.fromBytes(blobData), contentType, session, callback, null);
+    }
+
+    /**
+     * Streams a blob of data to Project Assurance server to be recorded as an 'asset' for the
+     * current session. Failed uploads of repeatable sources are retried with backoff, see {@link
+     * AssuranceBlobUploader}.
+     *
+     * @param source the {@link BlobSource} containing the data to transmit
+     * @param contentType {@link String} containing the MIME type of the blob. Null, will default to
+     *     application/octet-stream
+     * @param session the active {@link AssuranceSession} to which the blob is uploaded
+     * @param callback callback to be executed when the upload has completed (either successfully or
+     *     with an error condition)
+     * @param progressListener optional listener notified as the blob is written
+     */
+    static void upload(
+            final BlobSource source,
+            final String contentType,
+            final AssuranceSession session,
+            final BlobUploadCallback callback,
+            final BlobUploadProgressListener progressListener) {
+
+        if (source == null) {
+            uploadFailure(callback, "Sending Blob failed, blob source is null");
+            return;
+        }
+
         if (session == null) {
             uploadFailure(
                     callback, "Unable to upload blob, assurance session instance unavailable");
+            return;
+        }
+
+        final URL destinationURL;
+
+        try {
+            destinationURL = getUploadURL(session);
+        } catch (final MalformedURLException ex) {
             uploadFailure(
-                    callback, "Unable to upload blob, assurance session instance unavailable");
+                    callback,
+                    String.format("Uploading Blob failed, MalformedURLException %s", ex));
             return;
         }
 
-        new Thread(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                try {
-                                    final String environmentFormat =
-                                            AssuranceUtil.getURLFormatForEnvironment(
-                                                    session.getAssuranceEnvironment());
-                                    final String sessionId = session.getSessionId();
-                                    final String endpoint =
-                                            String.format(
-                                                    UPLOAD_ENDPOINT_FORMAT, environmentFormat);
-                                    final Uri uri =
-                                            new Uri.Builder()
-                                                    .encodedPath(endpoint)
-                                                    .appendPath(UPLOAD_PATH_API)
-                                                    .appendPath(UPLOAD_PATH_FILEUPLOAD)
-                                                    .appendQueryParameter(
-                                                            UPLOAD_QUERY_KEY,
-                                                            (sessionId != null
-                                                                            && !sessionId.isEmpty())
-                                                                    ? sessionId
-                                                                    : "")
-                                                    .build();
-                                    final URL destinationURL = new URL(uri.toString());
-                                    final HttpURLConnection connection =
-                                            (HttpURLConnection) destinationURL.openConnection();
-                                    connection.setDoInput(true);
-                                    connection.setDoOutput(true);
-                                    connection.setUseCaches(false);
-                                    connection.setRequestMethod(UPLOAD_HTTP_METHOD);
-                                    connection.setRequestProperty(
-                                            UPLOAD_HEADER_KEY_CONTENT_TYPE,
-                                            "application/octet-stream");
-                                    connection.setRequestProperty(
-                                            UPLOAD_HEADER_KEY_FILE_CONTENT_TYPE, contentType);
-                                    connection.setRequestProperty(
-                                            UPLOAD_HEADER_KEY_CONTENT_LENGTH, "" + blobData.length);
-                                    connection.setRequestProperty(
-                                            UPLOAD_HEADER_KEY_ACCEPT, "application/json");
-                                    final DataOutputStream outputStream =
-                                            new DataOutputStream(connection.getOutputStream());
-                                    outputStream.write(blobData);
-
-                                    // Reading the response
-                                    final int responseCode = connection.getResponseCode();
-                                    final String responseMessage = connection.getResponseMessage();
-                                    final BufferedReader bufferedReader =
-                                            new BufferedReader(
-                                                    new InputStreamReader(
-                                                            connection.getInputStream()));
-                                    final StringBuilder response = new StringBuilder();
-                                    String inputLine;
-
-                                    while ((inputLine = bufferedReader.readLine()) != null) {
-                                        response.append(inputLine);
-                                    }
-
-                                    outputStream.flush();
-                                    outputStream.close();
-
-                                    final JSONObject jsonResponse =
-                                            new JSONObject(response.toString());
-
-                                    if (jsonResponse.has(RESPONSE_KEY_ERROR)) {
-                                        final String error =
-                                                jsonResponse.getString(RESPONSE_KEY_ERROR);
-
-                                        if (!error.isEmpty()) {
-                                            callback.onFailure(
-                                                    "Error occurred when posting blob, error - "
-                                                            + error);
-                                            return;
-                                        }
-                                    }
-
-                                    if (jsonResponse.has(RESPONSE_KEY_BLOB_ID)) {
-                                        final String value =
-                                                jsonResponse.getString(RESPONSE_KEY_BLOB_ID);
-
-                                        if (value.isEmpty()) {
-                                            uploadFailure(
-                                                    callback,
-                                                    "Uploading Blob failed, Invalid BlobId"
-                                                        + " returned from the fileStorage server");
-                                            return;
-                                        }
-
-                                        uploadSuccess(callback, value);
-                                    }
-
-                                } catch (JSONException ex) {
-                                    uploadFailure(
-                                            callback,
-                                            "Uploading Blob failed, Json exception while parsing"
-                                                    + " response, Error - "
-                                                    + ex);
-
-                                } catch (final MalformedURLException ex) {
-                                    uploadFailure(
-                                            callback,
-                                            String.format(
-                                                    "Uploading Blob failed, MalformedURLException"
-                                                            + " %s",
-                                                    ex));
-                                } catch (final IOException ex) {
-                                    uploadFailure(
-                                            callback,
-                                            String.format(
-                                                    "Uploading Blob failed, IOException %s", ex));
-                                } catch (final Exception ex) {
-                                    uploadFailure(
-                                            callback,
-                                            String.format(
-                                                    "Uploading Blob failed with Exception : %s",
-                                                    ex));
-                                }
-                            }
-                        })
-                .start();
+        getUploader()
+                .upload(
+                        source,
+                        contentType == null ? "application/octet-stream" : contentType,
+                        destinationURL,
+                        callback,
+                        progressListener);
     }
 
     // ========================================================================================
@@ -214,34 +241,56 @@ class AssuranceBlob {
     // ========================================================================================
 
     /**
-     * Helper method to handle failure during blob upload.
+     * Builds the blob upload URL for the environment and id of the {@code session}.
      *
-     * <p>
-     *
-     * @param reason A {@link String} message representing reason for failure
-     * @param callback callback to be called during upload failure
+     * @param session the {@link AssuranceSession} to which the blob is uploaded
+     * @return the {@link URL} to post the blob to
+     * @throws MalformedURLException if the resulting URL is invalid
      */
-    private static void uploadFailure(final BlobUploadCallback callback, final String reason) {
-        Log.error(Assurance.LOG_TAG, LOG_TAG, reason);
+    private static URL getUploadURL(final AssuranceSession session) throws MalformedURLException {
+        final String environmentFormat =
+                AssuranceUtil.getURLFormatForEnvironment(session.getAssuranceEnvironment());
+        final String sessionId = session.getSessionId();
+        final String endpoint = String.format(UPLOAD_ENDPOINT_FORMAT, environmentFormat);
+        final Uri uri =
+                new Uri.Builder()
+                        .encodedPath(endpoint)
+                        .appendPath(UPLOAD_PATH_API)
+                        .appendPath(UPLOAD_PATH_FILEUPLOAD)
+                        .appendQueryParameter(
+                                UPLOAD_QUERY_KEY,
+                                (sessionId != null && !sessionId.isEmpty()) ? sessionId : "")
+                        .build();
+        return new URL(uri.toString());
+    }
 
-        if (callback != null) {
-            callback.onFailure(reason);
+    /**
+     * Retrieves the uploader bound to the current {@link AssuranceScheduler}, creating a new one if
+     * the scheduler has been replaced since the last upload.
+     */
+    private static synchronized AssuranceBlobUploader getUploader() {
+        final AssuranceScheduler scheduler = AssuranceScheduler.getInstance();
+
+        if (uploader == null || uploader.getScheduler() != scheduler) {
+            uploader = new AssuranceBlobUploader(scheduler);
         }
+
+        return uploader;
     }
 
     /**
-     * Helper method to handle success of blob upload.
+     * Helper method to handle failure during blob upload.
      *
      * <p>
      *
-     * @param blobId A {@link String} unique identity of the upladed blob
-     * @param callback callback to be called during successful upload
+     * @param reason A {@link String} message representing reason for failure
+     * @param callback callback to be called during upload failure
      */
-    private static void uploadSuccess(final BlobUploadCallback callback, final String blobId) {
-        Log.debug(Assurance.LOG_TAG, LOG_TAG, "Blob upload successfull for id:" + blobId);
+    private static void uploadFailure(final BlobUploadCallback callback, final String reason) {
+        Log.error(Assurance.LOG_TAG, LOG_TAG, reason);
 
         if (callback != null) {
-            callback.onSuccess(blobId);
+            callback.onFailure(reason);
         }
     }
 }
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.RESPONSE_KEY_BLOB_ID;
+import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.RESPONSE_KEY_ERROR;
+import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HEADER_KEY_ACCEPT;
+import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HEADER_KEY_CONTENT_TYPE;
+import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HEADER_KEY_FILE_CONTENT_TYPE;
+import static com.adobe.marketing.mobile.assurance.AssuranceConstants.BlobKeys.UPLOAD_HTTP_METHOD;
+
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+
+/**
+ * Streams {@link AssuranceBlob.BlobSource}s to the blob endpoint on the upload pool of the {@link
+ * AssuranceScheduler}, while the retries wait on its scheduled executor.
+ *
+ * <p>The body is written in fixed length streaming mode when the size of the blob is known, and
+ * with chunked transfer encoding otherwise, so {@link HttpURLConnection} never buffers the body.
+ * Connection failures, server errors and throttling responses are retried with exponential backoff
+ * for up to {@link #MAX_ATTEMPTS} attempts, as long as the source can be read again. At most {@link
+ * #MAX_ACTIVE_UPLOADS} uploads are in progress at any time; further uploads wait in order of
+ * arrival and start as the ones in progress complete.
+ */
+final class AssuranceBlobUploader {
+    private static final String LOG_TAG = "AssuranceBlobUploader";
+    static final int MAX_ATTEMPTS = 3;
+    static final int MAX_ACTIVE_UPLOADS = AssuranceScheduler.UPLOAD_POOL_SIZE;
+    private static final long DEFAULT_INITIAL_BACKOFF_MS = 1000L;
+    private static final long MAX_BACKOFF_MS = 8000L;
+    private static final int CONNECT_TIMEOUT_MS = (int) TimeUnit.SECONDS.toMillis(10);
+    private static final int READ_TIMEOUT_MS = (int) TimeUnit.SECONDS.toMillis(30);
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final AssuranceScheduler scheduler;
+    private final long initialBackoffMillis;
+    private final Queue<UploadTask> waitingUploads = new ArrayDeque<>();
+    private int activeUploads;
+
+    AssuranceBlobUploader(final AssuranceScheduler scheduler) {
+        this(scheduler, DEFAULT_INITIAL_BACKOFF_MS);
+    }
+
+    @VisibleForTesting
+    AssuranceBlobUploader(final AssuranceScheduler scheduler, final long initialBackoffMillis) {
+        this.scheduler = scheduler;
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    AssuranceScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Uploads the blob in the background. Exactly one of the {@code callback} methods is invoked
+     * once the upload succeeds, fails without being retryable or runs out of attempts.
+     *
+     * @param source the {@link AssuranceBlob.BlobSource} to upload
+     * @param contentType the MIME type of the blob
+     * @param destination the {@link URL} to post the blob to
+     * @param callback the {@link AssuranceBlob.BlobUploadCallback} notified of the result
+     * @param progressListener optional {@link AssuranceBlob.BlobUploadProgressListener} notified as
+     *     the blob is written
+     */
+    void upload(
+            final AssuranceBlob.BlobSource source,
+            final String contentType,
+            final URL destination,
+            final AssuranceBlob.BlobUploadCallback callback,
+            final AssuranceBlob.BlobUploadProgressListener progressListener) {
+        final UploadTask task =
+                new UploadTask(source, contentType, destination, callback, progressListener);
+
+        synchronized (waitingUploads) {
+            if (activeUploads >= MAX_ACTIVE_UPLOADS) {
+                waitingUploads.add(task);
+                return;
+            }
+
+            activeUploads++;
+        }
+
+        submit(task);
+    }
+
+    int getPendingUploadCount() {
+        synchronized (waitingUploads) {
+            return activeUploads + waitingUploads.size();
+        }
+    }
+
+    private void submit(final UploadTask task) {
+        try {
+            scheduler.executeUpload(task);
+        } catch (final RejectedExecutionException ex) {
+            complete(task, null, "Uploading Blob failed, Assurance is shutting down");
+        }
+    }
+
+    private void scheduleRetry(final UploadTask task, final String reason) {
+        final long delay =
+                Math.min(MAX_BACKOFF_MS, initialBackoffMillis << (task.attempt - 1));
+        Log.debug(
+                Assurance.LOG_TAG,
+                LOG_TAG,
+                String.format(
+                        "%s. Retrying upload in %d ms (attempt %d of %d).",
+                        reason, delay, task.attempt + 1, MAX_ATTEMPTS));
+
+        try {
+            scheduler.schedule(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            // hop back to the upload pool, the scheduler thread must not block
+                            submit(task);
+                        }
+                    },
+                    delay,
+                    TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException ex) {
+            complete(task, null, reason);
+        }
+    }
+
+    private void complete(final UploadTask task, final String blobId, final String reason) {
+        final UploadTask nextTask;
+
+        synchronized (waitingUploads) {
+            nextTask = waitingUploads.poll();
+
+            if (nextTask == null) {
+                activeUploads--;
+            }
+        }
+
+        // the completed upload hands its slot to the oldest waiting one
+        if (nextTask != null) {
+            submit(nextTask);
+        }
+
+        if (blobId != null) {
+            Log.debug(Assurance.LOG_TAG, LOG_TAG, "Blob upload successful for id:" + blobId);
+
+            if (task.callback != null) {
+                task.callback.onSuccess(blobId);
+            }
+        } else {
+            notifyFailure(task.callback, reason);
+        }
+    }
+
+    private static void notifyFailure(
+            final AssuranceBlob.BlobUploadCallback callback, final String reason) {
+        Log.error(Assurance.LOG_TAG, LOG_TAG, reason);
+
+        if (callback != null) {
+            callback.onFailure(reason);
+        }
+    }
+
+    /**
+     * Performs a single upload attempt.
+     *
+     * @param task the {@link UploadTask} to attempt
+     * @return the {@link AttemptResult} of the attempt
+     */
+    private static AttemptResult attempt(final UploadTask task) {
+        HttpURLConnection connection = null;
+
+        try {
+            connection = (HttpURLConnection) task.destination.openConnection();
+            connection.setDoInput(true);
+            connection.setDoOutput(true);
+            connection.setUseCaches(false);
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestMethod(UPLOAD_HTTP_METHOD);
+            connection.setRequestProperty(
+                    UPLOAD_HEADER_KEY_CONTENT_TYPE, "application/octet-stream");
+            connection.setRequestProperty(UPLOAD_HEADER_KEY_FILE_CONTENT_TYPE, task.contentType);
+            connection.setRequestProperty(UPLOAD_HEADER_KEY_ACCEPT, "application/json");
+
+            final long length = task.source.getLength();
+
+            if (length >= 0) {
+                connection.setFixedLengthStreamingMode(length);
+            } else {
+                connection.setChunkedStreamingMode(0);
+            }
+
+            writeBody(connection, task, length);
+
+            final int responseCode = connection.getResponseCode();
+            final String response = readResponse(connection, responseCode);
+
+            if (responseCode < HttpURLConnection.HTTP_OK
+                    || responseCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
+                return AttemptResult.failure(
+                        String.format(
+                                "Uploading Blob failed, server responded with %d", responseCode),
+                        isRetryable(responseCode));
+            }
+
+            return parseResponse(response);
+        } catch (final IOException ex) {
+            return AttemptResult.failure(
+                    String.format("Uploading Blob failed, IOException %s", ex), true);
+        } catch (final Exception ex) {
+            return AttemptResult.failure(
+                    String.format("Uploading Blob failed with Exception : %s", ex), false);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static void writeBody(
+            final HttpURLConnection connection, final UploadTask task, final long length)
+            throws IOException {
+        InputStream inputStream = null;
+        OutputStream outputStream = null;
+
+        try {
+            inputStream = task.source.open();
+            outputStream = connection.getOutputStream();
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long bytesSent = 0;
+            int bytesRead;
+
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+                bytesSent += bytesRead;
+
+                if (task.progressListener != null) {
+                    task.progressListener.onProgress(bytesSent, length);
+                }
+            }
+
+            outputStream.flush();
+        } finally {
+            closeQuietly(inputStream);
+            closeQuietly(outputStream);
+        }
+    }
+
+    private static String readResponse(final HttpURLConnection connection, final int responseCode)
+            throws IOException {
+        final InputStream inputStream =
+                responseCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                        ? connection.getErrorStream()
+                        : connection.getInputStream();
+
+        if (inputStream == null) {
+            return "";
+        }
+
+        try {
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                response.write(buffer, 0, bytesRead);
+            }
+
+            return response.toString("UTF-8");
+        } finally {
+            closeQuietly(inputStream);
+        }
+    }
+
+    private static AttemptResult parseResponse(final String response) {
+        try {
+            final Map<String, Object> jsonResponse =
+                    AssuranceJsonCodecs.get().decodeObject(response);
+            final String error = optString(jsonResponse, RESPONSE_KEY_ERROR);
+
+            if (!error.isEmpty()) {
+                return AttemptResult.failure(
+                        "Error occurred when posting blob, error - " + error, false);
+            }
+
+            final String blobId = optString(jsonResponse, RESPONSE_KEY_BLOB_ID);
+
+            if (blobId.isEmpty()) {
+                return AttemptResult.failure(
+                        "Uploading Blob failed, Invalid BlobId returned from the fileStorage"
+                                + " server",
+                        false);
+            }
+
+            return AttemptResult.success(blobId);
+        } catch (final JSONException ex) {
+            return AttemptResult.failure(
+                    "Uploading Blob failed, Json exception while parsing response, Error - " + ex,
+                    false);
+        }
+    }
+
+    /** Returns the value of {@code key} as a string, or an empty string if it is absent. */
+    private static String optString(final Map<String, Object> response, final String key) {
+        final Object value = response.get(key);
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * Determines whether a request that failed with the given status code may succeed if retried.
+     */
+    private static boolean isRetryable(final int responseCode) {
+        return responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR
+                || responseCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                || responseCode == 429; // Too Many Requests
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (final IOException ex) {
+            Log.trace(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format("Failed to close upload stream. Error - %s", ex.getMessage()));
+        }
+    }
+
+    /** A blob upload and the number of attempts made so far. */
+    private final class UploadTask implements Runnable {
+        private final AssuranceBlob.BlobSource source;
+        private final String contentType;
+        private final URL destination;
+        private final AssuranceBlob.BlobUploadCallback callback;
+        private final AssuranceBlob.BlobUploadProgressListener progressListener;
+        private int attempt;
+
+        UploadTask(
+                final AssuranceBlob.BlobSource source,
+                final String contentType,
+                final URL destination,
+                final AssuranceBlob.BlobUploadCallback callback,
+                final AssuranceBlob.BlobUploadProgressListener progressListener) {
+            this.source = source;
+            this.contentType = contentType;
+            this.destination = destination;
+            this.callback = callback;
+            this.progressListener = progressListener;
+        }
+
+        @Override
+        public void run() {
+            attempt++;
+            final AttemptResult result = attempt(this);
+
+            if (result.blobId != null) {
+                complete(this, result.blobId, null);
+            } else if (result.retryable && attempt < MAX_ATTEMPTS && source.isRepeatable()) {
+                scheduleRetry(this, result.error);
+            } else {
+                complete(this, null, result.error);
+            }
+        }
+    }
+
+    /** The outcome of a single upload attempt. */
+    private static final class AttemptResult {
+        final String blobId;
+        final String error;
+        final boolean retryable;
+
+        private AttemptResult(final String blobId, final String error, final boolean retryable) {
+            this.blobId = blobId;
+            this.error = error;
+            this.retryable = retryable;
+        }
+
+        static AttemptResult success(final String blobId) {
+            return new AttemptResult(blobId, null, false);
+        }
+
+        static AttemptResult failure(final String error, final boolean retryable) {
+            return new AttemptResult(null, error, retryable);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded ring buffer of the {@link AssuranceEvent}s that are generated before the first
+ * Assurance session connects.
+ *
+ * <p>Events are serialized into compact UTF-8 JSON as they are added, so that the buffer does not
+ * hold on to the maps of the originating SDK events. The serialized events are replayed as they
+ * are, and sent without being serialized again unless they have to be changed. The buffer holds
+ * at most {@code maxEvents} events and at most {@code maxBytes} of serialized events. When adding
+ * an event would exceed either limit, the oldest events are evicted to make room for it. Events
+ * larger than {@code maxBytes} on their own are dropped.
+ *
+ * <p>The buffer is lock-free, as events are added to it from every thread posting SDK events.
+ * Adding only enqueues the event. Evicting events and handing them to an attached listener are
+ * done by one thread at a time, whichever added the last event, so that the listener receives the
+ * events in order without being called under a lock.
+ */
+final class AssuranceBootEventBuffer {
+    private static final String LOG_TAG = "AssuranceBootEventBuffer";
+    static final int DEFAULT_MAX_EVENTS = 256;
+    static final long DEFAULT_MAX_BYTES = 512 * 1024; // 512kb of serialized events
+
+    /** Receives the events replayed from an {@link AssuranceBootEventBuffer}. */
+    interface ReplayListener {
+        /**
+         * Invoked for each buffered event, oldest first.
+         *
+         * @param event the {@link AssuranceEvent} held by the buffer, in its serialized form
+         */
+        void onEvent(final AssuranceEvent event);
+    }
+
+    private final ConcurrentLinkedQueue<AssuranceEvent> events = new ConcurrentLinkedQueue<>();
+    private final int maxEvents;
+    private final long maxBytes;
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicInteger droppedEventCount = new AtomicInteger();
+    private final AtomicBoolean isDraining = new AtomicBoolean();
+    private volatile ReplayListener attachedListener;
+
+    AssuranceBootEventBuffer() {
+        this(DEFAULT_MAX_EVENTS, DEFAULT_MAX_BYTES);
+    }
+
+    AssuranceBootEventBuffer(final int maxEvents, final long maxBytes) {
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Serializes and adds the {@code event} to the end of the buffer, evicting the oldest events as
+     * necessary to stay within the limits of the buffer. Once a listener is attached, the {@code
+     * event} is handed to it as it is instead.
+     *
+     * @param event the {@link AssuranceEvent} to be buffered
+     * @return true if the event was buffered or handed to the attached listener, false if it was
+     *     dropped
+     */
+    boolean add(final AssuranceEvent event) {
+        if (event == null || maxEvents == 0) {
+            return false;
+        }
+
+        // an attached listener takes the event as it is, so it is serialized only when buffered
+        if (attachedListener != null) {
+            enqueue(event);
+            drain();
+            return true;
+        }
+
+        final AssuranceEvent encodedEvent = event.toEncodedEvent();
+        final byte[] eventData = encodedEvent.getEncodedRepresentation();
+
+        if (eventData == null || eventData.length > maxBytes) {
+            onEventDropped();
+            return false;
+        }
+
+        // a listener attached meanwhile receives the serialized event
+        enqueue(encodedEvent);
+        drain();
+        return true;
+    }
+
+    /**
+     * Passes the buffered events one at a time, oldest first, to the {@code listener}. Only the
+     * events buffered at the time of the call are replayed.
+     *
+     * <p>The serialized events are shared with the buffer rather than copied or decoded.
+     *
+     * @param listener the {@link ReplayListener} to receive the buffered events
+     */
+    void replay(final ReplayListener listener) {
+        if (listener == null) {
+            return;
+        }
+
+        for (final AssuranceEvent bufferedEvent : events.toArray(new AssuranceEvent[0])) {
+            listener.onEvent(bufferedEvent);
+        }
+    }
+
+    /**
+     * Hands the buffered events to the {@code listener}, oldest first, and then every event added
+     * afterwards instead of buffering it. The events handed to the {@code listener} are removed
+     * from the buffer, so each event reaches it exactly once and in the order it was added.
+     *
+     * <p>The buffered events may be handed over by a thread adding an event at the same time,
+     * in which case they have not all reached the {@code listener} when this method returns.
+     *
+     * @param listener the {@link ReplayListener} to receive the buffered and the subsequent events
+     */
+    void attach(final ReplayListener listener) {
+        if (listener == null) {
+            return;
+        }
+
+        attachedListener = listener;
+        drain();
+    }
+
+    /**
+     * Retrieves the number of events held in the buffer.
+     *
+     * @return the number of buffered events
+     */
+    int size() {
+        return count.get();
+    }
+
+    /**
+     * Removes all the buffered events, releasing the memory held by them. Once a listener is
+     * attached, the events left in the buffer are being handed to it and are not removed.
+     */
+    void clear() {
+        while (attachedListener == null && removeOldest() != null) {
+            // keep removing until empty
+        }
+    }
+
+    /**
+     * Retrieves the size of all the serialized events currently held in the buffer.
+     *
+     * @return the size of the buffered events in bytes
+     */
+    long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * Retrieves the number of events that were evicted or dropped since the buffer was created.
+     *
+     * @return the number of events not retained by this buffer
+     */
+    int getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    private void enqueue(final AssuranceEvent event) {
+        // counted before being enqueued, so that the counts never go below zero on removal
+        bufferedBytes.addAndGet(sizeOf(event));
+        count.incrementAndGet();
+        events.offer(event);
+    }
+
+    /**
+     * Evicts the oldest events over the limits of the buffer, or hands all the buffered events to
+     * the attached listener. Only one thread drains at a time; the others leave the events they
+     * added to it, and it checks for them before it stops.
+     */
+    private void drain() {
+        while (hasPendingWork() && isDraining.compareAndSet(false, true)) {
+            try {
+                while (attachedListener == null && isOverLimit()) {
+                    if (removeOldest() == null) {
+                        break;
+                    }
+
+                    onEventDropped();
+                }
+
+                final ReplayListener listener = attachedListener;
+                AssuranceEvent event;
+
+                while (listener != null && (event = removeOldest()) != null) {
+                    listener.onEvent(event);
+                }
+            } finally {
+                isDraining.set(false);
+            }
+        }
+    }
+
+    private boolean hasPendingWork() {
+        return attachedListener != null ? !events.isEmpty() : isOverLimit();
+    }
+
+    private boolean isOverLimit() {
+        return count.get() > maxEvents || bufferedBytes.get() > maxBytes;
+    }
+
+    private AssuranceEvent removeOldest() {
+        final AssuranceEvent event = events.poll();
+
+        if (event != null) {
+            bufferedBytes.addAndGet(-sizeOf(event));
+            count.decrementAndGet();
+        }
+
+        return event;
+    }
+
+    private static int sizeOf(final AssuranceEvent event) {
+        final byte[] eventData = event.getEncodedRepresentation();
+        return eventData == null ? 0 : eventData.length;
+    }
+
+    private void onEventDropped() {
+        // log only the first drop to avoid flooding the logs during launch
+        if (droppedEventCount.getAndIncrement() == 0) {
+            Log.debug(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "Assurance boot event buffer is full, oldest events will be dropped.");
+        }
+    }
+}
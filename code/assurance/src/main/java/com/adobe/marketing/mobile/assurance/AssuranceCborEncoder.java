@@ -0,0 +1,258 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Encodes maps, collections and values as CBOR (RFC 8949), the binary alternative to the JSON text
+ * of the {@link AssuranceEvent} frames.
+ *
+ * <p>The values are mapped like {@link AssuranceJsonWriter} does, so that the server reads the
+ * same event from either format: maps and {@code JSONObject}s become maps with text keys,
+ * collections, arrays and {@code JSONArray}s become arrays, and null, {@code JSONObject.NULL} and
+ * non finite numbers become null. Whole numbers are written as integers in their shortest form and
+ * other numbers as single precision floats when that is exact, double precision floats otherwise.
+ * Byte arrays become byte strings, which carry the data of chunked events without escaping. All
+ * lengths are definite.
+ */
+final class AssuranceCborEncoder {
+    private static final int MAJOR_TYPE_UNSIGNED = 0;
+    private static final int MAJOR_TYPE_NEGATIVE = 1;
+    private static final int MAJOR_TYPE_BYTES = 2;
+    private static final int MAJOR_TYPE_TEXT = 3;
+    private static final int MAJOR_TYPE_ARRAY = 4;
+    private static final int MAJOR_TYPE_MAP = 5;
+
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int FLOAT = 0xfa;
+    private static final int DOUBLE = 0xfb;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    private AssuranceCborEncoder() {}
+
+    /**
+     * Encodes the {@code value} and, recursively, everything it contains.
+     *
+     * @param value the value to be encoded
+     * @return the CBOR encoding of the value
+     */
+    static byte[] encode(final Object value) {
+        final AssuranceCborEncoder encoder = new AssuranceCborEncoder();
+        encoder.write(value);
+        return Arrays.copyOf(encoder.buffer, encoder.length);
+    }
+
+    private void write(final Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            writeByte(NULL);
+        } else if (value instanceof String) {
+            writeText((String) value);
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            final Collection<?> collection = (Collection<?>) value;
+            writeHead(MAJOR_TYPE_ARRAY, collection.size());
+
+            for (final Object element : collection) {
+                write(element);
+            }
+        } else if (value instanceof Number) {
+            writeNumber((Number) value);
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof byte[]) {
+            final byte[] bytes = (byte[]) value;
+            writeHead(MAJOR_TYPE_BYTES, bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        } else if (value instanceof JSONObject) {
+            writeJSONObject((JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            final JSONArray array = (JSONArray) value;
+            writeHead(MAJOR_TYPE_ARRAY, array.length());
+
+            for (int i = 0; i < array.length(); i++) {
+                write(array.opt(i));
+            }
+        } else if (value.getClass().isArray()) {
+            final int arrayLength = Array.getLength(value);
+            writeHead(MAJOR_TYPE_ARRAY, arrayLength);
+
+            for (int i = 0; i < arrayLength; i++) {
+                write(Array.get(value, i));
+            }
+        } else {
+            writeText(value.toString());
+        }
+    }
+
+    private void writeMap(final Map<?, ?> map) {
+        writeHead(MAJOR_TYPE_MAP, map.size());
+
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            writeText(String.valueOf(entry.getKey()));
+            write(entry.getValue());
+        }
+    }
+
+    private void writeJSONObject(final JSONObject object) {
+        writeHead(MAJOR_TYPE_MAP, object.length());
+        final Iterator<String> keys = object.keys();
+
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            writeText(key);
+            write(object.opt(key));
+        }
+    }
+
+    private void writeNumber(final Number number) {
+        if (number instanceof Integer || number instanceof Long) {
+            writeInteger(number.longValue());
+            return;
+        }
+
+        final double doubleValue = number.doubleValue();
+
+        if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+            writeByte(NULL);
+        } else if (doubleValue == (double) number.longValue()
+                && (doubleValue != 0 || 1 / doubleValue > 0)) {
+            // whole numbers, except negative zero, are written as integers like in JSON
+            writeInteger(number.longValue());
+        } else if ((double) (float) doubleValue == doubleValue) {
+            writeByte(FLOAT);
+            writeBigEndian(Float.floatToIntBits((float) doubleValue), 4);
+        } else {
+            writeByte(DOUBLE);
+            writeBigEndian(Double.doubleToLongBits(doubleValue), 8);
+        }
+    }
+
+    private void writeInteger(final long value) {
+        if (value >= 0) {
+            writeHead(MAJOR_TYPE_UNSIGNED, value);
+        } else {
+            writeHead(MAJOR_TYPE_NEGATIVE, -1 - value);
+        }
+    }
+
+    private void writeText(final String text) {
+        final int textLength = text.length();
+        int utf8Length = textLength;
+
+        for (int i = 0; i < textLength; i++) {
+            final char c = text.charAt(i);
+
+            if (c < 0x80) {
+                continue;
+            }
+
+            if (c < 0x800) {
+                utf8Length++;
+            } else if (isSurrogatePair(text, i)) {
+                // 4 bytes for the 2 chars of the pair
+                utf8Length += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            }
+        }
+
+        writeHead(MAJOR_TYPE_TEXT, utf8Length);
+        ensureCapacity(utf8Length);
+
+        for (int i = 0; i < textLength; i++) {
+            final char c = text.charAt(i);
+
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xc0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (!Character.isSurrogate(c)) {
+                buffer[length++] = (byte) (0xe0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (isSurrogatePair(text, i)) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[length++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                // an unpaired surrogate is replaced, like String#getBytes does
+                buffer[length++] = '?';
+            }
+        }
+    }
+
+    private static boolean isSurrogatePair(final String text, final int index) {
+        return Character.isHighSurrogate(text.charAt(index))
+                && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1));
+    }
+
+    private void writeHead(final int majorType, final long argument) {
+        final int type = majorType << 5;
+
+        if (argument < 24) {
+            writeByte(type | (int) argument);
+        } else if (argument <= 0xffL) {
+            writeByte(type | 24);
+            writeByte((int) argument);
+        } else if (argument <= 0xffffL) {
+            writeByte(type | 25);
+            writeBigEndian(argument, 2);
+        } else if (argument <= 0xffffffffL) {
+            writeByte(type | 26);
+            writeBigEndian(argument, 4);
+        } else {
+            writeByte(type | 27);
+            writeBigEndian(argument, 8);
+        }
+    }
+
+    private void writeBigEndian(final long value, final int byteCount) {
+        ensureCapacity(byteCount);
+
+        for (int shift = (byteCount - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeByte(final int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(final int additionalBytes) {
+        if (length + additionalBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additionalBytes));
+        }
+    }
+}
@@ -17,6 +17,7 @@ import android.app.Application;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.location.LocationManager;
@@ -25,19 +26,59 @@ import android.os.Build;
 import android.os.PowerManager;
 import android.provider.Settings;
 import android.telephony.TelephonyManager;
+import androidx.annotation.VisibleForTesting;
 import androidx.core.app.ActivityCompat;
 import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.services.ServiceProvider;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Builds the payload of the client info event sent on every (re)connect of a session.
+ *
+ * <p>The parts of the payload that cannot change while the app process is alive, the parsed
+ * manifest and the device model and OS, are computed once per process and shared by all the
+ * sessions. The parsed manifest is also kept serialized in the app's cache directory, keyed by the
+ * install time of the app, so that later processes do not parse the binary manifest again. The
+ * device state, such as the battery level and the location permission, is read on every call.
+ */
 final class AssuranceClientInfo {
-
+    private static final String LOG_TAG = "AssuranceClientInfo";
     private static final String VALUE_UNKNOWN = "Unknown";
     private static final String MANIFEST_FILE_NAME = "AndroidManifest.xml";
+    private static final String MANIFEST_CACHE_FILE_NAME = "com.adobe.assurance.manifest.json";
     private static final String EVENT_TYPE_CONNECT = "connect";
 
+    private static final Object staticInfoLock = new Object();
+    private static volatile StaticInfo staticInfo;
+
+    /** The parts of the client info that do not change while the process is alive. */
+    private static final class StaticInfo {
+        final JSONObject appSettings;
+        final Map<String, Object> deviceInfo;
+
+        StaticInfo(final JSONObject appSettings, final Map<String, Object> deviceInfo) {
+            this.appSettings = appSettings;
+            this.deviceInfo = deviceInfo;
+        }
+    }
+
     /**
      * Returns the payload for assurance ClientInfo event. ClientInfo event includes
      *
@@ -48,25 +89,208 @@ final class AssuranceClientInfo {
      *   <li>appSettings - Applications Manifest.xml file parsed in JSON format
      *   <li>type = connect, representing that this event is initializing a socket connection with
      *       server
+     *   <li>capabilities - the optional protocol features supported by the client
      * </ol>
      *
+     * <p>The appSettings {@link JSONObject} is shared by the payloads of all the calls and must not
+     * be modified.
+     *
      * @return Returns {@link Map} representing clientInfo event payload
      */
     Map<String, Object> getData() {
+        final StaticInfo info = getStaticInfo();
         final Map<String, Object> eventPayload = new HashMap<>();
         eventPayload.put(AssuranceConstants.ClientInfoKeys.VERSION, Assurance.extensionVersion());
-        eventPayload.put(AssuranceConstants.ClientInfoKeys.DEVICE_INFO, getDeviceInfo());
+        eventPayload.put(
+                AssuranceConstants.ClientInfoKeys.DEVICE_INFO, getDeviceInfo(info.deviceInfo));
         eventPayload.put(AssuranceConstants.PayloadDataKeys.TYPE, EVENT_TYPE_CONNECT);
+        eventPayload.put(AssuranceConstants.ClientInfoKeys.APP_SETTINGS, info.appSettings);
         eventPayload.put(
-                AssuranceConstants.ClientInfoKeys.APP_SETTINGS,
-                AssuranceIOUtils.parseXMLResourceFileToJson(MANIFEST_FILE_NAME));
+                AssuranceConstants.ClientInfoKeys.CAPABILITIES,
+                Arrays.asList(
+                        AssuranceConstants.Capability.PAYLOAD_REFERENCES,
+                        AssuranceConstants.Capability.CBOR_FRAMES,
+                        AssuranceConstants.Capability.SEQUENCE_LANES));
         return eventPayload;
     }
 
+    /** Forgets the static client info computed by this process. */
+    @VisibleForTesting
+    static void clearCache() {
+        synchronized (staticInfoLock) {
+            staticInfo = null;
+        }
+    }
+
     // ========================================================================================
     // Private methods
     // ========================================================================================
 
+    /**
+     * Retrieves the static client info, computing it on first use. The computation is retried on
+     * the next call if the app context is not available yet.
+     *
+     * @return the {@link StaticInfo} of this process
+     */
+    private static StaticInfo getStaticInfo() {
+        StaticInfo info = staticInfo;
+
+        if (info != null) {
+            return info;
+        }
+
+        synchronized (staticInfoLock) {
+            if (staticInfo != null) {
+                return staticInfo;
+            }
+
+            final Context context =
+                    ServiceProvider.getInstance().getAppContextService().getApplicationContext();
+            info = new StaticInfo(loadAppSettings(context), getStaticDeviceInfo());
+
+            if (context != null) {
+                staticInfo = info;
+            }
+
+            return info;
+        }
+    }
+
+    /**
+     * Retrieves the parsed manifest of the app from the cache directory, parsing and caching it if
+     * the cached copy is missing or belongs to another install of the app.
+     *
+     * @param context the application {@link Context}, may be null
+     * @return the manifest as a {@link JSONObject}
+     */
+    private static JSONObject loadAppSettings(final Context context) {
+        final String cacheKey = getManifestCacheKey(context);
+        final File cacheDir = context == null ? null : context.getCacheDir();
+        final File cacheFile =
+                cacheKey == null || cacheDir == null
+                        ? null
+                        : new File(cacheDir, MANIFEST_CACHE_FILE_NAME);
+
+        if (cacheFile != null && cacheFile.exists()) {
+            final JSONObject cached = readCachedManifest(cacheFile, cacheKey);
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final JSONObject appSettings =
+                AssuranceIOUtils.parseXMLResourceFileToJson(MANIFEST_FILE_NAME);
+
+        if (cacheFile != null && appSettings != null && appSettings.length() > 0) {
+            writeCachedManifest(cacheFile, cacheKey, appSettings);
+        }
+
+        return appSettings;
+    }
+
+    /**
+     * Builds the key identifying the install of the app the manifest was parsed from.
+     *
+     * @param context the application {@link Context}, may be null
+     * @return the key, or null if the package info is not available
+     */
+    private static String getManifestCacheKey(final Context context) {
+        if (context == null || context.getPackageManager() == null) {
+            return null;
+        }
+
+        try {
+            final PackageInfo packageInfo =
+                    context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return packageInfo == null
+                    ? null
+                    : packageInfo.lastUpdateTime + ":" + Assurance.extensionVersion();
+        } catch (final PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static JSONObject readCachedManifest(final File cacheFile, final String cacheKey) {
+        BufferedReader reader = null;
+
+        try {
+            reader =
+                    new BufferedReader(
+                            new InputStreamReader(
+                                    new FileInputStream(cacheFile), StandardCharsets.UTF_8));
+
+            if (!cacheKey.equals(reader.readLine())) {
+                return null;
+            }
+
+            final String json = reader.readLine();
+            return json == null ? null : new JSONObject(json);
+        } catch (final IOException | JSONException e) {
+            Log.debug(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format(
+                            "Unable to read the cached manifest. Error - %s",
+                            e.getLocalizedMessage()));
+            return null;
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private static void writeCachedManifest(
+            final File cacheFile, final String cacheKey, final JSONObject appSettings) {
+        Writer writer = null;
+
+        try {
+            writer =
+                    new OutputStreamWriter(
+                            new FileOutputStream(cacheFile), StandardCharsets.UTF_8);
+            // JSONObject#toString escapes line breaks, so the JSON fits on the second line
+            writer.write(cacheKey);
+            writer.write('\n');
+            writer.write(appSettings.toString());
+        } catch (final IOException e) {
+            Log.debug(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format(
+                            "Unable to cache the manifest. Error - %s", e.getLocalizedMessage()));
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (final IOException ignored) {
+            // nothing to do
+        }
+    }
+
+    /**
+     * Retrieves the information about the device that does not change while the process is alive.
+     *
+     * @return an unmodifiable {@link Map} of the static device info
+     */
+    private static Map<String, Object> getStaticDeviceInfo() {
+        final HashMap<String, Object> deviceInfo = new HashMap<>();
+        deviceInfo.put(AssuranceConstants.DeviceInfoKeys.PLATFORM_NAME, "Android");
+        deviceInfo.put(AssuranceConstants.DeviceInfoKeys.DEVICE_NAME, Build.MODEL);
+        deviceInfo.put(AssuranceConstants.DeviceInfoKeys.DEVICE_TYPE, Build.DEVICE);
+        deviceInfo.put(AssuranceConstants.DeviceInfoKeys.DEVICE_MANUFACTURER, Build.MANUFACTURER);
+        deviceInfo.put(
+                AssuranceConstants.DeviceInfoKeys.OPERATING_SYSTEM,
+                "Android " + Build.VERSION.RELEASE);
+        return Collections.unmodifiableMap(deviceInfo);
+    }
+
     /**
      * Retrives the information about the state of the device
      *
@@ -82,17 +306,11 @@ final class AssuranceClientInfo {
      *   <li>Location service enabled - Returns the current enabled/disabled state of location
      * </ol>
      *
+     * @param staticDeviceInfo the static part of the device info, computed once per process
      * @return Returns {@link Map} representing clientInfo event payload
      */
-    private HashMap<String, Object> getDeviceInfo() {
-        final HashMap<String, Object> deviceInfo = new HashMap<>();
-        deviceInfo.put(AssuranceConstants.DeviceInfoKeys.PLATFORM_NAME, "Android");
-        deviceInfo.put(AssuranceConstants.DeviceInfoKeys.DEVICE_NAME, Build.MODEL);
-        deviceInfo.put(AssuranceConstants.DeviceInfoKeys.DEVICE_TYPE, Build.DEVICE);
-        deviceInfo.put(AssuranceConstants.DeviceInfoKeys.DEVICE_MANUFACTURER, Build.MANUFACTURER);
-        deviceInfo.put(
-                AssuranceConstants.DeviceInfoKeys.OPERATING_SYSTEM,
-                "Android " + Build.VERSION.RELEASE);
+    private HashMap<String, Object> getDeviceInfo(final Map<String, Object> staticDeviceInfo) {
+        final HashMap<String, Object> deviceInfo = new HashMap<>(staticDeviceInfo);
         deviceInfo.put(AssuranceConstants.DeviceInfoKeys.CARRIER_NAME, getMobileCarrierName());
         deviceInfo.put(AssuranceConstants.DeviceInfoKeys.BATTERY_LEVEL, getBatteryPercentage());
         deviceInfo.put(AssuranceConstants.DeviceInfoKeys.SCREEN_SIZE, getScreenSize());
@@ -12,8 +12,6 @@
 package com.adobe.marketing.mobile.assurance;
 
 
-import android.content.Context;
-import android.content.SharedPreferences;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.Log;
 
@@ -24,15 +22,10 @@ import com.adobe.marketing.mobile.services.Log;
  */
 class AssuranceConnectionDataStore {
     private static final String LOG_TAG = "AssuranceConnectionDataStore";
-    private final SharedPreferences sharedPreferences;
+    private final AssuranceDataStore dataStore;
 
-    AssuranceConnectionDataStore(final Context context) {
-        sharedPreferences =
-                context == null
-                        ? null
-                        : context.getSharedPreferences(
-                                AssuranceConstants.DataStoreKeys.DATASTORE_NAME,
-                                Context.MODE_PRIVATE);
+    AssuranceConnectionDataStore(final AssuranceDataStore dataStore) {
+        this.dataStore = dataStore;
     }
 
     /**
@@ -41,16 +34,15 @@ class AssuranceConnectionDataStore {
      * @return the previously stored connection URL for the socket if any
      */
     String getStoredConnectionURL() {
-        if (sharedPreferences == null) {
+        if (dataStore == null) {
             Log.error(
                     Assurance.LOG_TAG,
                     LOG_TAG,
-                    "Unable to get connection URL from persistence, SharedPreference instance is"
-                            + " null");
+                    "Unable to get connection URL from persistence, data store is null");
             return null;
         }
 
-        return sharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_URL, null);
+        return dataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_URL, null);
     }
 
     /**
@@ -60,29 +52,15 @@ class AssuranceConnectionDataStore {
      *     previously stored value
      */
     void saveConnectionURL(final String url) {
-        if (sharedPreferences == null) {
+        if (dataStore == null) {
             Log.error(
                     Assurance.LOG_TAG,
                     LOG_TAG,
-                    "Unable to get connection URL from persistence, SharedPreference instance is"
-                            + " null");
-            return;
-        }
-
-        final SharedPreferences.Editor editor = sharedPreferences.edit();
-
-        if (editor == null) {
-            Log.error(
-                    Assurance.LOG_TAG,
-                    LOG_TAG,
-                    "Unable to get connection URL from persistence, SharedPreference Editor"
-                            + " instance is null");
+                    "Unable to save connection URL to persistence, data store is null");
             return;
         }
 
         Log.trace(Assurance.LOG_TAG, LOG_TAG, "Session URL stored is:" + url);
-
-        editor.putString(AssuranceConstants.DataStoreKeys.SESSION_URL, url);
-        editor.apply();
+        dataStore.putString(AssuranceConstants.DataStoreKeys.SESSION_URL, url);
     }
 }
@@ -13,83 +13,84 @@ package com.adobe.marketing.mobile.assurance;
 
 
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.assurance.AssuranceConstants.UILogColorVisibility;
 import com.adobe.marketing.mobile.services.Log;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Locale;
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * The status screen of a connected session, showing the local log messages.
+ *
+ * <p>Log messages are collected in an {@link AssuranceUILogBuffer} and are only rendered while the
+ * status screen is visible. All the messages buffered by the time the main thread gets to them are
+ * handed to the page in a single {@code addLogs} call. The page is loaded afresh when the status
+ * screen is shown after the pin code entry, in which case the messages retained by the buffer are
+ * rendered again.
+ */
 class AssuranceConnectionStatusUI
         implements AssuranceFullScreenTakeover.FullScreenTakeoverCallbacks {
     private static final String LOG_TAG = "AssuranceConnectionStatusUI";
     private final AssuranceSessionOrchestrator.ApplicationHandle applicationHandle;
     private final AssuranceSessionOrchestrator.SessionUIOperationHandler uiOperationHandler;
+    private final AssuranceUILogBuffer logBuffer;
+    private final Handler mainThreadHandler;
+    private final Runnable flushLogsRunnable =
+            new Runnable() {
+                @Override
+                public void run() {
+                    flushLogs();
+                }
+            };
+    private final List<AssuranceUILogBuffer.Entry> pendingEntries = new ArrayList<>();
     private AssuranceFullScreenTakeover statusTakeover;
+    private volatile boolean isVisible;
 
     AssuranceConnectionStatusUI(
             final AssuranceSessionOrchestrator.SessionUIOperationHandler uiOperationHandler,
             final AssuranceSessionOrchestrator.ApplicationHandle applicationHandle) {
+        this(
+                uiOperationHandler,
+                applicationHandle,
+                new AssuranceUILogBuffer(),
+                new Handler(Looper.getMainLooper()));
+    }
+
+    @VisibleForTesting
+    AssuranceConnectionStatusUI(
+            final AssuranceSessionOrchestrator.SessionUIOperationHandler uiOperationHandler,
+            final AssuranceSessionOrchestrator.ApplicationHandle applicationHandle,
+            final AssuranceUILogBuffer logBuffer,
+            final Handler mainThreadHandler) {
         this.applicationHandle = applicationHandle;
         this.uiOperationHandler = uiOperationHandler;
+        this.logBuffer = logBuffer;
+        this.mainThreadHandler = mainThreadHandler;
 
         final AssuranceConnectionStatusUI thisRef = this;
 
-        // load html on background thread
-        new Thread(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                try {
-                                    // load html and such
-                                    final ClassLoader cl = this.getClass().getClassLoader();
-
-                                    if (cl == null) {
-                                        Log.error(
-                                                Assurance.LOG_TAG,
-                                                LOG_TAG,
-                                                "Pin code entry unable to get class loader.");
-                                        return;
-                                    }
-
-                                    final InputStream is =
-                                            cl.getResourceAsStream("assets/StatusInfo.html");
-
-                                    if (is == null) {
-                                        Log.error(
-                                                Assurance.LOG_TAG,
-                                                LOG_TAG,
-                                                "Unable to open StatusInfo.html");
-                                        return;
-                                    }
-
-                                    final Scanner s = new Scanner(is).useDelimiter("\\A");
-                                    final String html = s.next();
-                                    is.close();
-
-                                    thisRef.statusTakeover =
-                                            new AssuranceFullScreenTakeover(
-                                                    applicationHandle.getAppContext(),
-                                                    html,
-                                                    thisRef);
-                                } catch (final IOException ex) {
-                                    Log.error(
-                                            Assurance.LOG_TAG,
-                                            LOG_TAG,
-                                            String.format(
-                                                    "Unable to read assets/PinDialog.html: %s",
-                                                    ex.getLocalizedMessage()));
-                                }
-                            }
-                        })
-                .start();
+        // load html on background thread, unless it has been loaded before
+        AssuranceAssetCache.load(
+                AssuranceAssetCache.STATUS_INFO_HTML,
+                new AssuranceAssetCache.AssetCallback() {
+                    @Override
+                    public void onAssetLoaded(final String html) {
+                        thisRef.statusTakeover =
+                                new AssuranceFullScreenTakeover(
+                                        applicationHandle.getAppContext(), html, thisRef);
+                    }
+                });
     }
 
     /** Displays the {@code AssuranceFullScreenTakeover} if it has not already been removed. */
     void show() {
         if (statusTakeover != null) {
             this.statusTakeover.show(applicationHandle.getCurrentActivity());
+            isVisible = true;
+            mainThreadHandler.post(flushLogsRunnable);
         }
     }
 
@@ -100,30 +101,36 @@ class AssuranceConnectionStatusUI
         }
     }
 
-    void addUILog(final UILogColorVisibility visibility, final String message) {
-        final AssuranceFullScreenTakeover currentTakeover = statusTakeover;
+    /** Releases the {@code AssuranceFullScreenTakeover} when the session is torn down. */
+    void release() {
+        dismiss();
+        AssuranceFullScreenTakeover.unloadSharedWebView();
+    }
 
-        if (currentTakeover != null && message != null && visibility != null) {
-            final String cleanMessage =
-                    message.replace("\\", "\\\\")
-                            .replace("\"", "\\\"")
-                            .replace("\n", "<br>")
-                            .replace("\t", "&nbsp;&nbsp;&nbsp;&nbsp;");
-            Log.trace(
-                    Assurance.LOG_TAG,
-                    LOG_TAG,
-                    "Client Side Logging (%s) - %s",
-                    visibility.getValue(),
-                    message);
-            final String js =
-                    String.format(
-                            Locale.US, "addLog(%d, \"%s\");", visibility.getValue(), cleanMessage);
-            this.statusTakeover.runJavascript(js);
-        } else {
+    /**
+     * Buffers a log message for the status screen. The message is rendered right away if the
+     * status screen is visible, or the next time it is shown otherwise.
+     *
+     * @param visibility the {@link UILogColorVisibility} of the message
+     * @param message the message
+     */
+    void addUILog(final UILogColorVisibility visibility, final String message) {
+        if (message == null || visibility == null) {
             Log.warning(
-                    Assurance.LOG_TAG,
-                    LOG_TAG,
-                    "Status update failed due to lack of statusTakeover reference");
+                    Assurance.LOG_TAG, LOG_TAG, "Unable to add a status log without a message.");
+            return;
+        }
+
+        Log.trace(
+                Assurance.LOG_TAG,
+                LOG_TAG,
+                "Client Side Logging (%s) - %s",
+                visibility.getValue(),
+                message);
+
+        // a flush is already pending if the buffer was not empty
+        if (logBuffer.add(visibility.getValue(), message) && isVisible) {
+            mainThreadHandler.post(flushLogsRunnable);
         }
     }
 
@@ -149,13 +156,114 @@ class AssuranceConnectionStatusUI
 
     /** Clearing the logs from the status UI */
     void clearLogs() {
+        logBuffer.clear();
         // Calling clearLog function from the StatusInfo.html
         statusTakeover.runJavascript("clearLog()");
     }
 
     @Override
-    public void onShow(final AssuranceFullScreenTakeover takeover) {}
+    public void onShow(final AssuranceFullScreenTakeover takeover) {
+        // the page has been loaded afresh, without the messages rendered into the previous one
+        logBuffer.rewind();
+        flushLogs();
+    }
 
     @Override
-    public void onDismiss(final AssuranceFullScreenTakeover takeover) {}
+    public void onDismiss(final AssuranceFullScreenTakeover takeover) {
+        isVisible = false;
+    }
+
+    /**
+     * Renders the buffered log messages in a single call into the page. Runs on the main thread.
+     */
+    private void flushLogs() {
+        final AssuranceFullScreenTakeover currentTakeover = statusTakeover;
+
+        // messages are rendered once the page has loaded, as they are all rendered again then
+        if (!isVisible || currentTakeover == null || !currentTakeover.isPageLoaded()) {
+            return;
+        }
+
+        final int droppedCount = logBuffer.drainTo(pendingEntries);
+
+        if (pendingEntries.isEmpty()) {
+            return;
+        }
+
+        final String js = buildAddLogsScript(pendingEntries, droppedCount);
+        pendingEntries.clear();
+        currentTakeover.runJavascript(js);
+    }
+
+    /**
+     * Builds the {@code addLogs} call rendering the {@code entries}, oldest first, with the
+     * messages encoded as JSON strings.
+     *
+     * @param entries the log messages to be rendered
+     * @param droppedCount the number of messages dropped before the {@code entries}
+     * @return the javascript statement
+     */
+    @VisibleForTesting
+    static String buildAddLogsScript(
+            final List<AssuranceUILogBuffer.Entry> entries, final int droppedCount) {
+        final StringBuilder js = new StringBuilder(64 * entries.size()).append("addLogs([");
+
+        for (int i = 0; i < entries.size(); i++) {
+            final AssuranceUILogBuffer.Entry entry = entries.get(i);
+
+            if (i > 0) {
+                js.append(',');
+            }
+
+            js.append('[').append(entry.level).append(',');
+            appendJsonString(js, entry.message);
+            js.append(']');
+        }
+
+        return js.append("],").append(droppedCount).append(");").toString();
+    }
+
+    private static void appendJsonString(final StringBuilder js, final String value) {
+        js.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    js.append("\\\"");
+                    break;
+
+                case '\\':
+                    js.append("\\\\");
+                    break;
+
+                case '\n':
+                    js.append("\\n");
+                    break;
+
+                case '\t':
+                    js.append("\\t");
+                    break;
+
+                default:
+                    // control characters, line separators and '%', which would be url decoded
+                    // when the script is loaded as a javascript: url
+                    if (c < 0x20 || c == '%' || c == '\u2028' || c == '\u2029') {
+                        final String hex = Integer.toHexString(c);
+                        js.append("\\u");
+
+                        for (int pad = hex.length(); pad < 4; pad++) {
+                            js.append('0');
+                        }
+
+                        js.append(hex);
+                    } else {
+                        js.append(c);
+                    }
+            }
+        }
+
+        js.append('"');
+    }
 }
@@ -72,6 +72,7 @@ final class AssuranceConstants {
         static final String CONTROL = "control";
         static final String CLIENT = "client";
         static final String BLOB = "blob";
+        static final String GAP = "gap";
 
         private AssuranceEventType() {}
     }
@@ -79,6 +80,7 @@ final class AssuranceConstants {
     static final class ControlType {
         static final String START_EVENT_FORWARDING = "startEventForwarding";
         static final String SCREENSHOT = "screenshot";
+        static final String SCREEN_RECORDING = "screenRecording";
         static final String LOG_FORWARDING = "logForwarding";
         static final String FAKE_EVENT = "fakeEvent";
         static final String CONFIG_UPDATE = "configUpdate";
@@ -100,6 +102,8 @@ final class AssuranceConstants {
         static final String CHUNK_ID = "chunkId";
         static final String CHUNK_TOTAL = "chunkTotal";
         static final String CHUNK_SEQUENCE_NUMBER = "chunkSequenceNumber";
+        static final String SEQUENCE_LANE = "sequenceLane";
+        static final String SEQUENCE_NUMBER = "sequenceNumber";
 
         private AssuranceEventKeys() {}
     }
@@ -131,7 +135,6 @@ final class AssuranceConstants {
         static final String UPLOAD_HTTP_METHOD = "POST";
         static final String UPLOAD_HEADER_KEY_CONTENT_TYPE = "Content-Type";
         static final String UPLOAD_HEADER_KEY_FILE_CONTENT_TYPE = "File-Content-Type";
-        static final String UPLOAD_HEADER_KEY_CONTENT_LENGTH = "Content-Length";
         static final String UPLOAD_HEADER_KEY_ACCEPT = "Accept";
         static final String RESPONSE_KEY_BLOB_ID = "id";
         static final String RESPONSE_KEY_ERROR = "error";
@@ -154,10 +157,48 @@ final class AssuranceConstants {
         static final String VERSION = "version";
         static final String DEVICE_INFO = "deviceInfo";
         static final String APP_SETTINGS = "appSettings";
+        static final String CAPABILITIES = "capabilities";
 
         private ClientInfoKeys() {}
     }
 
+    /**
+     * Optional protocol features. The client lists the ones it supports in the client info event
+     * and the server lists the ones it enables in the details of the startEventForwarding event.
+     */
+    static final class Capability {
+        static final String PAYLOAD_REFERENCES = "payloadReferences";
+        static final String CBOR_FRAMES = "cborFrames";
+        static final String SEQUENCE_LANES = "sequenceLanes";
+
+        private Capability() {}
+    }
+
+    static final class SequenceLane {
+        static final String EVENTS = "events";
+        static final String LOGS = "logs";
+
+        private SequenceLane() {}
+    }
+
+    static final class GapReason {
+        static final String EVICTED = "evicted";
+        static final String QUOTA = "quota";
+        static final String FILTERED = "filtered";
+        static final String COALESCED = "coalesced";
+        static final String DROPPED = "dropped";
+
+        private GapReason() {}
+    }
+
+    static final class GapRecordKeys {
+        static final String LANE = "lane";
+        static final String REASON = "reason";
+        static final String COUNT = "count";
+
+        private GapRecordKeys() {}
+    }
+
     static final class DeviceInfoKeys {
         static final String PLATFORM_NAME = "Canonical platform name";
         static final String DEVICE_NAME = "Device name";
@@ -173,6 +214,14 @@ final class AssuranceConstants {
         static final String BATTERY_LEVEL = "Battery level";
     }
 
+    static final class ManifestMetadataKeys {
+        static final String WEBVIEW_STARTUP_MODE =
+                "com.adobe.marketing.mobile.assurance.WEBVIEW_STARTUP_MODE";
+        static final String JSON_CODEC = "com.adobe.marketing.mobile.assurance.JSON_CODEC";
+
+        private ManifestMetadataKeys() {}
+    }
+
     static final class SocketURLKeys {
         static final String SESSION_ID = "sessionId";
         static final String CLIENT_ID = "clientId";
@@ -301,6 +350,47 @@ final class AssuranceConstants {
         }
     }
 
+    /**
+     * Determines when the socket WebView is initialized on the main thread, relative to the host
+     * app's startup.
+     */
+    enum WebViewStartupMode {
+        /** Initialize the WebView as soon as the socket needs it. */
+        IMMEDIATE("immediate"),
+        /** Initialize the WebView the next time the main thread is idle. */
+        IDLE("idle"),
+        /** Initialize the WebView after the current activity has drawn its first frame. */
+        FIRST_FRAME("firstFrame");
+
+        private final String modeString;
+
+        WebViewStartupMode(final String modeString) {
+            this.modeString = modeString;
+        }
+
+        public String stringValue() {
+            return modeString;
+        }
+
+        /**
+         * Returns {@link WebViewStartupMode} enum value for the provided string.
+         *
+         * <p>Defaults to IDLE if the provided string is not a valid {@link WebViewStartupMode} enum
+         * value
+         *
+         * @return {@link WebViewStartupMode} value for provided mode string
+         */
+        public static WebViewStartupMode get(final String modeString) {
+            for (final WebViewStartupMode mode : WebViewStartupMode.values()) {
+                if (mode.modeString.equals(modeString)) {
+                    return mode;
+                }
+            }
+
+            return IDLE;
+        }
+    }
+
     enum AssuranceEnvironment {
         PROD("prod"),
         STAGE("stage"),
@@ -0,0 +1,487 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The persistence of the Assurance extension, holding the reconnection url, the client and session
+ * identifiers and the configuration keys modified by a session.
+ *
+ * <p>The values are read from a small binary file into memory on the blocking pool of the {@link
+ * AssuranceScheduler}, started when the store is first retrieved at registration. Reads are served
+ * from memory, and writes update memory right away and are written to the file in the background,
+ * one at a time, with writes made in quick succession coalesced into a single write. The store
+ * outlives the scheduler, which is shut down when the extension is unregistered, so each task is
+ * handed to the scheduler current at the time.
+ * Values stored in the legacy {@code com.adobe.assurance.preferences} SharedPreferences are
+ * migrated on the first load. The {@link AssuranceManifestMetadata} is read by the same task.
+ *
+ * <p>Values read before the file has been loaded are the defaults; components needing the
+ * persisted values defer their work with {@link #whenLoaded(Runnable)}.
+ */
+final class AssuranceDataStore {
+    private static final String LOG_TAG = "AssuranceDataStore";
+    static final String FILE_NAME = "com.adobe.assurance.datastore";
+    private static final int FORMAT_VERSION = 1;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_STRING_SET = 2;
+
+    private static AssuranceDataStore instance;
+
+    private final File file;
+    private final Context legacyContext;
+    private final Executor executor;
+
+    private final Object lock = new Object();
+    // held for the whole of a write, so that writes never share the temporary file
+    private final Object writeLock = new Object();
+    // guarded by lock
+    private final Map<String, Object> values = new HashMap<>();
+    private final Set<String> keysWrittenBeforeLoad = new HashSet<>();
+    private final List<Runnable> loadedCallbacks = new ArrayList<>();
+    private boolean isLoadStarted;
+    private boolean isWriteScheduled;
+    private volatile boolean isLoaded;
+
+    /**
+     * Retrieves the store of the process, creating it and starting to load it on first use.
+     *
+     * @param context the application {@link Context}
+     * @return the {@link AssuranceDataStore}, or a store that is not persisted if {@code context}
+     *     is null
+     */
+    static synchronized AssuranceDataStore getInstance(final Context context) {
+        if (instance != null) {
+            return instance;
+        }
+
+        if (context == null || context.getFilesDir() == null) {
+            Log.warning(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "Unable to access the application files, Assurance data will not be"
+                            + " persisted.");
+            return inMemory();
+        }
+
+        instance =
+                new AssuranceDataStore(
+                        new File(context.getFilesDir(), FILE_NAME),
+                        context,
+                        new Executor() {
+                            @Override
+                            public void execute(final Runnable runnable) {
+                                AssuranceScheduler.getInstance().executeBlockingTask(runnable);
+                            }
+                        });
+        instance.preload();
+        return instance;
+    }
+
+    /**
+     * Creates a store that is not persisted, and is therefore loaded right away.
+     *
+     * @return an in-memory {@link AssuranceDataStore}
+     */
+    static AssuranceDataStore inMemory() {
+        final AssuranceDataStore dataStore = new AssuranceDataStore(null, null, null);
+        dataStore.preload();
+        return dataStore;
+    }
+
+    @VisibleForTesting
+    static synchronized void resetInstance() {
+        instance = null;
+    }
+
+    @VisibleForTesting
+    AssuranceDataStore(final File file, final Context legacyContext, final Executor executor) {
+        this.file = file;
+        this.legacyContext = legacyContext;
+        this.executor = executor;
+    }
+
+    /** Starts loading the file on the executor, unless it has been started already. */
+    void preload() {
+        synchronized (lock) {
+            if (isLoadStarted) {
+                return;
+            }
+
+            isLoadStarted = true;
+        }
+
+        if (file == null) {
+            onLoaded(Collections.<String, Object>emptyMap());
+            return;
+        }
+
+        executor.execute(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        // read along with the file, keeping the PackageManager call off the
+                        // registration thread
+                        AssuranceManifestMetadata.load(legacyContext);
+                        onLoaded(load());
+                    }
+                });
+    }
+
+    /** @return true once the persisted values have been loaded into memory */
+    boolean isLoaded() {
+        return isLoaded;
+    }
+
+    /**
+     * Runs the {@code callback} once the persisted values have been loaded: right away on the
+     * calling thread if they have, or on the loading thread otherwise. Callbacks run in the order
+     * they were registered.
+     *
+     * @param callback the {@link Runnable} to be run
+     */
+    void whenLoaded(final Runnable callback) {
+        synchronized (lock) {
+            if (!isLoaded) {
+                loadedCallbacks.add(callback);
+                return;
+            }
+        }
+
+        callback.run();
+    }
+
+    String getString(final String key, final String defaultValue) {
+        synchronized (lock) {
+            final Object value = values.get(key);
+            return value instanceof String ? (String) value : defaultValue;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    Set<String> getStringSet(final String key, final Set<String> defaultValue) {
+        synchronized (lock) {
+            final Object value = values.get(key);
+            return value instanceof Set ? (Set<String>) value : defaultValue;
+        }
+    }
+
+    /**
+     * Stores a string value.
+     *
+     * @param key the key of the value
+     * @param value the value, or null to remove the key
+     */
+    void putString(final String key, final String value) {
+        put(key, value);
+    }
+
+    /**
+     * Stores a set of strings. The set is copied.
+     *
+     * @param key the key of the value
+     * @param value the value, or null to remove the key
+     */
+    void putStringSet(final String key, final Set<String> value) {
+        put(key, value == null ? null : Collections.unmodifiableSet(new HashSet<>(value)));
+    }
+
+    void remove(final String key) {
+        put(key, null);
+    }
+
+    private void put(final String key, final Object value) {
+        synchronized (lock) {
+            if (value == null) {
+                values.remove(key);
+            } else {
+                values.put(key, value);
+            }
+
+            if (!isLoaded) {
+                // the loaded value must not overwrite this one
+                keysWrittenBeforeLoad.add(key);
+                return;
+            }
+        }
+
+        scheduleWrite();
+    }
+
+    private void onLoaded(final Map<String, Object> loadedValues) {
+        final List<Runnable> callbacks;
+        final boolean hasPendingWrites;
+
+        synchronized (lock) {
+            for (final Map.Entry<String, Object> entry : loadedValues.entrySet()) {
+                if (!keysWrittenBeforeLoad.contains(entry.getKey())) {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            hasPendingWrites = !keysWrittenBeforeLoad.isEmpty();
+            keysWrittenBeforeLoad.clear();
+            isLoaded = true;
+            callbacks = new ArrayList<>(loadedCallbacks);
+            loadedCallbacks.clear();
+        }
+
+        if (hasPendingWrites) {
+            scheduleWrite();
+        }
+
+        for (final Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    private void scheduleWrite() {
+        if (file == null) {
+            return;
+        }
+
+        synchronized (lock) {
+            if (isWriteScheduled) {
+                return;
+            }
+
+            isWriteScheduled = true;
+        }
+
+        try {
+            executor.execute(newWriteTask());
+        } catch (final RejectedExecutionException ex) {
+            // the scheduler was shut down in the meantime, the next write will be scheduled again
+            synchronized (lock) {
+                isWriteScheduled = false;
+            }
+
+            Log.warning(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "Unable to schedule the data store write. Error - %s",
+                    ex.getLocalizedMessage());
+        }
+    }
+
+    private Runnable newWriteTask() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                // the snapshot is taken under the write lock so that a newer snapshot is never
+                // replaced by an older one
+                synchronized (writeLock) {
+                    final Map<String, Object> snapshot;
+
+                    synchronized (lock) {
+                        isWriteScheduled = false;
+                        snapshot = new HashMap<>(values);
+                    }
+
+                    write(snapshot);
+                }
+            }
+        };
+    }
+
+    private Map<String, Object> load() {
+        if (!file.exists()) {
+            final Map<String, Object> migratedValues = migrateLegacyPreferences();
+
+            if (!migratedValues.isEmpty()) {
+                synchronized (writeLock) {
+                    write(migratedValues);
+                }
+                clearLegacyPreferences();
+            }
+
+            return migratedValues;
+        }
+
+        DataInputStream in = null;
+
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+            if (in.readInt() != FORMAT_VERSION) {
+                Log.warning(Assurance.LOG_TAG, LOG_TAG, "Ignoring data store of unknown version.");
+                return Collections.emptyMap();
+            }
+
+            final int count = in.readInt();
+            final Map<String, Object> loadedValues = new HashMap<>();
+
+            for (int i = 0; i < count; i++) {
+                final String key = in.readUTF();
+                final byte type = in.readByte();
+
+                if (type == TYPE_STRING) {
+                    loadedValues.put(key, in.readUTF());
+                } else if (type == TYPE_STRING_SET) {
+                    final int size = in.readInt();
+                    final Set<String> set = new HashSet<>();
+
+                    for (int j = 0; j < size; j++) {
+                        set.add(in.readUTF());
+                    }
+
+                    loadedValues.put(key, Collections.unmodifiableSet(set));
+                } else {
+                    throw new IOException("Unknown value type " + type);
+                }
+            }
+
+            return loadedValues;
+        } catch (final IOException ex) {
+            Log.warning(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "Unable to read the data store, starting empty. Error - %s",
+                    ex.getLocalizedMessage());
+            return Collections.emptyMap();
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /** Writes the {@code snapshot} to a temporary file which then replaces the store file. */
+    private void write(final Map<String, Object> snapshot) {
+        final File tempFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(snapshot.size());
+
+            for (final Map.Entry<String, Object> entry : snapshot.entrySet()) {
+                out.writeUTF(entry.getKey());
+
+                if (entry.getValue() instanceof String) {
+                    out.writeByte(TYPE_STRING);
+                    out.writeUTF((String) entry.getValue());
+                } else {
+                    final Set<?> set = (Set<?>) entry.getValue();
+                    out.writeByte(TYPE_STRING_SET);
+                    out.writeInt(set.size());
+
+                    for (final Object element : set) {
+                        out.writeUTF(String.valueOf(element));
+                    }
+                }
+            }
+
+            out.close();
+            out = null;
+
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Unable to replace " + file.getName());
+            }
+        } catch (final IOException ex) {
+            Log.warning(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "Unable to write the data store. Error - %s",
+                    ex.getLocalizedMessage());
+            closeQuietly(out);
+            tempFile.delete();
+        }
+    }
+
+    private Map<String, Object> migrateLegacyPreferences() {
+        final SharedPreferences preferences = getLegacyPreferences();
+        final Map<String, Object> migratedValues = new HashMap<>();
+
+        if (preferences == null) {
+            return migratedValues;
+        }
+
+        final Map<String, ?> legacyValues = preferences.getAll();
+
+        if (legacyValues == null) {
+            return migratedValues;
+        }
+
+        for (final Map.Entry<String, ?> entry : legacyValues.entrySet()) {
+            final Object value = entry.getValue();
+
+            if (value instanceof String) {
+                migratedValues.put(entry.getKey(), value);
+            } else if (value instanceof Set) {
+                final Set<String> set = new HashSet<>();
+
+                for (final Object element : (Set<?>) value) {
+                    set.add(String.valueOf(element));
+                }
+
+                migratedValues.put(entry.getKey(), Collections.unmodifiableSet(set));
+            }
+        }
+
+        return migratedValues;
+    }
+
+    private void clearLegacyPreferences() {
+        final SharedPreferences preferences = getLegacyPreferences();
+
+        final SharedPreferences.Editor editor = preferences == null ? null : preferences.edit();
+
+        if (editor != null) {
+            editor.clear();
+            editor.apply();
+        }
+    }
+
+    private SharedPreferences getLegacyPreferences() {
+        return legacyContext == null
+                ? null
+                : legacyContext.getSharedPreferences(
+                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (final IOException ignored) {
+            // nothing to do
+        }
+    }
+}
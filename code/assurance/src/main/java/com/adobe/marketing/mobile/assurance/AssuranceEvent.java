@@ -12,7 +12,11 @@
 package com.adobe.marketing.mobile.assurance;
 
 
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -26,22 +30,44 @@ import org.json.JSONObject;
 /**
  * Event object used to transport data to/from a Assurance server.
  *
- * <p>This object is intentionally opaque. If this needs to be public, refactor this class to
- * reflect a builder pattern enforcing size limits on constituents of the AssuranceEvent like
+ * <p>Events are delivered to an {@link AssurancePlugin} read only. Plugins cannot construct events;
+ * they send them through {@link AssurancePluginSession#sendEvent(String, Map)}, which enforces
+ * the vendor and the quota of the plugin. If construction needs to be public, refactor this class
+ * to reflect a builder pattern enforcing size limits on constituents of the AssuranceEvent like
  * metadata.
  */
 @SuppressWarnings("unused")
-final class AssuranceEvent {
+public final class AssuranceEvent {
+    private static final String LOG_TAG = "AssuranceEvent";
 
     final String eventID;
     final String vendor;
     final String type;
-    final Map<String, Object> metadata;
-    final Map<String, Object> payload;
     final long timestamp;
     final int eventNumber;
 
+    private volatile Map<String, Object> metadata;
+    private volatile Map<String, Object> payload;
+
+    // The control header is read once, when the event is created.
+    private final String controlType;
+    private final HashMap<String, Object> controlDetail;
+
+    // The read-only copies handed to plugins are built on first use and then reused, as every
+    // plugin the event is dispatched to reads them. Threads racing on first use build equal copies.
+    private volatile Map<String, Object> readOnlyMetadata;
+    private volatile Map<String, Object> readOnlyPayload;
+    private volatile Map<String, Object> readOnlyControlDetail;
+
+    // An event retained before it is sent holds only its UTF-8 JSON representation, which is sent
+    // as is. Its metadata and payload are decoded from it only when they are asked for.
+    private final byte[] encodedEvent;
+    private volatile boolean isEncodedEventDecoded;
+
+    // The event number is shared by all the events of the process. The events sent in a session
+    // are also numbered per lane by the AssuranceEventSequencer, which lets the server detect loss.
     private static final AtomicInteger ASSURANCE_EVENT_SEQUENCE_COUNTER = new AtomicInteger(0);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     /**
      * Creates a new {@link AssuranceEvent}.
@@ -116,6 +142,23 @@ final class AssuranceEvent {
         this.payload = payload;
         this.timestamp = timestamp;
         this.eventNumber = eventNumber;
+        this.encodedEvent = null;
+        this.isEncodedEventDecoded = true;
+
+        if (AssuranceConstants.AssuranceEventType.CONTROL.equals(type) && payload != null) {
+            final Object controlTypeValue = payload.get(AssuranceConstants.PayloadDataKeys.TYPE);
+            final Object controlDetailValue =
+                    payload.get(AssuranceConstants.PayloadDataKeys.DETAIL);
+            this.controlType =
+                    controlTypeValue instanceof String ? (String) controlTypeValue : null;
+            this.controlDetail =
+                    controlDetailValue instanceof HashMap
+                            ? (HashMap<String, Object>) controlDetailValue
+                            : null;
+        } else {
+            this.controlType = null;
+            this.controlDetail = null;
+        }
     }
 
     /**
@@ -127,38 +170,93 @@ final class AssuranceEvent {
      * @throws JSONException When issues arise parsing the JSON input
      */
     AssuranceEvent(final String json) throws JSONException {
-        final JSONObject eventMap = new JSONObject(json);
+        this(AssuranceJsonCodecs.get().decodeObject(json));
+    }
 
-        this.eventID = eventMap.getString(AssuranceConstants.AssuranceEventKeys.EVENT_ID);
-        this.vendor = eventMap.getString(AssuranceConstants.AssuranceEventKeys.VENDOR);
-        this.type = eventMap.getString(AssuranceConstants.AssuranceEventKeys.TYPE);
+    private AssuranceEvent(final Map<String, Object> eventMap) throws JSONException {
+        this(
+                getString(eventMap, AssuranceConstants.AssuranceEventKeys.EVENT_ID),
+                getString(eventMap, AssuranceConstants.AssuranceEventKeys.VENDOR),
+                getString(eventMap, AssuranceConstants.AssuranceEventKeys.TYPE),
+                optMap(eventMap, AssuranceConstants.AssuranceEventKeys.METADATA),
+                optMap(eventMap, AssuranceConstants.AssuranceEventKeys.PAYLOAD),
+                optNumber(
+                                eventMap,
+                                AssuranceConstants.AssuranceEventKeys.TIMESTAMP,
+                                System.currentTimeMillis())
+                        .longValue(),
+                optNumber(
+                                eventMap,
+                                AssuranceConstants.AssuranceEventKeys.EVENT_NUMBER,
+                                ASSURANCE_EVENT_SEQUENCE_COUNTER.addAndGet(1))
+                        .intValue());
+    }
 
-        final JSONObject metadataObj =
-                eventMap.optJSONObject(AssuranceConstants.AssuranceEventKeys.METADATA);
+    /**
+     * Creates a copy of the {@code event} holding only its {@code encodedEvent} representation.
+     *
+     * @param event the {@link AssuranceEvent} to be copied
+     * @param encodedEvent the UTF-8 JSON representation of the {@code event}
+     */
+    private AssuranceEvent(final AssuranceEvent event, final byte[] encodedEvent) {
+        this.eventID = event.eventID;
+        this.vendor = event.vendor;
+        this.type = event.type;
+        this.timestamp = event.timestamp;
+        this.eventNumber = event.eventNumber;
+        this.controlType = null;
+        this.controlDetail = null;
+        this.encodedEvent = encodedEvent;
+        this.isEncodedEventDecoded = false;
+    }
 
-        if (metadataObj != null) {
-            this.metadata = objToMap(metadataObj);
-        } else {
-            this.metadata = null;
+    /**
+     * Creates a copy of this event that holds only its UTF-8 JSON representation, so that an event
+     * retained until it can be sent does not hold on to its maps. Control events, which are never
+     * retained, are returned as they are.
+     *
+     * @return the encoded {@link AssuranceEvent}
+     */
+    AssuranceEvent toEncodedEvent() {
+        if (encodedEvent != null || AssuranceConstants.AssuranceEventType.CONTROL.equals(type)) {
+            return this;
         }
 
-        final JSONObject payloadObj =
-                eventMap.optJSONObject(AssuranceConstants.AssuranceEventKeys.PAYLOAD);
+        return new AssuranceEvent(this, getJSONRepresentation().getBytes(UTF_8));
+    }
 
-        if (payloadObj != null) {
-            this.payload = objToMap(payloadObj);
-        } else {
-            this.payload = null;
-        }
+    /**
+     * Returns the UTF-8 JSON representation held by an event created by {@link #toEncodedEvent()}.
+     * The returned array is shared with the event and must not be modified.
+     *
+     * @return the UTF-8 JSON representation of the event, or null if it does not hold one
+     */
+    byte[] getEncodedRepresentation() {
+        return encodedEvent;
+    }
 
-        this.timestamp =
-                eventMap.optLong(
-                        AssuranceConstants.AssuranceEventKeys.TIMESTAMP,
-                        System.currentTimeMillis());
-        this.eventNumber =
-                eventMap.optInt(
-                        AssuranceConstants.AssuranceEventKeys.EVENT_NUMBER,
-                        ASSURANCE_EVENT_SEQUENCE_COUNTER.addAndGet(1));
+    /**
+     * Creates a copy of this event, with the same identifier and sequence number, carrying another
+     * payload.
+     *
+     * @param payload {@code Map<String, Object>} containing the payload of the copy
+     * @return the copied {@link AssuranceEvent}
+     */
+    AssuranceEvent withPayload(final Map<String, Object> payload) {
+        return new AssuranceEvent(
+                eventID, vendor, type, getInternalMetadata(), payload, timestamp, eventNumber);
+    }
+
+    /**
+     * Creates a copy of this event, with the same identifier and sequence number, carrying another
+     * metadata.
+     *
+     * @param metadata {@code Map<String, Object>} containing the metadata of the copy
+     * @return the copied {@link AssuranceEvent}
+     */
+    AssuranceEvent withMetadata(final Map<String, Object> metadata) {
+        return new AssuranceEvent(
+                eventID, vendor, type, metadata, getInternalPayload(), timestamp, eventNumber);
     }
 
     /**
@@ -167,6 +265,26 @@ final class AssuranceEvent {
      * @return String containing the JSON representation of the Event object.
      */
     String getJSONRepresentation() {
+        if (encodedEvent != null) {
+            return new String(encodedEvent, UTF_8);
+        }
+
+        return AssuranceJsonCodecs.get().encodeObject(toMap());
+    }
+
+    /**
+     * Gets the CBOR representation of an Event object, holding the same fields as its JSON
+     * representation.
+     *
+     * @return the CBOR encoding of the Event object
+     */
+    byte[] getCborRepresentation() {
+        return AssuranceCborEncoder.encode(toMap());
+    }
+
+    private Map<String, Object> toMap() {
+        decodeEncodedEvent();
+
         final Map<String, Object> eventMap = new HashMap<>();
         eventMap.put(AssuranceConstants.AssuranceEventKeys.EVENT_ID, eventID);
         eventMap.put(AssuranceConstants.AssuranceEventKeys.VENDOR, vendor);
@@ -182,8 +300,7 @@ final class AssuranceEvent {
             eventMap.put(AssuranceConstants.AssuranceEventKeys.PAYLOAD, payload);
         }
 
-        final JSONObject jsonObj = new JSONObject(eventMap);
-        return jsonObj.toString();
+        return eventMap;
     }
 
     /**
@@ -204,25 +321,8 @@ final class AssuranceEvent {
      *
      * @return a {@link String} value representing the control type
      */
-    String getControlType() {
-        // return null if the event is not of type "control"
-        if (!AssuranceConstants.AssuranceEventType.CONTROL.equals(type)) {
-            return null;
-        }
-
-        // return null if the payload is null or does not contain "type" key
-        if (payload == null
-                || payload.isEmpty()
-                || !payload.containsKey(AssuranceConstants.PayloadDataKeys.TYPE)) {
-            return null;
-        }
-
-        // if the type is not String, return null
-        if (!(payload.get(AssuranceConstants.PayloadDataKeys.TYPE) instanceof String)) {
-            return null;
-        }
-
-        return (String) payload.get(AssuranceConstants.PayloadDataKeys.TYPE);
+    public String getControlType() {
+        return controlType;
     }
 
     /**
@@ -232,27 +332,27 @@ final class AssuranceEvent {
      * <p>Returns null if the event is not a control event. Returns null if the payload does not
      * contain "type" key. Returns null if the payload "type" key contains non map data.
      *
-     * @return a {@link HashMap} value representing the control details
+     * @return an unmodifiable {@link Map} value representing the control details
      */
-    HashMap<String, Object> getControlDetail() {
-        // return null, if the event is not of type "control"
-        if (!AssuranceConstants.AssuranceEventType.CONTROL.equals(type)) {
-            return null;
-        }
+    public Map<String, Object> getControlDetail() {
+        Map<String, Object> view = readOnlyControlDetail;
 
-        // return null, if the payload is null or doesnot contain "detail" key
-        if (payload == null
-                || payload.isEmpty()
-                || !payload.containsKey(AssuranceConstants.PayloadDataKeys.DETAIL)) {
-            return null;
+        if (view == null) {
+            view = readOnlyCopy(getInternalControlDetail());
+            readOnlyControlDetail = view;
         }
 
-        // if the detail is not HashMap, return null
-        if (!(payload.get(AssuranceConstants.PayloadDataKeys.DETAIL) instanceof HashMap)) {
-            return null;
-        }
+        return view;
+    }
 
-        return (HashMap<String, Object>) payload.get(AssuranceConstants.PayloadDataKeys.DETAIL);
+    /**
+     * Returns the control detail held by this event, which is shared with its payload. Not to be
+     * handed to plugins.
+     *
+     * @return a {@link HashMap} value representing the control details
+     */
+    HashMap<String, Object> getInternalControlDetail() {
+        return controlDetail;
     }
 
     /**
@@ -260,26 +360,174 @@ final class AssuranceEvent {
      *
      * @return the vendor of this event.
      */
-    String getVendor() {
+    public String getVendor() {
         return this.vendor;
     }
 
+    /**
+     * Returns the type of this event.
+     *
+     * @return the type of this event.
+     */
+    public String getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the timestamp of this event in milliseconds.
+     *
+     * @return the timestamp of this event.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
     /**
      * Returns the metadata associated with this event.
      *
+     * @return an unmodifiable metadata map associated with this event.
+     */
+    public Map<String, Object> getMetadata() {
+        Map<String, Object> view = readOnlyMetadata;
+
+        if (view == null) {
+            view = readOnlyCopy(getInternalMetadata());
+            readOnlyMetadata = view;
+        }
+
+        return view;
+    }
+
+    /**
+     * Returns the metadata held by this event. Not to be handed to plugins.
+     *
      * @return metadata map associated with this event.
      */
-    Map<String, Object> getMetadata() {
-        return this.metadata;
+    Map<String, Object> getInternalMetadata() {
+        decodeEncodedEvent();
+        return metadata;
     }
 
     /**
      * Returns the payload associated with this event.
      *
+     * @return an unmodifiable payload map associated with this event.
+     */
+    public Map<String, Object> getPayload() {
+        Map<String, Object> view = readOnlyPayload;
+
+        if (view == null) {
+            view = readOnlyCopy(getInternalPayload());
+            readOnlyPayload = view;
+        }
+
+        return view;
+    }
+
+    /**
+     * Returns the payload held by this event, which shares its control detail. Not to be handed to
+     * plugins.
+     *
      * @return payload map associated with this event.
      */
-    Map<String, Object> getPayload() {
-        return this.payload;
+    Map<String, Object> getInternalPayload() {
+        decodeEncodedEvent();
+        return payload;
+    }
+
+    /** Decodes the metadata and payload of an event created by {@link #toEncodedEvent()}, once. */
+    @SuppressWarnings("unchecked")
+    private void decodeEncodedEvent() {
+        if (isEncodedEventDecoded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (isEncodedEventDecoded) {
+                return;
+            }
+
+            try {
+                final Map<String, Object> eventMap =
+                        AssuranceJsonCodecs.get().decodeObject(new String(encodedEvent, UTF_8));
+                final Object metadataValue =
+                        eventMap.get(AssuranceConstants.AssuranceEventKeys.METADATA);
+                final Object payloadValue =
+                        eventMap.get(AssuranceConstants.AssuranceEventKeys.PAYLOAD);
+                metadata =
+                        metadataValue instanceof Map ? (Map<String, Object>) metadataValue : null;
+                payload = payloadValue instanceof Map ? (Map<String, Object>) payloadValue : null;
+            } catch (final JSONException ex) {
+                Log.warning(
+                        Assurance.LOG_TAG,
+                        LOG_TAG,
+                        String.format(
+                                "Unable to decode event %s. Error - %s",
+                                eventID, ex.getLocalizedMessage()));
+            }
+
+            isEncodedEventDecoded = true;
+        }
+    }
+
+    private static String getString(final Map<String, Object> map, final String key)
+            throws JSONException {
+        final Object value = map.get(key);
+
+        if (value == null || value == JSONObject.NULL) {
+            throw new JSONException(String.format("No value for %s", key));
+        }
+
+        return value instanceof String ? (String) value : String.valueOf(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> optMap(final Map<String, Object> map, final String key) {
+        final Object value = map.get(key);
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    private static Number optNumber(
+            final Map<String, Object> map, final String key, final Number defaultValue) {
+        final Object value = map.get(key);
+        return value instanceof Number ? (Number) value : defaultValue;
+    }
+
+    /**
+     * Copies the {@code map} into an unmodifiable map, with the nested maps and lists copied the
+     * same way. Events are dispatched to several plugins at once, so none of them may change the
+     * maps held by the event.
+     *
+     * @param map the {@code Map<String, Object>} to be copied
+     * @return an unmodifiable copy of the {@code map}, or null if it is null
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readOnlyCopy(final Map<String, Object> map) {
+        return (Map<String, Object>) readOnlyValue(map);
+    }
+
+    private static Object readOnlyValue(final Object value) {
+        if (value instanceof Map) {
+            final Map<Object, Object> copy = new HashMap<>();
+
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), readOnlyValue(entry.getValue()));
+            }
+
+            return Collections.unmodifiableMap(copy);
+        }
+
+        if (value instanceof List) {
+            final List<Object> copy = new ArrayList<>();
+
+            for (final Object element : (List<?>) value) {
+                copy.add(readOnlyValue(element));
+            }
+
+            return Collections.unmodifiableList(copy);
+        }
+
+        return value;
     }
 
     /**
@@ -290,15 +538,14 @@ final class AssuranceEvent {
      *
      * @param jsonObj JSONObject to be converted
      * @return A Map containing the contents of the JSONObject converted into Java types
-     * @throws JSONException If errors parsing the JSON values are encountered
      */
-    private Map<String, Object> objToMap(final JSONObject jsonObj) throws JSONException {
-        final Map<String, Object> map = new HashMap<>();
+    static HashMap<String, Object> objToMap(final JSONObject jsonObj) {
+        final HashMap<String, Object> map = new HashMap<>();
         final Iterator<String> keys = jsonObj.keys();
 
         while (keys.hasNext()) {
             final String key = keys.next();
-            final Object value = jsonObj.get(key);
+            final Object value = jsonObj.opt(key);
 
             if (value instanceof JSONArray) {
                 map.put(key, arrayToList((JSONArray) value));
@@ -320,13 +567,12 @@ final class AssuranceEvent {
      *
      * @param jsonArr JSONArray to be converted
      * @return A List object containing the contents of the JSONArray
-     * @throws JSONException If errors parsing JSON values are encountered
      */
-    private List<Object> arrayToList(final JSONArray jsonArr) throws JSONException {
+    private static List<Object> arrayToList(final JSONArray jsonArr) {
         final List<Object> list = new ArrayList<>();
 
         for (int i = 0; i < jsonArr.length(); i++) {
-            final Object value = jsonArr.get(i);
+            final Object value = jsonArr.opt(i);
 
             if (value instanceof JSONObject) {
                 list.add(objToMap((JSONObject) value));
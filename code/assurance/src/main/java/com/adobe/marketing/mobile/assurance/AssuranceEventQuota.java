@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+/**
+ * Limits the rate at which a plugin may send events to an Assurance session.
+ *
+ * <p>The quota is a token bucket that refills at {@code maxEventsPerSecond} and holds at most one
+ * second worth of events, so a plugin may send a burst of up to {@code maxEventsPerSecond} events
+ * after being idle. Unlike {@link AssuranceRecordingBudget}, the bucket cannot be overdrawn.
+ *
+ * <p>Times are passed in by the caller so that the quota does not depend on a clock.
+ */
+final class AssuranceEventQuota {
+    private final int maxEventsPerSecond;
+
+    private double availableEvents;
+    private long lastRefillMillis = -1;
+
+    AssuranceEventQuota(final int maxEventsPerSecond) {
+        this.maxEventsPerSecond = Math.max(1, maxEventsPerSecond);
+        this.availableEvents = this.maxEventsPerSecond;
+    }
+
+    /**
+     * Takes one event from the quota, if available.
+     *
+     * @param nowMillis the current time
+     * @return true if the event is within the quota
+     */
+    synchronized boolean tryAcquire(final long nowMillis) {
+        if (lastRefillMillis >= 0 && nowMillis > lastRefillMillis) {
+            availableEvents =
+                    Math.min(
+                            maxEventsPerSecond,
+                            availableEvents
+                                    + (nowMillis - lastRefillMillis) * maxEventsPerSecond / 1000d);
+        }
+
+        lastRefillMillis = Math.max(lastRefillMillis, nowMillis);
+
+        if (availableEvents < 1) {
+            return false;
+        }
+
+        availableEvents -= 1;
+        return true;
+    }
+
+    int getMaxEventsPerSecond() {
+        return maxEventsPerSecond;
+    }
+}
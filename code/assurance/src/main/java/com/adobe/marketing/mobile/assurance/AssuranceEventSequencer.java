@@ -0,0 +1,194 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numbers the events sent in a session per lane, and accounts for the events that were dropped,
+ * coalesced or filtered out before they were sent.
+ *
+ * <p>Every event sent is stamped with its lane and the next sequence number of that lane in its
+ * metadata, so the receiving side can detect lost events as holes in the sequence of a lane. The
+ * events that never reach the socket on purpose are counted per lane and reason instead, and
+ * reported by gap records: compact events that carry the lane, the reason and the number of
+ * events not sent, and that are numbered in their lane like any other event. An event that was
+ * numbered but could not be sent leaves a hole in its lane, accounted for by a gap record.
+ *
+ * <p>Each lane has its own counters, so that the lanes do not contend with each other. Gaps are
+ * recorded from any thread; the events are stamped on the thread sending them.
+ */
+final class AssuranceEventSequencer {
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private static final class Lane {
+        private final AtomicLong lastSequenceNumber = new AtomicLong();
+        private final ConcurrentHashMap<String, AtomicLong> pendingGaps =
+                new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Determines the lane of an event: the lane a gap record reports on, the log lane for log
+     * events, the vendor for the events of plugins, and the event lane for the rest.
+     *
+     * @param event the {@link AssuranceEvent} to be sent
+     * @return the lane of the event
+     */
+    static String getLane(final AssuranceEvent event) {
+        if (AssuranceConstants.AssuranceEventType.GAP.equals(event.type)) {
+            final Map<String, Object> payload = event.getInternalPayload();
+            final Object lane =
+                    payload == null ? null : payload.get(AssuranceConstants.GapRecordKeys.LANE);
+
+            if (lane instanceof String) {
+                return (String) lane;
+            }
+        }
+
+        if (AssuranceConstants.AssuranceEventType.LOG.equals(event.type)) {
+            return AssuranceConstants.SequenceLane.LOGS;
+        }
+
+        if (event.vendor != null
+                && !AssuranceConstants.VENDOR_ASSURANCE_MOBILE.equals(event.vendor)) {
+            return event.vendor;
+        }
+
+        return AssuranceConstants.SequenceLane.EVENTS;
+    }
+
+    /**
+     * Creates a copy of the event stamped with the next sequence number of its lane.
+     *
+     * @param event the {@link AssuranceEvent} to be sent
+     * @param lane the lane of the event
+     * @return the stamped copy of the event
+     */
+    AssuranceEvent stamp(final AssuranceEvent event, final String lane) {
+        final Map<String, Object> eventMetadata = event.getInternalMetadata();
+        final Map<String, Object> metadata =
+                eventMetadata == null
+                        ? new HashMap<String, Object>()
+                        : new HashMap<>(eventMetadata);
+        metadata.put(AssuranceConstants.AssuranceEventKeys.SEQUENCE_LANE, lane);
+        metadata.put(
+                AssuranceConstants.AssuranceEventKeys.SEQUENCE_NUMBER,
+                getLaneState(lane).lastSequenceNumber.incrementAndGet());
+        return event.withMetadata(metadata);
+    }
+
+    /**
+     * Records events of a lane that will not be sent.
+     *
+     * @param lane the lane of the events
+     * @param reason the reason the events are not sent
+     * @param count the number of events
+     */
+    void recordGap(final String lane, final String reason, final long count) {
+        if (lane == null || reason == null || count <= 0) {
+            return;
+        }
+
+        final ConcurrentHashMap<String, AtomicLong> pendingGaps = getLaneState(lane).pendingGaps;
+        AtomicLong pendingCount = pendingGaps.get(reason);
+
+        if (pendingCount == null) {
+            final AtomicLong newCount = new AtomicLong();
+            pendingCount = pendingGaps.putIfAbsent(reason, newCount);
+
+            if (pendingCount == null) {
+                pendingCount = newCount;
+            }
+        }
+
+        pendingCount.addAndGet(count);
+    }
+
+    /**
+     * Creates the gap records for the gaps recorded in a lane since its last gap records, one per
+     * reason. The gap records are not stamped.
+     *
+     * @param lane the lane to report on
+     * @return the gap records of the lane, empty if no gap was recorded
+     */
+    List<AssuranceEvent> drainGaps(final String lane) {
+        final Lane laneState = lanes.get(lane);
+
+        if (laneState == null) {
+            return Collections.emptyList();
+        }
+
+        List<AssuranceEvent> gapRecords = null;
+
+        for (final Map.Entry<String, AtomicLong> gap : laneState.pendingGaps.entrySet()) {
+            final long count = gap.getValue().getAndSet(0);
+
+            if (count > 0) {
+                if (gapRecords == null) {
+                    gapRecords = new ArrayList<>();
+                }
+
+                gapRecords.add(createGapRecord(lane, gap.getKey(), count));
+            }
+        }
+
+        return gapRecords == null ? Collections.<AssuranceEvent>emptyList() : gapRecords;
+    }
+
+    /**
+     * Creates a gap record for any lane with recorded gaps. The gap record is not stamped.
+     *
+     * @return a gap record, or null if no gap was recorded since the last gap records
+     */
+    AssuranceEvent pollGap() {
+        for (final Map.Entry<String, Lane> lane : lanes.entrySet()) {
+            for (final Map.Entry<String, AtomicLong> gap :
+                    lane.getValue().pendingGaps.entrySet()) {
+                final long count = gap.getValue().getAndSet(0);
+
+                if (count > 0) {
+                    return createGapRecord(lane.getKey(), gap.getKey(), count);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private Lane getLaneState(final String lane) {
+        final Lane laneState = lanes.get(lane);
+
+        if (laneState != null) {
+            return laneState;
+        }
+
+        final Lane newLaneState = new Lane();
+        final Lane existingLaneState = lanes.putIfAbsent(lane, newLaneState);
+        return existingLaneState != null ? existingLaneState : newLaneState;
+    }
+
+    private static AssuranceEvent createGapRecord(
+            final String lane, final String reason, final long count) {
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put(AssuranceConstants.GapRecordKeys.LANE, lane);
+        payload.put(AssuranceConstants.GapRecordKeys.REASON, reason);
+        payload.put(AssuranceConstants.GapRecordKeys.COUNT, count);
+        return new AssuranceEvent(AssuranceConstants.AssuranceEventType.GAP, payload);
+    }
+}
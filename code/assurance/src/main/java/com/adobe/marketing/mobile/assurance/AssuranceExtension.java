@@ -17,6 +17,7 @@ import static com.adobe.marketing.mobile.assurance.AssuranceConstants.PayloadDat
 import static com.adobe.marketing.mobile.assurance.AssuranceConstants.SDKEventName.XDM_SHARED_STATE_CHANGE;
 
 import android.net.Uri;
+import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.Event;
@@ -38,8 +39,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings({"unused", "WeakerAccess"})
@@ -50,8 +50,12 @@ public final class AssuranceExtension extends Extension {
     private final AssuranceStateManager assuranceStateManager;
     private final AssuranceSessionOrchestrator assuranceSessionOrchestrator;
     private final AssuranceConnectionDataStore assuranceConnectionDataStore;
+    private final AssuranceDataStore dataStore;
+    // set once the persisted state has been restored after registration
+    private volatile boolean isPersistedStateRestored;
     private static boolean shouldUnregisterOnTimeout =
             true; // keep the unregister timer active on launch
+    private volatile ScheduledFuture<?> shutdownTask;
 
     // ========================================================================================
     //  Constructor
@@ -67,16 +71,32 @@ public final class AssuranceExtension extends Extension {
      *     {@code MobileCore}.
      */
     AssuranceExtension(final ExtensionApi extensionApi) {
+        // retrieving the data store starts loading it in the background
+        this(extensionApi, AssuranceDataStore.getInstance(MobileCore.getApplication()));
+    }
+
+    private AssuranceExtension(
+            final ExtensionApi extensionApi, final AssuranceDataStore dataStore) {
         this(
                 extensionApi,
-                new AssuranceStateManager(extensionApi, MobileCore.getApplication()),
-                new AssuranceConnectionDataStore(MobileCore.getApplication()),
+                dataStore,
+                new AssuranceStateManager(extensionApi, dataStore),
+                new AssuranceConnectionDataStore(dataStore),
                 Collections.unmodifiableList(
                         Arrays.asList(
                                 new AssurancePluginLogForwarder(),
                                 new AssurancePluginScreenshot(),
-                                new AssurancePluginConfigSwitcher(),
+                                new AssurancePluginScreenRecording(),
+                                new AssurancePluginConfigSwitcher(dataStore),
                                 new AssurancePluginFakeEventGenerator())));
+        // the manifest is read in the background, along with the data store
+        dataStore.whenLoaded(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        AssuranceJsonCodecs.selectFromManifest(AssuranceManifestMetadata.get());
+                    }
+                });
     }
 
     /**
@@ -90,6 +110,21 @@ public final class AssuranceExtension extends Extension {
             final List<AssurancePlugin> plugins) {
         this(
                 extensionApi,
+                AssuranceDataStore.inMemory(),
+                assuranceStateManager,
+                assuranceConnectionDataStore,
+                plugins);
+    }
+
+    private AssuranceExtension(
+            final ExtensionApi extensionApi,
+            final AssuranceDataStore dataStore,
+            final AssuranceStateManager assuranceStateManager,
+            final AssuranceConnectionDataStore assuranceConnectionDataStore,
+            final List<AssurancePlugin> plugins) {
+        this(
+                extensionApi,
+                dataStore,
                 assuranceStateManager,
                 assuranceConnectionDataStore,
                 new AssuranceSessionOrchestrator(
@@ -108,8 +143,27 @@ public final class AssuranceExtension extends Extension {
             final AssuranceStateManager assuranceStateManager,
             final AssuranceConnectionDataStore assuranceConnectionDataStore,
             final AssuranceSessionOrchestrator assuranceSessionOrchestrator) {
+        this(
+                extensionApi,
+                AssuranceDataStore.inMemory(),
+                assuranceStateManager,
+                assuranceConnectionDataStore,
+                assuranceSessionOrchestrator);
+    }
+
+    /**
+     * Cascading constructor for facilitating dependency injection of components needed for tests.
+     */
+    @VisibleForTesting
+    AssuranceExtension(
+            final ExtensionApi extensionApi,
+            final AssuranceDataStore dataStore,
+            final AssuranceStateManager assuranceStateManager,
+            final AssuranceConnectionDataStore assuranceConnectionDataStore,
+            final AssuranceSessionOrchestrator assuranceSessionOrchestrator) {
         super(extensionApi);
 
+        this.dataStore = dataStore;
         this.assuranceStateManager = assuranceStateManager;
         this.assuranceConnectionDataStore = assuranceConnectionDataStore;
         this.assuranceSessionOrchestrator = assuranceSessionOrchestrator;
@@ -130,6 +184,7 @@ public final class AssuranceExtension extends Extension {
     void startSession(final String deeplink) {
         // validate the session instance
         shouldUnregisterOnTimeout = false;
+        cancelShutdownTask();
 
         if (assuranceSessionOrchestrator == null) {
             Log.warning(
@@ -190,6 +245,20 @@ public final class AssuranceExtension extends Extension {
                 sessionId);
     }
 
+    /**
+     * Registers a plugin with the {@link AssurancePluginRegistry}, which is not accessible outside
+     * of this package. Handles {@link Assurance#registerPlugin(AssurancePlugin, int)}.
+     *
+     * @param plugin the {@link AssurancePlugin} to be registered
+     * @param maxEventsPerSecond the number of events per second the plugin may send
+     * @return true if the plugin was registered, false if it is invalid or already registered
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static boolean registerPlugin(
+            final AssurancePlugin plugin, final int maxEventsPerSecond) {
+        return AssurancePluginRegistry.register(plugin, maxEventsPerSecond);
+    }
+
     // ========================================================================================
     // overridden methods - Extension class
     // ========================================================================================
@@ -226,6 +295,23 @@ public final class AssuranceExtension extends Extension {
                         EventSource.RESPONSE_CONTENT,
                         new AssuranceListenerHubPlacesResponses(this));
 
+        // restore the persisted state without blocking the event hub thread, events are held by
+        // readyForEvent until then
+        dataStore.whenLoaded(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        restorePersistedState();
+                        isPersistedStateRestored = true;
+                    }
+                });
+    }
+
+    /**
+     * Shares the persisted session identifier and reconnects to the persisted session, if any.
+     * Otherwise schedules a task to shut Assurance down if no session is started.
+     */
+    private void restorePersistedState() {
         publishAssuranceSharedState();
 
         // If assurance was already connected, do not start the timer
@@ -233,20 +319,22 @@ public final class AssuranceExtension extends Extension {
             return;
         }
 
-        // if assurance was not already connected, start timer to shutdown assurance, if
+        // if assurance was not already connected, schedule a task to shutdown assurance, if
         // startSession API is not called within 5 seconds
-        new Timer()
-                .schedule(
-                        new TimerTask() {
-                            @Override
-                            public void run() {
-                                // this code executes in timer thread
-                                if (shouldUnregisterOnTimeout) {
-                                    shutDownAssurance();
-                                }
-                            }
-                        },
-                        ASSURANCE_SHUTDOWN_TIMEOUT);
+        shutdownTask =
+                AssuranceScheduler.getInstance()
+                        .schedule(
+                                new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        // this code executes in the scheduler thread
+                                        if (shouldUnregisterOnTimeout) {
+                                            shutDownAssurance();
+                                        }
+                                    }
+                                },
+                                ASSURANCE_SHUTDOWN_TIMEOUT,
+                                TimeUnit.MILLISECONDS);
 
         Log.debug(
                 Assurance.LOG_TAG,
@@ -259,14 +347,17 @@ public final class AssuranceExtension extends Extension {
     @Override
     protected void onUnregistered() {
         super.onUnregistered();
+        cancelShutdownTask();
+        // release the threads shared by the Assurance components
+        AssuranceScheduler.shutdown();
     }
 
     @Override
     public boolean readyForEvent(final Event event) {
-        // Assurance is always ready for processing events as long as it is registered.
+        // Assurance is ready for processing events once its persisted state has been restored.
         // The decision to queue/process or drop the event is made based on the session connectivity
         // status in AssuranceSessionOrchestrator.queueEvent()
-        return true;
+        return isPersistedStateRestored;
     }
     // ========================================================================================
     // Handlers for listened events
@@ -415,6 +506,16 @@ public final class AssuranceExtension extends Extension {
         assuranceSessionOrchestrator.terminateSession();
     }
 
+    /** Cancels the pending task to shutdown Assurance on launch, if one exists. */
+    private void cancelShutdownTask() {
+        final ScheduledFuture<?> pendingShutdownTask = shutdownTask;
+
+        if (pendingShutdownTask != null) {
+            pendingShutdownTask.cancel(false);
+            shutdownTask = null;
+        }
+    }
+
     /**
      * Attempts to reconnect to a Project Assurance session that is already running.
      *
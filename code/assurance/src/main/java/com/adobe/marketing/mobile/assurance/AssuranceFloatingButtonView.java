@@ -26,6 +26,7 @@ class AssuranceFloatingButtonView extends Button implements View.OnTouchListener
     private float maxButtonTouch;
     private static final float BUTTON_MOVEMENT_TOLERANCE = 10;
     private OnPositionChangedListener onPositionChangedListener;
+    private Graphic graphic;
 
     public enum Graphic {
         CONNECTED,
@@ -62,6 +63,13 @@ class AssuranceFloatingButtonView extends Button implements View.OnTouchListener
     }
 
     public void setGraphic(final Graphic graphic) {
+        // replacing the background requests a layout
+        if (this.graphic == graphic) {
+            return;
+        }
+
+        this.graphic = graphic;
+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             this.setBackground(
                     graphic == Graphic.CONNECTED
@@ -77,9 +85,16 @@ class AssuranceFloatingButtonView extends Button implements View.OnTouchListener
         this.onPositionChangedListener = onPositionChangedListener;
     }
 
+    /**
+     * Moves the button to the given position within its parent. The button is moved through its
+     * translation, which does not request a layout pass.
+     *
+     * @param x The new x co-ordinate
+     * @param y The new y co-ordinate
+     */
     public void setPosition(final float x, final float y) {
-        setX(x);
-        setY(y);
+        setTranslationX(x - getLeft());
+        setTranslationY(y - getTop());
 
         if (this.onPositionChangedListener != null) {
             this.onPositionChangedListener.onPositionChanged(x, y);
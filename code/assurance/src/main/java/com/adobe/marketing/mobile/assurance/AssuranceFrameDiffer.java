@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+/**
+ * Detects the parts of a screen recording frame that changed since the previous frame.
+ *
+ * <p>Each frame is split into a {@code gridSize} x {@code gridSize} grid of tiles and a hash of
+ * the pixels of every tile is compared with the hash of the same tile in the previous frame. The
+ * result reports the number of changed tiles and the pixel bounds enclosing all of them.
+ */
+final class AssuranceFrameDiffer {
+    static final int DEFAULT_GRID_SIZE = 8;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int gridSize;
+    private long[] previousHashes;
+    private int previousWidth;
+    private int previousHeight;
+
+    /** The changes between two consecutive frames. */
+    static final class FrameDiff {
+        final int changedTiles;
+        final int totalTiles;
+        final boolean isFirstFrame;
+        final int left;
+        final int top;
+        final int right;
+        final int bottom;
+
+        FrameDiff(
+                final int changedTiles,
+                final int totalTiles,
+                final boolean isFirstFrame,
+                final int left,
+                final int top,
+                final int right,
+                final int bottom) {
+            this.changedTiles = changedTiles;
+            this.totalTiles = totalTiles;
+            this.isFirstFrame = isFirstFrame;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        boolean hasChanges() {
+            return changedTiles > 0;
+        }
+
+        int getWidth() {
+            return right - left;
+        }
+
+        int getHeight() {
+            return bottom - top;
+        }
+    }
+
+    AssuranceFrameDiffer() {
+        this(DEFAULT_GRID_SIZE);
+    }
+
+    AssuranceFrameDiffer(final int gridSize) {
+        this.gridSize = gridSize;
+    }
+
+    /**
+     * Compares the frame with the previous frame passed to this method, and retains it for the
+     * next comparison. A frame whose size differs from the previous one is reported as a first
+     * frame with all of its tiles changed.
+     *
+     * @param pixels the ARGB pixels of the frame, row by row
+     * @param width the width of the frame
+     * @param height the height of the frame
+     * @return the {@link FrameDiff} describing the changed tiles
+     */
+    FrameDiff diff(final int[] pixels, final int width, final int height) {
+        final int columns = Math.min(gridSize, width);
+        final int rows = Math.min(gridSize, height);
+        final long[] hashes = new long[columns * rows];
+        final boolean isFirstFrame =
+                previousHashes == null
+                        || previousWidth != width
+                        || previousHeight != height
+                        || previousHashes.length != hashes.length;
+
+        int changedTiles = 0;
+        int left = width;
+        int top = height;
+        int right = 0;
+        int bottom = 0;
+
+        for (int row = 0; row < rows; row++) {
+            final int tileTop = row * height / rows;
+            final int tileBottom = (row + 1) * height / rows;
+
+            for (int column = 0; column < columns; column++) {
+                final int tileLeft = column * width / columns;
+                final int tileRight = (column + 1) * width / columns;
+                final int tile = row * columns + column;
+                hashes[tile] = hashTile(pixels, width, tileLeft, tileTop, tileRight, tileBottom);
+
+                if (isFirstFrame || hashes[tile] != previousHashes[tile]) {
+                    changedTiles++;
+                    left = Math.min(left, tileLeft);
+                    top = Math.min(top, tileTop);
+                    right = Math.max(right, tileRight);
+                    bottom = Math.max(bottom, tileBottom);
+                }
+            }
+        }
+
+        previousHashes = hashes;
+        previousWidth = width;
+        previousHeight = height;
+
+        if (changedTiles == 0) {
+            return new FrameDiff(0, hashes.length, false, 0, 0, 0, 0);
+        }
+
+        return new FrameDiff(changedTiles, hashes.length, isFirstFrame, left, top, right, bottom);
+    }
+
+    /** Forgets the previous frame, so that the next frame is reported as a first frame. */
+    void reset() {
+        previousHashes = null;
+    }
+
+    /** Hashes the pixels of a tile with 64 bit FNV-1a. */
+    private static long hashTile(
+            final int[] pixels,
+            final int stride,
+            final int left,
+            final int top,
+            final int right,
+            final int bottom) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (int y = top; y < bottom; y++) {
+            final int rowOffset = y * stride;
+
+            for (int x = left; x < right; x++) {
+                hash ^= pixels[rowOffset + x];
+                hash *= FNV_PRIME;
+            }
+        }
+
+        return hash;
+    }
+}
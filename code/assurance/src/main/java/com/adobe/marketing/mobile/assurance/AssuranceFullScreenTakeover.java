@@ -12,6 +12,7 @@
 package com.adobe.marketing.mobile.assurance;
 
 
+import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.ActivityNotFoundException;
 import android.content.Context;
@@ -22,6 +23,7 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.webkit.WebResourceRequest;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
@@ -29,56 +31,66 @@ import androidx.annotation.RequiresApi;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.Log;
 import java.lang.ref.WeakReference;
-
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A full screen html takeover, such as the pin code entry or the status screen.
+ *
+ * <p>All the takeovers share a single {@link WebView}, created once per process on the main
+ * thread. The html of a takeover is loaded into it when the takeover is shown and the WebView holds
+ * the html of another takeover, or when the takeover is created and the WebView is still empty.
+ * Scripts run before the html of the takeover has finished loading are queued until it has, and
+ * scripts run while the WebView holds the html of another takeover are dropped, since that html is
+ * loaded afresh the next time the takeover is shown. The WebView is emptied by {@link
+ * #unloadSharedWebView()} when the session is torn down, so that it does not keep the last
+ * takeover and its callbacks alive.
+ */
 class AssuranceFullScreenTakeover {
     private static final String LOG_TAG = "AssuranceFullScreenTakeover";
     private static final String BASE_URL = "file:///android_asset/";
     private static final String MIME_TYPE = "text/html";
 
-    private final MessageFullScreenWebViewClient webViewClient;
+    // created with the application context, accessed on the main thread only
+    @SuppressLint("StaticFieldLeak")
+    private static WebView sharedWebView;
+
+    // the takeover whose html is loaded in the shared WebView, accessed on the main thread only
+    private static AssuranceFullScreenTakeover loadedTakeover;
+
+    private final Context appContext;
+    private final String html;
     private final FullScreenTakeoverCallbacks callbacks;
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+    // accessed on the main thread only
+    private final List<String> pendingScripts = new ArrayList<>();
+    private boolean isPageLoaded;
 
     private int orientationWhenShown;
-    private WebView webView;
     private boolean isVisible;
 
     WeakReference<AssuranceFullScreenTakeoverActivity> messageFullScreenActivity;
     ViewGroup rootViewGroup;
 
-    @SuppressWarnings("SetJavascriptEnabled")
     AssuranceFullScreenTakeover(
             final Context appContext,
             final String html,
             final FullScreenTakeoverCallbacks callbacks) {
+        this.appContext = appContext;
+        this.html = html;
         this.callbacks = callbacks;
-        this.webViewClient = new MessageFullScreenWebViewClient();
 
-        // Initialize webview on main thread.
-        new Handler(Looper.getMainLooper())
-                .post(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                try {
-                                    webView = new WebView(appContext);
-                                    webView.getSettings().setJavaScriptEnabled(true);
-                                    webView.setVerticalScrollBarEnabled(false);
-                                    webView.setHorizontalScrollBarEnabled(false);
-                                    webView.setBackgroundColor(Color.TRANSPARENT);
-                                    webView.setWebViewClient(webViewClient);
-                                    webView.getSettings().setDefaultTextEncodingName("UTF-8");
-                                    webView.loadDataWithBaseURL(
-                                            BASE_URL, html, MIME_TYPE, "UTF-8", null);
-                                } catch (final Exception ex) {
-                                    Log.error(
-                                            Assurance.LOG_TAG,
-                                            LOG_TAG,
-                                            String.format(
-                                                    "Unable to create webview: %s",
-                                                    ex.getLocalizedMessage()));
-                                }
-                            }
-                        });
+        // preload the html on main thread if the shared webview is not in use yet
+        mainThreadHandler.post(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadedTakeover == null) {
+                            loadIntoSharedWebView();
+                        }
+                    }
+                });
     }
 
     void show(final Activity currentActivity) {
@@ -90,6 +102,17 @@ class AssuranceFullScreenTakeover {
             return;
         }
 
+        // load the html on main thread before the activity attaches the webview
+        mainThreadHandler.post(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadedTakeover != AssuranceFullScreenTakeover.this) {
+                            loadIntoSharedWebView();
+                        }
+                    }
+                });
+
         try {
             final Intent fullscreen =
                     new Intent(
@@ -111,19 +134,15 @@ class AssuranceFullScreenTakeover {
 
     /** Dismisses the message. */
     void remove() {
-        new Handler(Looper.getMainLooper())
-                .post(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                Log.trace(
-                                        Assurance.LOG_TAG,
-                                        LOG_TAG,
-                                        "Dismissing the fullscreen takeover");
-                                removeFromRootViewGroup();
-                                AssuranceFullScreenTakeoverActivity.setFullscreenMessage(null);
-                            }
-                        });
+        mainThreadHandler.post(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        Log.trace(Assurance.LOG_TAG, LOG_TAG, "Dismissing the fullscreen takeover");
+                        removeFromRootViewGroup();
+                        AssuranceFullScreenTakeoverActivity.setFullscreenMessage(null);
+                    }
+                });
         callbacks.onDismiss(this);
         isVisible = false;
     }
@@ -135,25 +154,140 @@ class AssuranceFullScreenTakeover {
      *     context.
      */
     void runJavascript(final String jsFragment) {
+        mainThreadHandler.post(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadedTakeover != AssuranceFullScreenTakeover.this) {
+                            Log.trace(
+                                    Assurance.LOG_TAG,
+                                    LOG_TAG,
+                                    "FullScreenTakeOver runJavascript dropped, html not loaded: %s",
+                                    jsFragment);
+                        } else if (!isPageLoaded) {
+                            pendingScripts.add(jsFragment);
+                        } else {
+                            evaluate(jsFragment);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Retrieves whether the html of this takeover has finished loading in the shared {@link
+     * WebView}, so that scripts run now reach the page loaded at the time. Must be called on the
+     * main thread.
+     *
+     * @return true if the html of this takeover is loaded in the shared {@link WebView}
+     */
+    boolean isPageLoaded() {
+        return loadedTakeover == this && isPageLoaded;
+    }
+
+    /**
+     * Empties the shared {@link WebView}, releasing the takeover whose html it holds. The html of
+     * a takeover shown afterwards is loaded afresh.
+     */
+    static void unloadSharedWebView() {
         new Handler(Looper.getMainLooper())
                 .post(
                         new Runnable() {
                             @Override
                             public void run() {
-                                if (webView != null) {
-                                    Log.trace(
-                                            Assurance.LOG_TAG,
-                                            LOG_TAG,
-                                            "FullScreenTakeOver runJavascript invoked with: %s",
-                                            jsFragment);
-                                    webView.loadUrl("javascript: " + jsFragment);
+                                if (loadedTakeover == null) {
+                                    return;
+                                }
+
+                                loadedTakeover.isPageLoaded = false;
+                                loadedTakeover.pendingScripts.clear();
+                                loadedTakeover = null;
+
+                                if (sharedWebView != null) {
+                                    sharedWebView.loadUrl("about:blank");
                                 }
                             }
                         });
     }
 
     /**
-     * Creates and adds the {@link #webView} to the root view group of {@link
+     * Loads the html of this takeover into the shared {@link WebView}, creating the WebView if
+     * needed. Must be called on the main thread.
+     */
+    private void loadIntoSharedWebView() {
+        final WebView webView = getSharedWebView(appContext);
+
+        if (webView == null) {
+            return;
+        }
+
+        if (loadedTakeover != null) {
+            loadedTakeover.isPageLoaded = false;
+            loadedTakeover.pendingScripts.clear();
+        }
+
+        loadedTakeover = this;
+        isPageLoaded = false;
+        pendingScripts.clear();
+        webView.loadDataWithBaseURL(BASE_URL, html, MIME_TYPE, "UTF-8", null);
+    }
+
+    /** Runs the scripts queued while the html was loading. Called on the main thread. */
+    private void onPageLoaded() {
+        isPageLoaded = true;
+
+        for (final String jsFragment : pendingScripts) {
+            evaluate(jsFragment);
+        }
+
+        pendingScripts.clear();
+        viewed();
+    }
+
+    private void evaluate(final String jsFragment) {
+        if (sharedWebView != null) {
+            Log.trace(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "FullScreenTakeOver runJavascript invoked with: %s",
+                    jsFragment);
+            sharedWebView.loadUrl("javascript: " + jsFragment);
+        }
+    }
+
+    /**
+     * Retrieves the {@link WebView} shared by all the takeovers, creating it on first use. Must be
+     * called on the main thread.
+     *
+     * @param appContext the application {@link Context}
+     * @return the shared {@link WebView}, or null if it could not be created
+     */
+    @SuppressWarnings("SetJavascriptEnabled")
+    private static WebView getSharedWebView(final Context appContext) {
+        if (sharedWebView != null) {
+            return sharedWebView;
+        }
+
+        try {
+            final WebView webView = new WebView(appContext);
+            webView.getSettings().setJavaScriptEnabled(true);
+            webView.setVerticalScrollBarEnabled(false);
+            webView.setHorizontalScrollBarEnabled(false);
+            webView.setBackgroundColor(Color.TRANSPARENT);
+            webView.setWebViewClient(new MessageFullScreenWebViewClient());
+            webView.getSettings().setDefaultTextEncodingName("UTF-8");
+            sharedWebView = webView;
+        } catch (final Exception ex) {
+            Log.error(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format("Unable to create webview: %s", ex.getLocalizedMessage()));
+        }
+
+        return sharedWebView;
+    }
+
+    /**
+     * Adds the {@link #sharedWebView} to the root view group of {@link
      * #messageFullScreenActivity}.
      */
     void showInRootViewGroup() {
@@ -183,7 +317,7 @@ class AssuranceFullScreenTakeover {
         mainHandler.post(new MessageFullScreenRunner(this));
     }
 
-    /** Removes the {@link #webView} from the activity. */
+    /** Removes the {@link #sharedWebView} from the activity. */
     private void removeFromRootViewGroup() {
         if (rootViewGroup == null) {
             Log.warning(
@@ -203,7 +337,9 @@ class AssuranceFullScreenTakeover {
             messageFullScreenActivity = null;
         }
 
-        rootViewGroup.removeView(webView);
+        if (sharedWebView != null && sharedWebView.getParent() == rootViewGroup) {
+            rootViewGroup.removeView(sharedWebView);
+        }
     }
 
     /** Gets called after the message is successfully shown. */
@@ -249,7 +385,23 @@ class AssuranceFullScreenTakeover {
                     return;
                 }
 
-                message.rootViewGroup.addView(message.webView, width, height);
+                if (sharedWebView == null) {
+                    Log.error(
+                            Assurance.LOG_TAG,
+                            LOG_TAG,
+                            "Failed to show fullscreen takeover, the webview is unavailable.");
+                    message.remove();
+                    return;
+                }
+
+                // the shared webview may still be attached to the previous takeover's activity
+                final ViewParent parent = sharedWebView.getParent();
+
+                if (parent instanceof ViewGroup) {
+                    ((ViewGroup) parent).removeView(sharedWebView);
+                }
+
+                message.rootViewGroup.addView(sharedWebView, width, height);
             } catch (final Exception ex) {
                 Log.trace(
                         Assurance.LOG_TAG,
@@ -265,7 +417,7 @@ class AssuranceFullScreenTakeover {
      * Implements {@link WebViewClient} to intercept the url href being clicked and determine the
      * action based on the url.
      */
-    private class MessageFullScreenWebViewClient extends WebViewClient {
+    private static class MessageFullScreenWebViewClient extends WebViewClient {
         @RequiresApi(14)
         @Override
         public boolean shouldOverrideUrlLoading(final WebView view, final String url) {
@@ -281,8 +433,10 @@ class AssuranceFullScreenTakeover {
         }
 
         private boolean handleUrl(final String url) {
-            if (callbacks != null) {
-                return callbacks.onURLTriggered(url);
+            final AssuranceFullScreenTakeover takeover = loadedTakeover;
+
+            if (takeover != null && takeover.callbacks != null) {
+                return takeover.callbacks.onURLTriggered(url);
             }
 
             return true;
@@ -294,7 +448,11 @@ class AssuranceFullScreenTakeover {
             // call viewed when page has finished loading... This may fire prior to the presentation
             // animation showing,
             // but should avoid a race condition in running JS on page load.
-            viewed();
+            final AssuranceFullScreenTakeover takeover = loadedTakeover;
+
+            if (takeover != null) {
+                takeover.onPageLoaded();
+            }
         }
     }
 
@@ -17,10 +17,8 @@ import android.content.res.XmlResourceParser;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.services.ServiceProvider;
-import com.adobe.marketing.mobile.util.StringUtils;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Stack;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.xmlpull.v1.XmlPullParser;
@@ -82,6 +80,9 @@ final class AssuranceIOUtils {
     /**
      * Takes {@link XmlPullParser} as an argument and returns {@code JSONObject} mapping for XML.
      *
+     * <p>The XML is converted to JSON text by {@link AssuranceXmlJsonConverter} while it is pulled
+     * from the parser, and the text is parsed once into the returned {@code JSONObject}.
+     *
      * @param xmlPullParser {@code XmlPullParser}
      * @return {@code JSONObject} mapping of XML.
      * @throws IOException
@@ -90,65 +91,8 @@ final class AssuranceIOUtils {
      */
     static JSONObject convertXMLToJSON(final XmlPullParser xmlPullParser)
             throws IOException, XmlPullParserException, JSONException {
-        final Stack<JSONObject> xmlJsonObjectStack = new Stack<>();
-
-        while (xmlPullParser.getEventType() != XmlPullParser.END_DOCUMENT) {
-            switch (xmlPullParser.getEventType()) {
-                case XmlPullParser.START_DOCUMENT:
-                    xmlJsonObjectStack.add(new JSONObject());
-                    xmlPullParser.next();
-                    break;
-
-                case XmlPullParser.START_TAG:
-                    final JSONObject jsonObject = new JSONObject();
-                    int count = xmlPullParser.getAttributeCount();
-
-                    for (int i = 0; i < count; i++) {
-                        jsonObject.put(
-                                xmlPullParser.getAttributeName(i),
-                                xmlPullParser.getAttributeValue(i));
-                    }
-
-                    xmlJsonObjectStack.push(jsonObject);
-                    xmlPullParser.next();
-                    break;
-
-                case XmlPullParser.TEXT:
-                    final JSONObject jsonObj = xmlJsonObjectStack.peek();
-                    final String content = xmlPullParser.getText().trim();
-
-                    if (!StringUtils.isNullOrEmpty(content)) {
-                        jsonObj.put("content", content);
-                    }
-
-                    xmlPullParser.next();
-                    break;
-
-                case XmlPullParser.END_TAG:
-                    final JSONObject jsonObjChild = xmlJsonObjectStack.pop();
-                    final JSONObject jsonObjectParent = xmlJsonObjectStack.peek();
-
-                    if (jsonObjectParent.has(xmlPullParser.getName())) {
-                        if (jsonObjectParent.get(xmlPullParser.getName()) instanceof JSONArray) {
-                            final JSONArray arr =
-                                    (JSONArray) jsonObjectParent.get(xmlPullParser.getName());
-                            arr.put(jsonObjChild);
-                        } else {
-                            final JSONObject obj =
-                                    (JSONObject) jsonObjectParent.get(xmlPullParser.getName());
-                            final JSONArray jsonArray = new JSONArray();
-                            jsonArray.put(obj).put(jsonObjChild);
-                            jsonObjectParent.put(xmlPullParser.getName(), jsonArray);
-                        }
-                    } else {
-                        jsonObjectParent.put(xmlPullParser.getName(), jsonObjChild);
-                    }
-
-                    xmlPullParser.next();
-                    break;
-            }
-        }
-
-        return xmlJsonObjectStack.pop();
+        final ByteArrayOutputStream json = new ByteArrayOutputStream();
+        AssuranceXmlJsonConverter.convert(xmlPullParser, json);
+        return new JSONObject(json.toString("UTF-8"));
     }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import java.util.Collection;
+import java.util.Map;
+import org.json.JSONException;
+
+/**
+ * Converts between JSON text and the maps, lists and values carried by {@link AssuranceEvent}s.
+ *
+ * <p>Decoded objects are {@code HashMap}s, arrays are {@code List}s and null is {@code
+ * JSONObject.NULL}, whichever codec decodes them. Implementations are stateless and can be used
+ * from any thread. The codec in use is selected through {@link AssuranceJsonCodecs}.
+ */
+interface AssuranceJsonCodec {
+    /**
+     * Returns the name under which this codec is selected.
+     *
+     * @return the name of the codec
+     */
+    String getName();
+
+    /**
+     * Parses the JSON object held by {@code json}.
+     *
+     * @param json the JSON text of an object
+     * @return the object as a {@code Map<String, Object>}
+     * @throws JSONException if {@code json} is not a well formed JSON object
+     */
+    Map<String, Object> decodeObject(final String json) throws JSONException;
+
+    /**
+     * Serializes the {@code map} as a JSON object.
+     *
+     * @param map the {@code Map} to be serialized
+     * @return the compact JSON text of the map
+     */
+    String encodeObject(final Map<?, ?> map);
+
+    /**
+     * Serializes the {@code collection} as a JSON array.
+     *
+     * @param collection the {@code Collection} to be serialized
+     * @return the compact JSON text of the collection
+     */
+    String encodeArray(final Collection<?> collection);
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.Collection;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Holds the {@link AssuranceJsonCodec}s and the one currently in use.
+ *
+ * <p>{@link #ORG_JSON} goes through {@code JSONObject} and {@code JSONArray} and is the default.
+ * {@link #STREAMING} reads and writes the JSON text directly with {@link AssuranceJsonReader} and
+ * {@link AssuranceJsonWriter}. The codec is read from the {@code
+ * com.adobe.marketing.mobile.assurance.JSON_CODEC} meta-data entry of the host app's manifest once
+ * it has been loaded in the background at registration, and can be switched at any time with
+ * {@link #select(String)}; a switch applies to the conversions started afterwards.
+ */
+final class AssuranceJsonCodecs {
+    private static final String LOG_TAG = "AssuranceJsonCodecs";
+
+    static final String ORG_JSON = "org.json";
+    static final String STREAMING = "streaming";
+
+    private static final AssuranceJsonCodec ORG_JSON_CODEC = new OrgJsonCodec();
+    private static final AssuranceJsonCodec STREAMING_CODEC = new StreamingJsonCodec();
+
+    private static volatile AssuranceJsonCodec current = ORG_JSON_CODEC;
+
+    private AssuranceJsonCodecs() {}
+
+    /**
+     * Returns the codec currently in use.
+     *
+     * @return the current {@link AssuranceJsonCodec}
+     */
+    static AssuranceJsonCodec get() {
+        return current;
+    }
+
+    /**
+     * Returns the codec with the given name.
+     *
+     * @param name the name of the codec, {@link #ORG_JSON} or {@link #STREAMING}
+     * @return the {@link AssuranceJsonCodec}, or null if there is no codec with that name
+     */
+    static AssuranceJsonCodec forName(final String name) {
+        if (ORG_JSON.equals(name)) {
+            return ORG_JSON_CODEC;
+        }
+
+        if (STREAMING.equals(name)) {
+            return STREAMING_CODEC;
+        }
+
+        return null;
+    }
+
+    /**
+     * Selects the codec with the given name for all subsequent conversions.
+     *
+     * @param name the name of the codec, {@link #ORG_JSON} or {@link #STREAMING}
+     * @return true if the codec was selected, false if there is no codec with that name
+     */
+    static boolean select(final String name) {
+        final AssuranceJsonCodec codec = forName(name);
+
+        if (codec == null) {
+            Log.warning(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "Unknown JSON codec %s, keeping %s.",
+                    name,
+                    current.getName());
+            return false;
+        }
+
+        current = codec;
+        return true;
+    }
+
+    /**
+     * Selects the codec named in the manifest meta-data of the host app. The current codec is kept
+     * if none is configured.
+     *
+     * @param metadata the {@link AssuranceManifestMetadata} of the host app
+     */
+    static void selectFromManifest(final AssuranceManifestMetadata metadata) {
+        final String name = metadata == null ? null : metadata.getJsonCodecName();
+
+        if (name != null) {
+            select(name);
+        }
+    }
+
+    private static final class OrgJsonCodec implements AssuranceJsonCodec {
+        @Override
+        public String getName() {
+            return ORG_JSON;
+        }
+
+        @Override
+        public Map<String, Object> decodeObject(final String json) throws JSONException {
+            return AssuranceEvent.objToMap(new JSONObject(json));
+        }
+
+        @Override
+        public String encodeObject(final Map<?, ?> map) {
+            return new JSONObject(map).toString();
+        }
+
+        @Override
+        public String encodeArray(final Collection<?> collection) {
+            return new JSONArray(collection).toString();
+        }
+    }
+
+    private static final class StreamingJsonCodec implements AssuranceJsonCodec {
+        @Override
+        public String getName() {
+            return STREAMING;
+        }
+
+        @Override
+        public Map<String, Object> decodeObject(final String json) throws JSONException {
+            if (json == null) {
+                throw new JSONException("Cannot decode a null string");
+            }
+
+            return new AssuranceJsonReader(json).readObject();
+        }
+
+        @Override
+        public String encodeObject(final Map<?, ?> map) {
+            return encode(map);
+        }
+
+        @Override
+        public String encodeArray(final Collection<?> collection) {
+            return encode(collection);
+        }
+
+        private static String encode(final Object value) {
+            final StringBuilder json = new StringBuilder();
+            new AssuranceJsonWriter(json).write(value);
+            return json.toString();
+        }
+    }
+}
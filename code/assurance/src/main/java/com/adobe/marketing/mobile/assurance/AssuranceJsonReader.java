@@ -0,0 +1,303 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Reads JSON text straight into the maps and lists used by {@link AssuranceEvent}, without
+ * building a tree of {@code JSONObject}s first.
+ *
+ * <p>The values read match the ones of {@code JSONObject}: objects become {@code HashMap}s, arrays
+ * become {@code ArrayList}s, integral numbers become {@code Integer}s or {@code Long}s depending on
+ * their range, other numbers become {@code Double}s, and null becomes {@link JSONObject#NULL}.
+ * Strings without escape sequences are read as a single substring of the input.
+ */
+final class AssuranceJsonReader {
+    private final String json;
+    private int position;
+
+    AssuranceJsonReader(final String json) {
+        this.json = json;
+    }
+
+    /**
+     * Reads the JSON object making up the whole input.
+     *
+     * @return the object as a {@code Map<String, Object>}
+     * @throws JSONException if the input is not a single well formed JSON object
+     */
+    Map<String, Object> readObject() throws JSONException {
+        skipWhitespace();
+        expect('{');
+        final Map<String, Object> object = readObjectContent();
+        skipWhitespace();
+
+        if (position < json.length()) {
+            throw syntaxError("Unexpected content after the object");
+        }
+
+        return object;
+    }
+
+    private Object readValue() throws JSONException {
+        skipWhitespace();
+
+        if (position >= json.length()) {
+            throw syntaxError("Unexpected end of input");
+        }
+
+        final char c = json.charAt(position++);
+
+        switch (c) {
+            case '{':
+                return readObjectContent();
+
+            case '[':
+                return readArrayContent();
+
+            case '"':
+                return readStringContent();
+
+            case 't':
+                return readLiteral("rue", Boolean.TRUE);
+
+            case 'f':
+                return readLiteral("alse", Boolean.FALSE);
+
+            case 'n':
+                return readLiteral("ull", JSONObject.NULL);
+
+            default:
+                position--;
+                return readNumber();
+        }
+    }
+
+    private HashMap<String, Object> readObjectContent() throws JSONException {
+        final HashMap<String, Object> object = new HashMap<>();
+        skipWhitespace();
+
+        if (consume('}')) {
+            return object;
+        }
+
+        do {
+            skipWhitespace();
+            expect('"');
+            final String name = readStringContent();
+            skipWhitespace();
+            expect(':');
+            object.put(name, readValue());
+            skipWhitespace();
+        } while (consume(','));
+
+        expect('}');
+        return object;
+    }
+
+    private List<Object> readArrayContent() throws JSONException {
+        final List<Object> array = new ArrayList<>();
+        skipWhitespace();
+
+        if (consume(']')) {
+            return array;
+        }
+
+        do {
+            array.add(readValue());
+            skipWhitespace();
+        } while (consume(','));
+
+        expect(']');
+        return array;
+    }
+
+    /** Reads a string whose opening quote has been consumed. */
+    private String readStringContent() throws JSONException {
+        final int start = position;
+
+        // the common case of a string without escape sequences is a substring of the input
+        while (position < json.length()) {
+            final char c = json.charAt(position);
+
+            if (c == '"') {
+                return json.substring(start, position++);
+            }
+
+            if (c == '\\') {
+                break;
+            }
+
+            position++;
+        }
+
+        final StringBuilder builder = new StringBuilder(json.length() - start);
+        builder.append(json, start, position);
+
+        while (position < json.length()) {
+            final char c = json.charAt(position++);
+
+            if (c == '"') {
+                return builder.toString();
+            }
+
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+
+            if (position >= json.length()) {
+                break;
+            }
+
+            final char escaped = json.charAt(position++);
+
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+
+                case 'f':
+                    builder.append('\f');
+                    break;
+
+                case 'n':
+                    builder.append('\n');
+                    break;
+
+                case 'r':
+                    builder.append('\r');
+                    break;
+
+                case 't':
+                    builder.append('\t');
+                    break;
+
+                case 'u':
+                    builder.append(readUnicodeEscape());
+                    break;
+
+                default:
+                    // covers the quote, the backslash and the slash
+                    builder.append(escaped);
+                    break;
+            }
+        }
+
+        throw syntaxError("Unterminated string");
+    }
+
+    private char readUnicodeEscape() throws JSONException {
+        if (position + 4 > json.length()) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+
+        int value = 0;
+
+        for (int i = 0; i < 4; i++) {
+            final int digit = Character.digit(json.charAt(position++), 16);
+
+            if (digit < 0) {
+                throw syntaxError("Invalid escape sequence");
+            }
+
+            value = (value << 4) | digit;
+        }
+
+        return (char) value;
+    }
+
+    private Object readNumber() throws JSONException {
+        final int start = position;
+        boolean isIntegral = true;
+
+        while (position < json.length()) {
+            final char c = json.charAt(position);
+
+            if (c == '.' || c == 'e' || c == 'E') {
+                isIntegral = false;
+            } else if (c != '-' && c != '+' && (c < '0' || c > '9')) {
+                break;
+            }
+
+            position++;
+        }
+
+        if (start == position) {
+            throw syntaxError("Unexpected character '" + json.charAt(position) + "'");
+        }
+
+        final String literal = json.substring(start, position);
+
+        try {
+            if (isIntegral) {
+                try {
+                    final long value = Long.parseLong(literal);
+                    return value == (int) value ? (Object) (int) value : (Object) value;
+                } catch (final NumberFormatException ex) {
+                    // too large for a long, read it as a double
+                }
+            }
+
+            return Double.valueOf(literal);
+        } catch (final NumberFormatException ex) {
+            throw syntaxError("Invalid number " + literal);
+        }
+    }
+
+    private Object readLiteral(final String rest, final Object value) throws JSONException {
+        if (!json.startsWith(rest, position)) {
+            throw syntaxError("Invalid literal");
+        }
+
+        position += rest.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length()) {
+            final char c = json.charAt(position);
+
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+
+            position++;
+        }
+    }
+
+    private boolean consume(final char c) {
+        if (position < json.length() && json.charAt(position) == c) {
+            position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expect(final char c) throws JSONException {
+        if (!consume(c)) {
+            throw syntaxError("Expected '" + c + "'");
+        }
+    }
+
+    private JSONException syntaxError(final String message) {
+        return new JSONException(message + " at character " + position);
+    }
+}
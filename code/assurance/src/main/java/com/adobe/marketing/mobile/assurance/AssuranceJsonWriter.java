@@ -0,0 +1,231 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Writes maps, collections and values as compact JSON text into a {@link StringBuilder}, without
+ * copying them into {@code JSONObject}s first.
+ *
+ * <p>Numbers are formatted like {@code JSONObject} does, writing whole numbers without a fraction.
+ * Non finite numbers, which have no JSON representation, are written as null. {@link JSONObject}s
+ * and {@link JSONArray}s found among the values, such as the payload of an event that was never
+ * decoded, are written as they are. Values of any other type are written as their string form.
+ */
+final class AssuranceJsonWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final Double NEGATIVE_ZERO = -0d;
+
+    private final StringBuilder out;
+
+    AssuranceJsonWriter(final StringBuilder out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the {@code value} and, recursively, everything it contains.
+     *
+     * @param value the value to be written
+     */
+    void write(final Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            out.append("null");
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            writeCollection((Collection<?>) value);
+        } else if (value instanceof Number) {
+            writeNumber((Number) value);
+        } else if (value instanceof Boolean) {
+            out.append(((Boolean) value).booleanValue());
+        } else if (value instanceof JSONObject) {
+            writeJSONObject((JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            writeJSONArray((JSONArray) value);
+        } else if (value.getClass().isArray()) {
+            writeArray(value);
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void writeMap(final Map<?, ?> map) {
+        out.append('{');
+        boolean isFirst = true;
+
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!isFirst) {
+                out.append(',');
+            }
+
+            isFirst = false;
+            writeString(String.valueOf(entry.getKey()));
+            out.append(':');
+            write(entry.getValue());
+        }
+
+        out.append('}');
+    }
+
+    private void writeCollection(final Collection<?> collection) {
+        out.append('[');
+        boolean isFirst = true;
+
+        for (final Object element : collection) {
+            if (!isFirst) {
+                out.append(',');
+            }
+
+            isFirst = false;
+            write(element);
+        }
+
+        out.append(']');
+    }
+
+    private void writeArray(final Object array) {
+        out.append('[');
+        final int length = Array.getLength(array);
+
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+
+            write(Array.get(array, i));
+        }
+
+        out.append(']');
+    }
+
+    private void writeJSONObject(final JSONObject object) {
+        out.append('{');
+        final Iterator<String> keys = object.keys();
+        boolean isFirst = true;
+
+        while (keys.hasNext()) {
+            final String key = keys.next();
+
+            if (!isFirst) {
+                out.append(',');
+            }
+
+            isFirst = false;
+            writeString(key);
+            out.append(':');
+            write(object.opt(key));
+        }
+
+        out.append('}');
+    }
+
+    private void writeJSONArray(final JSONArray array) {
+        out.append('[');
+
+        for (int i = 0; i < array.length(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+
+            write(array.opt(i));
+        }
+
+        out.append(']');
+    }
+
+    private void writeNumber(final Number number) {
+        if (number instanceof Integer || number instanceof Long) {
+            out.append(number.longValue());
+            return;
+        }
+
+        final double doubleValue = number.doubleValue();
+
+        if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+            out.append("null");
+        } else if (NEGATIVE_ZERO.equals(number)) {
+            out.append("-0");
+        } else if (doubleValue == (double) number.longValue()) {
+            out.append(number.longValue());
+        } else {
+            out.append(number.toString());
+        }
+    }
+
+    private void writeString(final String value) {
+        out.append('"');
+        int unescapedStart = 0;
+        final int length = value.length();
+
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+
+            // copy the run of characters that need no escaping in one go
+            out.append(value, unescapedStart, i);
+            unescapedStart = i + 1;
+
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+
+                case '\\':
+                    out.append("\\\\");
+                    break;
+
+                case '\b':
+                    out.append("\\b");
+                    break;
+
+                case '\f':
+                    out.append("\\f");
+                    break;
+
+                case '\n':
+                    out.append("\\n");
+                    break;
+
+                case '\r':
+                    out.append("\\r");
+                    break;
+
+                case '\t':
+                    out.append("\\t");
+                    break;
+
+                default:
+                    // other control characters and the line and paragraph separators
+                    out.append("\\u")
+                            .append(HEX[(c >> 12) & 0xf])
+                            .append(HEX[(c >> 8) & 0xf])
+                            .append(HEX[(c >> 4) & 0xf])
+                            .append(HEX[c & 0xf]);
+                    break;
+            }
+        }
+
+        out.append(value, unescapedStart, length).append('"');
+    }
+}
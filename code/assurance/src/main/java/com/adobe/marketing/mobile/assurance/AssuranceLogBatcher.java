@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups forwarded log entries into batches, so that a burst of logs results in a few outbound
+ * events instead of one event per entry.
+ *
+ * <p>A batch is delivered to the {@link BatchListener} once it holds {@code maxEntries} entries, or
+ * {@code maxDelayMillis} after its first entry was added, whichever comes first. The listener is
+ * invoked outside of the batcher's lock, either on the thread adding entries or on a thread of the
+ * {@link AssuranceScheduler}.
+ */
+final class AssuranceLogBatcher {
+    static final int DEFAULT_MAX_ENTRIES = 50;
+    static final long DEFAULT_MAX_DELAY_MILLIS = 1000;
+
+    /** Receives the batches of log entries. */
+    interface BatchListener {
+        /**
+         * Invoked with a batch of log entries.
+         *
+         * @param entries the entries in the order they were added, never empty
+         */
+        void onBatch(final List<AssuranceLogcatParser.LogEntry> entries);
+    }
+
+    private final int maxEntries;
+    private final long maxDelayMillis;
+    private final AssuranceScheduler scheduler;
+    private final BatchListener listener;
+    private final Runnable timedFlush =
+            new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            };
+
+    private List<AssuranceLogcatParser.LogEntry> pendingEntries;
+    private ScheduledFuture<?> pendingFlush;
+
+    AssuranceLogBatcher(final AssuranceScheduler scheduler, final BatchListener listener) {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_DELAY_MILLIS, scheduler, listener);
+    }
+
+    AssuranceLogBatcher(
+            final int maxEntries,
+            final long maxDelayMillis,
+            final AssuranceScheduler scheduler,
+            final BatchListener listener) {
+        this.maxEntries = maxEntries;
+        this.maxDelayMillis = maxDelayMillis;
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds an entry to the current batch, delivering the batch if it is full.
+     *
+     * @param entry the {@link AssuranceLogcatParser.LogEntry} to be forwarded
+     */
+    void add(final AssuranceLogcatParser.LogEntry entry) {
+        final List<AssuranceLogcatParser.LogEntry> fullBatch;
+
+        synchronized (this) {
+            if (pendingEntries == null) {
+                pendingEntries = new ArrayList<>(maxEntries);
+                scheduleFlush();
+            }
+
+            pendingEntries.add(entry);
+
+            if (pendingEntries.size() < maxEntries) {
+                return;
+            }
+
+            fullBatch = takePendingEntries();
+        }
+
+        listener.onBatch(fullBatch);
+    }
+
+    /** Delivers the current batch, if any, without waiting for it to fill up. */
+    void flush() {
+        final List<AssuranceLogcatParser.LogEntry> batch;
+
+        synchronized (this) {
+            batch = takePendingEntries();
+        }
+
+        if (batch != null) {
+            listener.onBatch(batch);
+        }
+    }
+
+    private void scheduleFlush() {
+        try {
+            pendingFlush = scheduler.schedule(timedFlush, maxDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException ex) {
+            // the scheduler is shutting down, the batch is delivered once full or flushed
+            pendingFlush = null;
+        }
+    }
+
+    private List<AssuranceLogcatParser.LogEntry> takePendingEntries() {
+        final List<AssuranceLogcatParser.LogEntry> batch = pendingEntries;
+        pendingEntries = null;
+
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+
+        return batch;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+
+/**
+ * Decodes the binary output of {@code logcat -B} into {@link AssuranceLogcatParser.LogEntry}s.
+ *
+ * <p>Each binary entry is a little endian {@code logger_entry} header followed by the payload. The
+ * header starts with the payload length and the header size (zero for the 20 byte version 1
+ * header), followed by the pid, the tid and the timestamp in seconds and nanoseconds; later
+ * versions append fields which are skipped. The payload holds the priority byte, the NUL
+ * terminated tag and the NUL terminated message.
+ *
+ * <p>Entries are decoded from a single direct buffer which is refilled from the stream as needed,
+ * so that reading does not allocate. The text of each entry, and a header in the {@code logcat -v
+ * long} format kept for the "logline" of the forwarded event, are the only allocations.
+ */
+final class AssuranceLogcatDecoder {
+    static final int V1_HEADER_SIZE = 20;
+    private static final int MAX_HEADER_SIZE = 64;
+    // LOGGER_ENTRY_MAX_LEN
+    private static final int MAX_ENTRY_SIZE = 5 * 1024;
+    private static final String PRIORITY_LEVELS = "VVVDIWEFF";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] scratch = new byte[MAX_ENTRY_SIZE];
+    private final StringBuilder textBuilder = new StringBuilder();
+    private final Calendar calendar = Calendar.getInstance();
+
+    AssuranceLogcatDecoder(final InputStream inputStream) {
+        this.channel = Channels.newChannel(inputStream);
+        this.buffer = ByteBuffer.allocateDirect(MAX_ENTRY_SIZE * 4).order(ByteOrder.LITTLE_ENDIAN);
+        // start in read mode with nothing to read
+        buffer.flip();
+    }
+
+    /**
+     * Reads the next entry with a message, blocking until it is available.
+     *
+     * @return the next {@link AssuranceLogcatParser.LogEntry}, or null at the end of the stream
+     * @throws StreamCorruptedException if the stream is not in the binary logcat format
+     * @throws IOException if the stream could not be read
+     */
+    AssuranceLogcatParser.LogEntry next() throws IOException {
+        while (true) {
+            if (!fill(4)) {
+                return null;
+            }
+
+            final int start = buffer.position();
+            final int payloadLength = buffer.getShort(start) & 0xFFFF;
+            int headerSize = buffer.getShort(start + 2) & 0xFFFF;
+
+            if (headerSize == 0) {
+                headerSize = V1_HEADER_SIZE;
+            }
+
+            if (headerSize < V1_HEADER_SIZE
+                    || headerSize > MAX_HEADER_SIZE
+                    || payloadLength > MAX_ENTRY_SIZE) {
+                throw new StreamCorruptedException(
+                        String.format(
+                                "Invalid logcat entry, header size %d, payload length %d",
+                                headerSize, payloadLength));
+            }
+
+            if (!fill(headerSize + payloadLength)) {
+                return null;
+            }
+
+            final AssuranceLogcatParser.LogEntry entry =
+                    decode(buffer.position(), headerSize, payloadLength);
+            buffer.position(buffer.position() + headerSize + payloadLength);
+
+            if (entry != null) {
+                return entry;
+            }
+        }
+    }
+
+    private AssuranceLogcatParser.LogEntry decode(
+            final int start, final int headerSize, final int payloadLength) {
+        final int pid = buffer.getInt(start + 4);
+        final int tid = buffer.getInt(start + 8);
+        final long seconds = buffer.getInt(start + 12) & 0xFFFFFFFFL;
+        final int nanoseconds = buffer.getInt(start + 16);
+
+        if (payloadLength < 2) {
+            return null;
+        }
+
+        final int payloadStart = start + headerSize;
+        final int priority = buffer.get(payloadStart);
+        final char level =
+                PRIORITY_LEVELS.charAt(
+                        Math.max(0, Math.min(PRIORITY_LEVELS.length() - 1, priority)));
+
+        // copy the tag and the message out of the direct buffer in one go
+        final int textLength = payloadLength - 1;
+        final int savedPosition = buffer.position();
+        buffer.position(payloadStart + 1);
+        buffer.get(scratch, 0, textLength);
+        buffer.position(savedPosition);
+
+        int tagEnd = 0;
+
+        while (tagEnd < textLength && scratch[tagEnd] != 0) {
+            tagEnd++;
+        }
+
+        int messageEnd = tagEnd + 1;
+
+        while (messageEnd < textLength && scratch[messageEnd] != 0) {
+            messageEnd++;
+        }
+
+        // messages are usually terminated by a new line
+        while (messageEnd > tagEnd + 1
+                && (scratch[messageEnd - 1] == '\n' || scratch[messageEnd - 1] == '\r')) {
+            messageEnd--;
+        }
+
+        if (messageEnd <= tagEnd + 1) {
+            return null;
+        }
+
+        final String tag = new String(scratch, 0, tagEnd, UTF_8);
+        final String message = new String(scratch, tagEnd + 1, messageEnd - tagEnd - 1, UTF_8);
+        final String timestamp = formatTimestamp(seconds * 1000 + nanoseconds / 1000000);
+
+        // the header of the entry in the "logcat -v long" format
+        textBuilder.setLength(0);
+        textBuilder.append("[ ").append(timestamp).append(' ');
+        appendPadded(pid);
+        textBuilder.append(':');
+        appendPadded(tid);
+        textBuilder.append(' ').append(level).append('/').append(tag);
+
+        for (int i = tag.length(); i < 8; i++) {
+            textBuilder.append(' ');
+        }
+
+        textBuilder.append(" ]");
+
+        return new AssuranceLogcatParser.LogEntry(
+                textBuilder.toString(), timestamp, pid, tid, level, tag, message);
+    }
+
+    /**
+     * Ensures that at least {@code length} bytes can be read from the buffer, reading from the
+     * stream as needed.
+     *
+     * @return false if the stream ended first
+     */
+    private boolean fill(final int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return true;
+        }
+
+        buffer.compact();
+
+        try {
+            while (buffer.position() < length) {
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+
+        return true;
+    }
+
+    /** Formats the time as {@code MM-DD HH:MM:SS.mmm} in the local time zone. */
+    private String formatTimestamp(final long timeMillis) {
+        calendar.setTimeInMillis(timeMillis);
+        textBuilder.setLength(0);
+        appendTwoDigits(calendar.get(Calendar.MONTH) + 1);
+        textBuilder.append('-');
+        appendTwoDigits(calendar.get(Calendar.DAY_OF_MONTH));
+        textBuilder.append(' ');
+        appendTwoDigits(calendar.get(Calendar.HOUR_OF_DAY));
+        textBuilder.append(':');
+        appendTwoDigits(calendar.get(Calendar.MINUTE));
+        textBuilder.append(':');
+        appendTwoDigits(calendar.get(Calendar.SECOND));
+        textBuilder.append('.');
+        final int millis = calendar.get(Calendar.MILLISECOND);
+        textBuilder.append(millis / 100).append(millis / 10 % 10).append(millis % 10);
+        return textBuilder.toString();
+    }
+
+    private void appendTwoDigits(final int value) {
+        textBuilder.append(value / 10).append(value % 10);
+    }
+
+    /** Appends the value right aligned in five characters, as logcat does for pids and tids. */
+    private void appendPadded(final int value) {
+        for (int limit = 10000; limit > 1 && value < limit; limit /= 10) {
+            textBuilder.append(' ');
+        }
+
+        textBuilder.append(value);
+    }
+}
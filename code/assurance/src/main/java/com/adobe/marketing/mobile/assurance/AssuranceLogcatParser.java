@@ -0,0 +1,252 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses the output of {@code logcat -v long} into {@link LogEntry}s.
+ *
+ * <p>In the long format every entry starts with a header line of the form {@code [ MM-DD
+ * HH:MM:SS.mmm PID: TID L/TAG ]}, followed by the message lines and a blank line. The header is
+ * scanned by hand instead of being matched against a regular expression, so that only the tag,
+ * the timestamp and the message of each entry are allocated.
+ *
+ * <p>Instances are not thread safe, lines are expected to be fed from a single reader thread.
+ */
+final class AssuranceLogcatParser {
+    private static final int TIMESTAMP_START = 2;
+    // digits are matched by '0', everything else literally
+    private static final String TIMESTAMP_TEMPLATE = "00-00 00:00:00.000";
+    private static final int TIMESTAMP_LENGTH = TIMESTAMP_TEMPLATE.length();
+    private static final String LEVELS = "VDIWEAF";
+
+    /** A single parsed logcat entry. */
+    static final class LogEntry {
+        final String header;
+        final String timestamp;
+        final int pid;
+        final int tid;
+        final char level;
+        final String tag;
+        final String message;
+
+        LogEntry(
+                final String header,
+                final String timestamp,
+                final int pid,
+                final int tid,
+                final char level,
+                final String tag,
+                final String message) {
+            this.header = header;
+            this.timestamp = timestamp;
+            this.pid = pid;
+            this.tid = tid;
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+        }
+
+        Map<String, Object> toMap() {
+            final Map<String, Object> map = new HashMap<>();
+            map.put("timestamp", timestamp);
+            map.put("pid", pid);
+            map.put("tid", tid);
+            map.put("level", String.valueOf(level));
+            map.put("tag", tag);
+            map.put("message", message);
+            return map;
+        }
+    }
+
+    private final StringBuilder message = new StringBuilder();
+
+    // the header of the pending entry
+    private String header;
+    private int pid;
+    private int tid;
+    private char level;
+    private int tagStart;
+    private int tagEnd;
+
+    // the result of the last successful scanHeader call
+    private int scannedPid;
+    private int scannedTid;
+    private char scannedLevel;
+    private int scannedTagStart;
+    private int scannedTagEnd;
+
+    /**
+     * Consumes one line of logcat output.
+     *
+     * @param line the line read from logcat, without the line terminator
+     * @return the {@link LogEntry} completed by this line, or null if no entry was completed
+     */
+    LogEntry parseLine(final String line) {
+        if (line == null) {
+            return null;
+        }
+
+        if (line.isEmpty()) {
+            return flush();
+        }
+
+        if (line.charAt(0) == '[' && scanHeader(line)) {
+            // an entry which was not terminated by a blank line ends at the next header
+            final LogEntry previous = flush();
+            header = line;
+            pid = scannedPid;
+            tid = scannedTid;
+            level = scannedLevel;
+            tagStart = scannedTagStart;
+            tagEnd = scannedTagEnd;
+            return previous;
+        }
+
+        if (header != null) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+
+            message.append(line);
+        }
+
+        return null;
+    }
+
+    /**
+     * Completes the pending entry, if it has a message.
+     *
+     * @return the pending {@link LogEntry}, or null if there is none
+     */
+    LogEntry flush() {
+        if (header == null || message.length() == 0) {
+            header = null;
+            return null;
+        }
+
+        final LogEntry entry =
+                new LogEntry(
+                        header,
+                        header.substring(TIMESTAMP_START, TIMESTAMP_START + TIMESTAMP_LENGTH),
+                        pid,
+                        tid,
+                        level,
+                        header.substring(tagStart, tagEnd),
+                        message.toString());
+        header = null;
+        message.setLength(0);
+        return entry;
+    }
+
+    /**
+     * Scans a header line, storing its fields in the {@code scanned*} fields.
+     *
+     * @return true if the line is a well formed header
+     */
+    private boolean scanHeader(final String line) {
+        final int length = line.length();
+
+        if (length < TIMESTAMP_START + TIMESTAMP_LENGTH + 8
+                || line.charAt(1) != ' '
+                || line.charAt(length - 1) != ']'
+                || !isTimestamp(line)) {
+            return false;
+        }
+
+        int position = TIMESTAMP_START + TIMESTAMP_LENGTH;
+
+        // pid, right aligned after at least one space
+        if (line.charAt(position) != ' ') {
+            return false;
+        }
+
+        while (line.charAt(position) == ' ') {
+            position++;
+        }
+
+        final int pidStart = position;
+        int value = 0;
+
+        while (isDigit(line.charAt(position))) {
+            value = value * 10 + (line.charAt(position++) - '0');
+        }
+
+        if (position == pidStart || line.charAt(position++) != ':') {
+            return false;
+        }
+
+        scannedPid = value;
+
+        // tid, right aligned after any number of spaces
+        while (line.charAt(position) == ' ') {
+            position++;
+        }
+
+        final int tidStart = position;
+        value = 0;
+
+        while (isDigit(line.charAt(position))) {
+            value = value * 10 + (line.charAt(position++) - '0');
+        }
+
+        if (position == tidStart || position + 3 >= length || line.charAt(position++) != ' ') {
+            return false;
+        }
+
+        scannedTid = value;
+        scannedLevel = line.charAt(position++);
+
+        if (LEVELS.indexOf(scannedLevel) < 0 || line.charAt(position++) != '/') {
+            return false;
+        }
+
+        // the tag, followed by padding and the closing bracket
+        scannedTagStart = position;
+
+        while (line.charAt(position) != ' ' && position < length - 1) {
+            position++;
+        }
+
+        scannedTagEnd = position;
+
+        if (scannedTagEnd == scannedTagStart || line.charAt(position) != ' ') {
+            return false;
+        }
+
+        while (line.charAt(position) == ' ') {
+            position++;
+        }
+
+        return position == length - 1;
+    }
+
+    private static boolean isTimestamp(final String line) {
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            final char c = line.charAt(TIMESTAMP_START + i);
+            final char expected = TIMESTAMP_TEMPLATE.charAt(i);
+
+            if (expected == '0' ? !isDigit(c) : c != expected) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+}
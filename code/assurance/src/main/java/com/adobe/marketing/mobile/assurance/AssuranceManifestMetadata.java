@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.assurance.AssuranceConstants.WebViewStartupMode;
+import com.adobe.marketing.mobile.services.Log;
+
+/**
+ * The Assurance settings read from the meta-data entries of the host app's manifest.
+ *
+ * <p>The meta-data is read once per process, with a single {@code PackageManager} call made while
+ * the {@link AssuranceDataStore} is loaded in the background at registration, and is served from
+ * memory afterwards.
+ */
+final class AssuranceManifestMetadata {
+    private static final String LOG_TAG = "AssuranceManifestMetadata";
+    private static final AssuranceManifestMetadata EMPTY =
+            new AssuranceManifestMetadata(null, null);
+
+    private static volatile AssuranceManifestMetadata loaded;
+
+    private final String jsonCodecName;
+    private final String webViewStartupMode;
+
+    @VisibleForTesting
+    AssuranceManifestMetadata(final String jsonCodecName, final String webViewStartupMode) {
+        this.jsonCodecName = jsonCodecName;
+        this.webViewStartupMode = webViewStartupMode;
+    }
+
+    /**
+     * Retrieves the manifest settings, reading them on the first call only. Threads racing on the
+     * first call read equal settings.
+     *
+     * @param context the application {@link Context}
+     * @return the {@link AssuranceManifestMetadata} of the host app
+     */
+    static AssuranceManifestMetadata load(final Context context) {
+        AssuranceManifestMetadata metadata = loaded;
+
+        if (metadata == null) {
+            metadata = read(context);
+            loaded = metadata;
+        }
+
+        return metadata;
+    }
+
+    /**
+     * Retrieves the manifest settings if they have been loaded, without reading them.
+     *
+     * @return the loaded {@link AssuranceManifestMetadata}, or settings holding the defaults if it
+     *     has not been loaded yet
+     */
+    static AssuranceManifestMetadata get() {
+        final AssuranceManifestMetadata metadata = loaded;
+        return metadata == null ? EMPTY : metadata;
+    }
+
+    @VisibleForTesting
+    static void reset() {
+        loaded = null;
+    }
+
+    /**
+     * Reads the Assurance meta-data entries of the host app's manifest.
+     *
+     * @param context the application {@link Context}
+     * @return the {@link AssuranceManifestMetadata} read, holding the defaults if it cannot be read
+     */
+    @VisibleForTesting
+    static AssuranceManifestMetadata read(final Context context) {
+        if (context == null) {
+            return EMPTY;
+        }
+
+        try {
+            final ApplicationInfo applicationInfo =
+                    context.getPackageManager()
+                            .getApplicationInfo(
+                                    context.getPackageName(), PackageManager.GET_META_DATA);
+            final Bundle metaData = applicationInfo.metaData;
+
+            if (metaData == null) {
+                return EMPTY;
+            }
+
+            return new AssuranceManifestMetadata(
+                    metaData.getString(AssuranceConstants.ManifestMetadataKeys.JSON_CODEC),
+                    metaData.getString(
+                            AssuranceConstants.ManifestMetadataKeys.WEBVIEW_STARTUP_MODE));
+        } catch (final Exception ex) {
+            Log.debug(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format(
+                            "Unable to read the manifest meta-data, using defaults. Error - %s",
+                            ex.getLocalizedMessage()));
+            return EMPTY;
+        }
+    }
+
+    /**
+     * @return the name of the {@link AssuranceJsonCodec} to be used, or null if none is configured
+     */
+    String getJsonCodecName() {
+        return jsonCodecName;
+    }
+
+    /**
+     * @return the configured {@link WebViewStartupMode}, {@link WebViewStartupMode#IDLE} if none or
+     *     an unknown one is configured
+     */
+    WebViewStartupMode getWebViewStartupMode() {
+        return WebViewStartupMode.get(webViewStartupMode);
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import androidx.annotation.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the large subtrees of an event payload that were already sent in the session with
+ * compact references.
+ *
+ * <p>Every map or list found within {@link #MAX_DEPTH} levels of the payload, whose JSON
+ * serialization is at least {@link #MIN_SUBTREE_LENGTH} characters long, is addressed by a 64 bit
+ * hash of its content:
+ *
+ * <ul>
+ *   <li>a subtree whose hash was sent recently is replaced by {@code {"$assuranceRef": hash}}
+ *   <li>any other subtree is wrapped in {@code {"$assuranceDef": hash, "$assuranceValue":
+ *       subtree}}, for the server to remember it. The children of the wrapped subtree are
+ *       processed the same way, and the server resolves them before remembering the subtree.
+ * </ul>
+ *
+ * <p>The payload is walked once, bottom-up: the hash and the serialized length of a subtree are
+ * combined from those of its children, the same way {@link AssuranceSharedStateSnapshot} hashes
+ * the shared states, rather than serializing the subtree at every depth. Strings are hashed with
+ * FNV-1a, map entries are combined independently of their iteration order and list elements in
+ * order. The length ignores the escaping of strings, which only matters against the threshold.
+ *
+ * <p>The hashes of the subtrees defined by an event are only considered sent once the event has
+ * been written to the socket, see {@link #onSent()}. The {@link #capacity} most recently used
+ * hashes are kept, so the server has to remember at least as many definitions. Only used when the
+ * server enables {@link AssuranceConstants.Capability#PAYLOAD_REFERENCES}.
+ */
+final class AssurancePayloadDeduplicator {
+    static final String REFERENCE_KEY = "$assuranceRef";
+    static final String DEFINITION_KEY = "$assuranceDef";
+    static final String VALUE_KEY = "$assuranceValue";
+
+    static final int DEFAULT_CAPACITY = 256;
+
+    /** Subtrees shorter than this are cheaper to resend than to reference. */
+    @VisibleForTesting static final int MIN_SUBTREE_LENGTH = 256;
+
+    /** The payload values are at depth 1, the event data of an SDK event at depth 2. */
+    private static final int MAX_DEPTH = 3;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int capacity;
+    private final LinkedHashMap<String, Boolean> sentHashes;
+    private final List<String> pendingHashes = new ArrayList<>();
+
+    AssurancePayloadDeduplicator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @VisibleForTesting
+    AssurancePayloadDeduplicator(final int capacity) {
+        this.capacity = capacity;
+        this.sentHashes =
+                new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(
+                            final Map.Entry<String, Boolean> eldest) {
+                        return size() > AssurancePayloadDeduplicator.this.capacity;
+                    }
+                };
+    }
+
+    /**
+     * Creates a copy of the {@code payload} with its large subtrees replaced by references or
+     * definitions. The {@code payload} itself is not modified.
+     *
+     * @param payload the payload of the event about to be sent
+     * @return the payload to be sent instead
+     */
+    synchronized Map<String, Object> deduplicate(final Map<String, Object> payload) {
+        pendingHashes.clear();
+        return processChildren(payload, 1);
+    }
+
+    /** Records the subtrees defined by the last deduplicated payload as sent. */
+    synchronized void onSent() {
+        for (final String hash : pendingHashes) {
+            sentHashes.put(hash, Boolean.TRUE);
+        }
+
+        pendingHashes.clear();
+    }
+
+    /** Forgets the sent subtrees, for when the server may no longer remember them. */
+    synchronized void reset() {
+        sentHashes.clear();
+        pendingHashes.clear();
+    }
+
+    private Map<String, Object> processChildren(final Map<?, ?> map, final int depth) {
+        final Map<String, Object> processed = new HashMap<>();
+
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            processed.put(String.valueOf(entry.getKey()), process(entry.getValue(), depth).value);
+        }
+
+        return processed;
+    }
+
+    /**
+     * Replaces the {@code value} by a reference or a definition if it is a large enough subtree,
+     * processing its children first.
+     *
+     * @param value the payload value
+     * @param depth the depth of the {@code value} in the payload
+     * @return the {@link Subtree} holding the value to be sent, and the hash and the length of the
+     *     original {@code value}
+     */
+    private Subtree process(final Object value, final int depth) {
+        if (depth > MAX_DEPTH || !(value instanceof Map || value instanceof Collection)) {
+            return measure(value);
+        }
+
+        // the definitions of the children are dropped if this subtree turns out to be referenced
+        final int pendingHashCount = pendingHashes.size();
+        final Object processedValue;
+        final long contentHash;
+        long length = 2; // the brackets
+
+        if (value instanceof Map) {
+            final Map<String, Object> processed = new HashMap<>();
+            long entriesHash = 1;
+
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                final String key = String.valueOf(entry.getKey());
+                final Subtree child = process(entry.getValue(), depth + 1);
+                processed.put(key, child.value);
+                entriesHash += mix(fnv1a(key) * 31 + child.hash);
+                length += key.length() + 3 + child.length + 1; // quotes, colon and comma
+            }
+
+            processedValue = processed;
+            contentHash = mix(entriesHash);
+        } else {
+            final List<Object> processed = new ArrayList<>();
+            long elementsHash = 2;
+
+            for (final Object element : (Collection<?>) value) {
+                final Subtree child = process(element, depth + 1);
+                processed.add(child.value);
+                elementsHash = elementsHash * FNV_PRIME + child.hash;
+                length += child.length + 1; // comma
+            }
+
+            processedValue = processed;
+            contentHash = mix(elementsHash);
+        }
+
+        if (length < MIN_SUBTREE_LENGTH) {
+            // the children are even shorter
+            return new Subtree(value, contentHash, length);
+        }
+
+        final String hash = Long.toHexString(contentHash);
+
+        if (sentHashes.get(hash) != null) {
+            pendingHashes.subList(pendingHashCount, pendingHashes.size()).clear();
+            return new Subtree(
+                    Collections.singletonMap(REFERENCE_KEY, hash), contentHash, length);
+        }
+
+        pendingHashes.add(hash);
+        final Map<String, Object> definition = new HashMap<>();
+        definition.put(DEFINITION_KEY, hash);
+        definition.put(VALUE_KEY, processedValue);
+        return new Subtree(definition, contentHash, length);
+    }
+
+    /**
+     * Computes the hash and the length of a value that is sent as it is.
+     *
+     * @param value the payload value
+     * @return the {@link Subtree} holding the {@code value}
+     */
+    private static Subtree measure(final Object value) {
+        if (value instanceof String) {
+            final String string = (String) value;
+            return new Subtree(value, fnv1a(string), string.length() + 2);
+        }
+
+        if (value instanceof Map) {
+            long entriesHash = 1;
+            long length = 2;
+
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                final String key = String.valueOf(entry.getKey());
+                final Subtree child = measure(entry.getValue());
+                entriesHash += mix(fnv1a(key) * 31 + child.hash);
+                length += key.length() + 3 + child.length + 1;
+            }
+
+            return new Subtree(value, mix(entriesHash), length);
+        }
+
+        if (value instanceof Collection) {
+            long elementsHash = 2;
+            long length = 2;
+
+            for (final Object element : (Collection<?>) value) {
+                final Subtree child = measure(element);
+                elementsHash = elementsHash * FNV_PRIME + child.hash;
+                length += child.length + 1;
+            }
+
+            return new Subtree(value, mix(elementsHash), length);
+        }
+
+        if (value == null) {
+            return new Subtree(null, 0, 4);
+        }
+
+        return new Subtree(
+                value,
+                mix(value.getClass().getName().hashCode() * 31L + value.hashCode()),
+                String.valueOf(value).length());
+    }
+
+    /** Spreads the bits of {@code hash}, the finalizer of MurmurHash3. */
+    private static long mix(final long hash) {
+        long mixed = hash;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+
+    /**
+     * Computes the 64 bit FNV-1a hash of the UTF-16 code units of {@code string}.
+     *
+     * @param string the string to be hashed
+     * @return the hash
+     */
+    @VisibleForTesting
+    static long fnv1a(final String string) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (int i = 0; i < string.length(); i++) {
+            hash ^= string.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    /** A payload value to be sent, with the hash and the serialized length of the original. */
+    private static final class Subtree {
+        final Object value;
+        final long hash;
+        final long length;
+
+        Subtree(final Object value, final long hash, final long length) {
+            this.value = value;
+            this.hash = hash;
+            this.length = length;
+        }
+    }
+}
@@ -16,9 +16,6 @@ import android.net.Uri;
 import android.os.Handler;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.Log;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Scanner;
 
 class AssurancePinCodeEntryURLProvider
         implements AssuranceFullScreenTakeover.FullScreenTakeoverCallbacks {
@@ -57,118 +54,64 @@ class AssurancePinCodeEntryURLProvider
         final AssurancePinCodeEntryURLProvider thisRef = this;
 
         // Load and launch pin code entry dialog
-        new Thread(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                try {
-                                    // load html and such
-                                    final ClassLoader cl = this.getClass().getClassLoader();
-
-                                    if (cl == null) {
-                                        Log.error(
-                                                Assurance.LOG_TAG,
-                                                LOG_TAG,
-                                                "Pin code entry unable to get class loader.");
-                                        return;
-                                    }
-
-                                    final InputStream is =
-                                            cl.getResourceAsStream("assets/PinDialog.html");
-                                    final Scanner s = new Scanner(is).useDelimiter("\\A");
-                                    final String html = s.next();
-                                    is.close();
-
-                                    if (html == null || html.length() == 0) {
-                                        Log.error(
-                                                Assurance.LOG_TAG,
-                                                LOG_TAG,
-                                                "Unable to load ui for pin dialog, assets might be"
-                                                        + " unavailable.");
-                                        return;
-                                    }
-
-                                    thisRef.pinCodeTakeover =
-                                            new AssuranceFullScreenTakeover(
-                                                    applicationHandle.getAppContext(),
-                                                    html,
-                                                    thisRef);
-
-                                    if (thisRef.applicationHandle != null) {
-                                        Log.trace(
-                                                Assurance.LOG_TAG,
-                                                LOG_TAG,
-                                                "Attempting to display the PinCode Screen.");
-
-                                        // use main thread to get current activity and start the
-                                        // pinCodeEntry activity
-                                        // keeping this in main thread will synchronize and minimize
-                                        // the race condition in getting the correct current
-                                        // activity
-                                        Handler mainHandler =
-                                                new Handler(
-                                                        applicationHandle
-                                                                .getAppContext()
-                                                                .getMainLooper());
-                                        mainHandler.post(
-                                                new Runnable() {
-                                                    @Override
-                                                    public void run() {
-                                                        if (thisRef != null
-                                                                && thisRef.applicationHandle
-                                                                        != null) {
-
-                                                            // have a runnable to defer the showing
-                                                            // of pinCodeEntry screen, until the
-                                                            // current activity is set
-                                                            final Runnable providerRunnable =
-                                                                    new Runnable() {
-                                                                        @Override
-                                                                        public void run() {
-                                                                            thisRef.pinCodeTakeover
-                                                                                    .show(
-                                                                                            thisRef
-                                                                                                    .applicationHandle
-                                                                                                    .getCurrentActivity());
-                                                                        }
-                                                                    };
+        AssuranceAssetCache.load(
+                AssuranceAssetCache.PIN_DIALOG_HTML,
+                new AssuranceAssetCache.AssetCallback() {
+                    @Override
+                    public void onAssetLoaded(final String html) {
+                        thisRef.pinCodeTakeover =
+                                new AssuranceFullScreenTakeover(
+                                        applicationHandle.getAppContext(), html, thisRef);
+
+                        if (thisRef.applicationHandle != null) {
+                            Log.trace(
+                                    Assurance.LOG_TAG,
+                                    LOG_TAG,
+                                    "Attempting to display the PinCode Screen.");
+
+                            // use main thread to get current activity and start the pinCodeEntry
+                            // activity
+                            // keeping this in main thread will synchronize and minimize the race
+                            // condition in getting the correct current activity
+                            Handler mainHandler =
+                                    new Handler(applicationHandle.getAppContext().getMainLooper());
+                            mainHandler.post(
+                                    new Runnable() {
+                                        @Override
+                                        public void run() {
+                                            showWhenActivityAvailable();
+                                        }
+                                    });
+                        } else {
+                            Log.error(
+                                    Assurance.LOG_TAG,
+                                    LOG_TAG,
+                                    "Unable to show PinDialog, parent session is null.");
+                        }
+                    }
+                });
+    }
 
-                                                            if (thisRef.applicationHandle
-                                                                            .getCurrentActivity()
-                                                                    == null) {
-                                                                Log.debug(
-                                                                        Assurance.LOG_TAG,
-                                                                        LOG_TAG,
-                                                                        "No activity reference,"
-                                                                                + " deferring"
-                                                                                + " connection"
-                                                                                + " dialog");
-                                                                deferredActivityRunnable =
-                                                                        providerRunnable;
-                                                            } else {
-                                                                providerRunnable.run();
-                                                            }
-                                                        }
-                                                    }
-                                                });
-                                    } else {
-                                        Log.error(
-                                                Assurance.LOG_TAG,
-                                                LOG_TAG,
-                                                "Unable to show PinDialog, parent session is"
-                                                        + " null.");
-                                    }
-                                } catch (final IOException ex) {
-                                    Log.error(
-                                            Assurance.LOG_TAG,
-                                            LOG_TAG,
-                                            String.format(
-                                                    "Unable to read assets/PinDialog.html: %s",
-                                                    ex.getLocalizedMessage()));
-                                }
-                            }
-                        })
-                .start();
+    private void showWhenActivityAvailable() {
+        // have a runnable to defer the showing of pinCodeEntry screen, until the current activity
+        // is set
+        final Runnable providerRunnable =
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        pinCodeTakeover.show(applicationHandle.getCurrentActivity());
+                    }
+                };
+
+        if (applicationHandle.getCurrentActivity() == null) {
+            Log.debug(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "No activity reference, deferring connection dialog");
+            deferredActivityRunnable = providerRunnable;
+        } else {
+            providerRunnable.run();
+        }
     }
 
     public void onConnecting() {
@@ -243,7 +186,8 @@ class AssurancePinCodeEntryURLProvider
                 return true;
             }
 
-            new Thread(
+            AssuranceScheduler.getInstance()
+                    .execute(
                             new Runnable() {
                                 @Override
                                 public void run() {
@@ -254,8 +198,7 @@ class AssurancePinCodeEntryURLProvider
                                     uiOperationHandler.onConnect(
                                             uri.getQueryParameter(HTML_QUERY_KEY_PIN_CODE));
                                 }
-                            })
-                    .start();
+                            });
         } else {
             Log.debug(
                     Assurance.LOG_TAG,
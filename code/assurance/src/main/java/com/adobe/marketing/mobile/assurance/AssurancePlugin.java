@@ -11,12 +11,22 @@
 
 package com.adobe.marketing.mobile.assurance;
 
-interface AssurancePlugin {
+/**
+ * A plugin receiving the control events of an Assurance session for a vendor and control type.
+ *
+ * <p>Plugins are registered with {@link
+ * com.adobe.marketing.mobile.Assurance#registerPlugin(AssurancePlugin)} and are added to every
+ * Assurance session created afterwards, as well as to the active session. Each plugin receives its
+ * events on its own serial executor, so its callbacks are not invoked concurrently for events but
+ * may run on a different thread than the session lifecycle callbacks.
+ */
+public interface AssurancePlugin {
 
     /**
      * Returns the vendor name
      *
-     * <p>The Plugin will only receive the Control Events from the provided vendor.
+     * <p>The Plugin will only receive the Control Events from the provided vendor. Events sent by
+     * the plugin through its {@link AssurancePluginSession} are stamped with this vendor.
      *
      * @return the vendor name
      */
@@ -42,9 +52,10 @@ interface AssurancePlugin {
     /**
      * Invoked when plugin is successfully registered to the AssuranceSession
      *
-     * @param parentSession an instance of the active AssuranceSession
+     * @param session the {@link AssurancePluginSession} through which the plugin interacts with
+     *     the session
      */
-    void onRegistered(final AssuranceSession parentSession);
+    void onRegistered(final AssurancePluginSession session);
 
     /** Invoked when a successful Assurance web socket connection is established */
     void onSessionConnected();
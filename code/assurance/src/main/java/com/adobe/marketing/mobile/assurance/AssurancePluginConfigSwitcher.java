@@ -12,11 +12,9 @@
 package com.adobe.marketing.mobile.assurance;
 
 
-import android.content.Context;
-import android.content.SharedPreferences;
+import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.MobileCore;
-import com.adobe.marketing.mobile.assurance.AssuranceConstants.UILogColorVisibility;
 import com.adobe.marketing.mobile.services.Log;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -27,11 +25,17 @@ class AssurancePluginConfigSwitcher implements AssurancePlugin {
     private static final String LOG_TAG = "AssurancePluginConfigSwitcher";
     private static final String PREF_KEY_MODIFIED_CONFIG_KEYS = "modifiedConfigKeys";
 
-    private AssuranceSession session;
-    private SharedPreferences pref =
-            MobileCore.getApplication()
-                    .getSharedPreferences(
-                            AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE);
+    private AssurancePluginSession session;
+    private final AssuranceDataStore dataStore;
+
+    AssurancePluginConfigSwitcher() {
+        this(AssuranceDataStore.getInstance(MobileCore.getApplication()));
+    }
+
+    @VisibleForTesting
+    AssurancePluginConfigSwitcher(final AssuranceDataStore dataStore) {
+        this.dataStore = dataStore;
+    }
 
     @Override
     public String getVendor() {
@@ -63,7 +67,7 @@ class AssurancePluginConfigSwitcher implements AssurancePlugin {
     }
 
     @Override
-    public void onRegistered(final AssuranceSession parentSession) {
+    public void onRegistered(final AssurancePluginSession parentSession) {
         session = parentSession;
     }
 
@@ -79,12 +83,12 @@ class AssurancePluginConfigSwitcher implements AssurancePlugin {
 
     @Override
     public void onSessionTerminated() {
-        // Get the modified keys from pref
-        if (pref == null) {
+        // Get the modified keys from the data store
+        if (dataStore == null) {
             return;
         }
 
-        final Set<String> savedKeys = pref.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
+        final Set<String> savedKeys = dataStore.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
 
         if (savedKeys != null) {
             final Map<String, Object> config = new HashMap<>();
@@ -104,7 +108,7 @@ class AssurancePluginConfigSwitcher implements AssurancePlugin {
     }
 
     private void saveModifiedKeys(final Set<String> payload) {
-        if (pref == null) {
+        if (dataStore == null) {
             return;
         }
 
@@ -112,17 +116,15 @@ class AssurancePluginConfigSwitcher implements AssurancePlugin {
         logBuilder.append("ConfigUpdate - Configuration modified for keys");
 
         // Get the stored keys
-        Set<String> savedKeys = pref.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
+        Set<String> savedKeys = dataStore.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
 
-        // retrieved contents of shared preferences should not be modified - so create a copy
+        // retrieved contents of the data store should not be modified - so create a copy
         Set<String> modifiedKeys = savedKeys == null ? new HashSet<>() : new HashSet<>(savedKeys);
 
         // Add the new keys to the savedKeys and update the PREF_KEY_MODIFIED_CONFIG_KEYS
         modifiedKeys.addAll(payload);
 
-        SharedPreferences.Editor editor = pref.edit();
-        editor.putStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, modifiedKeys);
-        editor.apply();
+        dataStore.putStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, modifiedKeys);
 
         // Append each modified log
         for (String s : payload) {
@@ -131,13 +133,11 @@ class AssurancePluginConfigSwitcher implements AssurancePlugin {
 
         // Log in the Local UI
         if (session != null) {
-            session.logLocalUI(UILogColorVisibility.HIGH, logBuilder.toString());
+            session.logLocalUI(AssurancePluginSession.LogLevel.HIGH, logBuilder.toString());
         }
     }
 
     private void clearModifiedKeys() {
-        SharedPreferences.Editor editor = pref.edit();
-        editor.remove(PREF_KEY_MODIFIED_CONFIG_KEYS);
-        editor.apply();
+        dataStore.remove(PREF_KEY_MODIFIED_CONFIG_KEYS);
     }
 }
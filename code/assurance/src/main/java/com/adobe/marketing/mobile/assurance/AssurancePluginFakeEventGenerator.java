@@ -35,7 +35,7 @@ class AssurancePluginFakeEventGenerator implements AssurancePlugin {
     /** This method will be invoked only if the control event is of type "fakeEvent" */
     @Override
     public void onEventReceived(final AssuranceEvent event) {
-        final HashMap<String, Object> fakeEventDetails = event.getControlDetail();
+        final Map<String, Object> fakeEventDetails = event.getControlDetail();
 
         if (fakeEventDetails == null || fakeEventDetails.isEmpty()) {
             Log.warning(
@@ -86,7 +86,7 @@ class AssurancePluginFakeEventGenerator implements AssurancePlugin {
     }
 
     @Override
-    public void onRegistered(final AssuranceSession parentSession) {
+    public void onRegistered(final AssurancePluginSession parentSession) {
         /* no-op */
     }
 
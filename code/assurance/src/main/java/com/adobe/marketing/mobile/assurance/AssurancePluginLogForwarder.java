@@ -12,34 +12,84 @@
 package com.adobe.marketing.mobile.assurance;
 
 
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.Log;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @SuppressWarnings("unused")
 class AssurancePluginLogForwarder implements AssurancePlugin {
     private static final String LOG_TAG = "AssurancePluginLogForwarder";
-    private static final Pattern HEADER_MESSAGE =
-            Pattern.compile(
-                    "^\\[ \\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d.\\d\\d\\d {1,}\\d+: {0,}\\d+"
-                            + " [VDIWEAF]/[^ ]+ {1,}]$");
+    private static final String DETAIL_KEY_LEVEL = "level";
+    private static final String DETAIL_KEY_TAGS = "tags";
+    private static final String LEVEL_PRIORITIES = "VDIWEF";
+
+    private static final long PRUNE_LIST_TIMEOUT_MILLIS = 1000;
+    private static final long PRUNE_LIST_POLL_MILLIS = 10;
+
+    private final AtomicBoolean backgroundThreadRunning = new AtomicBoolean(false);
+    private final AtomicReference<Process> logcatProcess = new AtomicReference<>(null);
+    private final Executor executor;
+    private final LogcatLauncher logcatLauncher;
+    private volatile boolean logEnabled = false;
+    private volatile LogFilter logFilter = LogFilter.ALL;
+    private final AtomicReference<AssurancePluginSession> parentSession;
+    private final AssuranceLogBatcher.BatchListener batchListener =
+            new AssuranceLogBatcher.BatchListener() {
+                @Override
+                public void onBatch(final List<AssuranceLogcatParser.LogEntry> entries) {
+                    sendLogBatch(entries);
+                }
+            };
 
-    private volatile boolean backgroundThreadRunning = false;
-    private boolean logEnabled = false;
-    private final AtomicReference<AssuranceSession> parentSession;
+    /** Starts the logcat processes. */
+    @VisibleForTesting
+    interface LogcatLauncher {
+        Process start(final List<String> command) throws IOException;
+    }
 
     AssurancePluginLogForwarder() {
-        parentSession = new AtomicReference<>(null);
+        this(
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        // the reader blocks on logcat for as long as logs are forwarded
+                        AssuranceScheduler.getInstance().executeOnDedicatedThread(command);
+                    }
+                },
+                new LogcatLauncher() {
+                    @Override
+                    public Process start(final List<String> command) throws IOException {
+                        return new ProcessBuilder().command(command).start();
+                    }
+                });
+    }
+
+    /** Cascading constructor for injecting the thread and the processes used in tests. */
+    @VisibleForTesting
+    AssurancePluginLogForwarder(final Executor executor, final LogcatLauncher logcatLauncher) {
+        this.parentSession = new AtomicReference<>(null);
+        this.executor = executor;
+        this.logcatLauncher = logcatLauncher;
     }
 
     boolean isBackgroundThreadRunning() {
-        return backgroundThreadRunning;
+        return backgroundThreadRunning.get();
     }
 
     @Override
@@ -55,7 +105,7 @@ class AssurancePluginLogForwarder implements AssurancePlugin {
     /** This method will be invoked only if the control event is of type "logForwarding" */
     @Override
     public void onEventReceived(final AssuranceEvent event) {
-        final HashMap<String, Object> logForwardingDetails = event.getControlDetail();
+        final Map<String, Object> logForwardingDetails = event.getControlDetail();
 
         if (AssuranceUtil.isNullOrEmpty(logForwardingDetails)) {
             Log.warning(
@@ -75,34 +125,32 @@ class AssurancePluginLogForwarder implements AssurancePlugin {
             return;
         }
 
+        logFilter = LogFilter.fromControlDetail(logForwardingDetails);
         logEnabled = (Boolean) enabled;
-        final AssuranceSession session = parentSession.get();
+        final AssurancePluginSession session = parentSession.get();
 
         if (logEnabled) {
             if (session != null) {
                 session.logLocalUI(
-                        AssuranceConstants.UILogColorVisibility.HIGH,
+                        AssurancePluginSession.LogLevel.HIGH,
                         "Received Assurance command to start forwarding logs");
             }
 
-            if (!backgroundThreadRunning) {
-                backgroundThreadRunning = true;
-                Thread logForwardThread = new Thread(new LogForwardThread());
-                logForwardThread.start();
-            }
+            startForwarding();
         } else {
+            stopLogcat();
+
             if (session != null) {
                 session.logLocalUI(
-                        AssuranceConstants.UILogColorVisibility.HIGH,
+                        AssurancePluginSession.LogLevel.HIGH,
                         "Received Assurance command to stop forwarding logs");
             }
         }
     }
 
     @Override
-    public void onRegistered(final AssuranceSession parentSession) {
-        // does nothing
-        this.parentSession.set(parentSession);
+    public void onRegistered(final AssurancePluginSession session) {
+        this.parentSession.set(session);
     }
 
     @Override
@@ -113,106 +161,324 @@ class AssurancePluginLogForwarder implements AssurancePlugin {
     @Override
     public void onSessionDisconnected(final int code) {
         logEnabled = false;
+        stopLogcat();
     }
 
     @Override
     public void onSessionTerminated() {
+        logEnabled = false;
+        stopLogcat();
         parentSession.set(null);
     }
 
+    /**
+     * Forwards the logs of this process until log forwarding is disabled. Logcat is started in the
+     * binary format, falling back to the text format if its output cannot be decoded. When
+     * forwarding is disabled the logcat process is killed by {@link #stopLogcat()}, which unblocks
+     * the read; the process is then reaped here, and restarted if forwarding was enabled again in
+     * the meantime.
+     */
     private final class LogForwardThread implements Runnable {
         @Override
         public void run() {
+            boolean disabled = false;
+
             try {
-                final Process procRemoveUnecessaryLogs =
-                        new ProcessBuilder().command("logcat", "-P", "").start();
-                final String processIdCommand =
-                        String.format("--pid=%s", android.os.Process.myPid());
-                final Process proc =
-                        new ProcessBuilder()
-                                .command("logcat", processIdCommand, "-bmain", "-vlong")
-                                .start();
-                final BufferedReader reader =
-                        new BufferedReader(new InputStreamReader(proc.getInputStream()));
-                final StringBuilder logLines = new StringBuilder();
-                boolean isFirstLog = true;
-
-                while (logEnabled && !Thread.interrupted()) {
-                    try {
-                        final String logLine = reader.readLine();
-
-                        // hack to avoid infinite looping on log forwarding.
-                        if (logLine != null && logLine.contains(Assurance.LOG_TAG)) {
-                            continue;
+                clearPruneList();
+                final AssuranceLogBatcher batcher =
+                        new AssuranceLogBatcher(AssuranceScheduler.getInstance(), batchListener);
+                boolean binaryFormat = true;
+
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        if (!logEnabled) {
+                            disabled = true;
+                            break;
                         }
 
-                        if (logLine != null && checkIfHeader(logLine)) {
-                            // When the first log is the header log
-                            if (isFirstLog) {
-                                isFirstLog = false;
-                                continue;
-                            }
+                        final Process process = startLogcat(binaryFormat);
+                        boolean fallBackToText = false;
 
-                            if (checkIfLogLinesAreEmpty(logLines)) {
-                                continue;
+                        try {
+                            if (binaryFormat) {
+                                forwardBinaryLogs(process, batcher);
+                            } else {
+                                forwardTextLogs(process, batcher);
                             }
-
-                            final Map<String, Object> eventPayload = new HashMap<>();
-                            eventPayload.put("logline", logLines.toString());
-                            final AssuranceEvent logEvent =
-                                    new AssuranceEvent(
-                                            AssuranceConstants.AssuranceEventType.LOG,
-                                            eventPayload);
-                            final AssuranceSession session = parentSession.get();
-
-                            if (session != null) {
-                                session.queueOutboundEvent(logEvent);
-                            }
-
-                            logLines.setLength(0);
+                        } catch (final StreamCorruptedException ex) {
+                            Log.warning(
+                                    Assurance.LOG_TAG,
+                                    LOG_TAG,
+                                    String.format(
+                                            "Unable to decode binary logs, forwarding text logs"
+                                                    + " instead. Error - %s",
+                                            ex.getLocalizedMessage()));
+                            binaryFormat = false;
+                            fallBackToText = true;
+                        } catch (final IOException ex) {
+                            // the stream is closed when the process is killed
                         }
 
-                        if (logLine != null && !logLine.isEmpty()) {
-                            logLines.append(logLine).append("\n");
+                        final boolean stopped = !logcatProcess.compareAndSet(process, null);
+                        destroyAndReap(process);
+
+                        if (!stopped && !fallBackToText) {
+                            Log.warning(Assurance.LOG_TAG, LOG_TAG, "Logcat exited unexpectedly.");
+                            break;
                         }
-                    } catch (final Exception ex) {
-                        Log.error(
-                                Assurance.LOG_TAG,
-                                LOG_TAG,
-                                String.format(
-                                        "Log forwarding error reading line: %s",
-                                        ex.getLocalizedMessage()));
                     }
+                } finally {
+                    batcher.flush();
                 }
-
-                procRemoveUnecessaryLogs.destroy();
-                proc.destroy();
             } catch (final Exception ex) {
-                // handle exception
                 Log.error(
                         Assurance.LOG_TAG,
                         LOG_TAG,
                         String.format(
-                                "Log forwarding error while sending logs: %s"
-                                        + ex.getLocalizedMessage()));
+                                "Log forwarding error while sending logs: %s",
+                                ex.getLocalizedMessage()));
+            } finally {
+                backgroundThreadRunning.set(false);
+            }
+
+            // forwarding may have been enabled again after the loop saw it disabled
+            if (disabled && logEnabled) {
+                startForwarding();
+            }
+        }
+
+        private void forwardBinaryLogs(final Process process, final AssuranceLogBatcher batcher)
+                throws IOException {
+            final AssuranceLogcatDecoder decoder =
+                    new AssuranceLogcatDecoder(process.getInputStream());
+            AssuranceLogcatParser.LogEntry entry;
+
+            while ((entry = decoder.next()) != null) {
+                forward(entry, batcher);
             }
+        }
+
+        private void forwardTextLogs(final Process process, final AssuranceLogBatcher batcher)
+                throws IOException {
+            final BufferedReader reader =
+                    new BufferedReader(new InputStreamReader(process.getInputStream()));
+            final AssuranceLogcatParser parser = new AssuranceLogcatParser();
+            String logLine;
+
+            while ((logLine = reader.readLine()) != null) {
+                final AssuranceLogcatParser.LogEntry entry = parser.parseLine(logLine);
+
+                if (entry != null) {
+                    forward(entry, batcher);
+                }
+            }
+
+            final AssuranceLogcatParser.LogEntry lastEntry = parser.flush();
+
+            if (lastEntry != null) {
+                forward(lastEntry, batcher);
+            }
+        }
+
+        /** Batches the entry if the filter accepts it, or records it as a gap in the log lane. */
+        private void forward(
+                final AssuranceLogcatParser.LogEntry entry, final AssuranceLogBatcher batcher) {
+            if (logFilter.accepts(entry)) {
+                batcher.add(entry);
+                return;
+            }
+
+            final AssurancePluginSession session = parentSession.get();
+
+            if (session != null) {
+                session.recordGap(
+                        AssuranceConstants.SequenceLane.LOGS,
+                        AssuranceConstants.GapReason.FILTERED,
+                        1);
+            }
+        }
+    }
+
+    /** Starts the forwarding thread, unless it is already running. */
+    private void startForwarding() {
+        if (!backgroundThreadRunning.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(new LogForwardThread());
+        } catch (final RejectedExecutionException ex) {
+            backgroundThreadRunning.set(false);
+            Log.error(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format(
+                            "Unable to start log forwarding: %s", ex.getLocalizedMessage()));
+        }
+    }
 
-            backgroundThreadRunning = false;
+    /**
+     * Starts logcat for the logs of this process and makes it the current logcat process, so that
+     * it can be stopped by {@link #stopLogcat()}.
+     */
+    private Process startLogcat(final boolean binaryFormat) throws IOException {
+        final Process process =
+                logcatLauncher.start(
+                        Arrays.asList(
+                                "logcat",
+                                String.format("--pid=%s", android.os.Process.myPid()),
+                                "-bmain",
+                                binaryFormat ? "-B" : "-vlong"));
+        logcatProcess.set(process);
+
+        // forwarding was disabled while logcat was starting
+        if (!logEnabled) {
+            stopLogcat();
         }
+
+        return process;
     }
 
-    private boolean checkIfHeader(String message) {
-        final Matcher matcher = HEADER_MESSAGE.matcher(message);
-        return matcher.matches();
+    /** Kills the current logcat process, if any. It is reaped by the forwarding thread. */
+    private void stopLogcat() {
+        final Process process = logcatProcess.getAndSet(null);
+
+        if (process != null) {
+            process.destroy();
+        }
     }
 
-    private boolean checkIfLogLinesAreEmpty(StringBuilder sb) {
-        String[] a = sb.toString().split("\n");
+    /** Clears the logcat prune list, waiting a bounded time for the command to complete. */
+    private void clearPruneList() {
+        try {
+            final Process process = logcatLauncher.start(Arrays.asList("logcat", "-P", ""));
+            final long deadline = System.currentTimeMillis() + PRUNE_LIST_TIMEOUT_MILLIS;
 
-        if (a.length < 2) {
+            while (!hasExited(process) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(PRUNE_LIST_POLL_MILLIS);
+            }
+
+            destroyAndReap(process);
+        } catch (final IOException ex) {
+            Log.debug(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format(
+                            "Unable to clear the logcat prune list: %s",
+                            ex.getLocalizedMessage()));
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean hasExited(final Process process) {
+        try {
+            process.exitValue();
             return true;
+        } catch (final IllegalThreadStateException ex) {
+            return false;
+        }
+    }
+
+    private static void destroyAndReap(final Process process) {
+        process.destroy();
+
+        try {
+            process.waitFor();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends a batch of log entries as a single log event. The "logline" payload key carries the raw
+     * text of all the entries, as sent before batching, and "entries" their parsed fields.
+     */
+    @VisibleForTesting
+    void sendLogBatch(final List<AssuranceLogcatParser.LogEntry> entries) {
+        final AssurancePluginSession session = parentSession.get();
+
+        if (session == null) {
+            return;
+        }
+
+        final StringBuilder logLines = new StringBuilder();
+        final List<Map<String, Object>> parsedEntries = new ArrayList<>(entries.size());
+
+        for (final AssuranceLogcatParser.LogEntry entry : entries) {
+            logLines.append(entry.header).append('\n').append(entry.message).append('\n');
+            parsedEntries.add(entry.toMap());
+        }
+
+        final Map<String, Object> eventPayload = new HashMap<>();
+        eventPayload.put("logline", logLines.toString());
+        eventPayload.put("entries", parsedEntries);
+        session.sendEvent(AssuranceConstants.AssuranceEventType.LOG, eventPayload);
+    }
+
+    @VisibleForTesting
+    LogFilter getLogFilter() {
+        return logFilter;
+    }
+
+    /**
+     * Selects the log entries to be forwarded, by minimum level and by tag. Entries logged by the
+     * Assurance extension itself are never forwarded, to avoid forwarding the logs of forwarding.
+     */
+    static final class LogFilter {
+        static final LogFilter ALL = new LogFilter(LEVEL_PRIORITIES.charAt(0), null);
+
+        private final int minPriority;
+        private final Set<String> tags;
+
+        LogFilter(final char minLevel, final Set<String> tags) {
+            this.minPriority = getPriority(minLevel);
+            this.tags = tags;
         }
 
-        return a[1].equals("");
+        /**
+         * Creates a filter from the "level" and "tags" keys of the control detail.
+         *
+         * @param controlDetail the details of the "logForwarding" control event
+         * @return the {@link LogFilter}, accepting every level and tag if the keys are absent
+         */
+        static LogFilter fromControlDetail(final Map<String, Object> controlDetail) {
+            final Object level = controlDetail.get(DETAIL_KEY_LEVEL);
+            final Object tagList = controlDetail.get(DETAIL_KEY_TAGS);
+            char minLevel = LEVEL_PRIORITIES.charAt(0);
+            Set<String> tags = null;
+
+            if (level instanceof String && !((String) level).isEmpty()) {
+                final char requested = Character.toUpperCase(((String) level).charAt(0));
+
+                if (getPriority(requested) >= 0) {
+                    minLevel = requested;
+                }
+            }
+
+            if (tagList instanceof List && !((List<?>) tagList).isEmpty()) {
+                tags = new HashSet<>();
+
+                for (final Object tag : (List<?>) tagList) {
+                    if (tag instanceof String) {
+                        tags.add((String) tag);
+                    }
+                }
+            }
+
+            return new LogFilter(minLevel, tags);
+        }
+
+        boolean accepts(final AssuranceLogcatParser.LogEntry entry) {
+            return getPriority(entry.level) >= minPriority
+                    && (tags == null || tags.contains(entry.tag))
+                    && !entry.tag.contains(Assurance.LOG_TAG)
+                    && !entry.message.contains(Assurance.LOG_TAG);
+        }
+
+        private static int getPriority(final char level) {
+            // assert is reported with the priority of fatal
+            return LEVEL_PRIORITIES.indexOf(level == 'A' ? 'F' : level);
+        }
     }
 }
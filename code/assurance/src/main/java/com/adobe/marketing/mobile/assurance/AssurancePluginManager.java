@@ -12,19 +12,51 @@
 package com.adobe.marketing.mobile.assurance;
 
 
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.Log;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manages registration of plugins and notifications to plugins about the {@link AssuranceSession}.
+ *
+ * <p>Inbound events are dispatched through a {@link DispatchIndex} of the plugins by vendor and
+ * control type, which is built when plugins are added so that dispatching an event is a lookup
+ * rather than a scan of the vendor's plugins. The control type of a plugin is therefore read once,
+ * when it is added.
+ *
+ * <p>Each plugin receives its events on its own serial executor backed by the plugin pool of the
+ * {@link AssuranceScheduler}, so a slow plugin delays only its own events and plugins cannot starve
+ * the session's own workers. A watchdog logs a plugin whose {@link
+ * AssurancePlugin#onEventReceived(AssuranceEvent)} exceeds the timeout, and the events that arrive
+ * for that plugin are skipped until the call returns, so a stuck plugin queues no events. The
+ * session lifecycle callbacks are still delivered on the calling thread, except for the connection
+ * of a plugin added to an already connected session, which is delivered on the plugin's executor.
  */
 class AssurancePluginManager {
     private static final String LOG_TAG = "AssurancePluginManager";
+    static final long DEFAULT_PLUGIN_TIMEOUT_MILLIS = 5000L;
 
     private final ConcurrentHashMap<String, ConcurrentLinkedQueue<AssurancePlugin>> plugins;
     private final AssuranceSession session;
+    private final AssuranceScheduler scheduler;
+    private final long pluginTimeoutMillis;
+    private final Executor workerExecutor;
+    private final List<PluginDispatcher> dispatchers = new ArrayList<>();
+    private volatile DispatchIndex dispatchIndex = DispatchIndex.EMPTY;
+    private boolean isSessionConnected; // guarded by this
 
     AssurancePluginManager(final AssuranceSession session) {
         this(session, new ConcurrentHashMap<String, ConcurrentLinkedQueue<AssurancePlugin>>());
@@ -33,32 +65,97 @@ class AssurancePluginManager {
     AssurancePluginManager(
             final AssuranceSession session,
             final ConcurrentHashMap<String, ConcurrentLinkedQueue<AssurancePlugin>> plugins) {
+        this(session, plugins, AssuranceScheduler.getInstance(), DEFAULT_PLUGIN_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Cascading constructor for tests.
+     *
+     * @param scheduler the {@link AssuranceScheduler} running the plugins and their watchdogs
+     * @param pluginTimeoutMillis the time a plugin may take to handle an event before it is
+     *     reported and its further events are skipped
+     */
+    @VisibleForTesting
+    AssurancePluginManager(
+            final AssuranceSession session,
+            final ConcurrentHashMap<String, ConcurrentLinkedQueue<AssurancePlugin>> plugins,
+            final AssuranceScheduler scheduler,
+            final long pluginTimeoutMillis) {
         this.session = session;
         this.plugins = plugins;
+        this.scheduler = scheduler;
+        this.pluginTimeoutMillis = pluginTimeoutMillis;
+        this.workerExecutor =
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        scheduler.executePluginTask(command);
+                    }
+                };
+
+        for (final ConcurrentLinkedQueue<AssurancePlugin> pluginQueue : plugins.values()) {
+            for (final AssurancePlugin plugin : pluginQueue) {
+                indexPlugin(plugin);
+            }
+        }
     }
 
     /**
-     * Registers a plugin to be able to notify about session activity.
+     * Registers a plugin to be able to notify about session activity. The plugin is handed the
+     * session itself.
      *
      * @param plugin the plugin to be registered.
      */
     void addPlugin(final AssurancePlugin plugin) {
+        addPlugin(plugin, session);
+    }
+
+    /**
+     * Registers a plugin to be able to notify about session activity. A plugin registered while the
+     * session is connected is notified of the connection on its own executor, after it has been
+     * registered.
+     *
+     * @param plugin the plugin to be registered.
+     * @param pluginSession the {@link AssurancePluginSession} handed to the plugin
+     */
+    void addPlugin(final AssurancePlugin plugin, final AssurancePluginSession pluginSession) {
         if (plugin == null) {
             return;
         }
 
-        final String vendorID = plugin.getVendor();
-        final ConcurrentLinkedQueue<AssurancePlugin> newVendorQueue = new ConcurrentLinkedQueue<>();
-        final ConcurrentLinkedQueue<AssurancePlugin> existingQueue =
-                plugins.putIfAbsent(vendorID, newVendorQueue);
+        final PluginDispatcher dispatcher;
+        final boolean isConnected;
+
+        synchronized (this) {
+            final String vendorID = plugin.getVendor();
+            final ConcurrentLinkedQueue<AssurancePlugin> newVendorQueue =
+                    new ConcurrentLinkedQueue<>();
+            final ConcurrentLinkedQueue<AssurancePlugin> existingQueue =
+                    plugins.putIfAbsent(vendorID, newVendorQueue);
+
+            if (existingQueue == null) {
+                newVendorQueue.add(plugin);
+            } else {
+                existingQueue.add(plugin);
+            }
+
+            dispatcher = indexPlugin(plugin);
+            isConnected = isSessionConnected;
+        }
+
+        plugin.onRegistered(pluginSession);
 
-        if (existingQueue == null) {
-            newVendorQueue.add(plugin);
-        } else {
-            existingQueue.add(plugin);
+        // the connection was notified before the plugin was added
+        if (isConnected) {
+            dispatcher.dispatchSessionConnected();
         }
+    }
 
-        plugin.onRegistered(session);
+    private synchronized PluginDispatcher indexPlugin(final AssurancePlugin plugin) {
+        final PluginDispatcher dispatcher = new PluginDispatcher(plugin);
+        dispatchers.add(dispatcher);
+        dispatchIndex = dispatchIndex.withDispatcher(dispatcher);
+        return dispatcher;
     }
 
     /**
@@ -68,10 +165,10 @@ class AssurancePluginManager {
      * @param event the {@link AssuranceEvent}'s received by {@link AssuranceSession}
      */
     void onAssuranceEvent(final AssuranceEvent event) {
-        final ConcurrentLinkedQueue<AssurancePlugin> pluginsForVendor =
-                plugins.get(event.getVendor());
+        final PluginDispatcher[] dispatchersForEvent =
+                dispatchIndex.getDispatchers(event.getVendor(), event.getControlType());
 
-        if (pluginsForVendor == null) {
+        if (dispatchersForEvent == null) {
             Log.debug(
                     Assurance.LOG_TAG,
                     LOG_TAG,
@@ -82,39 +179,57 @@ class AssurancePluginManager {
             return;
         }
 
-        for (final AssurancePlugin plugin : pluginsForVendor) {
-
-            final String pluginControlType = plugin.getControlType();
+        for (final PluginDispatcher dispatcher : dispatchersForEvent) {
+            dispatcher.dispatch(event);
+        }
+    }
 
-            // refrain from calling `onEventReceived` on a plugin if plugin's controlType is empty
-            // or #AssuranceConstants.ControlType.NONE
-            if (pluginControlType == null
-                    || pluginControlType.isEmpty()
-                    || pluginControlType.equals(AssuranceConstants.ControlType.NONE)) {
-                continue;
-            }
+    /**
+     * Retrieves the latency metrics of the plugins, in the order they were added.
+     *
+     * @return a snapshot of the {@link PluginMetrics} of every plugin
+     */
+    synchronized List<PluginMetrics> getPluginMetrics() {
+        final List<PluginMetrics> metrics = new ArrayList<>(dispatchers.size());
 
-            // call `onEventReceived` on a plugin if
-            // 1. the event's controlType matches the plugin's controlType
-            // 2. the event's controlType is a wildCard
-            if (pluginControlType.equals(AssuranceConstants.ControlType.WILDCARD)
-                    || pluginControlType.equals(event.getControlType())) {
-                plugin.onEventReceived(event);
-            }
+        for (final PluginDispatcher dispatcher : dispatchers) {
+            metrics.add(dispatcher.getMetrics());
         }
+
+        return metrics;
     }
 
     /** Notifies registered plugins about successful {@link AssuranceSession} connection. */
     void onSessionConnected() {
-        for (final ConcurrentLinkedQueue<AssurancePlugin> pluginQueue : plugins.values()) {
-            for (AssurancePlugin plugin : pluginQueue) {
-                plugin.onSessionConnected();
+        final List<AssurancePlugin> connectedPlugins = new ArrayList<>();
+
+        // plugins added from here on are notified as they are added
+        synchronized (this) {
+            isSessionConnected = true;
+
+            for (final ConcurrentLinkedQueue<AssurancePlugin> pluginQueue : plugins.values()) {
+                connectedPlugins.addAll(pluginQueue);
             }
         }
+
+        for (final AssurancePlugin plugin : connectedPlugins) {
+            plugin.onSessionConnected();
+        }
     }
 
-    /** Notifies registered plugins about {@link AssuranceSession} termination. */
+    /**
+     * Notifies registered plugins about {@link AssuranceSession} termination. Events still waiting
+     * to be handled by a plugin are dropped.
+     */
     void onSessionTerminated() {
+        synchronized (this) {
+            isSessionConnected = false;
+
+            for (final PluginDispatcher dispatcher : dispatchers) {
+                dispatcher.shutdown();
+            }
+        }
+
         for (final ConcurrentLinkedQueue<AssurancePlugin> pluginQueue : plugins.values()) {
             for (final AssurancePlugin plugin : pluginQueue) {
                 plugin.onSessionTerminated();
@@ -128,10 +243,342 @@ class AssurancePluginManager {
      * @param closeCode reason for the session disconnection.
      */
     void onSessionDisconnected(final int closeCode) {
+        synchronized (this) {
+            isSessionConnected = false;
+        }
+
         for (final ConcurrentLinkedQueue<AssurancePlugin> pluginQueue : plugins.values()) {
             for (AssurancePlugin plugin : pluginQueue) {
                 plugin.onSessionDisconnected(closeCode);
             }
         }
     }
+
+    /** The latency metrics of a plugin. */
+    static final class PluginMetrics {
+        final String pluginName;
+        final String vendor;
+        final String controlType;
+        final long invocationCount;
+        final long totalLatencyNanos;
+        final long maxLatencyNanos;
+        final long timeoutCount;
+        final long skippedEventCount;
+
+        PluginMetrics(
+                final String pluginName,
+                final String vendor,
+                final String controlType,
+                final long invocationCount,
+                final long totalLatencyNanos,
+                final long maxLatencyNanos,
+                final long timeoutCount,
+                final long skippedEventCount) {
+            this.pluginName = pluginName;
+            this.vendor = vendor;
+            this.controlType = controlType;
+            this.invocationCount = invocationCount;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+            this.timeoutCount = timeoutCount;
+            this.skippedEventCount = skippedEventCount;
+        }
+
+        double getAverageLatencyMillis() {
+            return invocationCount == 0
+                    ? 0
+                    : totalLatencyNanos
+                            / (double) invocationCount
+                            / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        double getMaxLatencyMillis() {
+            return maxLatencyNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%s (%s/%s): %d event(s), avg %.1f ms, max %.1f ms, %d timeout(s), %d"
+                            + " skipped",
+                    pluginName,
+                    vendor,
+                    controlType,
+                    invocationCount,
+                    getAverageLatencyMillis(),
+                    getMaxLatencyMillis(),
+                    timeoutCount,
+                    skippedEventCount);
+        }
+    }
+
+    /** Delivers the events of one plugin on its serial executor, under a watchdog. */
+    private final class PluginDispatcher {
+        private final AssurancePlugin plugin;
+        private final String vendor;
+        private final String controlType;
+        private final ExecutorService executor;
+
+        // guarded by this
+        private long invocationCount;
+        private long totalLatencyNanos;
+        private long maxLatencyNanos;
+        private long timeoutCount;
+        private long skippedEventCount;
+        private long activeInvocation;
+        private boolean stalled;
+
+        PluginDispatcher(final AssurancePlugin plugin) {
+            this.plugin = plugin;
+            this.vendor = plugin.getVendor();
+            this.controlType = plugin.getControlType();
+            this.executor = new AssuranceScheduler.SerialExecutor(workerExecutor);
+        }
+
+        void dispatch(final AssuranceEvent event) {
+            synchronized (this) {
+                if (stalled) {
+                    skippedEventCount++;
+                    Log.debug(
+                            Assurance.LOG_TAG,
+                            LOG_TAG,
+                            String.format(
+                                    "Skipping event %s for plugin %s, which has not completed"
+                                            + " handling the previous event.",
+                                    event.eventID, plugin.getClass().getSimpleName()));
+                    return;
+                }
+            }
+
+            try {
+                executor.execute(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                invoke(event);
+                            }
+                        });
+            } catch (final RejectedExecutionException ex) {
+                // the session has been terminated
+                synchronized (this) {
+                    skippedEventCount++;
+                }
+            }
+        }
+
+        /** Notifies a plugin added to a connected session, behind any event already queued. */
+        void dispatchSessionConnected() {
+            try {
+                executor.execute(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                plugin.onSessionConnected();
+                            }
+                        });
+            } catch (final RejectedExecutionException ex) {
+                // the session has been terminated
+            }
+        }
+
+        private void invoke(final AssuranceEvent event) {
+            final long invocation;
+
+            synchronized (this) {
+                invocation = invocationCount + 1;
+                activeInvocation = invocation;
+            }
+
+            final long startNanos = System.nanoTime();
+            final ScheduledFuture<?> watchdog = scheduleWatchdog(event, invocation);
+
+            try {
+                plugin.onEventReceived(event);
+            } catch (final Exception ex) {
+                Log.error(
+                        Assurance.LOG_TAG,
+                        LOG_TAG,
+                        String.format(
+                                "Plugin %s failed to handle event %s. Error - %s",
+                                plugin.getClass().getSimpleName(),
+                                event.eventID,
+                                ex.getLocalizedMessage()));
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+
+                final long latencyNanos = System.nanoTime() - startNanos;
+
+                synchronized (this) {
+                    activeInvocation = 0;
+                    stalled = false;
+                    invocationCount++;
+                    totalLatencyNanos += latencyNanos;
+                    maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+                }
+            }
+        }
+
+        private ScheduledFuture<?> scheduleWatchdog(
+                final AssuranceEvent event, final long invocation) {
+            try {
+                return scheduler.schedule(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                onTimeout(event, invocation);
+                            }
+                        },
+                        pluginTimeoutMillis,
+                        TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException ex) {
+                return null;
+            }
+        }
+
+        private synchronized void onTimeout(final AssuranceEvent event, final long invocation) {
+            if (activeInvocation != invocation) {
+                // the plugin completed in the meantime
+                return;
+            }
+
+            stalled = true;
+            timeoutCount++;
+            Log.warning(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format(
+                            "Plugin %s has not completed handling event %s within %d ms, its"
+                                    + " events are skipped until it does.",
+                            plugin.getClass().getSimpleName(), event.eventID, pluginTimeoutMillis));
+        }
+
+        synchronized PluginMetrics getMetrics() {
+            return new PluginMetrics(
+                    plugin.getClass().getSimpleName(),
+                    vendor,
+                    controlType,
+                    invocationCount,
+                    totalLatencyNanos,
+                    maxLatencyNanos,
+                    timeoutCount,
+                    skippedEventCount);
+        }
+
+        void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * An immutable index of plugin dispatchers by vendor and control type. Adding a plugin creates
+     * a new index, leaving the current one untouched for concurrent dispatches.
+     */
+    private static final class DispatchIndex {
+        static final DispatchIndex EMPTY =
+                new DispatchIndex(new HashMap<String, VendorPlugins>());
+
+        private final Map<String, VendorPlugins> vendors;
+
+        private DispatchIndex(final Map<String, VendorPlugins> vendors) {
+            this.vendors = vendors;
+        }
+
+        /**
+         * Retrieves the dispatchers of the plugins which should receive an event, in the order the
+         * plugins were added.
+         *
+         * @param vendor the vendor of the event
+         * @param controlType the control type of the event, or null if it is not a control event
+         * @return the plugins registered for the control type and the wildcard plugins of the
+         *     vendor, or null if no plugin of the vendor was added
+         */
+        PluginDispatcher[] getDispatchers(final String vendor, final String controlType) {
+            final VendorPlugins vendorPlugins = vendor == null ? null : vendors.get(vendor);
+            return vendorPlugins == null ? null : vendorPlugins.getDispatchers(controlType);
+        }
+
+        DispatchIndex withDispatcher(final PluginDispatcher dispatcher) {
+            final Map<String, VendorPlugins> newVendors = new HashMap<>(vendors);
+            final VendorPlugins vendorPlugins = vendors.get(dispatcher.vendor);
+            newVendors.put(
+                    dispatcher.vendor,
+                    (vendorPlugins == null ? VendorPlugins.EMPTY : vendorPlugins)
+                            .withDispatcher(dispatcher));
+            return new DispatchIndex(newVendors);
+        }
+    }
+
+    /**
+     * The plugin dispatchers of a vendor. Each control type maps to its dispatchers merged with the
+     * wildcard ones.
+     */
+    private static final class VendorPlugins {
+        static final VendorPlugins EMPTY =
+                new VendorPlugins(
+                        new HashMap<String, PluginDispatcher[]>(), new PluginDispatcher[0]);
+
+        private final Map<String, PluginDispatcher[]> dispatchersByControlType;
+        private final PluginDispatcher[] wildcardDispatchers;
+
+        private VendorPlugins(
+                final Map<String, PluginDispatcher[]> dispatchersByControlType,
+                final PluginDispatcher[] wildcardDispatchers) {
+            this.dispatchersByControlType = dispatchersByControlType;
+            this.wildcardDispatchers = wildcardDispatchers;
+        }
+
+        PluginDispatcher[] getDispatchers(final String controlType) {
+            final PluginDispatcher[] controlTypeDispatchers =
+                    controlType == null ? null : dispatchersByControlType.get(controlType);
+            return controlTypeDispatchers == null ? wildcardDispatchers : controlTypeDispatchers;
+        }
+
+        VendorPlugins withDispatcher(final PluginDispatcher dispatcher) {
+            final String controlType = dispatcher.controlType;
+
+            // plugins without a control type never receive events
+            if (controlType == null
+                    || controlType.isEmpty()
+                    || controlType.equals(AssuranceConstants.ControlType.NONE)) {
+                return this;
+            }
+
+            final Map<String, PluginDispatcher[]> newDispatchersByControlType =
+                    new HashMap<>(dispatchersByControlType);
+
+            if (controlType.equals(AssuranceConstants.ControlType.WILDCARD)) {
+                // a wildcard plugin receives the events of every control type
+                for (final Map.Entry<String, PluginDispatcher[]> entry :
+                        dispatchersByControlType.entrySet()) {
+                    newDispatchersByControlType.put(
+                            entry.getKey(), append(entry.getValue(), dispatcher));
+                }
+
+                return new VendorPlugins(
+                        newDispatchersByControlType, append(wildcardDispatchers, dispatcher));
+            }
+
+            // a new control type starts out with the wildcard plugins added so far
+            final PluginDispatcher[] controlTypeDispatchers =
+                    dispatchersByControlType.get(controlType);
+            newDispatchersByControlType.put(
+                    controlType,
+                    append(
+                            controlTypeDispatchers == null
+                                    ? wildcardDispatchers
+                                    : controlTypeDispatchers,
+                            dispatcher));
+            return new VendorPlugins(newDispatchersByControlType, wildcardDispatchers);
+        }
+
+        private static PluginDispatcher[] append(
+                final PluginDispatcher[] dispatchers, final PluginDispatcher dispatcher) {
+            final PluginDispatcher[] newDispatchers =
+                    Arrays.copyOf(dispatchers, dispatchers.length + 1);
+            newDispatchers[dispatchers.length] = dispatcher;
+            return newDispatchers;
+        }
+    }
 }
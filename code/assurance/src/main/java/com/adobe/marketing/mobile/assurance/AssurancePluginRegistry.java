@@ -0,0 +1,128 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.util.StringUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the plugins registered through {@link Assurance#registerPlugin(AssurancePlugin)}.
+ *
+ * <p>Registered plugins are added to every {@link AssuranceSession} created afterwards, and to the
+ * active session through its {@link RegistrationListener}. Each plugin interacts with a session
+ * through an {@link AssuranceQuotaPluginSession} limiting the events it may send.
+ */
+final class AssurancePluginRegistry {
+    private static final String LOG_TAG = "AssurancePluginRegistry";
+
+    private static final List<Registration> registrations = new ArrayList<>();
+    private static final List<RegistrationListener> listeners = new ArrayList<>();
+
+    /** A registered plugin and its quota. */
+    static final class Registration {
+        final AssurancePlugin plugin;
+        final int maxEventsPerSecond;
+
+        Registration(final AssurancePlugin plugin, final int maxEventsPerSecond) {
+            this.plugin = plugin;
+            this.maxEventsPerSecond = maxEventsPerSecond;
+        }
+    }
+
+    /** Notified of plugins registered while it is added to the registry. */
+    interface RegistrationListener {
+        void onPluginRegistered(final Registration registration);
+    }
+
+    private AssurancePluginRegistry() {}
+
+    /**
+     * Registers a plugin.
+     *
+     * @param plugin the {@link AssurancePlugin} to be registered
+     * @param maxEventsPerSecond the number of events per second the plugin may send
+     * @return true if the plugin was registered, false if it is invalid or already registered
+     */
+    static boolean register(final AssurancePlugin plugin, final int maxEventsPerSecond) {
+        if (plugin == null || StringUtils.isNullOrEmpty(plugin.getVendor())) {
+            Log.warning(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "Unable to register plugin, the plugin or its vendor is null.");
+            return false;
+        }
+
+        if (maxEventsPerSecond <= 0) {
+            Log.warning(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    String.format(
+                            "Unable to register plugin for vendor %s, invalid quota %d.",
+                            plugin.getVendor(), maxEventsPerSecond));
+            return false;
+        }
+
+        final Registration registration = new Registration(plugin, maxEventsPerSecond);
+        final List<RegistrationListener> currentListeners;
+
+        synchronized (AssurancePluginRegistry.class) {
+            for (final Registration existing : registrations) {
+                if (existing.plugin == plugin) {
+                    Log.warning(
+                            Assurance.LOG_TAG,
+                            LOG_TAG,
+                            String.format(
+                                    "Plugin for vendor %s is already registered.",
+                                    plugin.getVendor()));
+                    return false;
+                }
+            }
+
+            registrations.add(registration);
+            currentListeners = new ArrayList<>(listeners);
+        }
+
+        // notify outside the lock, the listeners call into the plugin
+        for (final RegistrationListener listener : currentListeners) {
+            listener.onPluginRegistered(registration);
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds a listener for plugins registered from now on.
+     *
+     * @param listener the {@link RegistrationListener} to be added
+     * @return the plugins registered so far
+     */
+    static synchronized List<Registration> addListener(final RegistrationListener listener) {
+        listeners.add(listener);
+        return new ArrayList<>(registrations);
+    }
+
+    static synchronized void removeListener(final RegistrationListener listener) {
+        listeners.remove(listener);
+    }
+
+    @VisibleForTesting
+    static synchronized void reset() {
+        registrations.clear();
+        listeners.clear();
+    }
+}
@@ -0,0 +1,511 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.assurance.AssuranceConstants.UILogColorVisibility;
+import com.adobe.marketing.mobile.services.Log;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the screen for a period of time in response to a "screenRecording" control event.
+ *
+ * <p>Frames are captured at the requested frame rate with {@link AssuranceScreenCapture} and
+ * compared tile by tile with the previous frame. Unchanged frames are skipped. Frames where only a
+ * part of the screen changed are uploaded as a cropped "delta" frame covering the changed tiles,
+ * while the first frame, large changes and every {@link #KEYFRAME_INTERVAL}th frame are uploaded in
+ * full as "key" frames. An {@link AssuranceRecordingBudget} lowers the frame rate when the uploads
+ * or the processing of frames exceed their budget.
+ *
+ * <p>The control detail may contain the following keys, in addition to those supported by {@link
+ * AssuranceScreenshotOptions}:
+ *
+ * <ul>
+ *   <li>{@code action} - {@code "start"} (default) or {@code "stop"}
+ *   <li>{@code fps} - the frame rate, defaults to {@value #DEFAULT_FPS}, at most {@value #MAX_FPS}
+ *   <li>{@code duration} - the length of the recording in seconds, defaults to {@value
+ *       #DEFAULT_DURATION_SECONDS}, at most {@value #MAX_DURATION_SECONDS}
+ *   <li>{@code maxBytesPerSecond} - the bandwidth budget, defaults to {@value
+ *       #DEFAULT_MAX_BYTES_PER_SECOND}
+ * </ul>
+ */
+class AssurancePluginScreenRecording implements AssurancePlugin {
+    private static final String LOG_TAG = "AssurancePluginScreenRecording";
+    private static final String DETAIL_KEY_ACTION = "action";
+    private static final String DETAIL_KEY_FPS = "fps";
+    private static final String DETAIL_KEY_DURATION = "duration";
+    private static final String DETAIL_KEY_MAX_BYTES_PER_SECOND = "maxBytesPerSecond";
+    private static final String ACTION_STOP = "stop";
+    private static final String PAYLOAD_BLOBID = "blobId";
+    private static final String PAYLOAD_MIMETYPE = "mimeType";
+    private static final String PAYLOAD_RECORDING = "recording";
+    private static final String FRAME_TYPE_KEY = "key";
+    private static final String FRAME_TYPE_DELTA = "delta";
+
+    static final double DEFAULT_FPS = 1;
+    static final double MAX_FPS = 5;
+    static final int DEFAULT_DURATION_SECONDS = 30;
+    static final int MAX_DURATION_SECONDS = 300;
+    static final long DEFAULT_MAX_BYTES_PER_SECOND = 128 * 1024;
+    static final double MAX_CPU_FRACTION = 0.2;
+    static final int KEYFRAME_INTERVAL = 30;
+    private static final float DEFAULT_RECORDING_SCALE = 0.5f;
+    private static final double KEYFRAME_CHANGE_THRESHOLD = 0.5;
+
+    private final AssuranceScreenCapture screenCapture;
+    private final Executor encodeExecutor;
+    private final ScheduledExecutorService frameScheduler;
+
+    private volatile AssuranceSession parentSession;
+    private Recording activeRecording;
+    private int recordingCount;
+
+    AssurancePluginScreenRecording() {
+        this(
+                new AssuranceScreenCapture(),
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        AssuranceScheduler.getInstance().execute(command);
+                    }
+                },
+                null);
+    }
+
+    /**
+     * Cascading constructor for tests. A null {@code frameScheduler} uses the scheduled executor
+     * of the {@link AssuranceScheduler} current at the time each frame is scheduled.
+     */
+    @VisibleForTesting
+    AssurancePluginScreenRecording(
+            final AssuranceScreenCapture screenCapture,
+            final Executor encodeExecutor,
+            final ScheduledExecutorService frameScheduler) {
+        this.screenCapture = screenCapture;
+        this.encodeExecutor = encodeExecutor;
+        this.frameScheduler = frameScheduler;
+    }
+
+    @Override
+    public String getVendor() {
+        return AssuranceConstants.VENDOR_ASSURANCE_MOBILE;
+    }
+
+    @Override
+    public String getControlType() {
+        return AssuranceConstants.ControlType.SCREEN_RECORDING;
+    }
+
+    /** This method will be invoked only if the control event is of type "screenRecording" */
+    @Override
+    public void onEventReceived(final AssuranceEvent event) {
+        final Map<String, Object> controlDetail = event.getControlDetail();
+
+        if (controlDetail != null && ACTION_STOP.equals(controlDetail.get(DETAIL_KEY_ACTION))) {
+            stopRecording("Screen recording stopped.");
+            return;
+        }
+
+        startRecording(controlDetail);
+    }
+
+    @Override
+    public void onRegistered(final AssurancePluginSession parentSession) {
+        // built-in plugins are handed the session itself, which also uploads the blobs
+        this.parentSession =
+                parentSession instanceof AssuranceSession ? (AssuranceSession) parentSession : null;
+    }
+
+    @Override
+    public void onSessionConnected() {
+        /* no-op */
+    }
+
+    @Override
+    public void onSessionDisconnected(final int code) {
+        stopRecording("Screen recording stopped, session disconnected.");
+    }
+
+    @Override
+    public void onSessionTerminated() {
+        stopRecording(null);
+        parentSession = null;
+        screenCapture.clear();
+    }
+
+    @VisibleForTesting
+    synchronized boolean isRecording() {
+        return activeRecording != null && !activeRecording.stopped;
+    }
+
+    private synchronized void startRecording(final Map<String, Object> controlDetail) {
+        if (parentSession == null) {
+            Log.error(
+                    Assurance.LOG_TAG,
+                    LOG_TAG,
+                    "Unable to record screen, Assurance session instance unavailable.");
+            return;
+        }
+
+        if (activeRecording != null) {
+            activeRecording.stop(null);
+        }
+
+        final double fps =
+                clamp(getNumber(controlDetail, DETAIL_KEY_FPS, DEFAULT_FPS), 0.1, MAX_FPS);
+        final long durationSeconds =
+                (long)
+                        clamp(
+                                getNumber(
+                                        controlDetail,
+                                        DETAIL_KEY_DURATION,
+                                        DEFAULT_DURATION_SECONDS),
+                                1,
+                                MAX_DURATION_SECONDS);
+        final long maxBytesPerSecond =
+                (long)
+                        Math.max(
+                                1,
+                                getNumber(
+                                        controlDetail,
+                                        DETAIL_KEY_MAX_BYTES_PER_SECOND,
+                                        DEFAULT_MAX_BYTES_PER_SECOND));
+        final AssuranceScreenshotOptions options =
+                AssuranceScreenshotOptions.fromControlDetail(controlDetail);
+        final float scale =
+                controlDetail != null
+                                && controlDetail.get(AssuranceScreenshotOptions.DETAIL_KEY_SCALE)
+                                        instanceof Number
+                        ? options.getScale()
+                        : DEFAULT_RECORDING_SCALE;
+
+        activeRecording =
+                new Recording(
+                        ++recordingCount,
+                        options,
+                        scale,
+                        (long) (1000 / fps),
+                        System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(durationSeconds),
+                        new AssuranceRecordingBudget(maxBytesPerSecond, MAX_CPU_FRACTION));
+        logLocalUI(
+                String.format(
+                        "Screen recording started for %d seconds at %.1f fps.",
+                        durationSeconds, fps));
+        activeRecording.scheduleNextFrame(0);
+    }
+
+    private synchronized void stopRecording(final String message) {
+        if (activeRecording != null) {
+            activeRecording.stop(message);
+            activeRecording = null;
+        }
+    }
+
+    private ScheduledExecutorService getFrameScheduler() {
+        return frameScheduler != null
+                ? frameScheduler
+                : AssuranceScheduler.getInstance().getScheduledExecutor();
+    }
+
+    private void logLocalUI(final String message) {
+        Log.debug(Assurance.LOG_TAG, LOG_TAG, message);
+        final AssuranceSession session = parentSession;
+
+        if (session != null) {
+            session.logLocalUI(UILogColorVisibility.LOW, message);
+        }
+    }
+
+    private static double getNumber(
+            final Map<String, Object> controlDetail, final String key, final double defaultValue) {
+        final Object value = controlDetail == null ? null : controlDetail.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+    }
+
+    private static double clamp(final double value, final double min, final double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * A single recording. Frames are processed one at a time: the next frame is only scheduled
+     * once the previous one has been skipped or encoded.
+     */
+    private final class Recording {
+        private final int id;
+        private final AssuranceScreenshotOptions options;
+        private final float scale;
+        private final long frameIntervalMillis;
+        private final long endTimeMillis;
+        private final AssuranceRecordingBudget budget;
+        private final AssuranceFrameDiffer frameDiffer = new AssuranceFrameDiffer();
+
+        private volatile boolean stopped;
+        private ScheduledFuture<?> nextFrame;
+        private int[] pixels;
+        private int frameSequence;
+        private int framesSinceKeyframe;
+        private int framesSent;
+        private int framesSkipped;
+
+        Recording(
+                final int id,
+                final AssuranceScreenshotOptions options,
+                final float scale,
+                final long frameIntervalMillis,
+                final long endTimeMillis,
+                final AssuranceRecordingBudget budget) {
+            this.id = id;
+            this.options = options;
+            this.scale = scale;
+            this.frameIntervalMillis = frameIntervalMillis;
+            this.endTimeMillis = endTimeMillis;
+            this.budget = budget;
+        }
+
+        synchronized void scheduleNextFrame(final long delayMillis) {
+            if (stopped) {
+                return;
+            }
+
+            try {
+                nextFrame =
+                        getFrameScheduler()
+                                .schedule(
+                                        new Runnable() {
+                                            @Override
+                                            public void run() {
+                                                captureFrame();
+                                            }
+                                        },
+                                        delayMillis,
+                                        TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException ex) {
+                stop(null);
+            }
+        }
+
+        synchronized void stop(final String message) {
+            if (stopped) {
+                return;
+            }
+
+            stopped = true;
+
+            if (nextFrame != null) {
+                nextFrame.cancel(false);
+                nextFrame = null;
+            }
+
+            if (message != null) {
+                logLocalUI(
+                        String.format(
+                                "%s %d frame(s) sent, %d unchanged frame(s) skipped.",
+                                message, framesSent, framesSkipped));
+            }
+        }
+
+        private void captureFrame() {
+            if (stopped) {
+                return;
+            }
+
+            final long now = System.currentTimeMillis();
+
+            if (now >= endTimeMillis) {
+                stopRecordingIfActive(this, "Screen recording completed.");
+                return;
+            }
+
+            final AssuranceSession session = parentSession;
+            final Activity activity = session == null ? null : session.getCurrentActivity();
+
+            if (activity == null || !budget.canSend(now)) {
+                // nothing to capture, or the bandwidth budget is exhausted
+                scheduleNextFrame(budget.getNextFrameDelay(frameIntervalMillis, 0, now));
+                return;
+            }
+
+            final long captureStart = System.currentTimeMillis();
+            screenCapture.capture(
+                    activity,
+                    scale,
+                    new AssuranceScreenCapture.CaptureCallback() {
+                        @Override
+                        public void onCaptured(final Bitmap bitmap) {
+                            try {
+                                encodeExecutor.execute(
+                                        new Runnable() {
+                                            @Override
+                                            public void run() {
+                                                processFrame(bitmap, captureStart);
+                                            }
+                                        });
+                            } catch (final RejectedExecutionException ex) {
+                                screenCapture.release(bitmap);
+                                stop(null);
+                            }
+                        }
+
+                        @Override
+                        public void onCaptureFailed(final String reason) {
+                            Log.debug(Assurance.LOG_TAG, LOG_TAG, reason);
+                            scheduleNextFrame(frameIntervalMillis);
+                        }
+                    });
+        }
+
+        /** Diffs, encodes and uploads a captured frame. Thread : background */
+        private void processFrame(final Bitmap bitmap, final long captureStart) {
+            if (stopped) {
+                screenCapture.release(bitmap);
+                return;
+            }
+
+            final int width = bitmap.getWidth();
+            final int height = bitmap.getHeight();
+            byte[] frameData = null;
+            Map<String, Object> frameInfo = null;
+
+            try {
+                if (pixels == null || pixels.length != width * height) {
+                    pixels = new int[width * height];
+                }
+
+                bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+                final AssuranceFrameDiffer.FrameDiff diff =
+                        frameDiffer.diff(pixels, width, height);
+
+                if (!diff.hasChanges()) {
+                    framesSkipped++;
+                } else {
+                    final boolean isKeyframe =
+                            diff.isFirstFrame
+                                    || framesSinceKeyframe >= KEYFRAME_INTERVAL
+                                    || diff.changedTiles
+                                            > diff.totalTiles * KEYFRAME_CHANGE_THRESHOLD;
+                    frameInfo = new HashMap<>();
+                    frameInfo.put("id", id);
+                    frameInfo.put("sequence", frameSequence++);
+                    frameInfo.put("timestamp", captureStart);
+                    frameInfo.put("frameWidth", width);
+                    frameInfo.put("frameHeight", height);
+
+                    if (isKeyframe) {
+                        framesSinceKeyframe = 0;
+                        frameInfo.put("frameType", FRAME_TYPE_KEY);
+                        frameData = encode(bitmap);
+                    } else {
+                        framesSinceKeyframe++;
+                        frameInfo.put("frameType", FRAME_TYPE_DELTA);
+                        frameInfo.put("x", diff.left);
+                        frameInfo.put("y", diff.top);
+                        frameInfo.put("width", diff.getWidth());
+                        frameInfo.put("height", diff.getHeight());
+                        final Bitmap changedRegion =
+                                Bitmap.createBitmap(
+                                        bitmap,
+                                        diff.left,
+                                        diff.top,
+                                        diff.getWidth(),
+                                        diff.getHeight());
+                        frameData = encode(changedRegion);
+
+                        if (changedRegion != bitmap) {
+                            changedRegion.recycle();
+                        }
+                    }
+                }
+            } finally {
+                screenCapture.release(bitmap);
+            }
+
+            final long now = System.currentTimeMillis();
+
+            if (frameData != null) {
+                framesSent++;
+                budget.recordUpload(frameData.length, now);
+                uploadFrame(frameData, frameInfo);
+            }
+
+            scheduleNextFrame(
+                    budget.getNextFrameDelay(frameIntervalMillis, now - captureStart, now));
+        }
+
+        private byte[] encode(final Bitmap bitmap) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            bitmap.compress(options.getCompressFormat(), options.getQuality(), outputStream);
+            return outputStream.toByteArray();
+        }
+
+        private void uploadFrame(final byte[] frameData, final Map<String, Object> frameInfo) {
+            final AssuranceSession session = parentSession;
+
+            if (session == null) {
+                return;
+            }
+
+            AssuranceBlob.upload(
+                    frameData,
+                    options.getMimeType(),
+                    session,
+                    new AssuranceBlob.BlobUploadCallback() {
+                        @Override
+                        public void onSuccess(final String blobID) {
+                            final Map<String, Object> payload = new HashMap<>();
+                            payload.put(PAYLOAD_BLOBID, blobID);
+                            payload.put(PAYLOAD_MIMETYPE, options.getMimeType());
+                            payload.put(PAYLOAD_RECORDING, frameInfo);
+                            final AssuranceSession currentSession = parentSession;
+
+                            if (currentSession != null) {
+                                currentSession.queueOutboundEvent(
+                                        new AssuranceEvent(
+                                                AssuranceConstants.AssuranceEventType.BLOB,
+                                                payload));
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(final String reason) {
+                            // a missing frame is recovered by the next keyframe
+                            Log.debug(
+                                    Assurance.LOG_TAG,
+                                    LOG_TAG,
+                                    String.format(
+                                            "Dropped screen recording frame %s. Reason - %s",
+                                            frameInfo.get("sequence"), reason));
+                        }
+                    });
+        }
+    }
+
+    private synchronized void stopRecordingIfActive(
+            final Recording recording, final String message) {
+        if (activeRecording == recording) {
+            stopRecording(message);
+        } else {
+            recording.stop(null);
+        }
+    }
+}
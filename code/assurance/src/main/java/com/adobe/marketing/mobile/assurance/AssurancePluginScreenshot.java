@@ -14,7 +14,7 @@ package com.adobe.marketing.mobile.assurance;
 
 import android.app.Activity;
 import android.graphics.Bitmap;
-import android.view.View;
+import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.assurance.AssuranceConstants.UILogColorVisibility;
@@ -22,6 +22,7 @@ import com.adobe.marketing.mobile.services.Log;
 import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 class AssurancePluginScreenshot implements AssurancePlugin {
     private static final String LOG_TAG = "AssurancePluginScreenshot";
@@ -31,6 +32,26 @@ class AssurancePluginScreenshot implements AssurancePlugin {
     private AssuranceSession parentSession = null;
 
     private CaptureScreenShotListener listener;
+    private final AssuranceScreenCapture screenCapture;
+    private final Executor encodeExecutor;
+
+    AssurancePluginScreenshot() {
+        this(
+                new AssuranceScreenCapture(),
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        AssuranceScheduler.getInstance().execute(command);
+                    }
+                });
+    }
+
+    @VisibleForTesting
+    AssurancePluginScreenshot(
+            final AssuranceScreenCapture screenCapture, final Executor encodeExecutor) {
+        this.screenCapture = screenCapture;
+        this.encodeExecutor = encodeExecutor;
+    }
 
     @Override
     public String getVendor() {
@@ -42,27 +63,38 @@ class AssurancePluginScreenshot implements AssurancePlugin {
         return AssuranceConstants.ControlType.SCREENSHOT;
     }
 
-    /** This method will be invoked only if the control event is of type "screenshot" */
+    /**
+     * This method will be invoked only if the control event is of type "screenshot". The optional
+     * control details of the event select the encoding of the screenshot, see {@link
+     * AssuranceScreenshotOptions}.
+     */
     @Override
     public void onEventReceived(final AssuranceEvent event) {
-        // we don't need to verify any controlDetails for this event
+        final AssuranceScreenshotOptions options =
+                AssuranceScreenshotOptions.fromControlDetail(event.getControlDetail());
         listener =
                 new CaptureScreenShotListener() {
                     @Override
-                    public void onCaptureScreenshot(Bitmap bitmap) {
-                        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                        int quality = 100;
-                        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, baos);
-                        sendScreenshot(baos);
+                    public void onCaptureScreenshot(final Bitmap bitmap) {
+                        // keep encoding off the main thread
+                        encodeExecutor.execute(
+                                new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        encodeAndSendScreenshot(bitmap, options);
+                                    }
+                                });
                     }
                 };
 
-        getCurrentScreenShot(listener);
+        getCurrentScreenShot(listener, options.getScale());
     }
 
     @Override
-    public void onRegistered(final AssuranceSession parentSession) {
-        this.parentSession = parentSession;
+    public void onRegistered(final AssurancePluginSession parentSession) {
+        // built-in plugins are handed the session itself, which also uploads the blobs
+        this.parentSession =
+                parentSession instanceof AssuranceSession ? (AssuranceSession) parentSession : null;
     }
 
     @Override
@@ -78,9 +110,11 @@ class AssurancePluginScreenshot implements AssurancePlugin {
     @Override
     public void onSessionTerminated() {
         parentSession = null;
+        screenCapture.clear();
     }
 
-    private void getCurrentScreenShot(final CaptureScreenShotListener captureScreenShotListener) {
+    private void getCurrentScreenShot(
+            final CaptureScreenShotListener captureScreenShotListener, final float scale) {
         if (parentSession == null) {
             Log.error(
                     Assurance.LOG_TAG,
@@ -93,25 +127,45 @@ class AssurancePluginScreenshot implements AssurancePlugin {
         final Activity currentActivity = parentSession.getCurrentActivity();
 
         if (currentActivity != null) {
-            currentActivity.runOnUiThread(
-                    new Runnable() {
+            screenCapture.capture(
+                    currentActivity,
+                    scale,
+                    new AssuranceScreenCapture.CaptureCallback() {
                         @Override
-                        public void run() {
-                            View currentWindow =
-                                    currentActivity.getWindow().getDecorView().getRootView();
-                            currentWindow.setDrawingCacheEnabled(true);
-                            Bitmap bitmap = Bitmap.createBitmap(currentWindow.getDrawingCache());
-                            currentWindow.setDrawingCacheEnabled(false);
-
+                        public void onCaptured(final Bitmap bitmap) {
                             if (captureScreenShotListener != null) {
                                 captureScreenShotListener.onCaptureScreenshot(bitmap);
+                            } else {
+                                screenCapture.release(bitmap);
                             }
                         }
+
+                        @Override
+                        public void onCaptureFailed(final String reason) {
+                            Log.error(Assurance.LOG_TAG, LOG_TAG, reason);
+                        }
                     });
         }
     }
 
-    private void sendScreenshot(final ByteArrayOutputStream baos) {
+    /**
+     * Encodes the captured {@code bitmap} as per the {@code options}, returns the bitmap to the
+     * pool and uploads the encoded screenshot. Thread : background
+     */
+    private void encodeAndSendScreenshot(
+            final Bitmap bitmap, final AssuranceScreenshotOptions options) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try {
+            bitmap.compress(options.getCompressFormat(), options.getQuality(), baos);
+        } finally {
+            screenCapture.release(bitmap);
+        }
+
+        sendScreenshot(baos, options.getMimeType());
+    }
+
+    private void sendScreenshot(final ByteArrayOutputStream baos, final String mimeType) {
         if (parentSession == null) {
             Log.error(
                     Assurance.LOG_TAG,
@@ -122,14 +176,14 @@ class AssurancePluginScreenshot implements AssurancePlugin {
 
         AssuranceBlob.upload(
                 baos.toByteArray(),
-                "image/jpeg",
+                mimeType,
                 parentSession,
                 new AssuranceBlob.BlobUploadCallback() {
                     @Override
                     public void onSuccess(final String blobID) {
                         final Map<String, Object> responsePayload = new HashMap<>();
                         responsePayload.put(PAYLOAD_BLOBID, blobID);
-                        responsePayload.put(PAYLOAD_MIMETYPE, "image/png");
+                        responsePayload.put(PAYLOAD_MIMETYPE, mimeType);
                         final AssuranceEvent screenshotEvent =
                                 new AssuranceEvent(
                                         AssuranceConstants.AssuranceEventType.BLOB,
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.app.Activity;
+import java.util.Map;
+
+/**
+ * The view of an Assurance session that is handed to an {@link AssurancePlugin} when it is
+ * registered with the session.
+ *
+ * <p>Events sent by plugins registered through {@link
+ * com.adobe.marketing.mobile.Assurance#registerPlugin(AssurancePlugin)} are stamped with the
+ * plugin's vendor and are subject to a per-plugin quota of events per second, so that a plugin
+ * cannot starve the events forwarded by the extension itself. Events over the quota are dropped.
+ */
+public interface AssurancePluginSession {
+
+    /** The level with which a message is shown in the Assurance session status view. */
+    enum LogLevel {
+        LOW,
+        NORMAL,
+        HIGH,
+        CRITICAL
+    }
+
+    /**
+     * Sends an event to the connected Assurance session.
+     *
+     * @param type the type of the event
+     * @param payload the payload of the event
+     * @return true if the event was queued, false if it was dropped because the plugin exceeded
+     *     its quota or the session could not queue it
+     */
+    boolean sendEvent(final String type, final Map<String, Object> payload);
+
+    /**
+     * Shows a message in the Assurance session status view.
+     *
+     * @param level the {@link LogLevel} of the message
+     * @param message the message to be shown
+     */
+    void logLocalUI(final LogLevel level, final String message);
+
+    /**
+     * Returns the activity currently in the foreground of the app.
+     *
+     * @return the current {@link Activity}, or null if none is available
+     */
+    Activity getCurrentActivity();
+
+    /**
+     * Returns the identifier of the Assurance session.
+     *
+     * @return the session identifier
+     */
+    String getSessionId();
+
+    /**
+     * Records events that the plugin dropped or filtered out instead of sending them, so that
+     * they are reported to Assurance by a gap record.
+     *
+     * @param lane the sequence lane of the events
+     * @param reason the reason the events are not sent, such as {@code "filtered"}
+     * @param count the number of events
+     */
+    void recordGap(final String lane, final String reason, final long count);
+}
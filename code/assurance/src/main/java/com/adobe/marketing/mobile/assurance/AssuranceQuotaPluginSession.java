@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.app.Activity;
+import android.os.SystemClock;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link AssurancePluginSession} handed to a plugin registered through {@link
+ * Assurance#registerPlugin(AssurancePlugin)}. Events sent by the plugin are stamped with its vendor
+ * and are dropped once the plugin exceeds its {@link AssuranceEventQuota}.
+ */
+class AssuranceQuotaPluginSession implements AssurancePluginSession {
+    private static final String LOG_TAG = "AssuranceQuotaPluginSession";
+
+    private final AssuranceSession session;
+    private final String vendor;
+    private final AssuranceEventQuota quota;
+    private final AtomicLong droppedEventCount = new AtomicLong();
+    private volatile boolean isDropping = false;
+
+    AssuranceQuotaPluginSession(
+            final AssuranceSession session, final String vendor, final AssuranceEventQuota quota) {
+        this.session = session;
+        this.vendor = vendor;
+        this.quota = quota;
+    }
+
+    @Override
+    public boolean sendEvent(final String type, final Map<String, Object> payload) {
+        if (!quota.tryAcquire(SystemClock.elapsedRealtime())) {
+            droppedEventCount.incrementAndGet();
+            // the events of a plugin are sequenced in the lane of its vendor
+            session.recordGap(vendor, AssuranceConstants.GapReason.QUOTA, 1);
+
+            if (!isDropping) {
+                isDropping = true;
+                Log.warning(
+                        Assurance.LOG_TAG,
+                        LOG_TAG,
+                        String.format(
+                                "Plugin for vendor %s exceeded its quota of %d events per second,"
+                                        + " dropping events.",
+                                vendor,
+                                quota.getMaxEventsPerSecond()));
+            }
+
+            return false;
+        }
+
+        isDropping = false;
+        return session.queueOutboundEvent(
+                new AssuranceEvent(vendor, type, null, payload, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void logLocalUI(final LogLevel level, final String message) {
+        session.logLocalUI(level, message);
+    }
+
+    @Override
+    public Activity getCurrentActivity() {
+        return session.getCurrentActivity();
+    }
+
+    @Override
+    public String getSessionId() {
+        return session.getSessionId();
+    }
+
+    @Override
+    public void recordGap(final String lane, final String reason, final long count) {
+        session.recordGap(lane, reason, count);
+    }
+
+    long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+}
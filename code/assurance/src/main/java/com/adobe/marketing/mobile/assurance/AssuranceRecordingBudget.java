@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+/**
+ * Throttles the frame rate of a screen recording to stay within a bandwidth and a CPU budget.
+ *
+ * <p>Bandwidth is tracked with a token bucket that refills at {@code maxBytesPerSecond} and holds
+ * at most one second worth of bytes. An upload may overdraw the bucket, in which case frames are
+ * delayed until it has refilled. The CPU budget limits the share of time spent capturing and
+ * encoding frames to {@code maxCpuFraction} by stretching the frame interval.
+ *
+ * <p>Times are passed in by the caller so that the budget does not depend on a clock.
+ */
+final class AssuranceRecordingBudget {
+    private final long maxBytesPerSecond;
+    private final double maxCpuFraction;
+
+    private double availableBytes;
+    private long lastRefillMillis = -1;
+
+    AssuranceRecordingBudget(final long maxBytesPerSecond, final double maxCpuFraction) {
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        this.maxCpuFraction = maxCpuFraction;
+        this.availableBytes = maxBytesPerSecond;
+    }
+
+    /**
+     * Records the upload of a frame, drawing its size from the bandwidth budget.
+     *
+     * @param bytes the size of the uploaded frame
+     * @param nowMillis the current time
+     */
+    synchronized void recordUpload(final long bytes, final long nowMillis) {
+        refill(nowMillis);
+        availableBytes -= bytes;
+    }
+
+    /**
+     * Checks whether a frame may be sent without exceeding the bandwidth budget.
+     *
+     * @param nowMillis the current time
+     * @return true if the bandwidth budget has not been overdrawn
+     */
+    synchronized boolean canSend(final long nowMillis) {
+        refill(nowMillis);
+        return availableBytes > 0;
+    }
+
+    /**
+     * Computes the delay before the next frame is captured.
+     *
+     * @param frameIntervalMillis the interval between frames at the requested frame rate
+     * @param processingMillis the time spent capturing and encoding the last frame
+     * @param nowMillis the current time
+     * @return the delay in milliseconds, measured from the end of the last frame's processing
+     */
+    synchronized long getNextFrameDelay(
+            final long frameIntervalMillis, final long processingMillis, final long nowMillis) {
+        // processing / period <= maxCpuFraction
+        final long minPeriodForCpu = (long) Math.ceil(processingMillis / maxCpuFraction);
+        long delay = Math.max(frameIntervalMillis, minPeriodForCpu) - processingMillis;
+
+        refill(nowMillis);
+
+        if (availableBytes <= 0) {
+            // wait for the bucket to refill
+            final long refillMillis =
+                    (long) Math.ceil((1 - availableBytes) * 1000d / maxBytesPerSecond);
+            delay = Math.max(delay, refillMillis);
+        }
+
+        return Math.max(0, delay);
+    }
+
+    private void refill(final long nowMillis) {
+        if (lastRefillMillis >= 0 && nowMillis > lastRefillMillis) {
+            availableBytes =
+                    Math.min(
+                            maxBytesPerSecond,
+                            availableBytes
+                                    + (nowMillis - lastRefillMillis) * maxBytesPerSecond / 1000d);
+        }
+
+        lastRefillMillis = Math.max(lastRefillMillis, nowMillis);
+    }
+}
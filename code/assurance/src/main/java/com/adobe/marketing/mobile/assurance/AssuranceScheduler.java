@@ -0,0 +1,398 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the threads used by the Assurance extension. All session components (event queue workers,
+ * the socket and presentation helpers) share a small bounded worker pool and a single scheduled
+ * executor instead of creating their own threads, so that repeated sessions do not leak threads.
+ * Work that blocks, such as file access or waiting for the socket WebView, runs on a separate
+ * bounded blocking pool, and tasks that run for the whole session, such as reading logcat, run on
+ * dedicated threads, so that neither can pin the worker threads the event queues depend on. Blob
+ * uploads have a small pool of their own.
+ * Plugins run on a separate pool, so that slow plugins cannot hold up the session's own work. The
+ * plugin pool is not bounded by a thread count: each plugin submits one task at a time, so it holds
+ * at most one thread per plugin, and a plugin stuck in a callback never holds up the others.
+ *
+ * <p>Idle threads time out, so an instance holds no threads when Assurance is not doing any work.
+ * The instance is shut down via {@link #shutdown()} when the extension is unregistered and is
+ * lazily recreated on next use.
+ */
+final class AssuranceScheduler {
+    private static final String LOG_TAG = "AssuranceScheduler";
+    private static final String THREAD_NAME_PREFIX = "com.adobe.assurance.mobile.";
+    private static final String WORKER_THREAD_NAME = "worker";
+    private static final String SCHEDULER_THREAD_NAME = "scheduler";
+    private static final String PLUGIN_THREAD_NAME = "plugin";
+    private static final String BLOCKING_THREAD_NAME = "blocking";
+    private static final String DEDICATED_THREAD_NAME = "dedicated";
+    private static final String UPLOAD_THREAD_NAME = "upload";
+    static final int WORKER_POOL_SIZE = 6;
+    static final int BLOCKING_POOL_SIZE = 2;
+    static final int UPLOAD_POOL_SIZE = 2;
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 30L;
+
+    private static AssuranceScheduler instance;
+
+    private final ThreadPoolExecutor workerPool;
+    private final ThreadPoolExecutor pluginPool;
+    private final ThreadPoolExecutor blockingPool;
+    private final ThreadPoolExecutor dedicatedPool;
+    private final ThreadPoolExecutor uploadPool;
+    private final ScheduledThreadPoolExecutor scheduledExecutor;
+
+    @VisibleForTesting
+    AssuranceScheduler() {
+        workerPool = newPool(WORKER_POOL_SIZE, WORKER_THREAD_NAME);
+        pluginPool = newThreadPerTaskPool(PLUGIN_THREAD_NAME);
+        blockingPool = newPool(BLOCKING_POOL_SIZE, BLOCKING_THREAD_NAME);
+        dedicatedPool = newThreadPerTaskPool(DEDICATED_THREAD_NAME);
+        uploadPool = newPool(UPLOAD_POOL_SIZE, UPLOAD_THREAD_NAME);
+
+        scheduledExecutor =
+                new ScheduledThreadPoolExecutor(1, new NamedThreadFactory(SCHEDULER_THREAD_NAME));
+        scheduledExecutor.setKeepAliveTime(IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        scheduledExecutor.allowCoreThreadTimeOut(true);
+        scheduledExecutor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Retrieves the shared {@code AssuranceScheduler}, creating one if none exists or if the
+     * previous instance was shut down.
+     *
+     * @return the shared {@link AssuranceScheduler}
+     */
+    static synchronized AssuranceScheduler getInstance() {
+        if (instance == null) {
+            instance = new AssuranceScheduler();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Shuts down the shared {@code AssuranceScheduler}, if one exists. Tasks already submitted are
+     * allowed to complete, but no new tasks are accepted by the executors of the shut down
+     * instance. A subsequent call to {@link #getInstance()} creates a fresh instance.
+     */
+    static synchronized void shutdown() {
+        if (instance == null) {
+            return;
+        }
+
+        Log.debug(
+                Assurance.LOG_TAG,
+                LOG_TAG,
+                String.format(
+                        "Shutting down Assurance scheduler with %d active thread(s).",
+                        instance.getThreadCount()));
+        instance.workerPool.shutdown();
+        instance.pluginPool.shutdown();
+        instance.blockingPool.shutdown();
+        instance.dedicatedPool.shutdown();
+        instance.uploadPool.shutdown();
+        instance.scheduledExecutor.shutdown();
+        instance = null;
+    }
+
+    /**
+     * Retrieves the bounded pool to be used for background work.
+     *
+     * @return the {@link ExecutorService} backed by the shared worker pool
+     */
+    ExecutorService getWorkerExecutor() {
+        return workerPool;
+    }
+
+    /**
+     * Retrieves the executor to be used for delayed work.
+     *
+     * @return the shared {@link ScheduledExecutorService}
+     */
+    ScheduledExecutorService getScheduledExecutor() {
+        return scheduledExecutor;
+    }
+
+    /**
+     * Runs the {@code task} on the shared worker pool.
+     *
+     * @param task the {@link Runnable} to be executed
+     */
+    void execute(final Runnable task) {
+        workerPool.execute(task);
+    }
+
+    /**
+     * Runs the {@code task} on the blocking pool, which is bounded separately from the worker pool.
+     * To be used for work that blocks on I/O or waits for another thread.
+     *
+     * @param task the {@link Runnable} to be executed
+     */
+    void executeBlockingTask(final Runnable task) {
+        blockingPool.execute(task);
+    }
+
+    /**
+     * Runs the {@code task} on a thread of its own, which ends with the task. To be used for a task
+     * that runs for as long as a session, and never for short-lived work.
+     *
+     * @param task the {@link Runnable} to be executed
+     */
+    void executeOnDedicatedThread(final Runnable task) {
+        dedicatedPool.execute(task);
+    }
+
+    /**
+     * Runs the {@code task} on the upload pool, which is bounded separately from the worker pool.
+     *
+     * @param task the {@link Runnable} to be executed
+     */
+    void executeUpload(final Runnable task) {
+        uploadPool.execute(task);
+    }
+
+    /**
+     * Runs the {@code task} on the plugin pool, on a thread of its own. Callers submit at most one
+     * task per plugin at a time, through the plugin's serial executor, which bounds the pool.
+     *
+     * @param task the {@link Runnable} to be executed
+     */
+    void executePluginTask(final Runnable task) {
+        pluginPool.execute(task);
+    }
+
+    /**
+     * Runs the {@code task} on the scheduled executor after the specified delay.
+     *
+     * @param task the {@link Runnable} to be executed
+     * @param delay the time from now to delay execution
+     * @param unit the time unit of the {@code delay}
+     * @return a {@link ScheduledFuture} that can be used to cancel the task
+     */
+    ScheduledFuture<?> schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        return scheduledExecutor.schedule(task, delay, unit);
+    }
+
+    /**
+     * Creates an {@link ExecutorService} that runs its tasks one at a time, in submission order, on
+     * the shared worker pool. No thread is dedicated to the returned executor.
+     *
+     * @return a new serial {@link ExecutorService}
+     */
+    ExecutorService newSerialExecutor() {
+        return new SerialExecutor(workerPool);
+    }
+
+    /**
+     * Creates an {@link ExecutorService} that runs its tasks one at a time, in submission order, on
+     * the blocking pool. No thread is dedicated to the returned executor.
+     *
+     * @return a new serial {@link ExecutorService}
+     */
+    ExecutorService newSerialBlockingExecutor() {
+        return new SerialExecutor(blockingPool);
+    }
+
+    /**
+     * Retrieves the number of threads currently alive in this scheduler.
+     *
+     * @return the number of live threads in the pools and the scheduled executor
+     */
+    int getThreadCount() {
+        return workerPool.getPoolSize()
+                + pluginPool.getPoolSize()
+                + blockingPool.getPoolSize()
+                + dedicatedPool.getPoolSize()
+                + uploadPool.getPoolSize()
+                + scheduledExecutor.getPoolSize();
+    }
+
+    private static ThreadPoolExecutor newPool(final int size, final String threadName) {
+        final ThreadPoolExecutor pool =
+                new ThreadPoolExecutor(
+                        size,
+                        size,
+                        IDLE_THREAD_KEEP_ALIVE_SECONDS,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(),
+                        new NamedThreadFactory(threadName));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Creates a pool that starts a thread for every task it is handed while its other threads are
+     * busy. The callers bound the number of threads by the number of tasks they submit at once.
+     */
+    private static ThreadPoolExecutor newThreadPerTaskPool(final String threadName) {
+        return new ThreadPoolExecutor(
+                0,
+                Integer.MAX_VALUE,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(),
+                new NamedThreadFactory(threadName));
+    }
+
+    /** Names the threads created by the {@link AssuranceScheduler} for easier diagnosis. */
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        NamedThreadFactory(final String name) {
+            this.namePrefix = THREAD_NAME_PREFIX + name + "-";
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            final Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * An {@link ExecutorService} that serializes the execution of its tasks on a backing {@link
+     * Executor}. At most one task of a {@code SerialExecutor} is submitted to the backing executor
+     * at any given time.
+     */
+    static final class SerialExecutor extends AbstractExecutorService {
+        private final Executor backingExecutor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable activeTask;
+        private boolean isShutdown;
+
+        SerialExecutor(final Executor backingExecutor) {
+            this.backingExecutor = backingExecutor;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull final Runnable task) {
+            if (isShutdown) {
+                throw new RejectedExecutionException("SerialExecutor has been shut down.");
+            }
+
+            tasks.offer(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                task.run();
+                            } finally {
+                                scheduleNext();
+                            }
+                        }
+                    });
+
+            if (activeTask == null && !scheduleNext()) {
+                throw new RejectedExecutionException("Backing executor has been shut down.");
+            }
+        }
+
+        /**
+         * Submits the next task to the backing executor. If the backing executor rejects it, this
+         * executor is shut down and its remaining tasks are dropped, as none of them could run.
+         *
+         * @return false if the backing executor rejected the task
+         */
+        private synchronized boolean scheduleNext() {
+            activeTask = tasks.poll();
+
+            if (activeTask != null) {
+                try {
+                    backingExecutor.execute(activeTask);
+                    return true;
+                } catch (final RejectedExecutionException ex) {
+                    Log.debug(
+                            Assurance.LOG_TAG,
+                            LOG_TAG,
+                            String.format(
+                                    "Dropping %d task(s) of a serial executor whose backing"
+                                            + " executor was shut down.",
+                                    tasks.size() + 1));
+                    activeTask = null;
+                    isShutdown = true;
+                    tasks.clear();
+                    notifyAll();
+                    return false;
+                }
+            }
+
+            notifyAll();
+            return true;
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            isShutdown = true;
+        }
+
+        @NonNull
+        @Override
+        public synchronized List<Runnable> shutdownNow() {
+            isShutdown = true;
+            final List<Runnable> pendingTasks = new ArrayList<>(tasks);
+            tasks.clear();
+            return pendingTasks;
+        }
+
+        @Override
+        public synchronized boolean isShutdown() {
+            return isShutdown;
+        }
+
+        @Override
+        public synchronized boolean isTerminated() {
+            return isShutdown && activeTask == null;
+        }
+
+        @Override
+        public synchronized boolean awaitTermination(
+                final long timeout, @NonNull final TimeUnit unit) throws InterruptedException {
+            long remainingMillis = unit.toMillis(timeout);
+            final long deadline = System.currentTimeMillis() + remainingMillis;
+
+            while (!isTerminated()) {
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+
+                wait(remainingMillis);
+                remainingMillis = deadline - System.currentTimeMillis();
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.PixelCopy;
+import android.view.View;
+import android.view.Window;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.Assurance;
+import com.adobe.marketing.mobile.services.Log;
+
+/**
+ * Captures the window of an activity into a (optionally downscaled) bitmap taken from an {@link
+ * AssuranceBitmapPool}.
+ *
+ * <p>On API 26 and above the capture uses {@link PixelCopy}, which copies and scales the window
+ * surface asynchronously without drawing the view hierarchy again. On older devices the decor view
+ * is drawn directly into the scaled bitmap on the main thread, avoiding the deprecated drawing
+ * cache and the copy of it. The captured bitmap must be handed back via {@link #release(Bitmap)}
+ * once it is no longer needed.
+ */
+class AssuranceScreenCapture {
+    private static final String LOG_TAG = "AssuranceScreenCapture";
+
+    /** Receives the result of a capture. Invoked on the main thread. */
+    interface CaptureCallback {
+        /**
+         * Invoked when the window has been captured.
+         *
+         * @param bitmap the captured {@link Bitmap}, owned by the callee until it is released
+         */
+        void onCaptured(final Bitmap bitmap);
+
+        /**
+         * Invoked when the window could not be captured.
+         *
+         * @param reason the reason for the failure
+         */
+        void onCaptureFailed(final String reason);
+    }
+
+    private final AssuranceBitmapPool bitmapPool;
+    private final Handler mainThreadHandler;
+
+    AssuranceScreenCapture() {
+        this(new AssuranceBitmapPool(), new Handler(Looper.getMainLooper()));
+    }
+
+    @VisibleForTesting
+    AssuranceScreenCapture(final AssuranceBitmapPool bitmapPool, final Handler mainThreadHandler) {
+        this.bitmapPool = bitmapPool;
+        this.mainThreadHandler = mainThreadHandler;
+    }
+
+    /**
+     * Captures the window of the {@code activity}, scaled by {@code scale}.
+     *
+     * @param activity the {@link Activity} whose window is to be captured
+     * @param scale the factor by which the window is downscaled, in (0, 1]
+     * @param callback the {@link CaptureCallback} to be notified of the result
+     */
+    void capture(final Activity activity, final float scale, final CaptureCallback callback) {
+        mainThreadHandler.post(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        captureOnMainThread(activity, scale, callback);
+                    }
+                });
+    }
+
+    /**
+     * Returns a bitmap delivered by {@link CaptureCallback#onCaptured(Bitmap)} so that it can be
+     * reused by subsequent captures.
+     *
+     * @param bitmap the captured {@link Bitmap}
+     */
+    void release(final Bitmap bitmap) {
+        bitmapPool.release(bitmap);
+    }
+
+    /** Releases the pooled bitmaps. */
+    void clear() {
+        bitmapPool.clear();
+    }
+
+    private void captureOnMainThread(
+            final Activity activity, final float scale, final CaptureCallback callback) {
+        final Window window = activity.getWindow();
+        final View decorView = window == null ? null : window.getDecorView();
+
+        if (decorView == null || decorView.getWidth() <= 0 || decorView.getHeight() <= 0) {
+            callback.onCaptureFailed("Unable to take screenshot, the window is not laid out.");
+            return;
+        }
+
+        final int width = Math.max(1, Math.round(decorView.getWidth() * scale));
+        final int height = Math.max(1, Math.round(decorView.getHeight() * scale));
+        final Bitmap bitmap = bitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            try {
+                copyPixels(window, bitmap, callback);
+                return;
+            } catch (final IllegalArgumentException ex) {
+                // the window has no surface yet, fall back to drawing the view hierarchy
+                Log.debug(
+                        Assurance.LOG_TAG,
+                        LOG_TAG,
+                        String.format(
+                                "PixelCopy unavailable, drawing the window instead. Error - %s",
+                                ex.getLocalizedMessage()));
+            }
+        }
+
+        drawIntoBitmap(decorView, bitmap, scale);
+        callback.onCaptured(bitmap);
+    }
+
+    @RequiresApi(Build.VERSION_CODES.O)
+    private void copyPixels(
+            final Window window, final Bitmap bitmap, final CaptureCallback callback) {
+        PixelCopy.request(
+                window,
+                bitmap,
+                new PixelCopy.OnPixelCopyFinishedListener() {
+                    @Override
+                    public void onPixelCopyFinished(final int copyResult) {
+                        if (copyResult == PixelCopy.SUCCESS) {
+                            callback.onCaptured(bitmap);
+                            return;
+                        }
+
+                        bitmapPool.release(bitmap);
+                        callback.onCaptureFailed(
+                                String.format(
+                                        "Unable to take screenshot, PixelCopy failed with result"
+                                                + " %d.",
+                                        copyResult));
+                    }
+                },
+                mainThreadHandler);
+    }
+
+    private static void drawIntoBitmap(
+            final View decorView, final Bitmap bitmap, final float scale) {
+        // pooled bitmaps retain their previous contents
+        bitmap.eraseColor(Color.TRANSPARENT);
+        final Canvas canvas = new Canvas(bitmap);
+        canvas.scale(scale, scale);
+        decorView.draw(canvas);
+    }
+}
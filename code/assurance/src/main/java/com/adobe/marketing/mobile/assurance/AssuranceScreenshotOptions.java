@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import java.util.Map;
+
+/**
+ * The encoding options of a screenshot, as requested by the {@code detail} of a screenshot control
+ * event. Any option that is missing or invalid falls back to its default.
+ *
+ * <ul>
+ *   <li>{@code format} - one of {@code "jpeg"} (default) or {@code "webp"}
+ *   <li>{@code quality} - the compression quality, 1 to 100, defaults to {@value
+ *       #DEFAULT_QUALITY}
+ *   <li>{@code scale} - the factor by which the screen is downscaled, greater than 0 and at most
+ *       1, defaults to {@value #DEFAULT_SCALE}
+ * </ul>
+ */
+final class AssuranceScreenshotOptions {
+    static final String DETAIL_KEY_FORMAT = "format";
+    static final String DETAIL_KEY_QUALITY = "quality";
+    static final String DETAIL_KEY_SCALE = "scale";
+    static final String FORMAT_JPEG = "jpeg";
+    static final String FORMAT_WEBP = "webp";
+    static final int DEFAULT_QUALITY = 80;
+    static final float DEFAULT_SCALE = 1.0f;
+
+    private final String format;
+    private final int quality;
+    private final float scale;
+
+    AssuranceScreenshotOptions(final String format, final int quality, final float scale) {
+        this.format = FORMAT_WEBP.equalsIgnoreCase(format) ? FORMAT_WEBP : FORMAT_JPEG;
+        this.quality = quality >= 1 && quality <= 100 ? quality : DEFAULT_QUALITY;
+        this.scale = scale > 0 && scale <= 1 ? scale : DEFAULT_SCALE;
+    }
+
+    /**
+     * Creates the options requested by the {@code detail} of a screenshot control event.
+     *
+     * @param controlDetail the control detail of the event, may be null
+     * @return the {@link AssuranceScreenshotOptions} requested by the event
+     */
+    static AssuranceScreenshotOptions fromControlDetail(final Map<String, Object> controlDetail) {
+        if (controlDetail == null) {
+            return new AssuranceScreenshotOptions(FORMAT_JPEG, DEFAULT_QUALITY, DEFAULT_SCALE);
+        }
+
+        final Object format = controlDetail.get(DETAIL_KEY_FORMAT);
+        final Object quality = controlDetail.get(DETAIL_KEY_QUALITY);
+        final Object scale = controlDetail.get(DETAIL_KEY_SCALE);
+
+        return new AssuranceScreenshotOptions(
+                format instanceof String ? (String) format : FORMAT_JPEG,
+                quality instanceof Number ? ((Number) quality).intValue() : DEFAULT_QUALITY,
+                scale instanceof Number ? ((Number) scale).floatValue() : DEFAULT_SCALE);
+    }
+
+    int getQuality() {
+        return quality;
+    }
+
+    float getScale() {
+        return scale;
+    }
+
+    /**
+     * Retrieves the {@link Bitmap.CompressFormat} to encode the screenshot with.
+     *
+     * @return the {@link Bitmap.CompressFormat} for the requested format
+     */
+    @SuppressWarnings("deprecation")
+    Bitmap.CompressFormat getCompressFormat() {
+        if (!FORMAT_WEBP.equals(format)) {
+            return Bitmap.CompressFormat.JPEG;
+        }
+
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+
+    /**
+     * Retrieves the MIME type of the encoded screenshot.
+     *
+     * @return the MIME type for the requested format
+     */
+    String getMimeType() {
+        return FORMAT_WEBP.equals(format) ? "image/webp" : "image/jpeg";
+    }
+}
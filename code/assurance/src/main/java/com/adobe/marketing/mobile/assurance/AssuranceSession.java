@@ -14,18 +14,19 @@ package com.adobe.marketing.mobile.assurance;
 
 import android.app.Activity;
 import android.net.Uri;
-import android.os.Handler;
-import android.os.HandlerThread;
-import android.os.Looper;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.util.StringUtils;
 import java.nio.charset.UnsupportedCharsetException;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import org.json.JSONException;
 
@@ -35,9 +36,13 @@ import org.json.JSONException;
  * lifecycle of this class is equivalent to the lifecycle of the socket connection maintained by it.
  * An {@code AssuranceSession} is "valid" if an instance exists (either waiting for a connection to
  * be established, or one which is already connected).
+ *
+ * <p>The built-in plugins passed to the session are handed the session itself as their {@link
+ * AssurancePluginSession}. Plugins registered through {@link AssurancePluginRegistry} are handed
+ * an {@link AssuranceQuotaPluginSession} enforcing their quota instead.
  */
 @SuppressWarnings("unused")
-class AssuranceSession implements AssuranceWebViewSocketHandler {
+class AssuranceSession implements AssuranceWebViewSocketHandler, AssurancePluginSession {
     private static final String LOG_TAG = "AssuranceSession";
     private static final String CONNECTION_URL_FORMAT =
             "wss://connect%s.griffon.adobe.com/client/v1"
@@ -50,14 +55,13 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
     private final OutboundEventQueueWorker outboundEventQueueWorker;
     private final InboundEventQueueWorker inboundEventQueueWorker;
     private final AssuranceWebViewSocket socket;
-    private final HandlerThread socketReconnectThread =
-            new HandlerThread("com.adobe.assurance.mobile.socketreconnectworker");
-    private final Handler socketReconnectHandler;
+    private final ScheduledExecutorService socketReconnectExecutor;
     private final AssurancePluginManager pluginManager;
     private final AssuranceSessionOrchestrator.ApplicationHandle applicationHandle;
     private final AssuranceSessionPresentationManager assuranceSessionPresentationManager;
     private final Set<AssuranceSessionStatusListener> sessionStatusListeners;
     private final AssuranceConnectionDataStore connectionDataStore;
+    private final AssuranceBootEventBuffer bootEvents;
 
     private final InboundEventQueueWorker.InboundQueueEventListener inboundQueueEventListener =
             new InboundEventQueueWorker.InboundQueueEventListener() {
@@ -68,7 +72,7 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
                     // about this event.
                     if (AssuranceConstants.ControlType.START_EVENT_FORWARDING.equals(
                             event.getControlType())) {
-                        onStartForwardingEvent();
+                        onStartForwardingEvent(event);
                         return;
                     }
 
@@ -76,9 +80,22 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
                 }
             };
 
+    private final AssurancePluginRegistry.RegistrationListener pluginRegistrationListener =
+            new AssurancePluginRegistry.RegistrationListener() {
+                @Override
+                public void onPluginRegistered(
+                        final AssurancePluginRegistry.Registration registration) {
+                    addPlugin(registration);
+                }
+            };
+
+    private ScheduledFuture<?> pendingReconnect;
     private boolean isAttemptingToReconnect = false;
     private boolean didClearBootEvents = false;
 
+    /** Content hashes of the shared states sent in this session, keyed by owner and state type. */
+    private final Map<String, Long> sentSharedStateHashes = new ConcurrentHashMap<>();
+
     /**
      * A notification mechanism for components that have the need to be aware of creation and
      * destruction of an {@code AssuranceSession}.
@@ -99,7 +116,7 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
             final AssuranceConnectionDataStore connectionDataStore,
             final AssuranceSessionOrchestrator.SessionUIOperationHandler uiOperationHandler,
             final List<AssurancePlugin> plugins,
-            final List<AssuranceEvent> bufferedEvents) {
+            final AssuranceBootEventBuffer bufferedEvents) {
 
         this.assuranceStateManager = assuranceStateManager;
         this.applicationHandle = applicationHandle;
@@ -114,30 +131,25 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
 
         pluginManager = new AssurancePluginManager(this);
 
-        socketReconnectThread.start();
-        Looper socketLooper = socketReconnectThread.getLooper();
-        socketReconnectHandler = new Handler(socketLooper);
+        final AssuranceScheduler scheduler = AssuranceScheduler.getInstance();
+        socketReconnectExecutor = scheduler.getScheduledExecutor();
 
-        socket = new AssuranceWebViewSocket(this);
+        socket =
+                new AssuranceWebViewSocket(
+                        this, AssuranceWebViewStartup.fromManifest(applicationHandle));
 
-        // Initialize EventQueue workers.
+        // Initialize EventQueue workers. Each worker runs at most one job at a time, so sharing
+        // the scheduler's worker pool retains their sequential processing.
         outboundEventQueueWorker =
                 new OutboundEventQueueWorker(
-                        Executors.newSingleThreadExecutor(), socket, new AssuranceClientInfo());
+                        scheduler.getWorkerExecutor(), socket, new AssuranceClientInfo());
         inboundEventQueueWorker =
                 new InboundEventQueueWorker(
-                        Executors.newSingleThreadExecutor(), inboundQueueEventListener);
-
-        // Enqueue stored events.
-        if (bufferedEvents != null) {
-            final List<AssuranceEvent> buffer = new ArrayList<>(bufferedEvents);
+                        scheduler.getWorkerExecutor(), inboundQueueEventListener);
 
-            for (final AssuranceEvent event : buffer) {
-                queueOutboundEvent(event);
-            }
-        } else {
-            didClearBootEvents = true;
-        }
+        // Stored events are enqueued once the session is published, see replayBootEvents().
+        this.bootEvents = bufferedEvents;
+        didClearBootEvents = bufferedEvents == null;
 
         // Add plugins.
         if (plugins != null) {
@@ -145,6 +157,11 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
                 addPlugin(plugin);
             }
         }
+
+        for (final AssurancePluginRegistry.Registration registration :
+                AssurancePluginRegistry.addListener(pluginRegistrationListener)) {
+            addPlugin(registration);
+        }
     }
 
     /**
@@ -201,6 +218,42 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
         socket.connect(connectionString);
     }
 
+    /**
+     * Enqueues the events buffered before this session was created and attaches the session to the
+     * buffer, so that the events added to it afterwards are enqueued as well until it is released.
+     * Called once the session is published, so that the events queued in the meantime are held by
+     * the buffer and replayed rather than lost.
+     */
+    void replayBootEvents() {
+        if (bootEvents == null) {
+            return;
+        }
+
+        bootEvents.attach(
+                new AssuranceBootEventBuffer.ReplayListener() {
+                    @Override
+                    public void onEvent(final AssuranceEvent event) {
+                        queueOutboundEvent(event);
+                    }
+                });
+
+        // No event is evicted once attached, so the count is final.
+        outboundEventQueueWorker.recordGap(
+                AssuranceConstants.SequenceLane.EVENTS,
+                AssuranceConstants.GapReason.EVICTED,
+                bootEvents.getDroppedEventCount());
+    }
+
+    /**
+     * Releases a session that was never published, without touching the shared state or the stored
+     * connection URL which belong to the active session.
+     */
+    void discard() {
+        AssurancePluginRegistry.removeListener(pluginRegistrationListener);
+        outboundEventQueueWorker.stop();
+        inboundEventQueueWorker.stop();
+    }
+
     /** Disconnects the socket connection and releases all the resources held. */
     void disconnect() {
         if (socket != null && socket.getState() != AssuranceWebViewSocket.SocketReadyState.CLOSED) {
@@ -216,14 +269,15 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
      * This method queues the passed event in {@link OutboundEventQueueWorker}.
      *
      * @param event A {@link AssuranceEvent} to be queued and sent to Assurance
+     * @return true if the event was queued
      */
-    void queueOutboundEvent(final AssuranceEvent event) {
+    boolean queueOutboundEvent(final AssuranceEvent event) {
         if (event == null) {
             Log.warning(
                     Assurance.LOG_TAG,
                     LOG_TAG,
                     "Assurance cannot send event, event cannot be null.");
-            return;
+            return false;
         }
 
         if (!outboundEventQueueWorker.offer(event)) {
@@ -231,13 +285,59 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
                     Assurance.LOG_TAG,
                     LOG_TAG,
                     "Assurance cannot send event, problem queuing event in outBoundEventQueue");
+            recordGap(
+                    AssuranceEventSequencer.getLane(event),
+                    AssuranceConstants.GapReason.DROPPED,
+                    1);
+            return false;
         }
+
+        return true;
+    }
+
+    /**
+     * Records events that were dropped, coalesced or filtered out before being queued, so that
+     * they are reported to Assurance by a gap record.
+     *
+     * @param lane the sequence lane of the events
+     * @param reason the reason the events are not sent, one of {@link
+     *     AssuranceConstants.GapReason}
+     * @param count the number of events
+     */
+    @Override
+    public void recordGap(final String lane, final String reason, final long count) {
+        outboundEventQueueWorker.recordGap(lane, reason, count);
+    }
+
+    @Override
+    public boolean sendEvent(final String type, final Map<String, Object> payload) {
+        return queueOutboundEvent(new AssuranceEvent(type, payload));
     }
 
+    /**
+     * Adds a built-in plugin, which is handed this session without a quota.
+     *
+     * @param plugin the {@link AssurancePlugin} to be added
+     */
     void addPlugin(final AssurancePlugin plugin) {
         pluginManager.addPlugin(plugin);
     }
 
+    /**
+     * Adds a plugin registered through {@link AssurancePluginRegistry}, which is handed an {@link
+     * AssuranceQuotaPluginSession} enforcing its quota.
+     *
+     * @param registration the {@link AssurancePluginRegistry.Registration} of the plugin
+     */
+    void addPlugin(final AssurancePluginRegistry.Registration registration) {
+        pluginManager.addPlugin(
+                registration.plugin,
+                new AssuranceQuotaPluginSession(
+                        this,
+                        registration.plugin.getVendor(),
+                        new AssuranceEventQuota(registration.maxEventsPerSecond)));
+    }
+
     /**
      * Logs a message on the Assurance Session Status UI view managed by this session.
      *
@@ -249,7 +349,17 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
         assuranceSessionPresentationManager.logLocalUI(visibility, message);
     }
 
-    Activity getCurrentActivity() {
+    @Override
+    public void logLocalUI(final LogLevel level, final String message) {
+        logLocalUI(
+                level == null
+                        ? AssuranceConstants.UILogColorVisibility.NORMAL
+                        : AssuranceConstants.UILogColorVisibility.valueOf(level.name()),
+                message);
+    }
+
+    @Override
+    public Activity getCurrentActivity() {
         return applicationHandle.getCurrentActivity();
     }
 
@@ -272,7 +382,8 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
      *
      * @return the session identifier for this {@code AssuranceSession}
      */
-    String getSessionId() {
+    @Override
+    public String getSessionId() {
         return sessionId;
     }
 
@@ -401,15 +512,17 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
                             "Assurance disconnected, attempting to reconnect..");
                 }
 
-                // attempt to reconnect after a certain delay through reconnect handler
-                socketReconnectHandler.postDelayed(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                attemptReconnect();
-                            }
-                        },
-                        delayBeforeReconnect);
+                // attempt to reconnect after a certain delay through the reconnect executor
+                pendingReconnect =
+                        socketReconnectExecutor.schedule(
+                                new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        attemptReconnect();
+                                    }
+                                },
+                                delayBeforeReconnect,
+                                TimeUnit.MILLISECONDS);
         }
     }
 
@@ -532,13 +645,29 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
      * following :
      *
      * <ol>
+     *   <li>Apply the capabilities enabled by the server.
      *   <li>Unblock the outbound queue worker.
      *   <li>Remove the WebView UI and display the floating button.
      *   <li>Share the Assurance shared state as necessary.
      *   <li>Notify the client plugins on successful connection.
      * </ol>
+     *
+     * @param event the startEventForwarding {@link AssuranceEvent}
      */
-    private void onStartForwardingEvent() {
+    private void onStartForwardingEvent(final AssuranceEvent event) {
+        final Map<String, Object> detail = event.getInternalControlDetail();
+        final Object capabilityDetail =
+                detail == null ? null : detail.get(AssuranceConstants.ClientInfoKeys.CAPABILITIES);
+        final Collection<?> capabilities =
+                capabilityDetail instanceof Collection
+                        ? (Collection<?>) capabilityDetail
+                        : Collections.emptyList();
+        outboundEventQueueWorker.setPayloadReferencesEnabled(
+                capabilities.contains(AssuranceConstants.Capability.PAYLOAD_REFERENCES));
+        outboundEventQueueWorker.setCborFramesEnabled(
+                capabilities.contains(AssuranceConstants.Capability.CBOR_FRAMES));
+        outboundEventQueueWorker.setSequenceLanesEnabled(
+                capabilities.contains(AssuranceConstants.Capability.SEQUENCE_LANES));
         outboundEventQueueWorker.unblock();
         assuranceSessionPresentationManager.onSessionConnected();
 
@@ -551,12 +680,12 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
         // If the initial SDK events were cleared because of Assurance shutting down after 5 second
         // timeout
         // then populate the griffon session with all the available shared state details (Both XDM
-        // and Regular)
+        // and Regular). The states are fetched and sent one at a time whenever the outbound queue
+        // is empty, skipping the ones already sent unchanged in this session.
         if (didClearBootEvents) {
-            for (final AssuranceEvent stateEvent :
-                    assuranceStateManager.getAllExtensionStateData()) {
-                queueOutboundEvent(stateEvent);
-            }
+            outboundEventQueueWorker.sendSharedStates(
+                    new AssuranceSharedStateSnapshot(
+                            assuranceStateManager, sentSharedStateHashes));
         }
 
         pluginManager.onSessionConnected();
@@ -578,14 +707,19 @@ class AssuranceSession implements AssuranceWebViewSocketHandler {
     }
 
     /**
-     * Stops the inbound and outbound event workers, clears any state flags and Assurance shared
-     * state.
+     * Stops the inbound and outbound event workers and the registration of plugins, cancels any
+     * pending reconnect attempt, clears any state flags and Assurance shared state.
      */
     private void clearSessionData() {
-        outboundEventQueueWorker.stop();
-        inboundEventQueueWorker.stop();
-        socketReconnectThread.quit();
+        discard();
+
+        if (pendingReconnect != null) {
+            pendingReconnect.cancel(false);
+            pendingReconnect = null;
+        }
+
         didClearBootEvents = true;
+        sentSharedStateHashes.clear();
         connectionDataStore.saveConnectionURL(null);
         assuranceStateManager.clearAssuranceSharedState();
     }
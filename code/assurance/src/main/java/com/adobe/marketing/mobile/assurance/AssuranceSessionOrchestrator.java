@@ -26,7 +26,6 @@ import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.services.ServiceProvider;
 import com.adobe.marketing.mobile.util.StringUtils;
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -45,14 +44,13 @@ class AssuranceSessionOrchestrator {
     private final List<AssurancePlugin> plugins;
     private final AssuranceConnectionDataStore connectionURLStore;
     private final AssuranceSessionCreator sessionCreator;
-    /** Represents the current active session if one exists. */
-    private AssuranceSession session;
 
     /**
-     * A buffer for holding the events until the initial Assurance session associated with the app
-     * launch happens. This is emptied once a session has been connected.
+     * The current active session and boot event buffer. Readers such as {@link
+     * #queueEvent(AssuranceEvent)} take a snapshot without locking. Changes are made by swapping
+     * in a new {@link SessionState}.
      */
-    private List<AssuranceEvent> outboundEventBuffer;
+    private final AtomicReference<SessionState> state;
 
     /**
      * Acts as a glue between the session presentation layer and session control layer. Responsible
@@ -63,6 +61,8 @@ class AssuranceSessionOrchestrator {
             new SessionUIOperationHandler() {
                 @Override
                 public void onConnect(final String pin) {
+                    final AssuranceSession session = state.get().session;
+
                     if (session == null) {
                         Log.error(
                                 Assurance.LOG_TAG,
@@ -110,15 +110,20 @@ class AssuranceSessionOrchestrator {
             new AssuranceSession.AssuranceSessionStatusListener() {
                 @Override
                 public void onSessionConnected() {
-
-                    if (outboundEventBuffer == null) {
-                        return;
-                    }
-
                     // Once a session has been connected, orchestrator is no longer required to
                     // hold the buffer of events.
-                    outboundEventBuffer.clear();
-                    outboundEventBuffer = null;
+                    while (true) {
+                        final SessionState current = state.get();
+
+                        if (current.outboundEventBuffer == null) {
+                            return;
+                        }
+
+                        if (state.compareAndSet(current, current.withOutboundEventBuffer(null))) {
+                            current.outboundEventBuffer.clear();
+                            return;
+                        }
+                    }
                 }
 
                 @Override
@@ -163,7 +168,8 @@ class AssuranceSessionOrchestrator {
         this.connectionURLStore = connectionURLStore;
         this.activityLifecycleObserver =
                 new HostAppActivityLifecycleObserver(applicationHandle, this);
-        this.outboundEventBuffer = new ArrayList<>();
+        this.state =
+                new AtomicReference<>(new SessionState(null, new AssuranceBootEventBuffer()));
         this.sessionCreator = sessionCreator;
 
         application.registerActivityLifecycleCallbacks(activityLifecycleObserver);
@@ -183,7 +189,7 @@ class AssuranceSessionOrchestrator {
             final String sessionId,
             final AssuranceConstants.AssuranceEnvironment environment,
             final String code) {
-        if (session != null) {
+        if (state.get().session != null) {
             Log.error(
                     Assurance.LOG_TAG,
                     LOG_TAG,
@@ -192,7 +198,7 @@ class AssuranceSessionOrchestrator {
         }
 
         // create a new session
-        session =
+        final AssuranceSession session =
                 sessionCreator.create(
                         sessionId,
                         environment,
@@ -201,11 +207,32 @@ class AssuranceSessionOrchestrator {
                         plugins,
                         connectionURLStore,
                         applicationHandle,
-                        outboundEventBuffer);
+                        state.get().outboundEventBuffer);
 
         // register the session status listener to manage the outboundEventBuffer.
         session.registerStatusListener(sessionStatusListener);
 
+        // publish the session, retaining the buffer until the session connects
+        SessionState current;
+
+        do {
+            current = state.get();
+
+            if (current.session != null) {
+                Log.error(
+                        Assurance.LOG_TAG,
+                        LOG_TAG,
+                        "An active session already exists. Discarding the new one.");
+                session.unregisterStatusListener(sessionStatusListener);
+                session.discard();
+                return;
+            }
+        } while (!state.compareAndSet(current, current.withSession(session)));
+
+        // Replay only once published. The events queued meanwhile are held by the buffer, which
+        // forwards the ones that follow to the session.
+        session.replayBootEvents();
+
         // Immediately share the extension state.
         assuranceStateManager.shareAssuranceSharedState(sessionId);
 
@@ -221,17 +248,17 @@ class AssuranceSessionOrchestrator {
                 "Terminating active session. Clearing the queued"
                         + "events and purging Assurance shared state");
 
-        if (outboundEventBuffer != null) {
-            outboundEventBuffer.clear();
-            outboundEventBuffer = null;
+        final SessionState previous = state.getAndSet(new SessionState(null, null));
+
+        if (previous.outboundEventBuffer != null) {
+            previous.outboundEventBuffer.clear();
         }
 
         assuranceStateManager.clearAssuranceSharedState();
 
-        if (session != null) {
-            session.unregisterStatusListener(sessionStatusListener);
-            session.disconnect();
-            session = null;
+        if (previous.session != null) {
+            previous.session.unregisterStatusListener(sessionStatusListener);
+            previous.session.disconnect();
         }
     }
 
@@ -287,24 +314,33 @@ class AssuranceSessionOrchestrator {
      * @return the active {@code AssuranceSession} if one exists, null otherwise
      */
     AssuranceSession getActiveSession() {
-        return session;
+        return state.get().session;
     }
 
+    /**
+     * Queues the {@code event} to the boot event buffer if it exists, otherwise to the active
+     * session if one exists. Does not take the orchestrator lock and can be called from any thread.
+     *
+     * @param event the {@link AssuranceEvent} to be queued
+     */
     void queueEvent(final AssuranceEvent event) {
         if (event == null) {
             return;
         }
 
-        // Queue this event to the active session if one exists.
-        if (session != null) {
-            session.queueOutboundEvent(event);
+        // Use a single snapshot so that the session and the buffer are read consistently.
+        final SessionState current = state.get();
+
+        // Hand the event to the buffer until the session is connected. The buffer holds it for the
+        // session to replay, or forwards it to the session once replayed.
+        if (current.outboundEventBuffer != null) {
+            current.outboundEventBuffer.add(event);
+            return;
         }
 
-        // We still want to queue the events to the buffer until the session is connected.
-        // This ensures that even a session cancellation will allow sending the buffered events
-        // in forthcoming session that successfully connects.
-        if (outboundEventBuffer != null) {
-            outboundEventBuffer.add(event);
+        // Queue this event to the active session if one exists.
+        if (current.session != null) {
+            current.session.queueOutboundEvent(event);
         }
 
         // Drop the event otherwise.
@@ -322,7 +358,37 @@ class AssuranceSessionOrchestrator {
      */
     @VisibleForTesting
     boolean canProcessSDKEvents() {
-        return session != null || outboundEventBuffer != null;
+        final SessionState current = state.get();
+        return current.session != null || current.outboundEventBuffer != null;
+    }
+
+    /**
+     * An immutable snapshot of the active session and the boot event buffer. Either may be null.
+     */
+    static final class SessionState {
+        /** Represents the current active session if one exists. */
+        final AssuranceSession session;
+
+        /**
+         * A buffer for holding the events until the initial Assurance session associated with the
+         * app launch happens. This is released once a session has been connected.
+         */
+        final AssuranceBootEventBuffer outboundEventBuffer;
+
+        SessionState(
+                final AssuranceSession session,
+                final AssuranceBootEventBuffer outboundEventBuffer) {
+            this.session = session;
+            this.outboundEventBuffer = outboundEventBuffer;
+        }
+
+        SessionState withSession(final AssuranceSession session) {
+            return new SessionState(session, outboundEventBuffer);
+        }
+
+        SessionState withOutboundEventBuffer(final AssuranceBootEventBuffer outboundEventBuffer) {
+            return new SessionState(session, outboundEventBuffer);
+        }
     }
 
     /**
@@ -507,7 +573,7 @@ class AssuranceSessionOrchestrator {
                 final List<AssurancePlugin> plugins,
                 final AssuranceConnectionDataStore connectionURLStore,
                 final ApplicationHandle applicationHandle,
-                final List<AssuranceEvent> outboundEventBuffer) {
+                final AssuranceBootEventBuffer outboundEventBuffer) {
             return new AssuranceSession(
                     applicationHandle,
                     assuranceStateManager,
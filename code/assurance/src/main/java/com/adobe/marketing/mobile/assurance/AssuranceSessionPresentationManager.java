@@ -257,7 +257,7 @@ class AssuranceSessionPresentationManager {
         }
 
         if (statusUI != null) {
-            statusUI.dismiss();
+            statusUI.release();
             statusUI = null;
         }
     }
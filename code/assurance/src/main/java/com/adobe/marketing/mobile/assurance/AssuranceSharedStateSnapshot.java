@@ -0,0 +1,185 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static com.adobe.marketing.mobile.assurance.AssuranceConstants.PayloadDataKeys.STATE_DATA;
+import static com.adobe.marketing.mobile.assurance.AssuranceConstants.PayloadDataKeys.XDM_STATE_DATA;
+
+import androidx.annotation.VisibleForTesting;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Produces the shared state events of the event hub and the registered extensions one at a time,
+ * so that the states are fetched only when the session is ready to send them.
+ *
+ * <p>The content hash of every state sent is recorded in the map handed in by the session, once
+ * the outbound worker reports that the state was written with {@link #onSent()}. A state whose
+ * hash matches the one last recorded for it was already sent in this session and is skipped.
+ */
+final class AssuranceSharedStateSnapshot {
+    private static final String[] STATE_TYPES = {STATE_DATA, XDM_STATE_DATA};
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AssuranceStateManager assuranceStateManager;
+    private final Map<String, Long> sentStateHashes;
+
+    private Iterator<Map.Entry<String, String>> stateOwners;
+    private Map.Entry<String, String> currentStateOwner;
+    private int nextStateType;
+    private int skippedStateCount;
+    private String pendingStateKey;
+    private long pendingStateHash;
+
+    /**
+     * @param assuranceStateManager the {@link AssuranceStateManager} to fetch the states from
+     * @param sentStateHashes the content hashes of the states sent in the session, keyed by state
+     *     owner and state type. Updated as states are sent.
+     */
+    AssuranceSharedStateSnapshot(
+            final AssuranceStateManager assuranceStateManager,
+            final Map<String, Long> sentStateHashes) {
+        this.assuranceStateManager = assuranceStateManager;
+        this.sentStateHashes = sentStateHashes;
+    }
+
+    /**
+     * Fetches the next shared state that was not already sent in the session, skipping states that
+     * are not set or are empty. The state is recorded as sent only by {@link #onSent()}.
+     *
+     * @return the {@link AssuranceEvent} carrying the state, or null once all states were produced
+     */
+    synchronized AssuranceEvent next() {
+        if (stateOwners == null) {
+            // the owners are looked up with the first state, not when the snapshot is requested
+            stateOwners = assuranceStateManager.getStateOwners().entrySet().iterator();
+        }
+
+        while (true) {
+            if (currentStateOwner == null || nextStateType == STATE_TYPES.length) {
+                if (!stateOwners.hasNext()) {
+                    return null;
+                }
+
+                currentStateOwner = stateOwners.next();
+                nextStateType = 0;
+            }
+
+            final String owner = currentStateOwner.getKey();
+            final String stateType = STATE_TYPES[nextStateType++];
+            final Map<String, Object> stateContent =
+                    assuranceStateManager.getStateContent(owner, stateType);
+
+            if (stateContent == null) {
+                continue;
+            }
+
+            final String stateKey = owner + "|" + stateType;
+            final long hash = hash(stateContent);
+            final Long sentHash = sentStateHashes.get(stateKey);
+
+            if (sentHash != null && sentHash == hash) {
+                skippedStateCount++;
+                continue;
+            }
+
+            pendingStateKey = stateKey;
+            pendingStateHash = hash;
+
+            return assuranceStateManager.prepareSharedStateEvent(
+                    owner, currentStateOwner.getValue(), stateContent, stateType);
+        }
+    }
+
+    /**
+     * Records the state last returned by {@link #next()} as sent in the session. A state that was
+     * not written, because it was dropped or the session went away, is sent again by the next
+     * snapshot.
+     */
+    synchronized void onSent() {
+        if (pendingStateKey != null) {
+            sentStateHashes.put(pendingStateKey, pendingStateHash);
+            pendingStateKey = null;
+        }
+    }
+
+    /**
+     * Retrieves the number of states skipped so far because they were already sent unchanged.
+     *
+     * @return the number of skipped states
+     */
+    synchronized int getSkippedStateCount() {
+        return skippedStateCount;
+    }
+
+    /**
+     * Computes a 64 bit hash of a shared state value. Map entries are combined independently of
+     * their iteration order, collection elements in order, and strings are hashed with FNV-1a.
+     *
+     * @param value the shared state value
+     * @return the hash of the value
+     */
+    @VisibleForTesting
+    static long hash(final Object value) {
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof String) {
+            final String string = (String) value;
+            long result = FNV_OFFSET_BASIS;
+
+            for (int i = 0; i < string.length(); i++) {
+                result ^= string.charAt(i);
+                result *= FNV_PRIME;
+            }
+
+            return result;
+        }
+
+        if (value instanceof Map) {
+            long result = 1;
+
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result += mix(hash(entry.getKey()) * 31 + hash(entry.getValue()));
+            }
+
+            return mix(result);
+        }
+
+        if (value instanceof Collection) {
+            long result = 2;
+
+            for (final Object element : (Collection<?>) value) {
+                result = result * FNV_PRIME + hash(element);
+            }
+
+            return mix(result);
+        }
+
+        return mix(value.getClass().getName().hashCode() * 31L + value.hashCode());
+    }
+
+    /** Spreads the bits of {@code hash}, the finalizer of MurmurHash3. */
+    private static long mix(final long hash) {
+        long mixed = hash;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+}
@@ -14,9 +14,6 @@ package com.adobe.marketing.mobile.assurance;
 import static com.adobe.marketing.mobile.assurance.AssuranceConstants.PayloadDataKeys.STATE_DATA;
 import static com.adobe.marketing.mobile.assurance.AssuranceConstants.PayloadDataKeys.XDM_STATE_DATA;
 
-import android.app.Application;
-import android.content.Context;
-import android.content.SharedPreferences;
 import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.Event;
@@ -33,6 +30,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -54,9 +52,9 @@ class AssuranceStateManager {
      */
     private Event lastSDKEvent = null;
 
-    AssuranceStateManager(final ExtensionApi extensionApi, final Application application) {
+    AssuranceStateManager(final ExtensionApi extensionApi, final AssuranceDataStore dataStore) {
         this.extensionApi = extensionApi;
-        this.assuranceSharedState = new AssuranceSharedState(application);
+        this.assuranceSharedState = new AssuranceSharedState(dataStore);
     }
 
     /**
@@ -161,6 +159,36 @@ class AssuranceStateManager {
      */
     List<AssuranceEvent> getAllExtensionStateData() {
         final List<AssuranceEvent> states = new ArrayList<>();
+
+        for (final Map.Entry<String, String> stateOwner : getStateOwners().entrySet()) {
+            for (final String stateType : new String[] {STATE_DATA, XDM_STATE_DATA}) {
+                final Map<String, Object> stateContent =
+                        getStateContent(stateOwner.getKey(), stateType);
+
+                if (stateContent != null) {
+                    states.add(
+                            prepareSharedStateEvent(
+                                    stateOwner.getKey(),
+                                    stateOwner.getValue(),
+                                    stateContent,
+                                    stateType));
+                }
+            }
+        }
+
+        return states;
+    }
+
+    /**
+     * Retrieves the owners of the shared states to be shared with a session, which are the event
+     * hub and the registered extensions, without fetching the states themselves.
+     *
+     * @return an ordered {@link Map} of shared state owners to the name of the {@link
+     *     AssuranceEvent} carrying their states, e.g. "UserProfile State". Empty if the event hub
+     *     has not shared the registered extensions.
+     */
+    Map<String, String> getStateOwners() {
+        final Map<String, String> stateOwners = new LinkedHashMap<>();
         final SharedStateResult eventHubSharedStateResult =
                 extensionApi.getSharedState(
                         AssuranceConstants.SDKSharedStateName.EVENTHUB,
@@ -169,7 +197,7 @@ class AssuranceStateManager {
                         SharedStateResolution.ANY);
 
         if (!isSharedStateSet(eventHubSharedStateResult)) {
-            return states;
+            return stateOwners;
         }
 
         final Map<String, Object> registeredExtensions = eventHubSharedStateResult.getValue();
@@ -177,13 +205,11 @@ class AssuranceStateManager {
         // bail out early if the event hub shared state does not contain any registered extension
         // details
         if (AssuranceUtil.isNullOrEmpty(registeredExtensions)) {
-            return states;
+            return stateOwners;
         }
 
         // Add eventHub shared state details
-        states.addAll(
-                getStateForExtension(
-                        AssuranceConstants.SDKSharedStateName.EVENTHUB, "EventHub State"));
+        stateOwners.put(AssuranceConstants.SDKSharedStateName.EVENTHUB, "EventHub State");
 
         final Map<String, Object> extensionsMap =
                 DataReader.optTypedMap(
@@ -193,65 +219,40 @@ class AssuranceStateManager {
                         null);
 
         if (extensionsMap == null) {
-            return states;
+            return stateOwners;
         }
 
-        // loop through the registered extensions and add their states
+        // loop through the registered extensions and add their names
         for (final String extensionName : extensionsMap.keySet()) {
             final String friendlyName = getFriendlyExtensionName(extensionsMap, extensionName);
-            states.addAll(
-                    getStateForExtension(
-                            extensionName,
-                            String.format(
-                                    "%s State",
-                                    friendlyName))); // an example of AssuranceEvent name is
-            // "UserProfile State"
+            stateOwners.put(extensionName, String.format("%s State", friendlyName));
         }
 
-        return states;
+        return stateOwners;
     }
 
     /**
-     * Creates a list of {@link AssuranceEvent} with the latest shared state contents for the
-     * provided stateOwner.
-     *
-     * <p>Both Regular and XDM Shared state data are fetched. Shared states with null or empty data
-     * are ignored.
+     * Fetches the latest shared state content of the provided stateOwner.
      *
      * @param stateOwner {@link String} representing the shared state owner for which the content
      *     has to be fetched
-     * @param eventName {@code String} representing the eventName for the Assurance Event
-     * @return {@List} of {@code AssuranceEvents}
+     * @param stateType the type of shared state. Should be either XDM (xdm.state.data) or Regular
+     *     (state.data)
+     * @return a {@link Map} of the shared state content, null if the state is not set or is empty
      */
-    private List<AssuranceEvent> getStateForExtension(
-            final String stateOwner, final String eventName) {
-        final List<AssuranceEvent> stateEvents = new ArrayList<>();
-
-        // create an event if the extension has a regular shared state
-        final SharedStateResult regularSharedState =
-                extensionApi.getSharedState(
-                        stateOwner, lastSDKEvent, false, SharedStateResolution.ANY);
-
-        if (isSharedStateSet(regularSharedState)
-                && !AssuranceUtil.isNullOrEmpty(regularSharedState.getValue())) {
-            stateEvents.add(
-                    prepareSharedStateEvent(
-                            stateOwner, eventName, regularSharedState.getValue(), STATE_DATA));
+    Map<String, Object> getStateContent(final String stateOwner, final String stateType) {
+        final SharedStateResult sharedState =
+                XDM_STATE_DATA.equals(stateType)
+                        ? extensionApi.getXDMSharedState(
+                                stateOwner, lastSDKEvent, false, SharedStateResolution.ANY)
+                        : extensionApi.getSharedState(
+                                stateOwner, lastSDKEvent, false, SharedStateResolution.ANY);
+
+        if (!isSharedStateSet(sharedState) || AssuranceUtil.isNullOrEmpty(sharedState.getValue())) {
+            return null;
         }
 
-        // create an event if the extension has a xdm shared state
-        final SharedStateResult xdmSharedState =
-                extensionApi.getXDMSharedState(
-                        stateOwner, lastSDKEvent, false, SharedStateResolution.ANY);
-
-        if (isSharedStateSet(xdmSharedState)
-                && !AssuranceUtil.isNullOrEmpty(xdmSharedState.getValue())) {
-            stateEvents.add(
-                    prepareSharedStateEvent(
-                            stateOwner, eventName, xdmSharedState.getValue(), XDM_STATE_DATA));
-        }
-
-        return stateEvents;
+        return sharedState.getValue();
     }
 
     /**
@@ -264,7 +265,7 @@ class AssuranceStateManager {
      *     Regular (state.data)
      * @return an {@code AssuranceEvent}
      */
-    private AssuranceEvent prepareSharedStateEvent(
+    AssuranceEvent prepareSharedStateEvent(
             final String owner,
             final String eventName,
             final Map<String, Object> stateContent,
@@ -334,17 +335,30 @@ class AssuranceStateManager {
     static class AssuranceSharedState {
         private final AtomicReference<String> clientId = new AtomicReference<>();
         private final AtomicReference<String> sessionId = new AtomicReference<>();
-        private final SharedPreferences sharedPreferences;
+        private final AssuranceDataStore dataStore;
 
+        /**
+         * Creates the shared state, loading the persisted identifiers once the {@code dataStore}
+         * has been loaded.
+         *
+         * @param dataStore the {@link AssuranceDataStore} persisting the identifiers
+         */
         @VisibleForTesting
-        AssuranceSharedState(final Application application) {
-            sharedPreferences =
-                    (application != null)
-                            ? application.getSharedPreferences(
-                                    AssuranceConstants.DataStoreKeys.DATASTORE_NAME,
-                                    Context.MODE_PRIVATE)
-                            : null;
-            load();
+        AssuranceSharedState(final AssuranceDataStore dataStore) {
+            this.dataStore = dataStore;
+
+            if (dataStore == null) {
+                load();
+                return;
+            }
+
+            dataStore.whenLoaded(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            load();
+                        }
+                    });
         }
 
         /**
@@ -404,11 +418,11 @@ class AssuranceStateManager {
         }
 
         /**
-         * Loads the keys corresponding to the shared state of Assurance Extension from shared
-         * preferences.
+         * Loads the keys corresponding to the shared state of Assurance Extension from the data
+         * store.
          */
         private void load() {
-            if (sharedPreferences == null) {
+            if (dataStore == null) {
                 Log.warning(
                         Assurance.LOG_TAG,
                         LOG_TAG,
@@ -421,9 +435,9 @@ class AssuranceStateManager {
 
             // read clientId and sessionId from persistence to memory
             final String persistedClientId =
-                    sharedPreferences.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, "");
+                    dataStore.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, "");
             final String persistedSessionId =
-                    sharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, "");
+                    dataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, "");
             Log.debug(
                     Assurance.LOG_TAG,
                     LOG_TAG,
@@ -445,45 +459,31 @@ class AssuranceStateManager {
         }
 
         /**
-         * Stores the keys corresponding to the shared state of Assurance Extension to shared
-         * preferences.
+         * Stores the keys corresponding to the shared state of Assurance Extension to the data
+         * store. The data store writes them to disk in the background.
          */
         private void save() {
-            if (sharedPreferences == null) {
+            if (dataStore == null) {
                 Log.warning(
                         Assurance.LOG_TAG,
                         LOG_TAG,
-                        "Unable to save sessionId and clientId in persistence, Shared Preference"
-                                + " is null");
-                return;
-            }
-
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-
-            if (editor == null) {
-                Log.warning(
-                        Assurance.LOG_TAG,
-                        LOG_TAG,
-                        "Unable to save sessionId and clientId in persistence, Shared Preference"
-                                + " editor is null");
+                        "Unable to save sessionId and clientId in persistence, data store is null");
                 return;
             }
 
             // save sessionId to persistence
             if (!StringUtils.isNullOrEmpty(sessionId.get())) {
-                editor.putString(AssuranceConstants.DataStoreKeys.SESSION_ID, sessionId.get());
+                dataStore.putString(AssuranceConstants.DataStoreKeys.SESSION_ID, sessionId.get());
             } else {
-                editor.remove(AssuranceConstants.DataStoreKeys.SESSION_ID);
+                dataStore.remove(AssuranceConstants.DataStoreKeys.SESSION_ID);
             }
 
             // save clientId to persistence
             if (!StringUtils.isNullOrEmpty(clientId.get())) {
-                editor.putString(AssuranceConstants.DataStoreKeys.CLIENT_ID, clientId.get());
+                dataStore.putString(AssuranceConstants.DataStoreKeys.CLIENT_ID, clientId.get());
             } else {
-                editor.remove(AssuranceConstants.DataStoreKeys.CLIENT_ID);
+                dataStore.remove(AssuranceConstants.DataStoreKeys.CLIENT_ID);
             }
-
-            editor.apply();
         }
     }
 
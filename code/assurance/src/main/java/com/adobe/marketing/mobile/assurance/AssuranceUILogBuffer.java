@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import java.util.List;
+
+/**
+ * A bounded ring buffer of the log messages shown by the local status UI.
+ *
+ * <p>At most {@code capacity} messages are retained. Adding a message to a full buffer overwrites
+ * the oldest one. Rendered messages stay in the buffer, so that they can be rendered again by
+ * {@link #rewind()} when the status page is loaded afresh. The number of messages overwritten
+ * before they were rendered is reported by the next {@link #drainTo(List)}.
+ */
+final class AssuranceUILogBuffer {
+    static final int DEFAULT_CAPACITY = 200;
+
+    /** A log message and the level at which it is rendered. */
+    static final class Entry {
+        final int level;
+        final String message;
+
+        Entry(final int level, final String message) {
+            this.level = level;
+            this.message = message;
+        }
+    }
+
+    private final Entry[] entries;
+    private int head;
+    private int size;
+    // the newest messages, not rendered yet
+    private int pendingCount;
+    private int droppedCount;
+    private int overwrittenCount;
+
+    AssuranceUILogBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    AssuranceUILogBuffer(final int capacity) {
+        this.entries = new Entry[Math.max(1, capacity)];
+    }
+
+    /**
+     * Adds a message to the buffer, overwriting the oldest message if the buffer is full.
+     *
+     * @param level the level of the message
+     * @param message the message
+     * @return true if no message was waiting to be rendered before the message was added
+     */
+    synchronized boolean add(final int level, final String message) {
+        final boolean wasDrained = pendingCount == 0;
+        entries[(head + size) % entries.length] = new Entry(level, message);
+
+        if (size == entries.length) {
+            head = (head + 1) % entries.length;
+            overwrittenCount++;
+
+            if (pendingCount == size) {
+                droppedCount++;
+            } else {
+                pendingCount++;
+            }
+        } else {
+            size++;
+            pendingCount++;
+        }
+
+        return wasDrained;
+    }
+
+    /**
+     * Copies the messages not rendered yet, oldest first, to {@code out} and marks them rendered.
+     *
+     * @param out the {@link List} to which the messages are appended
+     * @return the number of messages overwritten before being rendered since the last drain
+     */
+    synchronized int drainTo(final List<Entry> out) {
+        for (int i = size - pendingCount; i < size; i++) {
+            out.add(entries[(head + i) % entries.length]);
+        }
+
+        final int dropped = droppedCount;
+        pendingCount = 0;
+        droppedCount = 0;
+        return dropped;
+    }
+
+    /**
+     * Marks all the retained messages as not rendered, so that the next {@link #drainTo(List)}
+     * returns them all along with the number of messages overwritten since the last {@link
+     * #clear()}. Used when the page showing the messages has been loaded afresh.
+     */
+    synchronized void rewind() {
+        pendingCount = size;
+        droppedCount = overwrittenCount;
+    }
+
+    /** Discards the buffered messages. */
+    synchronized void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = null;
+        }
+
+        head = 0;
+        size = 0;
+        pendingCount = 0;
+        droppedCount = 0;
+        overwrittenCount = 0;
+    }
+
+    /**
+     * @return the number of retained messages, rendered or not
+     */
+    synchronized int size() {
+        return size;
+    }
+}
@@ -27,7 +27,6 @@ import com.adobe.marketing.mobile.MobileCore;
 import com.adobe.marketing.mobile.services.Log;
 import java.lang.ref.WeakReference;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 
 @SuppressWarnings({"unused"})
@@ -48,6 +47,7 @@ final class AssuranceWebViewSocket {
     private final Semaphore initSemaphore;
     private final Semaphore mainThreadJoinSemaphore;
     private final AssuranceWebViewSocketHandler handler;
+    private final AssuranceWebViewStartup webViewStartup;
 
     private WebView webView;
     private SocketReadyState state;
@@ -55,15 +55,33 @@ final class AssuranceWebViewSocket {
     private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
     AssuranceWebViewSocket(final AssuranceWebViewSocketHandler handler) {
-        this(handler, null);
+        this(handler, (WebView) null);
     }
 
     @SuppressWarnings({"SetJavascriptEnabled", "AddJavaScriptInterface", "WeakerAccess"})
     AssuranceWebViewSocket(final AssuranceWebViewSocketHandler handler, final WebView webView) {
+        this(
+                handler,
+                new AssuranceWebViewStartup(
+                        AssuranceConstants.WebViewStartupMode.IMMEDIATE, null));
+    }
+
+    /**
+     * Creates a socket whose WebView is initialized as per the provided {@code webViewStartup}.
+     *
+     * @param handler the {@link AssuranceWebViewSocketHandler} to be notified of socket activity
+     * @param webViewStartup the {@link AssuranceWebViewStartup} that determines when the WebView
+     *     is initialized on the main thread
+     */
+    AssuranceWebViewSocket(
+            final AssuranceWebViewSocketHandler handler,
+            final AssuranceWebViewStartup webViewStartup) {
         this.handler = handler;
+        this.webViewStartup = webViewStartup;
         setState(SocketReadyState.UNKNOWN);
 
-        this.webViewExecutor = Executors.newSingleThreadExecutor();
+        // javascript is run serially on the blocking pool, as it waits for the WebView to load
+        this.webViewExecutor = AssuranceScheduler.getInstance().newSerialBlockingExecutor();
         this.initSemaphore = new Semaphore(0);
         this.mainThreadJoinSemaphore = new Semaphore(1);
     }
@@ -198,11 +216,12 @@ final class AssuranceWebViewSocket {
     }
 
     /** Initializes the webView that runs socket connection. Thread : MainThread */
-    // Takes over the main thread to initialize the webView
+    // Takes over the main thread to initialize the webView, once the host app is ready for it as
+    // per the startup mode
     private void initializeWebView() {
         final WeakReference<AssuranceWebViewSocket> weakThisReference = new WeakReference<>(this);
 
-        runOnMainThread(
+        webViewStartup.runWhenReady(
                 new Runnable() {
                     @Override
                     public void run() {
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.assurance.AssuranceConstants.WebViewStartupMode;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Schedules the main thread work needed to initialize the socket WebView according to a {@link
+ * WebViewStartupMode}, so that creating the WebView does not compete with the host app's launch.
+ *
+ * <p>The mode is read from the {@code
+ * com.adobe.marketing.mobile.assurance.WEBVIEW_STARTUP_MODE} meta-data entry of the host app's
+ * manifest and defaults to {@link WebViewStartupMode#IDLE}. Regardless of the mode, deferred work
+ * runs no later than {@link #MAX_STARTUP_DEFERRAL_MS} after it was requested.
+ */
+class AssuranceWebViewStartup {
+    private static final String LOG_TAG = "AssuranceWebViewStartup";
+    static final long MAX_STARTUP_DEFERRAL_MS = TimeUnit.SECONDS.toMillis(2);
+
+    private final WebViewStartupMode mode;
+    private final AssuranceSessionOrchestrator.ApplicationHandle applicationHandle;
+    private final Handler mainThreadHandler;
+
+    AssuranceWebViewStartup(
+            final WebViewStartupMode mode,
+            final AssuranceSessionOrchestrator.ApplicationHandle applicationHandle) {
+        this(mode, applicationHandle, new Handler(Looper.getMainLooper()));
+    }
+
+    @VisibleForTesting
+    AssuranceWebViewStartup(
+            final WebViewStartupMode mode,
+            final AssuranceSessionOrchestrator.ApplicationHandle applicationHandle,
+            final Handler mainThreadHandler) {
+        this.mode = mode == null ? WebViewStartupMode.IMMEDIATE : mode;
+        this.applicationHandle = applicationHandle;
+        this.mainThreadHandler = mainThreadHandler;
+    }
+
+    /**
+     * Creates an {@code AssuranceWebViewStartup} using the mode configured in the host app's
+     * manifest.
+     *
+     * @param applicationHandle the {@link AssuranceSessionOrchestrator.ApplicationHandle} of the
+     *     host app
+     * @return an {@link AssuranceWebViewStartup} for the configured mode
+     */
+    static AssuranceWebViewStartup fromManifest(
+            final AssuranceSessionOrchestrator.ApplicationHandle applicationHandle) {
+        final Context context =
+                applicationHandle == null ? null : applicationHandle.getAppContext();
+        // the manifest is normally read by then, while the data store loaded at registration
+        return new AssuranceWebViewStartup(
+                AssuranceManifestMetadata.load(context).getWebViewStartupMode(), applicationHandle);
+    }
+
+    WebViewStartupMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Runs the {@code task} on the main thread once the host app is ready as per the {@link
+     * WebViewStartupMode} of this instance. The task is run exactly once.
+     *
+     * @param task the {@link Runnable} to run on the main thread
+     */
+    void runWhenReady(final Runnable task) {
+        final RunOnceTask runOnce = new RunOnceTask(task);
+
+        switch (mode) {
+            case IDLE:
+                mainThreadHandler.post(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                runWhenIdle(runOnce);
+                            }
+                        });
+                mainThreadHandler.postDelayed(runOnce, MAX_STARTUP_DEFERRAL_MS);
+                break;
+
+            case FIRST_FRAME:
+                mainThreadHandler.post(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                runAfterFirstFrame(runOnce);
+                            }
+                        });
+                mainThreadHandler.postDelayed(runOnce, MAX_STARTUP_DEFERRAL_MS);
+                break;
+
+            case IMMEDIATE:
+            default:
+                mainThreadHandler.post(runOnce);
+                break;
+        }
+    }
+
+    /**
+     * Runs the {@code task} when the main thread message queue becomes idle. Thread : MainThread
+     */
+    private void runWhenIdle(final Runnable task) {
+        Looper.myQueue()
+                .addIdleHandler(
+                        new MessageQueue.IdleHandler() {
+                            @Override
+                            public boolean queueIdle() {
+                                task.run();
+                                return false;
+                            }
+                        });
+    }
+
+    /**
+     * Runs the {@code task} after the current activity has drawn a frame. If no activity is
+     * available yet, the check is repeated the next time the main thread is idle. Thread :
+     * MainThread
+     */
+    private void runAfterFirstFrame(final RunOnceTask task) {
+        if (task.hasRun()) {
+            return;
+        }
+
+        final Activity activity =
+                applicationHandle == null ? null : applicationHandle.getCurrentActivity();
+        final Window window = activity == null ? null : activity.getWindow();
+
+        if (window == null) {
+            Looper.myQueue()
+                    .addIdleHandler(
+                            new MessageQueue.IdleHandler() {
+                                @Override
+                                public boolean queueIdle() {
+                                    runAfterFirstFrame(task);
+                                    return false;
+                                }
+                            });
+            return;
+        }
+
+        final View decorView = window.getDecorView();
+
+        if (decorView.getWidth() > 0 && decorView.getHeight() > 0) {
+            // the activity has already been laid out and drawn
+            mainThreadHandler.post(task);
+            return;
+        }
+
+        final ViewTreeObserver viewTreeObserver = decorView.getViewTreeObserver();
+        viewTreeObserver.addOnDrawListener(
+                new ViewTreeObserver.OnDrawListener() {
+                    @Override
+                    public void onDraw() {
+                        final ViewTreeObserver.OnDrawListener listener = this;
+
+                        // listeners cannot be removed during dispatch, and the task should not
+                        // delay the frame being drawn
+                        mainThreadHandler.post(
+                                new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        if (viewTreeObserver.isAlive()) {
+                                            viewTreeObserver.removeOnDrawListener(listener);
+                                        }
+
+                                        task.run();
+                                    }
+                                });
+                    }
+                });
+    }
+
+    /** Wraps a {@link Runnable} so that it is run at most once. */
+    private static final class RunOnceTask implements Runnable {
+        private final Runnable task;
+        private final AtomicBoolean hasRun = new AtomicBoolean(false);
+
+        RunOnceTask(final Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (hasRun.compareAndSet(false, true)) {
+                task.run();
+            }
+        }
+
+        boolean hasRun() {
+            return hasRun.get();
+        }
+    }
+}
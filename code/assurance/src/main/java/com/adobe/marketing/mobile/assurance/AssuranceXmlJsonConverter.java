@@ -0,0 +1,317 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Converts an XML document to UTF-8 encoded JSON while pulling its events, without building a tree
+ * of {@code JSONObject}s.
+ *
+ * <p>The mapping is the one of the manifest in the client info event: every element becomes an
+ * object holding its attributes, its trimmed text under "content", and its child elements keyed by
+ * tag name. Child elements sharing a tag name are grouped into an array, even if other elements
+ * appear between them. For example {@code <a x="1"><b/><c/><b/></a>} converts to {@code
+ * {"a":{"x":"1","b":[{},{}],"c":{}}}}.
+ *
+ * <p>Since the siblings sharing a tag name may not be adjacent, the children of every open element
+ * are buffered by tag name, in the order their first element closed, and written out once the
+ * element closes. A closed child is serialized straight into the buffer of its group in the parent.
+ */
+final class AssuranceXmlJsonConverter {
+    private static final String CONTENT_KEY = "content";
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private AssuranceXmlJsonConverter() {}
+
+    /**
+     * Converts the document read by the {@code parser}, starting from its current event, and
+     * writes the JSON to the {@code sink}.
+     *
+     * @param parser the {@link XmlPullParser} positioned at or before the root element
+     * @param sink the {@link OutputStream} receiving the UTF-8 encoded JSON
+     * @throws IOException if the parser or the sink fail
+     * @throws XmlPullParserException if the document is malformed
+     */
+    static void convert(final XmlPullParser parser, final OutputStream sink)
+            throws IOException, XmlPullParserException {
+        // the document itself is the outermost object
+        final Element document = new Element();
+        final ArrayDeque<Element> openElements = new ArrayDeque<>();
+        openElements.push(document);
+
+        while (parser.getEventType() != XmlPullParser.END_DOCUMENT) {
+            switch (parser.getEventType()) {
+                case XmlPullParser.START_TAG:
+                    final Element element = new Element();
+                    final int count = parser.getAttributeCount();
+
+                    for (int i = 0; i < count; i++) {
+                        element.addAttribute(
+                                parser.getAttributeName(i), parser.getAttributeValue(i));
+                    }
+
+                    openElements.push(element);
+                    break;
+
+                case XmlPullParser.TEXT:
+                    final String content = parser.getText().trim();
+
+                    if (!content.isEmpty()) {
+                        openElements.peek().setContent(content);
+                    }
+
+                    break;
+
+                case XmlPullParser.END_TAG:
+                    final Element closed = openElements.pop();
+                    closed.writeTo(openElements.peek().groupFor(parser.getName()).nextValue());
+                    break;
+
+                default:
+                    break;
+            }
+
+            parser.next();
+        }
+
+        final JsonBuffer json = new JsonBuffer();
+        document.writeTo(json);
+        json.writeTo(sink);
+    }
+
+    /** An open element, buffering its attributes, content and child elements. */
+    private static final class Element {
+        private final JsonBuffer attributes = new JsonBuffer();
+        private final ArrayDeque<Group> groups = new ArrayDeque<>();
+        private String content;
+        private int contentPosition = -1;
+
+        void addAttribute(final String name, final String value) {
+            if (attributes.size() > 0) {
+                attributes.write(',');
+            }
+
+            attributes.writeString(name);
+            attributes.write(':');
+            attributes.writeString(value);
+        }
+
+        void setContent(final String text) {
+            if (content == null) {
+                // the content is placed after the groups whose first element closed before it
+                contentPosition = groups.size();
+            }
+
+            content = text;
+        }
+
+        Group groupFor(final String name) {
+            // an element has a handful of distinct child tags, a scan beats hashing
+            for (final Group group : groups) {
+                if (group.name.equals(name)) {
+                    return group;
+                }
+            }
+
+            final Group group = new Group(name);
+            groups.addLast(group);
+            return group;
+        }
+
+        void writeTo(final JsonBuffer out) {
+            out.write('{');
+            boolean needsComma = attributes.size() > 0;
+            out.write(attributes);
+            int position = 0;
+
+            for (final Group group : groups) {
+                if (position++ == contentPosition) {
+                    needsComma = writeContent(out, needsComma);
+                }
+
+                if (needsComma) {
+                    out.write(',');
+                }
+
+                group.writeTo(out);
+                needsComma = true;
+            }
+
+            if (contentPosition == groups.size()) {
+                writeContent(out, needsComma);
+            }
+
+            out.write('}');
+        }
+
+        private boolean writeContent(final JsonBuffer out, final boolean needsComma) {
+            if (needsComma) {
+                out.write(',');
+            }
+
+            out.writeString(CONTENT_KEY);
+            out.write(':');
+            out.writeString(content);
+            return true;
+        }
+    }
+
+    /** The serialized child elements of an element sharing a tag name. */
+    private static final class Group {
+        final String name;
+        private final JsonBuffer values = new JsonBuffer();
+        private int count;
+
+        Group(final String name) {
+            this.name = name;
+        }
+
+        JsonBuffer nextValue() {
+            if (count++ > 0) {
+                values.write(',');
+            }
+
+            return values;
+        }
+
+        void writeTo(final JsonBuffer out) {
+            out.writeString(name);
+            out.write(':');
+
+            if (count > 1) {
+                out.write('[');
+                out.write(values);
+                out.write(']');
+            } else {
+                out.write(values);
+            }
+        }
+    }
+
+    /** A growable buffer of UTF-8 encoded JSON. */
+    private static final class JsonBuffer {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void write(final int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(final JsonBuffer other) {
+            ensureCapacity(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        /** Writes the {@code value} as a quoted and escaped JSON string. */
+        void writeString(final String value) {
+            final int length = value.length();
+            // at most six bytes per char, for an escaped control char
+            ensureCapacity(length * 6 + 2);
+            bytes[size++] = '"';
+
+            for (int i = 0; i < length; i++) {
+                final char c = value.charAt(i);
+
+                if (c == '"' || c == '\\') {
+                    bytes[size++] = '\\';
+                    bytes[size++] = (byte) c;
+                } else if (c < 0x20) {
+                    writeControlChar(c);
+                } else if (c < 0x80) {
+                    bytes[size++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[size++] = (byte) (0xc0 | (c >> 6));
+                    bytes[size++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c)
+                        && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[size++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[size++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // unpaired surrogates cannot be encoded in UTF-8
+                    writeUnicodeEscape(c);
+                } else {
+                    bytes[size++] = (byte) (0xe0 | (c >> 12));
+                    bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[size++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+
+            bytes[size++] = '"';
+        }
+
+        void writeTo(final OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        private void writeControlChar(final char c) {
+            switch (c) {
+                case '\n':
+                    bytes[size++] = '\\';
+                    bytes[size++] = 'n';
+                    break;
+                case '\r':
+                    bytes[size++] = '\\';
+                    bytes[size++] = 'r';
+                    break;
+                case '\t':
+                    bytes[size++] = '\\';
+                    bytes[size++] = 't';
+                    break;
+                case '\b':
+                    bytes[size++] = '\\';
+                    bytes[size++] = 'b';
+                    break;
+                case '\f':
+                    bytes[size++] = '\\';
+                    bytes[size++] = 'f';
+                    break;
+                default:
+                    writeUnicodeEscape(c);
+                    break;
+            }
+        }
+
+        private void writeUnicodeEscape(final char c) {
+            bytes[size++] = '\\';
+            bytes[size++] = 'u';
+            bytes[size++] = HEX[(c >> 12) & 0xf];
+            bytes[size++] = HEX[(c >> 8) & 0xf];
+            bytes[size++] = HEX[(c >> 4) & 0xf];
+            bytes[size++] = HEX[c & 0xf];
+        }
+
+        private void ensureCapacity(final int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+}
@@ -127,9 +127,19 @@ abstract class EventQueueWorker<T> implements Runnable {
 
     @Override
     public void run() {
-        while (!Thread.interrupted() && canWork() && workQueue.peek() != null) {
+        while (!Thread.interrupted() && canWork()) {
             try {
-                final T event = workQueue.poll();
+                T event = workQueue.poll();
+
+                if (event == null) {
+                    // the queue is drained, give the deferred work a chance to be processed
+                    event = pollDeferredWork();
+                }
+
+                if (event == null) {
+                    break;
+                }
+
                 doWork(event);
             } catch (final InterruptedException exception) {
                 Log.error(
@@ -155,6 +165,17 @@ abstract class EventQueueWorker<T> implements Runnable {
                 this.getClass().getSimpleName());
     }
 
+    /**
+     * Invoked from the background worker thread when the {@link #workQueue} is empty. Allows
+     * sub-classes to produce low priority work items lazily, one at a time, so that they never
+     * hold up the items offered to the queue.
+     *
+     * @return the next deferred work item, or null if there is none
+     */
+    protected T pollDeferredWork() {
+        return null;
+    }
+
     /**
      * Perform processing on the workItem. This is invoked on a thread different from the rest of
      * the operations on this class. This is invoked from the background worker thread that the
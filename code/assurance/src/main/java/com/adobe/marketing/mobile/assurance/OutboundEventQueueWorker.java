@@ -20,13 +20,14 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
-import org.json.JSONObject;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * An {@link EventQueueWorker} that is responsible for sending {@link AssuranceEvent}'s to the
@@ -74,6 +75,16 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
     private final AssuranceClientInfo clientInfo;
     private final OutboundEventChunker outboundEventChunker;
     private volatile boolean canStartForwarding;
+    private final AtomicReference<AssuranceSharedStateSnapshot> sharedStateSnapshot =
+            new AtomicReference<>();
+    // the shared state event being sent, and its snapshot; accessed from the worker thread only
+    private AssuranceEvent pendingStateEvent;
+    private AssuranceSharedStateSnapshot pendingStateSnapshot;
+    private final AssurancePayloadDeduplicator payloadDeduplicator;
+    private volatile boolean arePayloadReferencesEnabled;
+    private volatile boolean areCborFramesEnabled;
+    private final AssuranceEventSequencer sequencer = new AssuranceEventSequencer();
+    private volatile boolean areSequenceLanesEnabled;
 
     OutboundEventQueueWorker(
             final ExecutorService executorService,
@@ -84,7 +95,8 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
                 socket,
                 clientInfo,
                 new LinkedBlockingQueue<AssuranceEvent>(),
-                new OutboundEventChunker(MAX_PAYLOAD_CHUNK_SIZE));
+                new OutboundEventChunker(MAX_PAYLOAD_CHUNK_SIZE),
+                new AssurancePayloadDeduplicator());
     }
 
     @VisibleForTesting
@@ -94,10 +106,28 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
             final AssuranceClientInfo clientInfo,
             final LinkedBlockingQueue<AssuranceEvent> queue,
             final OutboundEventChunker outboundEventChunker) {
+        this(
+                executorService,
+                socket,
+                clientInfo,
+                queue,
+                outboundEventChunker,
+                new AssurancePayloadDeduplicator());
+    }
+
+    @VisibleForTesting
+    OutboundEventQueueWorker(
+            final ExecutorService executorService,
+            final AssuranceWebViewSocket socket,
+            final AssuranceClientInfo clientInfo,
+            final LinkedBlockingQueue<AssuranceEvent> queue,
+            final OutboundEventChunker outboundEventChunker,
+            final AssurancePayloadDeduplicator payloadDeduplicator) {
         super(executorService, queue);
         this.socket = socket;
         this.clientInfo = clientInfo;
         this.outboundEventChunker = outboundEventChunker;
+        this.payloadDeduplicator = payloadDeduplicator;
         canStartForwarding = false;
     }
 
@@ -119,7 +149,100 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
 
     @Override
     protected void doWork(AssuranceEvent assuranceEvent) {
-        sendEventToSocket(assuranceEvent);
+        final boolean isSent = sendEventToSocket(assuranceEvent);
+
+        if (assuranceEvent != null && assuranceEvent == pendingStateEvent) {
+            // a state is known to the session only once it has been written to the socket
+            if (isSent) {
+                pendingStateSnapshot.onSent();
+            }
+
+            pendingStateEvent = null;
+            pendingStateSnapshot = null;
+        }
+    }
+
+    @Override
+    protected AssuranceEvent pollDeferredWork() {
+        final AssuranceSharedStateSnapshot snapshot = sharedStateSnapshot.get();
+
+        if (snapshot != null) {
+            final AssuranceEvent stateEvent = snapshot.next();
+
+            if (stateEvent != null) {
+                pendingStateEvent = stateEvent;
+                pendingStateSnapshot = snapshot;
+                return stateEvent;
+            }
+
+            if (!sharedStateSnapshot.compareAndSet(snapshot, null)) {
+                // a new snapshot was requested while this one was being sent
+                return pollDeferredWork();
+            }
+
+            sequencer.recordGap(
+                    AssuranceConstants.SequenceLane.EVENTS,
+                    AssuranceConstants.GapReason.COALESCED,
+                    snapshot.getSkippedStateCount());
+        }
+
+        // gaps are reported once nothing else is left to send, so that they add up in between
+        return areSequenceLanesEnabled ? sequencer.pollGap() : null;
+    }
+
+    /**
+     * Sends the shared states of the {@code snapshot} one at a time, whenever no other event is
+     * queued. Replaces any snapshot that is still being sent.
+     *
+     * @param snapshot the {@link AssuranceSharedStateSnapshot} producing the shared state events
+     */
+    void sendSharedStates(final AssuranceSharedStateSnapshot snapshot) {
+        sharedStateSnapshot.set(snapshot);
+        resume();
+    }
+
+    /**
+     * Enables or disables replacing the payload subtrees already sent in the session with
+     * references, as negotiated with the server. Either way, the sent subtrees are forgotten.
+     *
+     * @param enabled true if the server resolves payload references
+     */
+    void setPayloadReferencesEnabled(final boolean enabled) {
+        payloadDeduplicator.reset();
+        arePayloadReferencesEnabled = enabled;
+    }
+
+    /**
+     * Enables or disables sending the events as CBOR instead of JSON text, as negotiated with the
+     * server.
+     *
+     * @param enabled true if the server decodes CBOR frames
+     */
+    void setCborFramesEnabled(final boolean enabled) {
+        areCborFramesEnabled = enabled;
+    }
+
+    /**
+     * Enables or disables numbering the events per lane and sending gap records, as negotiated
+     * with the server. Gaps recorded while disabled are reported once enabled.
+     *
+     * @param enabled true if the server tracks the sequence numbers of the lanes
+     */
+    void setSequenceLanesEnabled(final boolean enabled) {
+        areSequenceLanesEnabled = enabled;
+    }
+
+    /**
+     * Records events that will not be sent in this session, to be reported by a gap record.
+     *
+     * @param lane the lane of the events, as determined by {@link
+     *     AssuranceEventSequencer#getLane(AssuranceEvent)}
+     * @param reason the reason the events are not sent, one of {@link
+     *     AssuranceConstants.GapReason}
+     * @param count the number of events
+     */
+    void recordGap(final String lane, final String reason, final long count) {
+        sequencer.recordGap(lane, reason, count);
     }
 
     /** Pauses any further events being sent by blocking queue processing. */
@@ -161,25 +284,57 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
 
     /**
      * Sends the provided {@link AssuranceEvent} to Assurance via the connected socket connection.
+     * If sequence lanes are enabled, the event is numbered in its lane, after the gap records of
+     * the lane.
      *
      * @param event the {@link AssuranceEvent} the needs to be sent.
+     * @return true if the event was written to the socket, false if it was dropped
      */
-    private void sendEventToSocket(final AssuranceEvent event) {
-        if (event == null) {
+    private boolean sendEventToSocket(final AssuranceEvent assuranceEvent) {
+        if (assuranceEvent == null) {
             Log.error(Assurance.LOG_TAG, LOG_TAG, "Cannot send null event.");
-            return;
+            return false;
+        }
+
+        if (!areSequenceLanesEnabled) {
+            return sendToSocket(assuranceEvent);
+        }
+
+        final String lane = AssuranceEventSequencer.getLane(assuranceEvent);
+
+        for (final AssuranceEvent gapRecord : sequencer.drainGaps(lane)) {
+            sendToSocket(sequencer.stamp(gapRecord, lane));
         }
 
+        return sendToSocket(sequencer.stamp(assuranceEvent, lane));
+    }
+
+    private boolean sendToSocket(final AssuranceEvent assuranceEvent) {
+        // only the SDK events carry the repeated payloads worth referencing
+        final boolean shouldDeduplicate =
+                arePayloadReferencesEnabled
+                        && assuranceEvent.getInternalPayload() != null
+                        && AssuranceConstants.AssuranceEventType.GENERIC.equals(
+                                assuranceEvent.type);
+        final AssuranceEvent event =
+                shouldDeduplicate
+                        ? assuranceEvent.withPayload(
+                                payloadDeduplicator.deduplicate(
+                                        assuranceEvent.getInternalPayload()))
+                        : assuranceEvent;
+
+        // the format is read once, so that the chunks of an event are all in the same format
+        final boolean isCbor = areCborFramesEnabled;
+
         try {
-            final byte[] eventData =
-                    event.getJSONRepresentation().getBytes(Charset.forName("UTF-8"));
+            final byte[] eventData = encode(event, isCbor);
 
             // Check if the AssuranceEvent is within transportable limits, if not, perform chunking
             // and resend resulting chunks.
             if (eventData.length < MAX_EVENT_SIZE) {
                 socket.sendData(eventData);
             } else {
-                if (event.getPayload() == null) {
+                if (event.getInternalPayload() == null) {
                     // The payload is null and the event size exceeds MAX_EVENT_SIZE. This implies
                     // that
                     // the metadata is contributing to the event size increase. Metadata currently
@@ -200,18 +355,28 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
                             "Cannot send eventId: %s that exceeds permitted limit"
                                     + "but has an empty payload!",
                             event.eventID);
-                    return;
+                    recordDroppedEvent(event);
+                    return false;
                 }
 
-                final List<AssuranceEvent> chunkedEvents = outboundEventChunker.chunk(event);
+                final List<AssuranceEvent> chunkedEvents =
+                        outboundEventChunker.chunk(event, isCbor);
+
+                if (chunkedEvents.isEmpty()) {
+                    recordDroppedEvent(event);
+                    return false;
+                }
 
                 for (final AssuranceEvent chunkedEvent : chunkedEvents) {
-                    socket.sendData(
-                            chunkedEvent
-                                    .getJSONRepresentation()
-                                    .getBytes(Charset.forName("UTF-8")));
+                    socket.sendData(encode(chunkedEvent, isCbor));
                 }
             }
+
+            if (shouldDeduplicate) {
+                payloadDeduplicator.onSent();
+            }
+
+            return true;
         } catch (final UnsupportedCharsetException ex) {
             // This can be thrown by Charset.forName(*). However, it is unlikely to reach here
             // as we hardcode the charset name to UTF-8.
@@ -222,13 +387,33 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
                             "UnsupportedCharsetException while converting Assurance event object"
                                     + " to bytes representation: %s",
                             ex.getLocalizedMessage()));
+            return false;
+        }
+    }
+
+    private void recordDroppedEvent(final AssuranceEvent event) {
+        sequencer.recordGap(
+                AssuranceEventSequencer.getLane(event), AssuranceConstants.GapReason.DROPPED, 1);
+    }
+
+    private static byte[] encode(final AssuranceEvent event, final boolean isCbor) {
+        final byte[] encodedEvent = event.getEncodedRepresentation();
+
+        // an event serialized while it was buffered is sent as is
+        if (!isCbor && encodedEvent != null) {
+            return encodedEvent;
         }
+
+        return isCbor
+                ? event.getCborRepresentation()
+                : event.getJSONRepresentation().getBytes(Charset.forName("UTF-8"));
     }
 
     @Override
     void stop() {
         super.stop();
         canStartForwarding = false;
+        sharedStateSnapshot.set(null);
     }
 
     /**
@@ -255,12 +440,27 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
          */
         @Override
         public List<AssuranceEvent> chunk(final AssuranceEvent event) {
+            return chunk(event, false);
+        }
+
+        /**
+         * Converts {@param AssuranceEvent} into {@code AssuranceEvent}'s with payloads below {@code
+         * maxChunkSize}, like {@link #chunk(AssuranceEvent)}.
+         *
+         * <p>If {@code isCbor} is true, the payload is encoded as CBOR and the chunk data of every
+         * chunk is a byte array holding a slice of that encoding, sent as a CBOR byte string.
+         *
+         * @param event AssuranceEvent that needs to be chunked.
+         * @param isCbor true if the chunks are sent as CBOR frames
+         * @return the chunks, as described in {@link #chunk(AssuranceEvent)}
+         */
+        List<AssuranceEvent> chunk(final AssuranceEvent event, final boolean isCbor) {
             if (event == null) {
                 return Collections.EMPTY_LIST;
             }
 
             // Return the same event if the original payload is null. Nothing to chunk.
-            if (event.getPayload() == null) {
+            if (event.getInternalPayload() == null) {
                 Log.warning(
                         Assurance.LOG_TAG,
                         LOG_TAG,
@@ -269,8 +469,12 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
                 return Collections.singletonList(event);
             }
 
-            final JSONObject payloadJson = new JSONObject(event.getPayload());
-            final byte[] payloadBytes = payloadJson.toString().getBytes(Charset.forName("UTF-8"));
+            final byte[] payloadBytes =
+                    isCbor
+                            ? AssuranceCborEncoder.encode(event.getInternalPayload())
+                            : AssuranceJsonCodecs.get()
+                                    .encodeObject(event.getInternalPayload())
+                                    .getBytes(Charset.forName("UTF-8"));
 
             // Original payload is within deliverable limit. Nothing to chunk.
             if (payloadBytes.length < maxChunkSize) {
@@ -286,14 +490,21 @@ class OutboundEventQueueWorker extends EventQueueWorker<AssuranceEvent> {
             try {
                 final String chunkId = UUID.randomUUID().toString();
                 int chunkNumber = 0;
+                int bytesRead;
 
-                while (byteArrayInputStream.read(buffer) != -1) {
+                while ((bytesRead = byteArrayInputStream.read(buffer)) != -1) {
                     final HashMap<String, Object> payload = new HashMap<>();
                     payload.put(
                             AssuranceConstants.AssuranceEventKeys.CHUNK_DATA,
-                            new String(buffer, Charset.forName("UTF-8")));
-
-                    final HashMap<String, Object> metadata = new HashMap<>();
+                            isCbor
+                                    ? Arrays.copyOf(buffer, bytesRead)
+                                    : new String(buffer, Charset.forName("UTF-8")));
+
+                    // the chunks carry the sequence lane and number of the event, if any
+                    final HashMap<String, Object> metadata =
+                            event.getInternalMetadata() == null
+                                    ? new HashMap<String, Object>()
+                                    : new HashMap<>(event.getInternalMetadata());
                     metadata.put(AssuranceConstants.AssuranceEventKeys.CHUNK_ID, chunkId);
                     metadata.put(
                             AssuranceConstants.AssuranceEventKeys.CHUNK_TOTAL, (int) totalChunks);
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AssuranceAssetCacheTest {
+    private static final String ASSET_PATH = "assurance_large_event_payload_key_value_html.txt";
+
+    @Before
+    public void setup() {
+        AssuranceAssetCache.clear();
+    }
+
+    @After
+    public void teardown() {
+        AssuranceAssetCache.clear();
+    }
+
+    @Test
+    public void testGet_ReadsAssetOnce() {
+        final String content = AssuranceAssetCache.get(ASSET_PATH);
+
+        assertTrue(content.startsWith("<!DOCTYPE html>"));
+        assertSame(content, AssuranceAssetCache.get(ASSET_PATH));
+    }
+
+    @Test
+    public void testGet_MissingAsset_ReturnsNull() {
+        assertNull(AssuranceAssetCache.get("assets/Missing.html"));
+    }
+
+    @Test
+    public void testLoad_NotCached_InvokesCallbackOnWorkerThread() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<String> loadedContent = new AtomicReference<>();
+        final AtomicReference<Thread> callbackThread = new AtomicReference<>();
+
+        AssuranceAssetCache.load(
+                ASSET_PATH,
+                content -> {
+                    loadedContent.set(content);
+                    callbackThread.set(Thread.currentThread());
+                    latch.countDown();
+                });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertSame(AssuranceAssetCache.get(ASSET_PATH), loadedContent.get());
+        assertTrue(callbackThread.get() != Thread.currentThread());
+    }
+
+    @Test
+    public void testLoad_Cached_InvokesCallbackRightAway() {
+        final String content = AssuranceAssetCache.get(ASSET_PATH);
+        final AtomicReference<String> loadedContent = new AtomicReference<>();
+
+        AssuranceAssetCache.load(ASSET_PATH, loadedContent::set);
+
+        assertSame(content, loadedContent.get());
+        assertEquals(content, AssuranceAssetCache.get(ASSET_PATH));
+    }
+}
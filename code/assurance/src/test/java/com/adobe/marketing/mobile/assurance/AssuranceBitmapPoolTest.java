@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssuranceBitmapPoolTest {
+
+    @Test
+    public void test_acquire_ReusesReleasedBitmapOfSameSize() {
+        final AssuranceBitmapPool bitmapPool = new AssuranceBitmapPool();
+        final Bitmap bitmap = bitmapPool.acquire(100, 200, Bitmap.Config.ARGB_8888);
+        bitmapPool.release(bitmap);
+
+        assertEquals(1, bitmapPool.size());
+        assertSame(bitmap, bitmapPool.acquire(100, 200, Bitmap.Config.ARGB_8888));
+        assertEquals(0, bitmapPool.size());
+    }
+
+    @Test
+    public void test_acquire_AllocatesWhenNoBitmapMatches() {
+        final AssuranceBitmapPool bitmapPool = new AssuranceBitmapPool();
+        final Bitmap bitmap = bitmapPool.acquire(100, 200, Bitmap.Config.ARGB_8888);
+        bitmapPool.release(bitmap);
+
+        final Bitmap otherBitmap = bitmapPool.acquire(50, 100, Bitmap.Config.ARGB_8888);
+
+        assertNotSame(bitmap, otherBitmap);
+        assertEquals(50, otherBitmap.getWidth());
+        assertEquals(100, otherBitmap.getHeight());
+        assertEquals(1, bitmapPool.size());
+    }
+
+    @Test
+    public void test_release_RecyclesBeyondMaxSize() {
+        final AssuranceBitmapPool bitmapPool = new AssuranceBitmapPool(1);
+        final Bitmap bitmap1 = bitmapPool.acquire(10, 10, Bitmap.Config.ARGB_8888);
+        final Bitmap bitmap2 = bitmapPool.acquire(20, 20, Bitmap.Config.ARGB_8888);
+
+        bitmapPool.release(bitmap1);
+        bitmapPool.release(bitmap1);
+        bitmapPool.release(bitmap2);
+
+        assertEquals(1, bitmapPool.size());
+        assertTrue(bitmap1.isRecycled());
+        assertSame(bitmap2, bitmapPool.acquire(20, 20, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void test_clear_RecyclesPooledBitmaps() {
+        final AssuranceBitmapPool bitmapPool = new AssuranceBitmapPool();
+        final Bitmap bitmap = bitmapPool.acquire(10, 10, Bitmap.Config.ARGB_8888);
+        bitmapPool.release(bitmap);
+
+        bitmapPool.clear();
+
+        assertEquals(0, bitmapPool.size());
+        assertTrue(bitmap.isRecycled());
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AssuranceBlobUploaderTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SAMPLE_CONTENT_TYPE = "image/jpeg";
+
+    private HttpServer server;
+    private URL destination;
+    private BlobEndpoint blobEndpoint;
+    private AssuranceScheduler scheduler;
+    private AssuranceBlobUploader uploader;
+
+    private String successBlobId;
+    private String failureReason;
+
+    @Before
+    public void setup() throws Exception {
+        blobEndpoint = new BlobEndpoint();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/FileUpload", blobEndpoint);
+        server.start();
+        destination =
+                new URL(
+                        "http://127.0.0.1:"
+                                + server.getAddress().getPort()
+                                + "/api/FileUpload?validationSessionId=sessionId");
+
+        scheduler = new AssuranceScheduler();
+        uploader = new AssuranceBlobUploader(scheduler, 10);
+    }
+
+    @After
+    public void teardown() {
+        server.stop(0);
+        scheduler.getWorkerExecutor().shutdownNow();
+        scheduler.getScheduledExecutor().shutdownNow();
+    }
+
+    @Test
+    public void test_upload_StreamsFixedLengthBody() throws Exception {
+        final byte[] blob = createBlob(100 * 1024);
+        blobEndpoint.respondWith(200, "{\"id\":\"blobId\"}");
+        final AtomicLong lastProgress = new AtomicLong(-1);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromBytes(blob),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                new AssuranceBlob.BlobUploadProgressListener() {
+                    @Override
+                    public void onProgress(final long bytesSent, final long totalBytes) {
+                        assertEquals(blob.length, totalBytes);
+                        lastProgress.set(bytesSent);
+                    }
+                });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("blobId", successBlobId);
+        assertEquals(1, blobEndpoint.requests.size());
+
+        final RecordedRequest request = blobEndpoint.requests.get(0);
+        assertEquals("POST", request.method);
+        assertEquals(String.valueOf(blob.length), request.contentLength);
+        assertNull(request.transferEncoding);
+        assertEquals(SAMPLE_CONTENT_TYPE, request.fileContentType);
+        assertArrayEquals(blob, request.body);
+        assertEquals(blob.length, lastProgress.get());
+        assertEquals(0, uploader.getPendingUploadCount());
+    }
+
+    @Test
+    public void test_upload_StreamsChunkedBodyWhenLengthUnknown() throws Exception {
+        final byte[] blob = createBlob(20 * 1024);
+        blobEndpoint.respondWith(200, "{\"id\":\"blobId\"}");
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromStream(new ByteArrayInputStream(blob), -1),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                null);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("blobId", successBlobId);
+
+        final RecordedRequest request = blobEndpoint.requests.get(0);
+        assertEquals("chunked", request.transferEncoding);
+        assertArrayEquals(blob, request.body);
+    }
+
+    @Test
+    public void test_upload_FromFile() throws Exception {
+        final byte[] blob = createBlob(32 * 1024);
+        final File file = File.createTempFile("blob", ".bin");
+        file.deleteOnExit();
+        final FileOutputStream fileOutputStream = new FileOutputStream(file);
+        fileOutputStream.write(blob);
+        fileOutputStream.close();
+        blobEndpoint.respondWith(200, "{\"id\":\"blobId\"}");
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromFile(file),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                null);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("blobId", successBlobId);
+        assertArrayEquals(blob, blobEndpoint.requests.get(0).body);
+    }
+
+    @Test
+    public void test_upload_RetriesServerErrors() throws Exception {
+        final byte[] blob = createBlob(1024);
+        blobEndpoint.respondWith(503, "");
+        blobEndpoint.respondWith(200, "{\"id\":\"blobId\"}");
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromBytes(blob),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                null);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("blobId", successBlobId);
+        assertEquals(2, blobEndpoint.requests.size());
+        assertArrayEquals(blob, blobEndpoint.requests.get(1).body);
+    }
+
+    @Test
+    public void test_upload_FailsAfterMaxAttempts() throws Exception {
+        for (int i = 0; i < AssuranceBlobUploader.MAX_ATTEMPTS; i++) {
+            blobEndpoint.respondWith(500, "");
+        }
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromBytes(createBlob(1024)),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                null);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNull(successBlobId);
+        assertTrue(failureReason.contains("500"));
+        assertEquals(AssuranceBlobUploader.MAX_ATTEMPTS, blobEndpoint.requests.size());
+        assertEquals(0, uploader.getPendingUploadCount());
+    }
+
+    @Test
+    public void test_upload_DoesNotRetryClientErrors() throws Exception {
+        blobEndpoint.respondWith(400, "{\"error\":\"bad request\"}");
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromBytes(createBlob(1024)),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                null);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNull(successBlobId);
+        assertEquals(1, blobEndpoint.requests.size());
+    }
+
+    @Test
+    public void test_upload_DoesNotRetryNonRepeatableSource() throws Exception {
+        blobEndpoint.respondWith(503, "");
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromStream(new ByteArrayInputStream(createBlob(1024)), -1),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                null);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNull(successBlobId);
+        assertEquals(1, blobEndpoint.requests.size());
+    }
+
+    @Test
+    public void test_upload_ErrorInResponse() throws Exception {
+        blobEndpoint.respondWith(200, "{\"error\":\"quota exceeded\"}");
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromBytes(createBlob(1024)),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                null);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNull(successBlobId);
+        assertTrue(failureReason.contains("quota exceeded"));
+        assertEquals(1, blobEndpoint.requests.size());
+    }
+
+    @Test
+    public void test_upload_QueuesWhenTooManyActive() throws Exception {
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final CountDownLatch completionLatch =
+                new CountDownLatch(AssuranceBlobUploader.MAX_ACTIVE_UPLOADS + 1);
+        blobEndpoint.blockUntil(releaseLatch);
+
+        for (int i = 0; i <= AssuranceBlobUploader.MAX_ACTIVE_UPLOADS; i++) {
+            blobEndpoint.respondWith(200, "{\"id\":\"blobId\"}");
+            uploader.upload(
+                    AssuranceBlob.BlobSource.fromBytes(createBlob(1024)),
+                    SAMPLE_CONTENT_TYPE,
+                    destination,
+                    createCallback(completionLatch),
+                    null);
+        }
+
+        // the upload over the limit waits instead of failing
+        assertEquals(AssuranceBlobUploader.MAX_ACTIVE_UPLOADS + 1, completionLatch.getCount());
+        assertEquals(
+                AssuranceBlobUploader.MAX_ACTIVE_UPLOADS + 1, uploader.getPendingUploadCount());
+
+        releaseLatch.countDown();
+        assertTrue(completionLatch.await(5, TimeUnit.SECONDS));
+        assertNull(failureReason);
+        assertEquals("blobId", successBlobId);
+        assertEquals(AssuranceBlobUploader.MAX_ACTIVE_UPLOADS + 1, blobEndpoint.requests.size());
+        assertEquals(0, uploader.getPendingUploadCount());
+    }
+
+    @Test
+    public void test_upload_RunsWhileWorkerPoolIsBusy() throws Exception {
+        final CountDownLatch releaseWorkers = new CountDownLatch(1);
+
+        for (int i = 0; i < AssuranceScheduler.WORKER_POOL_SIZE; i++) {
+            scheduler.execute(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                releaseWorkers.await(5, TimeUnit.SECONDS);
+                            } catch (final InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+        }
+
+        blobEndpoint.respondWith(200, "{\"id\":\"blobId\"}");
+        final CountDownLatch latch = new CountDownLatch(1);
+        uploader.upload(
+                AssuranceBlob.BlobSource.fromBytes(createBlob(1024)),
+                SAMPLE_CONTENT_TYPE,
+                destination,
+                createCallback(latch),
+                null);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("blobId", successBlobId);
+        releaseWorkers.countDown();
+    }
+
+    private AssuranceBlob.BlobUploadCallback createCallback(final CountDownLatch latch) {
+        successBlobId = null;
+        failureReason = null;
+        return new AssuranceBlob.BlobUploadCallback() {
+            @Override
+            public void onSuccess(final String blobID) {
+                successBlobId = blobID;
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(final String reason) {
+                failureReason = reason;
+                latch.countDown();
+            }
+        };
+    }
+
+    private static byte[] createBlob(final int size) {
+        final byte[] blob = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            blob[i] = (byte) (i % 251);
+        }
+
+        return blob;
+    }
+
+    private static final class RecordedRequest {
+        String method;
+        String contentLength;
+        String transferEncoding;
+        String fileContentType;
+        byte[] body;
+    }
+
+    /** A stand-in for the blob endpoint, replying with queued responses in order. */
+    private static final class BlobEndpoint implements HttpHandler {
+        final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+        private final List<Object[]> responses = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch blockingLatch;
+
+        void respondWith(final int code, final String body) {
+            responses.add(new Object[] {code, body});
+        }
+
+        void blockUntil(final CountDownLatch latch) {
+            blockingLatch = latch;
+        }
+
+        @Override
+        public void handle(final HttpExchange exchange) throws IOException {
+            final RecordedRequest request = new RecordedRequest();
+            request.method = exchange.getRequestMethod();
+            request.contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            request.transferEncoding =
+                    exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+            request.fileContentType = exchange.getRequestHeaders().getFirst("File-Content-Type");
+            request.body = readFully(exchange.getRequestBody());
+
+            try {
+                if (blockingLatch != null) {
+                    blockingLatch.await(5, TimeUnit.SECONDS);
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            final Object[] response =
+                    responses.isEmpty() ? new Object[] {500, ""} : responses.remove(0);
+            requests.add(request);
+            final byte[] responseBody = ((String) response[1]).getBytes(UTF_8);
+            exchange.sendResponseHeaders(
+                    (Integer) response[0], responseBody.length == 0 ? -1 : responseBody.length);
+            final OutputStream outputStream = exchange.getResponseBody();
+            outputStream.write(responseBody);
+            outputStream.close();
+        }
+
+        private static byte[] readFully(final InputStream inputStream) throws IOException {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int bytesRead;
+
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+
+            return outputStream.toByteArray();
+        }
+    }
+}
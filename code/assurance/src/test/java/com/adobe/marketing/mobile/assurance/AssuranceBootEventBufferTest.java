@@ -0,0 +1,290 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssuranceBootEventBufferTest {
+
+    @Test
+    public void test_add_RetainsEventsInOrder() {
+        final AssuranceBootEventBuffer buffer = new AssuranceBootEventBuffer();
+        final AssuranceEvent event1 = createEvent("value1");
+        final AssuranceEvent event2 = createEvent("value2");
+
+        assertTrue(buffer.add(event1));
+        assertTrue(buffer.add(event2));
+
+        assertEquals(2, buffer.size());
+        assertEquals(serializedSize(event1) + serializedSize(event2), buffer.getBufferedBytes());
+
+        final List<AssuranceEvent> replayedEvents = replay(buffer);
+        assertEquals(2, replayedEvents.size());
+        assertSameEvent(event1, replayedEvents.get(0));
+        assertSameEvent(event2, replayedEvents.get(1));
+    }
+
+    @Test
+    public void test_add_EvictsOldestWhenEventCapacityReached() {
+        final AssuranceBootEventBuffer buffer = new AssuranceBootEventBuffer(3, Long.MAX_VALUE);
+        final List<AssuranceEvent> events = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            final AssuranceEvent event = createEvent("value" + i);
+            events.add(event);
+            buffer.add(event);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.getDroppedEventCount());
+
+        final List<AssuranceEvent> replayedEvents = replay(buffer);
+        assertSameEvent(events.get(2), replayedEvents.get(0));
+        assertSameEvent(events.get(3), replayedEvents.get(1));
+        assertSameEvent(events.get(4), replayedEvents.get(2));
+    }
+
+    @Test
+    public void test_add_EvictsOldestWhenByteBudgetReached() {
+        final AssuranceEvent event1 = createEvent("value1");
+        final AssuranceEvent event2 = createEvent("value2");
+        final AssuranceEvent event3 = createEvent("value3");
+        final long eventSize = Math.max(serializedSize(event2), serializedSize(event3));
+        final AssuranceBootEventBuffer buffer = new AssuranceBootEventBuffer(10, eventSize * 2);
+
+        buffer.add(event1);
+        buffer.add(event2);
+        buffer.add(event3);
+
+        assertEquals(2, buffer.size());
+        assertTrue(buffer.getBufferedBytes() <= eventSize * 2);
+
+        final List<AssuranceEvent> replayedEvents = replay(buffer);
+        assertSameEvent(event2, replayedEvents.get(0));
+        assertSameEvent(event3, replayedEvents.get(1));
+    }
+
+    @Test
+    public void test_add_DropsEventLargerThanByteBudget() {
+        final AssuranceEvent smallEvent = createEvent("value");
+        final StringBuilder largeValue = new StringBuilder();
+
+        for (int i = 0; i < 1000; i++) {
+            largeValue.append("largeValue");
+        }
+
+        final AssuranceEvent largeEvent = createEvent(largeValue.toString());
+        final AssuranceBootEventBuffer buffer =
+                new AssuranceBootEventBuffer(10, serializedSize(smallEvent));
+
+        assertTrue(buffer.add(smallEvent));
+        assertFalse(buffer.add(largeEvent));
+
+        assertEquals(1, buffer.size());
+        assertEquals(1, buffer.getDroppedEventCount());
+        assertSameEvent(smallEvent, replay(buffer).get(0));
+    }
+
+    @Test
+    public void test_replay_PassesSerializedEventsThrough() {
+        final AssuranceBootEventBuffer buffer = new AssuranceBootEventBuffer();
+        final AssuranceEvent event = createEvent("value");
+        buffer.add(event);
+
+        final AssuranceEvent replayedEvent = replay(buffer).get(0);
+
+        assertEquals(
+                event.getJSONRepresentation(),
+                new String(replayedEvent.getEncodedRepresentation(), Charset.forName("UTF-8")));
+        assertSame(replayedEvent, replay(buffer).get(0));
+    }
+
+    @Test
+    public void test_clear_ReleasesEvents() {
+        final AssuranceBootEventBuffer buffer = new AssuranceBootEventBuffer(2, Long.MAX_VALUE);
+        buffer.add(createEvent("value1"));
+        buffer.add(createEvent("value2"));
+        buffer.add(createEvent("value3"));
+
+        buffer.clear();
+
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getBufferedBytes());
+        assertTrue(replay(buffer).isEmpty());
+
+        // buffer remains usable after being cleared
+        final AssuranceEvent event = createEvent("value4");
+        buffer.add(event);
+        assertSameEvent(event, replay(buffer).get(0));
+    }
+
+    @Test
+    public void test_replay_IgnoresEventsAddedDuringReplay() {
+        final AssuranceBootEventBuffer buffer = new AssuranceBootEventBuffer();
+        final AssuranceEvent event1 = createEvent("value1");
+        buffer.add(event1);
+        final List<AssuranceEvent> replayedEvents = new ArrayList<>();
+
+        buffer.replay(
+                new AssuranceBootEventBuffer.ReplayListener() {
+                    @Override
+                    public void onEvent(final AssuranceEvent event) {
+                        replayedEvents.add(event);
+                        buffer.add(createEvent("value2"));
+                    }
+                });
+
+        assertEquals(1, replayedEvents.size());
+        assertSameEvent(event1, replayedEvents.get(0));
+        assertEquals(2, buffer.size());
+    }
+
+    @Test
+    public void test_attach_ReplaysThenForwardsNewEvents() {
+        final AssuranceBootEventBuffer buffer = new AssuranceBootEventBuffer();
+        final AssuranceEvent event1 = createEvent("value1");
+        final AssuranceEvent event2 = createEvent("value2");
+        buffer.add(event1);
+        final List<AssuranceEvent> receivedEvents = new ArrayList<>();
+
+        buffer.attach(
+                new AssuranceBootEventBuffer.ReplayListener() {
+                    @Override
+                    public void onEvent(final AssuranceEvent event) {
+                        receivedEvents.add(event);
+                    }
+                });
+        assertEquals(1, receivedEvents.size());
+
+        assertTrue(buffer.add(event2));
+
+        assertEquals(2, receivedEvents.size());
+        assertSameEvent(event1, receivedEvents.get(0));
+        // an event added once attached is handed over without being serialized
+        assertSame(event2, receivedEvents.get(1));
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getBufferedBytes());
+    }
+
+    @Test
+    public void test_attach_ConcurrentAdds_DeliversEveryEventOnceInOrder() throws Exception {
+        final int producerCount = 4;
+        final int eventsPerProducer = 200;
+        final AssuranceBootEventBuffer buffer =
+                new AssuranceBootEventBuffer(producerCount * eventsPerProducer, Long.MAX_VALUE);
+        final List<AssuranceEvent> receivedEvents = new ArrayList<>();
+        final AtomicBoolean isInListener = new AtomicBoolean();
+        final AtomicBoolean wasListenerReentered = new AtomicBoolean();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> producers = new ArrayList<>();
+
+        for (int p = 0; p < producerCount; p++) {
+            final String producer = "producer" + p;
+            final Thread thread =
+                    new Thread(
+                            new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        start.await();
+                                    } catch (final InterruptedException ex) {
+                                        return;
+                                    }
+
+                                    for (int i = 0; i < eventsPerProducer; i++) {
+                                        buffer.add(createEvent(producer + ":" + i));
+                                    }
+                                }
+                            });
+            producers.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        buffer.attach(
+                new AssuranceBootEventBuffer.ReplayListener() {
+                    @Override
+                    public void onEvent(final AssuranceEvent event) {
+                        if (!isInListener.compareAndSet(false, true)) {
+                            wasListenerReentered.set(true);
+                        }
+
+                        receivedEvents.add(event);
+                        isInListener.set(false);
+                    }
+                });
+
+        for (final Thread thread : producers) {
+            thread.join(5000);
+        }
+
+        assertFalse(wasListenerReentered.get());
+        assertEquals(producerCount * eventsPerProducer, receivedEvents.size());
+        assertEquals(0, buffer.size());
+
+        final Map<String, Integer> lastIndexByProducer = new HashMap<>();
+
+        for (final AssuranceEvent event : receivedEvents) {
+            final String[] value = ((String) event.getPayload().get("key")).split(":");
+            final Integer lastIndex = lastIndexByProducer.get(value[0]);
+            final int index = Integer.parseInt(value[1]);
+            assertTrue(lastIndex == null || lastIndex < index);
+            lastIndexByProducer.put(value[0], index);
+        }
+    }
+
+    private List<AssuranceEvent> replay(final AssuranceBootEventBuffer buffer) {
+        final List<AssuranceEvent> replayedEvents = new ArrayList<>();
+        buffer.replay(
+                new AssuranceBootEventBuffer.ReplayListener() {
+                    @Override
+                    public void onEvent(final AssuranceEvent event) {
+                        replayedEvents.add(event);
+                    }
+                });
+        return replayedEvents;
+    }
+
+    private void assertSameEvent(final AssuranceEvent expected, final AssuranceEvent actual) {
+        assertEquals(expected.eventID, actual.eventID);
+        assertEquals(expected.timestamp, actual.timestamp);
+        assertEquals(expected.type, actual.type);
+        assertEquals(expected.getPayload(), actual.getPayload());
+    }
+
+    private long serializedSize(final AssuranceEvent event) {
+        return event.getJSONRepresentation().getBytes(Charset.forName("UTF-8")).length;
+    }
+
+    private AssuranceEvent createEvent(final String value) {
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("key", value);
+        return new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class AssuranceCborEncoderTest {
+
+    @Test
+    public void test_encode_Integers() {
+        assertEncoded("00", 0);
+        assertEncoded("17", 23);
+        assertEncoded("1818", 24);
+        assertEncoded("1903e8", 1000);
+        assertEncoded("1a000f4240", 1000000);
+        assertEncoded("1b000000e8d4a51000", 1000000000000L);
+        assertEncoded("20", -1);
+        assertEncoded("3903e7", -1000);
+        assertEncoded("3b7fffffffffffffff", Long.MIN_VALUE);
+    }
+
+    @Test
+    public void test_encode_FloatingPoint() {
+        assertEncoded("01", 1.0d);
+        assertEncoded("fa3fc00000", 1.5d);
+        assertEncoded("fa3fc00000", 1.5f);
+        assertEncoded("fb3ff199999999999a", 1.1d);
+        assertEncoded("fa80000000", -0d);
+        assertEncoded("f6", Double.NaN);
+        assertEncoded("f6", Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void test_encode_SimpleValues() {
+        assertEncoded("f4", false);
+        assertEncoded("f5", true);
+        assertEncoded("f6", null);
+        assertEncoded("f6", JSONObject.NULL);
+    }
+
+    @Test
+    public void test_encode_Text() {
+        assertEncoded("60", "");
+        assertEncoded("6161", "a");
+        assertEncoded("62c3bc", "\u00fc");
+        assertEncoded("63e6b0b4", "\u6c34");
+        assertEncoded("64f0908591", "\ud800\udd51");
+        // An unpaired surrogate is replaced, as String.getBytes would.
+        assertEncoded("623f61", "\ud800a");
+    }
+
+    @Test
+    public void test_encode_Containers() throws Exception {
+        assertEncoded("4401020304", new byte[] {1, 2, 3, 4});
+        assertEncoded("80", Collections.emptyList());
+        assertEncoded("8301820203820405", Arrays.asList(1, Arrays.asList(2, 3), new int[] {4, 5}));
+        assertEncoded("a0", new HashMap<String, Object>());
+        assertEncoded("a1616101", Collections.singletonMap("a", 1));
+        assertEncoded("a1616182f5f6", new JSONObject("{\"a\": [true, null]}"));
+        assertEncoded("8162c2a1", new JSONArray("[\"\u00a1\"]"));
+    }
+
+    @Test
+    public void test_encode_DecodesToSameDocumentAsJson() throws Exception {
+        final Map<String, Object> eventData = new LinkedHashMap<>();
+        eventData.put("string", "line\nbreak \u00e9\ud83d\ude00");
+        eventData.put("long", 3000000000L);
+        eventData.put("double", 2.75d);
+        eventData.put("bool", true);
+        eventData.put("null", JSONObject.NULL);
+        eventData.put("list", Arrays.asList(1, "two", Collections.singletonMap("three", 3)));
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put(AssuranceConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_DATA, eventData);
+        final AssuranceEvent event =
+                new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload);
+
+        assertEquals(
+                AssuranceServerStandIn.decodeFrame(
+                        event.getJSONRepresentation().getBytes("UTF-8")),
+                AssuranceServerStandIn.decodeFrame(event.getCborRepresentation()));
+    }
+
+    private static void assertEncoded(final String expectedHex, final Object value) {
+        assertArrayEquals(hexToBytes(expectedHex), AssuranceCborEncoder.encode(value));
+    }
+
+    private static byte[] hexToBytes(final String hex) {
+        final byte[] bytes = new byte[hex.length() / 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+
+        return bytes;
+    }
+}
@@ -14,11 +14,15 @@ package com.adobe.marketing.mobile.assurance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
 import android.Manifest;
 import android.app.Application;
 import android.content.Context;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.location.LocationManager;
 import android.os.BatteryManager;
@@ -28,12 +32,15 @@ import androidx.core.app.ActivityCompat;
 import com.adobe.marketing.mobile.Assurance;
 import com.adobe.marketing.mobile.services.AppContextService;
 import com.adobe.marketing.mobile.services.ServiceProvider;
+import java.util.Arrays;
 import java.util.Map;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
@@ -59,6 +66,10 @@ public class AssuranceClientInfoTest {
 
     @Mock private Context mockAppContext;
 
+    @Mock private PackageManager mockPackageManager;
+
+    @Rule public TemporaryFolder cacheDir = new TemporaryFolder();
+
     private AssuranceClientInfo assuranceClientInfo;
 
     private MockedStatic<AssuranceIOUtils> mockedStaticAssuranceIOUtils;
@@ -68,6 +79,7 @@ public class AssuranceClientInfoTest {
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
+        AssuranceClientInfo.clearCache();
         assuranceClientInfo = new AssuranceClientInfo();
         mockedStaticActivityCompat = Mockito.mockStatic(ActivityCompat.class);
         mockedStaticAssuranceIOUtils = Mockito.mockStatic(AssuranceIOUtils.class);
@@ -92,6 +104,12 @@ public class AssuranceClientInfoTest {
                 Assurance.EXTENSION_VERSION, data.get(AssuranceConstants.ClientInfoKeys.VERSION));
         assertEquals("connect", data.get(AssuranceConstants.PayloadDataKeys.TYPE));
         assertEquals(appSettings, data.get(AssuranceConstants.ClientInfoKeys.APP_SETTINGS));
+        assertEquals(
+                Arrays.asList(
+                        AssuranceConstants.Capability.PAYLOAD_REFERENCES,
+                        AssuranceConstants.Capability.CBOR_FRAMES,
+                        AssuranceConstants.Capability.SEQUENCE_LANES),
+                data.get(AssuranceConstants.ClientInfoKeys.CAPABILITIES));
 
         final Map<String, Object> obtainedDeviceInfo =
                 (Map<String, Object>) data.get(AssuranceConstants.ClientInfoKeys.DEVICE_INFO);
@@ -191,8 +209,107 @@ public class AssuranceClientInfoTest {
                         AssuranceConstants.DeviceInfoKeys.LOW_POWER_BATTERY_ENABLED));
     }
 
+    @Test
+    public void testGetData_parsesManifestOncePerProcess() throws JSONException {
+        final JSONObject appSettings = mockManifestData();
+        mockedStaticAssuranceIOUtils
+                .when(() -> AssuranceIOUtils.parseXMLResourceFileToJson(any()))
+                .thenReturn(appSettings);
+
+        mockAppContextService();
+        mockTelephonyManager("MyNetworkCarrier");
+        mockBatteryLevel(95);
+        mockLocationManager(true, true);
+        mockPowerManager(false);
+
+        assuranceClientInfo.getData();
+        mockBatteryLevel(40);
+        final Map<String, Object> data = new AssuranceClientInfo().getData();
+
+        mockedStaticAssuranceIOUtils.verify(
+                () -> AssuranceIOUtils.parseXMLResourceFileToJson(any()), times(1));
+        assertEquals(appSettings, data.get(AssuranceConstants.ClientInfoKeys.APP_SETTINGS));
+
+        // the device state is read again
+        final Map<String, Object> obtainedDeviceInfo =
+                (Map<String, Object>) data.get(AssuranceConstants.ClientInfoKeys.DEVICE_INFO);
+        assertEquals(40, obtainedDeviceInfo.get(AssuranceConstants.DeviceInfoKeys.BATTERY_LEVEL));
+        assertEquals(
+                "Android", obtainedDeviceInfo.get(AssuranceConstants.DeviceInfoKeys.PLATFORM_NAME));
+    }
+
+    @Test
+    public void testGetData_noAppContext_retriesOnNextCall() throws JSONException {
+        final JSONObject appSettings = mockManifestData();
+        mockedStaticAssuranceIOUtils
+                .when(() -> AssuranceIOUtils.parseXMLResourceFileToJson(any()))
+                .thenReturn(new JSONObject(), appSettings);
+
+        mockedStaticServiceProvider
+                .when(ServiceProvider::getInstance)
+                .thenReturn(mockServiceProvider);
+        when(mockServiceProvider.getAppContextService()).thenReturn(mockAppContextService);
+        assuranceClientInfo.getData();
+
+        mockAppContextService();
+        mockBatteryLevel(95);
+        mockLocationManager(true, true);
+        mockPowerManager(false);
+        final Map<String, Object> data = assuranceClientInfo.getData();
+
+        assertEquals(appSettings, data.get(AssuranceConstants.ClientInfoKeys.APP_SETTINGS));
+    }
+
+    @Test
+    public void testGetData_manifestCachedAcrossProcesses() throws Exception {
+        final JSONObject appSettings = mockManifestData();
+        mockedStaticAssuranceIOUtils
+                .when(() -> AssuranceIOUtils.parseXMLResourceFileToJson(any()))
+                .thenReturn(appSettings);
+
+        mockAppContextService();
+        mockBatteryLevel(95);
+        mockLocationManager(true, true);
+        mockPowerManager(false);
+        mockPackageInfo(1000L);
+
+        assuranceClientInfo.getData();
+        // a new process starts without the in memory cache
+        AssuranceClientInfo.clearCache();
+        final Map<String, Object> data = assuranceClientInfo.getData();
+
+        mockedStaticAssuranceIOUtils.verify(
+                () -> AssuranceIOUtils.parseXMLResourceFileToJson(any()), times(1));
+        assertEquals(
+                appSettings.toString(),
+                data.get(AssuranceConstants.ClientInfoKeys.APP_SETTINGS).toString());
+    }
+
+    @Test
+    public void testGetData_appUpdated_parsesManifestAgain() throws Exception {
+        final JSONObject appSettings = mockManifestData();
+        mockedStaticAssuranceIOUtils
+                .when(() -> AssuranceIOUtils.parseXMLResourceFileToJson(any()))
+                .thenReturn(appSettings);
+
+        mockAppContextService();
+        mockBatteryLevel(95);
+        mockLocationManager(true, true);
+        mockPowerManager(false);
+        mockPackageInfo(1000L);
+        assuranceClientInfo.getData();
+
+        AssuranceClientInfo.clearCache();
+        mockPackageInfo(2000L);
+        assuranceClientInfo.getData();
+
+        mockedStaticAssuranceIOUtils.verify(
+                () -> AssuranceIOUtils.parseXMLResourceFileToJson(any()), times(2));
+    }
+
     @After
     public void teardown() {
+        AssuranceClientInfo.clearCache();
         mockedStaticServiceProvider.close();
         mockedStaticActivityCompat.close();
         mockedStaticAssuranceIOUtils.close();
@@ -216,6 +333,15 @@ public class AssuranceClientInfoTest {
         when(mockAppContextService.getApplicationContext()).thenReturn(mockAppContext);
     }
 
+    private void mockPackageInfo(final long lastUpdateTime) throws Exception {
+        final PackageInfo packageInfo = new PackageInfo();
+        packageInfo.lastUpdateTime = lastUpdateTime;
+        when(mockAppContext.getPackageName()).thenReturn("com.assurance.testapp");
+        when(mockAppContext.getCacheDir()).thenReturn(cacheDir.getRoot());
+        when(mockAppContext.getPackageManager()).thenReturn(mockPackageManager);
+        when(mockPackageManager.getPackageInfo(anyString(), anyInt())).thenReturn(packageInfo);
+    }
+
     private void mockTelephonyManager(final String carrierName) {
         when(mockAppContext.getSystemService(Application.TELEPHONY_SERVICE))
                 .thenReturn(mockTelephonyManager);
@@ -13,12 +13,18 @@ package com.adobe.marketing.mobile.assurance;
 
 import static com.adobe.marketing.mobile.assurance.AssuranceTestUtils.setInternalState;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.Activity;
 import android.net.Uri;
+import android.os.Handler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -41,20 +47,54 @@ public class AssuranceConnectionStatusUITest {
 
     private AssuranceConnectionStatusUI connectionStatusUI;
     @Mock private AssuranceFullScreenTakeover mockStatusTakeOver;
+    @Mock private Handler mockMainThreadHandler;
 
     private MockedStatic<Uri> mockedStaticUri;
+    private final List<Runnable> postedRunnables = new ArrayList<>();
 
     @Before
     public void setup() {
         MockitoAnnotations.openMocks(this);
         when(mockApplicationHandle.getCurrentActivity()).thenReturn(mockActivity);
+        when(mockMainThreadHandler.post(any(Runnable.class)))
+                .thenAnswer(
+                        invocation -> {
+                            postedRunnables.add(invocation.getArgument(0));
+                            return true;
+                        });
         connectionStatusUI =
                 new AssuranceConnectionStatusUI(
-                        mockSessionUIOperationHandler, mockApplicationHandle);
+                        mockSessionUIOperationHandler,
+                        mockApplicationHandle,
+                        new AssuranceUILogBuffer(2),
+                        mockMainThreadHandler);
     }
 
     @Test
     public void test_AddUILog() {
+        // prepare
+        mockInternalVariables();
+        connectionStatusUI.show();
+        runPostedRunnables();
+        final ArgumentCaptor<String> javascriptCaptor = ArgumentCaptor.forClass(String.class);
+
+        // test
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.LOW, "Message1");
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.NORMAL, "Message2");
+        runPostedRunnables();
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.HIGH, "Message3");
+        runPostedRunnables();
+
+        // verify
+        verify(mockStatusTakeOver, times(2)).runJavascript(javascriptCaptor.capture());
+        assertEquals(
+                "addLogs([[0,\"Message1\"],[1,\"Message2\"]],0);",
+                javascriptCaptor.getAllValues().get(0));
+        assertEquals("addLogs([[2,\"Message3\"]],0);", javascriptCaptor.getAllValues().get(1));
+    }
+
+    @Test
+    public void test_AddUILog_WhileHidden_RenderedWhenShown() {
         // prepare
         mockInternalVariables();
         final ArgumentCaptor<String> javascriptCaptor = ArgumentCaptor.forClass(String.class);
@@ -63,12 +103,110 @@ public class AssuranceConnectionStatusUITest {
         connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.LOW, "Message1");
         connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.NORMAL, "Message2");
         connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.HIGH, "Message3");
+        runPostedRunnables();
 
         // verify
-        verify(mockStatusTakeOver, times(3)).runJavascript(javascriptCaptor.capture());
-        assertEquals("addLog(0, \"Message1\");", javascriptCaptor.getAllValues().get(0));
-        assertEquals("addLog(1, \"Message2\");", javascriptCaptor.getAllValues().get(1));
-        assertEquals("addLog(2, \"Message3\");", javascriptCaptor.getAllValues().get(2));
+        verify(mockStatusTakeOver, never()).runJavascript(any());
+
+        // test
+        connectionStatusUI.show();
+        runPostedRunnables();
+
+        // verify
+        verify(mockStatusTakeOver).runJavascript(javascriptCaptor.capture());
+        assertEquals(
+                "addLogs([[1,\"Message2\"],[2,\"Message3\"]],1);", javascriptCaptor.getValue());
+    }
+
+    @Test
+    public void test_onShow_PageLoadedAfresh_RendersRetainedLogsAgain() {
+        // prepare
+        mockInternalVariables();
+        connectionStatusUI.show();
+        runPostedRunnables();
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.LOW, "Message1");
+        runPostedRunnables();
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.HIGH, "Message2");
+        final ArgumentCaptor<String> javascriptCaptor = ArgumentCaptor.forClass(String.class);
+
+        // test
+        connectionStatusUI.onShow(mockStatusTakeOver);
+        runPostedRunnables();
+
+        // verify
+        verify(mockStatusTakeOver, times(2)).runJavascript(javascriptCaptor.capture());
+        assertEquals("addLogs([[0,\"Message1\"]],0);", javascriptCaptor.getAllValues().get(0));
+        assertEquals(
+                "addLogs([[0,\"Message1\"],[2,\"Message2\"]],0);",
+                javascriptCaptor.getAllValues().get(1));
+    }
+
+    @Test
+    public void test_AddUILog_PageLoading_RenderedOnceLoaded() {
+        // prepare
+        mockInternalVariables();
+        when(mockStatusTakeOver.isPageLoaded()).thenReturn(false);
+        connectionStatusUI.show();
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.LOW, "Message1");
+        runPostedRunnables();
+
+        // verify
+        verify(mockStatusTakeOver, never()).runJavascript(any());
+
+        // test
+        when(mockStatusTakeOver.isPageLoaded()).thenReturn(true);
+        connectionStatusUI.onShow(mockStatusTakeOver);
+
+        // verify
+        verify(mockStatusTakeOver).runJavascript("addLogs([[0,\"Message1\"]],0);");
+    }
+
+    @Test
+    public void test_AddUILog_DismissedBeforeFlush_NotRendered() {
+        // prepare
+        mockInternalVariables();
+        connectionStatusUI.show();
+        runPostedRunnables();
+
+        // test
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.LOW, "Message1");
+        connectionStatusUI.onDismiss(mockStatusTakeOver);
+        runPostedRunnables();
+
+        // verify
+        verify(mockStatusTakeOver, never()).runJavascript(any());
+    }
+
+    @Test
+    public void test_AddUILog_NullMessage_Ignored() {
+        // prepare
+        mockInternalVariables();
+        connectionStatusUI.show();
+        runPostedRunnables();
+
+        // test
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.LOW, null);
+        connectionStatusUI.addUILog(null, "Message1");
+        runPostedRunnables();
+
+        // verify
+        verify(mockStatusTakeOver, never()).runJavascript(any());
+    }
+
+    @Test
+    public void test_buildAddLogsScript_EscapesMessages() {
+        final String js =
+                AssuranceConnectionStatusUI.buildAddLogsScript(
+                        Arrays.asList(
+                                new AssuranceUILogBuffer.Entry(
+                                        3, "\"quoted\" \\ line1\n\tline2 100%\u2028\u0001"),
+                                new AssuranceUILogBuffer.Entry(0, "\u00e9")),
+                        0);
+
+        assertEquals(
+                "addLogs([[3,\"\\\"quoted\\\" \\\\ line1\\n\\tline2"
+                        + " 100\\u0025\\u2028\\u0001\"],[0,\"\u00e9\"]],0);",
+                js);
     }
 
     @Test
@@ -134,6 +272,22 @@ public class AssuranceConnectionStatusUITest {
         verify(mockStatusTakeOver, times(1)).runJavascript("clearLog()");
     }
 
+    @Test
+    public void test_clearLog_DiscardsBufferedLogs() {
+        // prepare
+        mockInternalVariables();
+        connectionStatusUI.addUILog(AssuranceConstants.UILogColorVisibility.LOW, "Message1");
+
+        // test
+        connectionStatusUI.clearLogs();
+        connectionStatusUI.show();
+        runPostedRunnables();
+
+        // verify
+        verify(mockStatusTakeOver, times(1)).runJavascript(any());
+        verify(mockStatusTakeOver, times(1)).runJavascript("clearLog()");
+    }
+
     @Test
     public void test_NoOp_OnShowAndDismissDoesNotCrash() {
         // prepare
@@ -155,5 +309,15 @@ public class AssuranceConnectionStatusUITest {
         }
 
         setInternalState(connectionStatusUI, "statusTakeover", mockStatusTakeOver);
+        when(mockStatusTakeOver.isPageLoaded()).thenReturn(true);
+    }
+
+    private void runPostedRunnables() {
+        final List<Runnable> runnables = new ArrayList<>(postedRunnables);
+        postedRunnables.clear();
+
+        for (final Runnable runnable : runnables) {
+            runnable.run();
+        }
     }
 }
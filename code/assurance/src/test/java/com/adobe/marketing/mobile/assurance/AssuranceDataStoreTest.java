@@ -0,0 +1,290 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class AssuranceDataStoreTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private Context mockContext;
+
+    @Mock private SharedPreferences mockPreferences;
+
+    @Mock private SharedPreferences.Editor mockEditor;
+
+    private File file;
+    private QueuedExecutor executor;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mockContext.getSharedPreferences(
+                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
+                .thenReturn(mockPreferences);
+        when(mockPreferences.edit()).thenReturn(mockEditor);
+
+        file = new File(temporaryFolder.getRoot(), AssuranceDataStore.FILE_NAME);
+        executor = new QueuedExecutor();
+    }
+
+    @After
+    public void teardown() {
+        AssuranceDataStore.resetInstance();
+        AssuranceScheduler.shutdown();
+    }
+
+    @Test
+    public void test_valuesPersistedAcrossInstances() {
+        final AssuranceDataStore dataStore = createLoadedDataStore();
+        dataStore.putString("stringKey", "stringValue");
+        dataStore.putStringSet("setKey", new HashSet<>(Arrays.asList("a", "b")));
+        executor.runAll();
+
+        final AssuranceDataStore reloadedDataStore = createLoadedDataStore();
+
+        assertEquals("stringValue", reloadedDataStore.getString("stringKey", null));
+        assertEquals(
+                new HashSet<>(Arrays.asList("a", "b")),
+                reloadedDataStore.getStringSet("setKey", null));
+    }
+
+    @Test
+    public void test_remove() {
+        final AssuranceDataStore dataStore = createLoadedDataStore();
+        dataStore.putString("stringKey", "stringValue");
+        dataStore.remove("stringKey");
+        executor.runAll();
+
+        assertNull(dataStore.getString("stringKey", null));
+        assertNull(createLoadedDataStore().getString("stringKey", null));
+    }
+
+    @Test
+    public void test_writesCoalesced() {
+        final AssuranceDataStore dataStore = createLoadedDataStore();
+
+        dataStore.putString("key1", "value1");
+        dataStore.putString("key2", "value2");
+        dataStore.putString("key1", "value3");
+
+        // a single write of the latest values is scheduled
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        final AssuranceDataStore reloadedDataStore = createLoadedDataStore();
+        assertEquals("value3", reloadedDataStore.getString("key1", null));
+        assertEquals("value2", reloadedDataStore.getString("key2", null));
+    }
+
+    @Test
+    public void test_putWhileWriting_latestValuePersisted() throws InterruptedException {
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final AssuranceDataStore dataStore = new AssuranceDataStore(file, mockContext, pool);
+        dataStore.preload();
+
+        // each put lands while earlier writes may still be running on other threads
+        for (int i = 0; i < 500; i++) {
+            dataStore.putString("key", "value" + i);
+        }
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        assertEquals("value499", createLoadedDataStore().getString("key", null));
+    }
+
+    @Test
+    public void test_getInstance_writesAfterSchedulerShutdown() throws Exception {
+        when(mockContext.getFilesDir()).thenReturn(temporaryFolder.getRoot());
+        final AssuranceDataStore dataStore = AssuranceDataStore.getInstance(mockContext);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        dataStore.whenLoaded(loaded::countDown);
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+
+        // as when the extension is unregistered
+        AssuranceScheduler.shutdown();
+        dataStore.putString("key", "value");
+
+        final long deadline = System.currentTimeMillis() + 5000;
+
+        while (createLoadedDataStore().getString("key", null) == null
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals("value", createLoadedDataStore().getString("key", null));
+    }
+
+    @Test
+    public void test_putStringSet_copiesValue() {
+        final AssuranceDataStore dataStore = createLoadedDataStore();
+        final Set<String> set = new HashSet<>(Arrays.asList("a"));
+
+        dataStore.putStringSet("setKey", set);
+        set.add("b");
+
+        assertEquals(1, dataStore.getStringSet("setKey", null).size());
+    }
+
+    @Test
+    public void test_load_migratesLegacyPreferences() {
+        final Map<String, Object> legacyValues = new HashMap<>();
+        legacyValues.put("stringKey", "stringValue");
+        legacyValues.put("setKey", new HashSet<>(Arrays.asList("a")));
+        legacyValues.put("intKey", 1);
+        when(mockPreferences.getAll()).thenReturn((Map) legacyValues);
+
+        final AssuranceDataStore dataStore = createLoadedDataStore();
+
+        assertEquals("stringValue", dataStore.getString("stringKey", null));
+        assertEquals(new HashSet<>(Arrays.asList("a")), dataStore.getStringSet("setKey", null));
+        assertNull(dataStore.getString("intKey", null));
+        assertTrue(file.exists());
+        verify(mockEditor).clear();
+        verify(mockEditor).apply();
+    }
+
+    @Test
+    public void test_load_existingFile_legacyPreferencesIgnored() {
+        createLoadedDataStore().putString("stringKey", "stringValue");
+        executor.runAll();
+
+        createLoadedDataStore();
+
+        // only the first store, created without a file, looked for legacy values
+        verify(mockPreferences, times(1)).getAll();
+    }
+
+    @Test
+    public void test_load_corruptedFile_startsEmpty() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {0, 0, 0, 1, 0, 0, 0, 5, 1});
+        }
+
+        final AssuranceDataStore dataStore = createLoadedDataStore();
+
+        assertTrue(dataStore.isLoaded());
+        assertNull(dataStore.getString("stringKey", null));
+    }
+
+    @Test
+    public void test_putBeforeLoad_notOverwrittenByLoadedValue() {
+        final AssuranceDataStore dataStore = createLoadedDataStore();
+        dataStore.putString("stringKey", "persistedValue");
+        executor.runAll();
+
+        final AssuranceDataStore reloadedDataStore =
+                new AssuranceDataStore(file, mockContext, executor);
+        reloadedDataStore.preload();
+        reloadedDataStore.putString("stringKey", "newValue");
+        executor.runAll();
+
+        assertEquals("newValue", reloadedDataStore.getString("stringKey", null));
+        assertEquals("newValue", createLoadedDataStore().getString("stringKey", null));
+    }
+
+    @Test
+    public void test_whenLoaded_deferredUntilLoaded() {
+        final List<String> calls = new ArrayList<>();
+        final AssuranceDataStore dataStore = new AssuranceDataStore(file, mockContext, executor);
+        dataStore.preload();
+
+        dataStore.whenLoaded(() -> calls.add("first"));
+        dataStore.whenLoaded(() -> calls.add("second"));
+
+        assertFalse(dataStore.isLoaded());
+        assertTrue(calls.isEmpty());
+
+        executor.runAll();
+        dataStore.whenLoaded(() -> calls.add("third"));
+
+        assertEquals(Arrays.asList("first", "second", "third"), calls);
+    }
+
+    @Test
+    public void test_preload_loadsOnce() {
+        final AssuranceDataStore dataStore = new AssuranceDataStore(file, mockContext, executor);
+
+        dataStore.preload();
+        dataStore.preload();
+
+        assertEquals(1, executor.tasks.size());
+    }
+
+    @Test
+    public void test_inMemory_loadedAndNotPersisted() {
+        final AssuranceDataStore dataStore = AssuranceDataStore.inMemory();
+        final List<String> calls = new ArrayList<>();
+
+        dataStore.whenLoaded(() -> calls.add("loaded"));
+        dataStore.putString("stringKey", "stringValue");
+
+        assertTrue(dataStore.isLoaded());
+        assertEquals(Arrays.asList("loaded"), calls);
+        assertEquals("stringValue", dataStore.getString("stringKey", null));
+    }
+
+    private AssuranceDataStore createLoadedDataStore() {
+        final AssuranceDataStore dataStore = new AssuranceDataStore(file, mockContext, executor);
+        dataStore.preload();
+        executor.runAll();
+        return dataStore;
+    }
+
+    /** Queues the tasks until {@link #runAll()} is called. */
+    private static class QueuedExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(final Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+}
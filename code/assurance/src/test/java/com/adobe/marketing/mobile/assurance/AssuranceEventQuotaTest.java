@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AssuranceEventQuotaTest {
+
+    @Test
+    public void test_tryAcquire_AllowsBurstOfOneSecond() {
+        final AssuranceEventQuota quota = new AssuranceEventQuota(3);
+
+        assertTrue(quota.tryAcquire(0));
+        assertTrue(quota.tryAcquire(0));
+        assertTrue(quota.tryAcquire(0));
+        assertFalse(quota.tryAcquire(0));
+    }
+
+    @Test
+    public void test_tryAcquire_RefillsOverTime() {
+        final AssuranceEventQuota quota = new AssuranceEventQuota(10);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(quota.tryAcquire(0));
+        }
+
+        // one event per 100 ms at 10 events per second
+        assertFalse(quota.tryAcquire(50));
+        assertTrue(quota.tryAcquire(100));
+        assertFalse(quota.tryAcquire(100));
+    }
+
+    @Test
+    public void test_tryAcquire_RefillCappedAtOneSecondOfEvents() {
+        final AssuranceEventQuota quota = new AssuranceEventQuota(2);
+        quota.tryAcquire(0);
+
+        int acquired = 0;
+
+        while (quota.tryAcquire(60000)) {
+            acquired++;
+        }
+
+        assertEquals(2, acquired);
+    }
+
+    @Test
+    public void test_tryAcquire_ClockGoingBackwards_DoesNotRefill() {
+        final AssuranceEventQuota quota = new AssuranceEventQuota(1);
+
+        assertTrue(quota.tryAcquire(1000));
+        assertFalse(quota.tryAcquire(0));
+        assertFalse(quota.tryAcquire(1500));
+        assertTrue(quota.tryAcquire(2000));
+    }
+
+    @Test
+    public void test_constructor_NonPositiveRate_AllowsOneEventPerSecond() {
+        final AssuranceEventQuota quota = new AssuranceEventQuota(0);
+
+        assertEquals(1, quota.getMaxEventsPerSecond());
+        assertTrue(quota.tryAcquire(0));
+        assertFalse(quota.tryAcquire(0));
+    }
+}
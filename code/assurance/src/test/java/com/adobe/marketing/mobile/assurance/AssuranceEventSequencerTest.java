@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+public class AssuranceEventSequencerTest {
+    private static final String VENDOR = "com.example.vendor";
+
+    private final AssuranceEventSequencer sequencer = new AssuranceEventSequencer();
+
+    @Test
+    public void test_getLane() {
+        assertEquals(
+                AssuranceConstants.SequenceLane.EVENTS,
+                AssuranceEventSequencer.getLane(
+                        new AssuranceEvent(
+                                AssuranceConstants.AssuranceEventType.GENERIC,
+                                Collections.<String, Object>emptyMap())));
+        assertEquals(
+                AssuranceConstants.SequenceLane.LOGS,
+                AssuranceEventSequencer.getLane(
+                        new AssuranceEvent(
+                                AssuranceConstants.AssuranceEventType.LOG,
+                                Collections.<String, Object>emptyMap())));
+        assertEquals(
+                VENDOR,
+                AssuranceEventSequencer.getLane(
+                        new AssuranceEvent(VENDOR, "metrics", null, null, 0L)));
+
+        sequencer.recordGap(VENDOR, AssuranceConstants.GapReason.QUOTA, 1);
+        assertEquals(VENDOR, AssuranceEventSequencer.getLane(sequencer.pollGap()));
+    }
+
+    @Test
+    public void test_stamp_NumbersEachLaneIndependently() {
+        final Map<String, Object> metadata = new HashMap<>();
+        metadata.put("key", "value");
+        final AssuranceEvent event =
+                new AssuranceEvent(
+                        AssuranceConstants.VENDOR_ASSURANCE_MOBILE,
+                        AssuranceConstants.AssuranceEventType.GENERIC,
+                        metadata,
+                        null,
+                        0L);
+
+        final AssuranceEvent first = sequencer.stamp(event, AssuranceConstants.SequenceLane.EVENTS);
+        final AssuranceEvent log = sequencer.stamp(event, AssuranceConstants.SequenceLane.LOGS);
+        final AssuranceEvent second =
+                sequencer.stamp(event, AssuranceConstants.SequenceLane.EVENTS);
+
+        assertEquals(1L, getSequenceNumber(first));
+        assertEquals(1L, getSequenceNumber(log));
+        assertEquals(2L, getSequenceNumber(second));
+        assertEquals(
+                AssuranceConstants.SequenceLane.LOGS,
+                log.getMetadata().get(AssuranceConstants.AssuranceEventKeys.SEQUENCE_LANE));
+
+        // the copy keeps the identity and the metadata of the event
+        assertEquals(event.eventID, second.eventID);
+        assertEquals(event.eventNumber, second.eventNumber);
+        assertEquals("value", second.getMetadata().get("key"));
+        assertEquals(1, metadata.size());
+    }
+
+    @Test
+    public void test_drainGaps_AggregatesPerReason() {
+        sequencer.recordGap(
+                AssuranceConstants.SequenceLane.LOGS, AssuranceConstants.GapReason.FILTERED, 1);
+        sequencer.recordGap(
+                AssuranceConstants.SequenceLane.LOGS, AssuranceConstants.GapReason.FILTERED, 2);
+        sequencer.recordGap(
+                AssuranceConstants.SequenceLane.LOGS, AssuranceConstants.GapReason.DROPPED, 1);
+        sequencer.recordGap(
+                AssuranceConstants.SequenceLane.EVENTS, AssuranceConstants.GapReason.EVICTED, 4);
+        sequencer.recordGap(
+                AssuranceConstants.SequenceLane.EVENTS, AssuranceConstants.GapReason.EVICTED, 0);
+
+        final List<AssuranceEvent> gapRecords =
+                sequencer.drainGaps(AssuranceConstants.SequenceLane.LOGS);
+
+        assertEquals(2, gapRecords.size());
+        final Map<String, Long> counts = new HashMap<>();
+
+        for (final AssuranceEvent gapRecord : gapRecords) {
+            assertEquals(AssuranceConstants.AssuranceEventType.GAP, gapRecord.type);
+            assertEquals(
+                    AssuranceConstants.SequenceLane.LOGS,
+                    gapRecord.getPayload().get(AssuranceConstants.GapRecordKeys.LANE));
+            counts.put(
+                    (String) gapRecord.getPayload().get(AssuranceConstants.GapRecordKeys.REASON),
+                    (Long) gapRecord.getPayload().get(AssuranceConstants.GapRecordKeys.COUNT));
+        }
+
+        assertEquals(3L, (long) counts.get(AssuranceConstants.GapReason.FILTERED));
+        assertEquals(1L, (long) counts.get(AssuranceConstants.GapReason.DROPPED));
+        assertTrue(sequencer.drainGaps(AssuranceConstants.SequenceLane.LOGS).isEmpty());
+        assertTrue(sequencer.drainGaps("unknown").isEmpty());
+
+        final AssuranceEvent evicted = sequencer.pollGap();
+        assertEquals(
+                AssuranceConstants.GapReason.EVICTED,
+                evicted.getPayload().get(AssuranceConstants.GapRecordKeys.REASON));
+        assertEquals(4L, evicted.getPayload().get(AssuranceConstants.GapRecordKeys.COUNT));
+        assertNull(sequencer.pollGap());
+    }
+
+    @Test
+    public void test_concurrentStampsAndGaps_NoneLost() throws Exception {
+        final int threadCount = 4;
+        final int iterations = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadCount];
+        final AssuranceEvent event =
+                new AssuranceEvent(
+                        AssuranceConstants.AssuranceEventType.GENERIC,
+                        Collections.<String, Object>emptyMap());
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] =
+                    new Thread(
+                            new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        start.await();
+                                    } catch (final InterruptedException e) {
+                                        return;
+                                    }
+
+                                    for (int j = 0; j < iterations; j++) {
+                                        sequencer.recordGap(
+                                                VENDOR, AssuranceConstants.GapReason.QUOTA, 1);
+                                        sequencer.stamp(event, VENDOR);
+                                    }
+                                }
+                            });
+            threads[i].start();
+        }
+
+        start.countDown();
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final AssuranceEvent gapRecord = sequencer.pollGap();
+        assertEquals(
+                (long) threadCount * iterations,
+                gapRecord.getPayload().get(AssuranceConstants.GapRecordKeys.COUNT));
+        assertEquals(
+                threadCount * iterations + 1L,
+                getSequenceNumber(sequencer.stamp(event, VENDOR)));
+    }
+
+    private static long getSequenceNumber(final AssuranceEvent event) {
+        return (Long)
+                event.getMetadata().get(AssuranceConstants.AssuranceEventKeys.SEQUENCE_NUMBER);
+    }
+}
@@ -14,8 +14,11 @@ package com.adobe.marketing.mobile.assurance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,7 +34,7 @@ public class AssuranceEventTest {
         assertNotNull(e.eventID);
         assertEquals(e.vendor, AssuranceTestConstants.VENDOR_ASSURANCE_MOBILE);
         assertEquals(e.type, "testType");
-        assertNull(e.payload);
+        assertNull(e.getPayload());
         assertTrue(e.timestamp > 0);
         assertTrue(e.eventNumber > 0);
     }
@@ -45,7 +48,7 @@ public class AssuranceEventTest {
         assertNotNull(e.eventID);
         assertNull(e.type);
         assertEquals(e.vendor, AssuranceTestConstants.VENDOR_ASSURANCE_MOBILE);
-        assertEquals(e.payload, payload);
+        assertEquals(e.getPayload(), payload);
         assertTrue(e.timestamp > 0);
         assertTrue(e.eventNumber > 0);
     }
@@ -56,7 +59,7 @@ public class AssuranceEventTest {
 
         assertNotNull(e);
         assertNull(e.type);
-        assertNull(e.payload);
+        assertNull(e.getPayload());
         assertEquals(AssuranceTestConstants.VENDOR_ASSURANCE_MOBILE, e.vendor);
         assertTrue(e.timestamp > 0);
         assertTrue(e.eventNumber > 0);
@@ -72,7 +75,7 @@ public class AssuranceEventTest {
 
         assertEquals(AssuranceTestConstants.VENDOR_ASSURANCE_MOBILE, e.vendor);
         assertEquals(typeName, e.type);
-        assertEquals(payload, e.payload);
+        assertEquals(payload, e.getPayload());
         assertTrue(e.timestamp > 0);
     }
 
@@ -115,7 +118,7 @@ public class AssuranceEventTest {
 
         assertNotNull(e);
 
-        assertNull(e.payload);
+        assertNull(e.getPayload());
 
         assertEquals("testEventID", e.eventID);
         assertEquals("testVendor", e.vendor);
@@ -165,22 +168,22 @@ public class AssuranceEventTest {
         assertEquals("testType", e.type);
         assertEquals(1560205144047L, e.timestamp);
         assertEquals(5, e.eventNumber);
-        assertNotNull(e.payload);
+        assertNotNull(e.getPayload());
 
-        assertEquals("this is a string", e.payload.get("testString"));
-        assertEquals(5, e.payload.get("testInt"));
-        assertEquals(3.5d, e.payload.get("testFloat"));
-        assertEquals(false, e.payload.get("testBool"));
-        assertEquals(JSONObject.NULL, e.payload.get("testNull"));
+        assertEquals("this is a string", e.getPayload().get("testString"));
+        assertEquals(5, e.getPayload().get("testInt"));
+        assertEquals(3.5d, e.getPayload().get("testFloat"));
+        assertEquals(false, e.getPayload().get("testBool"));
+        assertEquals(JSONObject.NULL, e.getPayload().get("testNull"));
 
-        final List list = (List) e.payload.get("testArray");
+        final List list = (List) e.getPayload().get("testArray");
         assertNotNull(list);
         assertEquals(3, list.size());
         assertEquals("array item 1", list.get(0));
         assertEquals("array item 2", list.get(1));
         assertEquals("array item 3", list.get(2));
 
-        final Map map = (Map) e.payload.get("testObject");
+        final Map map = (Map) e.getPayload().get("testObject");
         assertNotNull(map);
         assertEquals("nestedValue", map.get("nestedKey"));
 
@@ -216,7 +219,7 @@ public class AssuranceEventTest {
         assertEquals(originalEvent.type, copiedEvent.type);
         assertEquals(originalEvent.eventNumber, copiedEvent.eventNumber);
         assertEquals(originalEvent.timestamp, copiedEvent.timestamp);
-        assertEquals(originalEvent.payload, copiedEvent.payload);
+        assertEquals(originalEvent.getPayload(), copiedEvent.getPayload());
         assertEquals(originalEvent.eventID, copiedEvent.eventID);
     }
 
@@ -370,4 +373,153 @@ public class AssuranceEventTest {
 
         assertNull(event.getMetadata());
     }
+
+    @Test
+    public void getControlTypeAndDetail_when_ControlEventFromJSON() throws JSONException {
+        final AssuranceEvent event =
+                new AssuranceEvent(
+                        "{\"eventID\": \"id\", \"vendor\": \"vendor\", \"type\": \"control\","
+                                + " \"payload\": {\"type\": \"startEventForwarding\","
+                                + " \"detail\": {\"capabilities\": [\"a\"]}}}");
+
+        assertEquals("startEventForwarding", event.getControlType());
+        final HashMap<String, Object> detail = event.getInternalControlDetail();
+        assertNotNull(detail);
+        assertEquals(Collections.singletonList("a"), detail.get("capabilities"));
+        assertEquals(detail, event.getControlDetail());
+
+        // the detail is converted once and shared with the payload
+        assertSame(detail, event.getInternalControlDetail());
+        assertSame(detail, event.getInternalPayload().get("detail"));
+    }
+
+    @Test
+    public void getControlDetail_when_PayloadDecodedFirst() throws JSONException {
+        final AssuranceEvent event =
+                new AssuranceEvent(
+                        "{\"eventID\": \"id\", \"vendor\": \"vendor\", \"type\": \"control\","
+                                + " \"payload\": {\"detail\": {\"key\": \"value\"}}}");
+
+        final Map<String, Object> payload = event.getInternalPayload();
+
+        assertSame(payload, event.getInternalPayload());
+        assertNull(event.getControlType());
+        assertSame(payload.get("detail"), event.getInternalControlDetail());
+        assertEquals("value", event.getControlDetail().get("key"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getPayloadMetadataAndControlDetail_AreReadOnly() throws JSONException {
+        final AssuranceEvent event =
+                new AssuranceEvent(
+                        "{\"eventID\": \"id\", \"vendor\": \"vendor\", \"type\": \"control\","
+                                + " \"metadata\": {\"key\": \"value\"},"
+                                + " \"payload\": {\"type\": \"startEventForwarding\","
+                                + " \"detail\": {\"capabilities\": [\"a\"]}}}");
+
+        assertUnsupported(event.getMetadata());
+        assertUnsupported(event.getPayload());
+        assertUnsupported((Map<String, Object>) event.getPayload().get("detail"));
+        assertUnsupported(event.getControlDetail());
+
+        try {
+            ((List<Object>) event.getControlDetail().get("capabilities")).add("b");
+            fail("The capabilities list should be read only");
+        } catch (final UnsupportedOperationException expected) {
+            // expected
+        }
+
+        // the event itself is unchanged
+        assertEquals("value", event.getInternalMetadata().get("key"));
+        assertEquals(
+                Collections.singletonList("a"),
+                event.getInternalControlDetail().get("capabilities"));
+    }
+
+    @Test
+    public void getPayloadMetadataAndControlDetail_CopiedOnce() throws JSONException {
+        final AssuranceEvent event =
+                new AssuranceEvent(
+                        "{\"eventID\": \"id\", \"vendor\": \"vendor\", \"type\": \"control\","
+                                + " \"metadata\": {\"key\": \"value\"},"
+                                + " \"payload\": {\"type\": \"screenshot\","
+                                + " \"detail\": {\"key\": \"value\"}}}");
+
+        assertSame(event.getControlDetail(), event.getControlDetail());
+        assertSame(event.getPayload(), event.getPayload());
+        assertSame(event.getMetadata(), event.getMetadata());
+    }
+
+    private static void assertUnsupported(final Map<String, Object> map) {
+        try {
+            map.put("newKey", "newValue");
+            fail("The map should be read only");
+        } catch (final UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void getControlDetail_when_NonControlEventFromJSON() throws JSONException {
+        final AssuranceEvent event =
+                new AssuranceEvent(
+                        "{\"eventID\": \"id\", \"vendor\": \"vendor\", \"type\": \"generic\","
+                                + " \"payload\": {\"type\": \"screenshot\","
+                                + " \"detail\": {\"key\": \"value\"}}}");
+
+        assertNull(event.getControlType());
+        assertNull(event.getControlDetail());
+        assertEquals("screenshot", event.getPayload().get("type"));
+    }
+
+    @Test
+    public void getJSONRepresentation_when_PayloadNotDecoded() throws JSONException {
+        final String json =
+                "{\"eventID\": \"id\", \"vendor\": \"vendor\", \"type\": \"generic\","
+                        + " \"timestamp\": 5, \"eventNumber\": 7,"
+                        + " \"metadata\": {\"m\": 1}, \"payload\": {\"list\": [1, {\"k\": null}]}}";
+
+        assertTrue(
+                new JSONObject(json)
+                        .similar(
+                                new JSONObject(new AssuranceEvent(json).getJSONRepresentation())));
+    }
+
+    @Test
+    public void toEncodedEvent_SendsItsJSONRepresentationAsIs() {
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("key", "value");
+        final AssuranceEvent event =
+                new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload);
+
+        final AssuranceEvent encodedEvent = event.toEncodedEvent();
+
+        assertEquals(event.eventID, encodedEvent.eventID);
+        assertEquals(event.eventNumber, encodedEvent.eventNumber);
+        assertEquals(event.getJSONRepresentation(), encodedEvent.getJSONRepresentation());
+        assertSame(encodedEvent, encodedEvent.toEncodedEvent());
+        assertNull(event.getEncodedRepresentation());
+    }
+
+    @Test
+    public void toEncodedEvent_DecodesPayloadOnFirstUse() {
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("key", "value");
+        final Map<String, Object> metadata = new HashMap<>();
+        metadata.put("chunkId", "id");
+        final AssuranceEvent encodedEvent =
+                new AssuranceEvent(
+                                AssuranceConstants.VENDOR_ASSURANCE_MOBILE,
+                                AssuranceConstants.AssuranceEventType.GENERIC,
+                                metadata,
+                                payload,
+                                5)
+                        .toEncodedEvent();
+
+        assertEquals(payload, encodedEvent.getInternalPayload());
+        assertEquals(metadata, encodedEvent.getInternalMetadata());
+        assertSame(encodedEvent.getInternalPayload(), encodedEvent.getInternalPayload());
+        assertEquals(payload, encodedEvent.withMetadata(null).getInternalPayload());
+    }
 }
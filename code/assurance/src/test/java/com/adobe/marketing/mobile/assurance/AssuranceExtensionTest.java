@@ -12,7 +12,9 @@
 package com.adobe.marketing.mobile.assurance;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -139,6 +141,37 @@ public class AssuranceExtensionTest {
                         null);
     }
 
+    @Test
+    public void test_onRegistered_RestoresStateOnceDataStoreLoaded() {
+        // setup
+        final AssuranceDataStore mockDataStore = Mockito.mock(AssuranceDataStore.class);
+        when(mockAssuranceStateManager.getSessionId()).thenReturn("sampleSessionId");
+        final Event event =
+                new Event.Builder("Mars landing event", EventType.ACQUISITION, EventSource.OS)
+                        .build();
+        final AssuranceExtension extension =
+                new AssuranceExtension(
+                        mockApi,
+                        mockDataStore,
+                        mockAssuranceStateManager,
+                        mockAssuranceConnectionDataStore,
+                        mockAssuranceSessionOrchestrator);
+
+        // test
+        extension.onRegistered();
+
+        // verify that events are held and the state is not shared until the store is loaded
+        final ArgumentCaptor<Runnable> loadCallbackCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockDataStore).whenLoaded(loadCallbackCaptor.capture());
+        assertFalse(extension.readyForEvent(event));
+        verify(mockAssuranceStateManager, never()).shareAssuranceSharedState(anyString());
+
+        loadCallbackCaptor.getValue().run();
+
+        assertTrue(extension.readyForEvent(event));
+        verify(mockAssuranceStateManager, times(1)).shareAssuranceSharedState("sampleSessionId");
+    }
+
     @Test
     public void test_StartSession_InvalidSessionID() throws Exception {
         // setup
@@ -212,24 +245,24 @@ public class AssuranceExtensionTest {
         // Verify the assurance event payload
         assertEquals(
                 "Mars landing event",
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_NAME));
         assertEquals(
                 EventType.ACQUISITION.toLowerCase(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_TYPE));
         assertEquals(
                 EventSource.OS.toLowerCase(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_SOURCE));
         assertEquals(
                 event.getUniqueIdentifier(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey
                                 .ACP_EXTENSION_EVENT_UNIQUE_IDENTIFIER));
         assertEquals(
                 event.getEventData(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_DATA));
     }
 
@@ -273,32 +306,34 @@ public class AssuranceExtensionTest {
         // Verify the shared state content event payload
         assertEquals(
                 "Shared state change",
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_NAME));
         assertEquals(
                 EventType.HUB.toLowerCase(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_TYPE));
         assertEquals(
                 EventSource.SHARED_STATE.toLowerCase(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_SOURCE));
         assertEquals(
                 event.getUniqueIdentifier(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey
                                 .ACP_EXTENSION_EVENT_UNIQUE_IDENTIFIER));
         assertEquals(
                 sharedStateChangeOwner,
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_DATA));
 
         // unpack and verify shared state content in assurance event
-        HashMap<String, Object> payloadMetadata =
-                (HashMap<String, Object>)
-                        capturedEvent.payload.get(AssuranceTestConstants.PayloadDataKeys.METADATA);
-        HashMap<String, Object> sharedStateContent =
-                (HashMap<String, Object>)
+        Map<String, Object> payloadMetadata =
+                (Map<String, Object>)
+                        capturedEvent
+                                .getPayload()
+                                .get(AssuranceTestConstants.PayloadDataKeys.METADATA);
+        Map<String, Object> sharedStateContent =
+                (Map<String, Object>)
                         payloadMetadata.get(AssuranceTestConstants.PayloadDataKeys.STATE_CONTENTS);
         assertEquals(SAMPLE_STATE_DATA, sharedStateContent);
     }
@@ -343,32 +378,34 @@ public class AssuranceExtensionTest {
         // Verify the shared state content event payload
         assertEquals(
                 "Shared state change (XDM)",
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_NAME));
         assertEquals(
                 EventType.HUB.toLowerCase(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_TYPE));
         assertEquals(
                 EventSource.SHARED_STATE.toLowerCase(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_SOURCE));
         assertEquals(
                 event.getUniqueIdentifier(),
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey
                                 .ACP_EXTENSION_EVENT_UNIQUE_IDENTIFIER));
         assertEquals(
                 sharedStateChangeOwner,
-                capturedEvent.payload.get(
+                capturedEvent.getPayload().get(
                         AssuranceTestConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_DATA));
 
         // unpack and verify shared state content in assurance event
-        HashMap<String, Object> payloadMetadata =
-                (HashMap<String, Object>)
-                        capturedEvent.payload.get(AssuranceTestConstants.PayloadDataKeys.METADATA);
-        HashMap<String, Object> sharedStateContent =
-                (HashMap<String, Object>)
+        Map<String, Object> payloadMetadata =
+                (Map<String, Object>)
+                        capturedEvent
+                                .getPayload()
+                                .get(AssuranceTestConstants.PayloadDataKeys.METADATA);
+        Map<String, Object> sharedStateContent =
+                (Map<String, Object>)
                         payloadMetadata.get(AssuranceTestConstants.PayloadDataKeys.XDM_STATE_DATA);
         assertEquals(SAMPLE_STATE_DATA, sharedStateContent);
     }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Activity;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+import android.view.Display;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssuranceFloatingButtonTest {
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+
+    @Mock private AssuranceSessionOrchestrator.ApplicationHandle mockApplicationHandle;
+    @Mock private View.OnClickListener mockOnClickListener;
+
+    private Activity activityA;
+    private Activity activityB;
+    private AssuranceFloatingButton floatingButton;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        activityA = Robolectric.buildActivity(Activity.class).setup().get();
+        activityB = Robolectric.buildActivity(Activity.class).setup().get();
+        when(mockApplicationHandle.getAppContext()).thenReturn(RuntimeEnvironment.application);
+        when(mockApplicationHandle.getCurrentActivity()).thenReturn(activityA);
+        floatingButton = new AssuranceFloatingButton(mockApplicationHandle, mockOnClickListener);
+    }
+
+    @Test
+    public void test_display_AddsButtonToCurrentActivity() {
+        // test
+        floatingButton.display();
+
+        // verify
+        final AssuranceFloatingButtonView buttonView = floatingButton.getButtonView();
+        final int expectedSize =
+                Math.round(activityA.getResources().getDisplayMetrics().density * 80.0f);
+        assertSame(decorView(activityA), buttonView.getParent());
+        assertSame(RuntimeEnvironment.application, buttonView.getContext());
+        assertEquals(expectedSize, buttonView.getLayoutParams().width);
+        assertEquals(expectedSize, buttonView.getLayoutParams().height);
+        assertEquals(View.VISIBLE, buttonView.getVisibility());
+    }
+
+    @Test
+    public void test_activityTransition_ReusesButtonView() {
+        // prepare
+        floatingButton.display();
+        final AssuranceFloatingButtonView buttonView = floatingButton.getButtonView();
+
+        // test
+        floatingButton.onActivityResumed(activityB);
+
+        // verify
+        assertSame(buttonView, floatingButton.getButtonView());
+        assertSame(decorView(activityB), buttonView.getParent());
+        assertNull(decorView(activityA).findViewWithTag(AssuranceFloatingButtonView.VIEW_TAG));
+
+        // test
+        floatingButton.onActivityResumed(activityA);
+
+        // verify
+        assertSame(buttonView, floatingButton.getButtonView());
+        assertSame(decorView(activityA), buttonView.getParent());
+        assertNull(decorView(activityB).findViewWithTag(AssuranceFloatingButtonView.VIEW_TAG));
+    }
+
+    @Test
+    public void test_activityTransition_NoLayoutPassWhenButtonAlreadyAttached() {
+        // prepare
+        floatingButton.setCurrentGraphic(AssuranceFloatingButtonView.Graphic.CONNECTED);
+        floatingButton.display();
+        final AssuranceFloatingButtonView buttonView = floatingButton.getButtonView();
+        layout(activityA);
+
+        // test, e.g. returning from the status screen or a dialog
+        floatingButton.onActivityResumed(activityA);
+        floatingButton.setCurrentGraphic(AssuranceFloatingButtonView.Graphic.CONNECTED);
+
+        // verify
+        assertFalse(buttonView.isLayoutRequested());
+        assertFalse(decorView(activityA).isLayoutRequested());
+    }
+
+    @Test
+    public void test_activityTransition_OnlyNewWindowIsLaidOut() {
+        // prepare
+        floatingButton.display();
+        layout(activityA);
+        layout(activityB);
+
+        // test
+        floatingButton.onActivityResumed(activityB);
+
+        // verify
+        assertTrue(decorView(activityB).isLayoutRequested());
+
+        // prepare
+        layout(activityB);
+
+        // test
+        floatingButton.onActivityResumed(activityB);
+
+        // verify
+        assertFalse(floatingButton.getButtonView().isLayoutRequested());
+        assertFalse(decorView(activityB).isLayoutRequested());
+    }
+
+    @Test
+    public void test_setPosition_UsesTranslationWithoutLayoutPass() {
+        // prepare
+        floatingButton.display();
+        final AssuranceFloatingButtonView buttonView = floatingButton.getButtonView();
+        layout(activityA);
+
+        // test
+        buttonView.setPosition(100.0f, 300.0f);
+
+        // verify
+        assertEquals(100.0f, buttonView.getX(), 0.0f);
+        assertEquals(300.0f, buttonView.getY(), 0.0f);
+        assertFalse(buttonView.isLayoutRequested());
+        assertFalse(decorView(activityA).isLayoutRequested());
+    }
+
+    @Test
+    public void test_display_KeepsLastKnownYPositionAcrossActivities() {
+        // prepare
+        floatingButton.display();
+        layout(activityA);
+        final AssuranceFloatingButtonView buttonView = floatingButton.getButtonView();
+        buttonView.setPosition(buttonView.getX(), 300.0f);
+
+        // test
+        floatingButton.onActivityResumed(activityB);
+
+        // verify
+        assertEquals(300.0f, buttonView.getY(), 0.0f);
+    }
+
+    @Test
+    public void test_remove_DetachesButton() {
+        // prepare
+        floatingButton.display();
+        final AssuranceFloatingButtonView buttonView = floatingButton.getButtonView();
+
+        // test
+        floatingButton.remove();
+        floatingButton.onActivityResumed(activityB);
+
+        // verify
+        assertNull(buttonView.getParent());
+        assertNull(decorView(activityB).findViewWithTag(AssuranceFloatingButtonView.VIEW_TAG));
+    }
+
+    @Test
+    public void test_onActivityDestroyed_DetachesButton() {
+        // prepare
+        floatingButton.display();
+        final AssuranceFloatingButtonView buttonView = floatingButton.getButtonView();
+
+        // test
+        floatingButton.onActivityDestroyed(activityB);
+
+        // verify
+        assertSame(decorView(activityA), buttonView.getParent());
+
+        // test
+        floatingButton.onActivityDestroyed(activityA);
+
+        // verify
+        assertNull(buttonView.getParent());
+    }
+
+    @Test
+    public void test_displayMetricsCache_ReadsDisplayOncePerConfiguration() {
+        // prepare
+        final Activity mockActivity = mock(Activity.class);
+        final Resources mockResources = mock(Resources.class);
+        final WindowManager mockWindowManager = mock(WindowManager.class);
+        final Display mockDisplay = mock(Display.class);
+        final Configuration configuration = new Configuration();
+        configuration.orientation = Configuration.ORIENTATION_PORTRAIT;
+        when(mockActivity.getResources()).thenReturn(mockResources);
+        when(mockResources.getConfiguration()).thenReturn(configuration);
+        when(mockActivity.getWindowManager()).thenReturn(mockWindowManager);
+        when(mockWindowManager.getDefaultDisplay()).thenReturn(mockDisplay);
+        final AssuranceFloatingButton.DisplayMetricsCache cache =
+                new AssuranceFloatingButton.DisplayMetricsCache();
+
+        // test
+        final DisplayMetrics metrics = cache.get(mockActivity);
+
+        // verify
+        assertSame(metrics, cache.get(mockActivity));
+        verify(mockDisplay, times(1)).getMetrics(any(DisplayMetrics.class));
+
+        // test
+        configuration.orientation = Configuration.ORIENTATION_LANDSCAPE;
+        cache.get(mockActivity);
+
+        // verify
+        verify(mockDisplay, times(2)).getMetrics(any(DisplayMetrics.class));
+    }
+
+    private static ViewGroup decorView(final Activity activity) {
+        return (ViewGroup) activity.getWindow().getDecorView();
+    }
+
+    /** Runs a layout pass over the window of the {@code activity}, clearing pending requests. */
+    private static void layout(final Activity activity) {
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.measure(
+                View.MeasureSpec.makeMeasureSpec(SCREEN_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SCREEN_HEIGHT, View.MeasureSpec.EXACTLY));
+        decorView.layout(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+    }
+}
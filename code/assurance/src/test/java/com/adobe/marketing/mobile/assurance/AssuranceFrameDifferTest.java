@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class AssuranceFrameDifferTest {
+
+    private static final int WIDTH = 80;
+    private static final int HEIGHT = 40;
+
+    @Test
+    public void test_diff_FirstFrameChangesAllTiles() {
+        final AssuranceFrameDiffer differ = new AssuranceFrameDiffer(4);
+
+        final AssuranceFrameDiffer.FrameDiff diff = differ.diff(frame(0xFF000000), WIDTH, HEIGHT);
+
+        assertTrue(diff.isFirstFrame);
+        assertEquals(16, diff.totalTiles);
+        assertEquals(16, diff.changedTiles);
+        assertEquals(0, diff.left);
+        assertEquals(0, diff.top);
+        assertEquals(WIDTH, diff.getWidth());
+        assertEquals(HEIGHT, diff.getHeight());
+    }
+
+    @Test
+    public void test_diff_IdenticalFrameHasNoChanges() {
+        final AssuranceFrameDiffer differ = new AssuranceFrameDiffer(4);
+        differ.diff(frame(0xFF000000), WIDTH, HEIGHT);
+
+        final AssuranceFrameDiffer.FrameDiff diff = differ.diff(frame(0xFF000000), WIDTH, HEIGHT);
+
+        assertFalse(diff.hasChanges());
+        assertFalse(diff.isFirstFrame);
+        assertEquals(0, diff.getWidth());
+        assertEquals(0, diff.getHeight());
+    }
+
+    @Test
+    public void test_diff_ReportsBoundsOfChangedTiles() {
+        final AssuranceFrameDiffer differ = new AssuranceFrameDiffer(4);
+        differ.diff(frame(0xFF000000), WIDTH, HEIGHT);
+        final int[] changed = frame(0xFF000000);
+        // a pixel in the tile at column 2, row 1 (tiles are 20 x 10)
+        changed[15 * WIDTH + 45] = 0xFFFFFFFF;
+
+        final AssuranceFrameDiffer.FrameDiff diff = differ.diff(changed, WIDTH, HEIGHT);
+
+        assertFalse(diff.isFirstFrame);
+        assertEquals(1, diff.changedTiles);
+        assertEquals(40, diff.left);
+        assertEquals(10, diff.top);
+        assertEquals(60, diff.right);
+        assertEquals(20, diff.bottom);
+    }
+
+    @Test
+    public void test_diff_BoundsEncloseAllChangedTiles() {
+        final AssuranceFrameDiffer differ = new AssuranceFrameDiffer(4);
+        differ.diff(frame(0xFF000000), WIDTH, HEIGHT);
+        final int[] changed = frame(0xFF000000);
+        changed[0] = 0xFFFFFFFF;
+        changed[(HEIGHT - 1) * WIDTH + WIDTH - 1] = 0xFFFFFFFF;
+
+        final AssuranceFrameDiffer.FrameDiff diff = differ.diff(changed, WIDTH, HEIGHT);
+
+        assertEquals(2, diff.changedTiles);
+        assertEquals(0, diff.left);
+        assertEquals(0, diff.top);
+        assertEquals(WIDTH, diff.right);
+        assertEquals(HEIGHT, diff.bottom);
+    }
+
+    @Test
+    public void test_diff_SizeChangeIsReportedAsFirstFrame() {
+        final AssuranceFrameDiffer differ = new AssuranceFrameDiffer(4);
+        differ.diff(frame(0xFF000000), WIDTH, HEIGHT);
+
+        final AssuranceFrameDiffer.FrameDiff diff =
+                differ.diff(new int[HEIGHT * WIDTH], HEIGHT, WIDTH);
+
+        assertTrue(diff.isFirstFrame);
+        assertEquals(diff.totalTiles, diff.changedTiles);
+    }
+
+    @Test
+    public void test_reset_NextFrameIsReportedAsFirstFrame() {
+        final AssuranceFrameDiffer differ = new AssuranceFrameDiffer(4);
+        differ.diff(frame(0xFF000000), WIDTH, HEIGHT);
+
+        differ.reset();
+        final AssuranceFrameDiffer.FrameDiff diff = differ.diff(frame(0xFF000000), WIDTH, HEIGHT);
+
+        assertTrue(diff.isFirstFrame);
+        assertEquals(16, diff.changedTiles);
+    }
+
+    @Test
+    public void test_diff_FrameSmallerThanGrid() {
+        final AssuranceFrameDiffer differ = new AssuranceFrameDiffer(8);
+
+        final AssuranceFrameDiffer.FrameDiff diff = differ.diff(new int[6], 3, 2);
+
+        assertEquals(6, diff.totalTiles);
+        assertEquals(3, diff.getWidth());
+        assertEquals(2, diff.getHeight());
+    }
+
+    private static int[] frame(final int color) {
+        final int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, color);
+        return pixels;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.logging.Logger;
+import org.json.JSONException;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the parse and serialize throughput of the {@link AssuranceJsonCodec}s on the test
+ * fixtures: the manifest of the client info event and generic events carrying the payload
+ * fixtures. The numbers are logged for comparison between changes; only the equivalence of the
+ * decoded documents is asserted.
+ */
+@Ignore("Benchmark, run on demand")
+public class AssuranceJsonCodecBenchmarkTest {
+    private static final Logger LOG =
+            Logger.getLogger(AssuranceJsonCodecBenchmarkTest.class.getName());
+    private static final String[] PAYLOAD_FIXTURES = {
+        "assurance_event_payload_key_value_5KB.txt",
+        "assurance_large_event_payload_key_value_20KB.txt",
+        "assurance_large_event_payload_key_value_40KB.txt",
+        "assurance_large_event_payload_key_value_emptylines.txt",
+        "assurance_large_event_payload_key_value_html.txt"
+    };
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Test
+    public void benchmark_codecs() throws Exception {
+        final List<Map<String, Object>> documents = buildDocuments();
+        final List<String> texts = new ArrayList<>();
+        long totalChars = 0;
+
+        for (final Map<String, Object> document : documents) {
+            final String text =
+                    AssuranceJsonCodecs.forName(AssuranceJsonCodecs.ORG_JSON)
+                            .encodeObject(document);
+            texts.add(text);
+            totalChars += text.length();
+        }
+
+        for (final String name :
+                Arrays.asList(AssuranceJsonCodecs.ORG_JSON, AssuranceJsonCodecs.STREAMING)) {
+            final AssuranceJsonCodec codec = AssuranceJsonCodecs.forName(name);
+
+            for (int i = 0; i < texts.size(); i++) {
+                assertEquals(documents.get(i), codec.decodeObject(texts.get(i)));
+                assertEquals(
+                        documents.get(i),
+                        codec.decodeObject(codec.encodeObject(documents.get(i))));
+            }
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                decodeAll(codec, texts);
+                encodeAll(codec, documents);
+            }
+
+            long start = System.nanoTime();
+
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                decodeAll(codec, texts);
+            }
+
+            final long decodeNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+            start = System.nanoTime();
+
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                encodeAll(codec, documents);
+            }
+
+            final long encodeNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+            LOG.info(
+                    String.format(
+                            "AssuranceJsonCodec %s: %d documents, %d chars, parse %.2f ms (%.1f"
+                                    + " MB/s), serialize %.2f ms (%.1f MB/s)",
+                            name,
+                            documents.size(),
+                            totalChars,
+                            decodeNanos / 1e6,
+                            totalChars * 1e3 / decodeNanos,
+                            encodeNanos / 1e6,
+                            totalChars * 1e3 / encodeNanos));
+        }
+    }
+
+    private static void decodeAll(final AssuranceJsonCodec codec, final List<String> texts)
+            throws JSONException {
+        for (final String text : texts) {
+            codec.decodeObject(text);
+        }
+    }
+
+    private static void encodeAll(
+            final AssuranceJsonCodec codec, final List<Map<String, Object>> documents) {
+        for (final Map<String, Object> document : documents) {
+            codec.encodeObject(document);
+        }
+    }
+
+    private List<Map<String, Object>> buildDocuments() throws Exception {
+        final List<Map<String, Object>> documents = new ArrayList<>();
+        documents.add(
+                AssuranceJsonCodecs.forName(AssuranceJsonCodecs.ORG_JSON)
+                        .decodeObject(readResourceFile("AndroidManifest_Test.json")));
+
+        for (final String fixture : PAYLOAD_FIXTURES) {
+            final String content = readResourceFile(fixture);
+            final Map<String, Object> eventData = new HashMap<>();
+            eventData.put("content", content);
+            eventData.put("lines", Arrays.asList(content.split("\n")));
+            eventData.put("length", content.length());
+            eventData.put("weight", content.length() + 0.5d);
+            eventData.put("isFixture", true);
+
+            final Map<String, Object> payload = new HashMap<>();
+            payload.put(
+                    AssuranceConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_TYPE, "type");
+            payload.put(
+                    AssuranceConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_DATA, eventData);
+
+            final Map<String, Object> event = new HashMap<>();
+            event.put(AssuranceConstants.AssuranceEventKeys.EVENT_ID, fixture);
+            event.put(AssuranceConstants.AssuranceEventKeys.VENDOR, "vendor");
+            event.put(AssuranceConstants.AssuranceEventKeys.TYPE, "generic");
+            event.put(AssuranceConstants.AssuranceEventKeys.TIMESTAMP, 1560205144047L);
+            event.put(AssuranceConstants.AssuranceEventKeys.PAYLOAD, payload);
+            documents.add(event);
+        }
+
+        return documents;
+    }
+
+    private String readResourceFile(final String fileName) throws IOException {
+        try (InputStream inputStream =
+                        getClass().getClassLoader().getResource(fileName).openStream();
+                Scanner scanner = new Scanner(inputStream, "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+public class AssuranceJsonCodecTest {
+    private static final String[] FIXTURES = {
+        "assurance_event_payload_key_value_5KB.txt",
+        "assurance_large_event_payload_key_value_emptylines.txt",
+        "assurance_large_event_payload_key_value_html.txt"
+    };
+
+    private final AssuranceJsonCodec orgJson =
+            AssuranceJsonCodecs.forName(AssuranceJsonCodecs.ORG_JSON);
+    private final AssuranceJsonCodec streaming =
+            AssuranceJsonCodecs.forName(AssuranceJsonCodecs.STREAMING);
+
+    @After
+    public void tearDown() {
+        AssuranceJsonCodecs.select(AssuranceJsonCodecs.ORG_JSON);
+    }
+
+    @Test
+    public void test_select() {
+        assertEquals(AssuranceJsonCodecs.ORG_JSON, AssuranceJsonCodecs.get().getName());
+
+        assertTrue(AssuranceJsonCodecs.select(AssuranceJsonCodecs.STREAMING));
+        assertEquals(AssuranceJsonCodecs.STREAMING, AssuranceJsonCodecs.get().getName());
+
+        assertFalse(AssuranceJsonCodecs.select("unknown"));
+        assertEquals(AssuranceJsonCodecs.STREAMING, AssuranceJsonCodecs.get().getName());
+    }
+
+    @Test
+    public void test_selectFromManifest() {
+        AssuranceJsonCodecs.selectFromManifest(
+                new AssuranceManifestMetadata(AssuranceJsonCodecs.STREAMING, null));
+        assertEquals(AssuranceJsonCodecs.STREAMING, AssuranceJsonCodecs.get().getName());
+
+        // an unknown or missing entry keeps the current codec
+        AssuranceJsonCodecs.selectFromManifest(new AssuranceManifestMetadata("unknown", null));
+        assertEquals(AssuranceJsonCodecs.STREAMING, AssuranceJsonCodecs.get().getName());
+
+        AssuranceJsonCodecs.selectFromManifest(new AssuranceManifestMetadata(null, null));
+        AssuranceJsonCodecs.selectFromManifest(null);
+        assertEquals(AssuranceJsonCodecs.STREAMING, AssuranceJsonCodecs.get().getName());
+    }
+
+    @Test
+    public void test_decodeObject_MatchesOrgJson() throws Exception {
+        final String json =
+                "{\"string\": \"a \\\"quoted\\\" \\\\ \\/ \\u00e9\\n\", \"int\": -5, \"long\":"
+                        + " 3000000000, \"double\": 3.5, \"exponent\": 1e3, \"bool\": true,"
+                        + " \"null\": null,"
+                        + " \"array\": [1, [\"nested\"], {}], \"object\": {\"key\": [false]}}";
+
+        final Map<String, Object> decoded = streaming.decodeObject(json);
+
+        assertEquals(orgJson.decodeObject(json), decoded);
+        assertEquals("a \"quoted\" \\ / \u00e9\n", decoded.get("string"));
+        assertEquals(-5, decoded.get("int"));
+        assertEquals(3000000000L, decoded.get("long"));
+        assertEquals(3.5d, decoded.get("double"));
+        assertEquals(1000d, decoded.get("exponent"));
+        assertEquals(JSONObject.NULL, decoded.get("null"));
+        assertTrue(decoded.get("object") instanceof HashMap);
+    }
+
+    @Test
+    public void test_decodeObject_Malformed() {
+        final String[] inputs = {
+            "", "[1]", "{", "{\"a\"}", "{\"a\":}", "{\"a\":1,}", "{\"a\":tru}", "{\"a\":\"b}",
+            "{\"a\":\"\\u12\"}", "{\"a\":1} {}", "{\"a\":-}"
+        };
+
+        for (final String input : inputs) {
+            try {
+                streaming.decodeObject(input);
+                fail("Expected a JSONException for " + input);
+            } catch (final JSONException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void test_encodeObject_MatchesOrgJson() throws Exception {
+        final Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("list", Arrays.asList(1, 2.5d, "three", null));
+        nested.put("array", new int[] {4, 5});
+        nested.put("jsonObject", new JSONObject("{\"key\": [true, null]}"));
+        nested.put("jsonArray", new JSONArray("[{\"a\": 1}]"));
+
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("string", "line\nbreak \"quote\" \\ \u0001 \u2028 \u00e9\ud83d\ude00");
+        map.put("wholeDouble", 3.0d);
+        map.put("negativeZero", -0d);
+        map.put("long", Long.MAX_VALUE);
+        map.put("float", 0.5f);
+        map.put("bool", false);
+        map.put("jsonNull", JSONObject.NULL);
+        map.put("nested", nested);
+
+        final String json = streaming.encodeObject(map);
+
+        assertTrue(new JSONObject(orgJson.encodeObject(map)).similar(new JSONObject(json)));
+        assertTrue(json.contains("\"wholeDouble\":3,"));
+        assertTrue(json.contains("\\u0001 \\u2028"));
+        assertEquals(map.get("string"), new JSONObject(json).getString("string"));
+    }
+
+    @Test
+    public void test_encodeObject_NullAndNonFiniteNumbers_WrittenAsNull() throws Exception {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("null", null);
+        map.put("nan", Double.NaN);
+        map.put("infinity", Float.POSITIVE_INFINITY);
+
+        assertEquals(
+                "{\"null\":null,\"nan\":null,\"infinity\":null}", streaming.encodeObject(map));
+    }
+
+    @Test
+    public void test_encodeArray() throws Exception {
+        final List<Object> list = new ArrayList<>();
+        list.add("a");
+        list.add(new HashMap<String, Object>());
+        list.add(Arrays.asList(1, 2));
+
+        assertEquals("[\"a\",{},[1,2]]", streaming.encodeArray(list));
+        assertTrue(
+                new JSONArray(orgJson.encodeArray(list))
+                        .similar(new JSONArray("[\"a\",{},[1,2]]")));
+    }
+
+    @Test
+    public void test_roundTrip_Fixtures() throws Exception {
+        for (final String fixture : FIXTURES) {
+            final Map<String, Object> payload = new HashMap<>();
+            payload.put("value", readResourceFile(fixture));
+            payload.put("lines", Arrays.asList(readResourceFile(fixture).split("\n")));
+
+            final String json = streaming.encodeObject(payload);
+
+            assertEquals(payload, orgJson.decodeObject(json));
+            assertEquals(payload, streaming.decodeObject(orgJson.encodeObject(payload)));
+            assertEquals(payload, streaming.decodeObject(json));
+        }
+
+        final String manifest = readResourceFile("AndroidManifest_Test.json");
+        final Map<String, Object> decoded = streaming.decodeObject(manifest);
+
+        assertEquals(orgJson.decodeObject(manifest), decoded);
+        assertTrue(
+                new JSONObject(manifest)
+                        .similar(new JSONObject(streaming.encodeObject(decoded))));
+    }
+
+    @Test
+    public void test_assuranceEvent_RoundTripWithStreamingCodec() throws Exception {
+        AssuranceJsonCodecs.select(AssuranceJsonCodecs.STREAMING);
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("key", "value");
+        payload.put("list", Arrays.asList(1, 2));
+        final AssuranceEvent event =
+                new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload);
+
+        final AssuranceEvent copy = new AssuranceEvent(event.getJSONRepresentation());
+
+        assertEquals(event.eventID, copy.eventID);
+        assertEquals(event.eventNumber, copy.eventNumber);
+        assertEquals(payload, copy.getPayload());
+        assertEquals(
+                new JSONObject(copy.getJSONRepresentation()).toString(),
+                new JSONObject(event.getJSONRepresentation()).toString());
+    }
+
+    private String readResourceFile(final String fileName) throws IOException {
+        try (InputStream inputStream =
+                        getClass().getClassLoader().getResource(fileName).openStream();
+                Scanner scanner = new Scanner(inputStream, "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class AssuranceLogBatcherTest {
+
+    private AssuranceScheduler mockScheduler;
+    private ScheduledFuture<?> mockFuture;
+    private List<List<AssuranceLogcatParser.LogEntry>> batches;
+    private AssuranceLogBatcher batcher;
+
+    @Before
+    public void setup() {
+        mockScheduler = Mockito.mock(AssuranceScheduler.class);
+        mockFuture = Mockito.mock(ScheduledFuture.class);
+        Mockito.doReturn(mockFuture)
+                .when(mockScheduler)
+                .schedule(any(Runnable.class), Mockito.anyLong(), any(TimeUnit.class));
+        batches = new ArrayList<>();
+        batcher =
+                new AssuranceLogBatcher(
+                        3,
+                        500,
+                        mockScheduler,
+                        new AssuranceLogBatcher.BatchListener() {
+                            @Override
+                            public void onBatch(
+                                    final List<AssuranceLogcatParser.LogEntry> entries) {
+                                batches.add(entries);
+                            }
+                        });
+    }
+
+    @Test
+    public void test_add_DeliversFullBatch() {
+        batcher.add(entry("1"));
+        batcher.add(entry("2"));
+        assertTrue(batches.isEmpty());
+
+        batcher.add(entry("3"));
+
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals("1", batches.get(0).get(0).message);
+        assertEquals("3", batches.get(0).get(2).message);
+        verify(mockFuture).cancel(false);
+    }
+
+    @Test
+    public void test_add_SchedulesFlushOncePerBatch() {
+        final ArgumentCaptor<Runnable> flushCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+        batcher.add(entry("1"));
+        batcher.add(entry("2"));
+
+        verify(mockScheduler, times(1))
+                .schedule(flushCaptor.capture(), eq(500L), eq(TimeUnit.MILLISECONDS));
+
+        // the delay elapses before the batch is full
+        flushCaptor.getValue().run();
+
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    public void test_flush_EmptyBatch_DoesNothing() {
+        batcher.flush();
+
+        assertTrue(batches.isEmpty());
+        verify(mockScheduler, never())
+                .schedule(any(Runnable.class), Mockito.anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void test_add_AfterDelivery_StartsNewBatch() {
+        batcher.add(entry("1"));
+        batcher.flush();
+
+        batcher.add(entry("2"));
+        batcher.flush();
+
+        assertEquals(2, batches.size());
+        assertEquals("2", batches.get(1).get(0).message);
+        verify(mockScheduler, times(2))
+                .schedule(any(Runnable.class), Mockito.anyLong(), any(TimeUnit.class));
+    }
+
+    private static AssuranceLogcatParser.LogEntry entry(final String message) {
+        return new AssuranceLogcatParser.LogEntry(
+                "[ 03-14 15:09:26.535  1: 2 D/Tag ]",
+                "03-14 15:09:26.535",
+                1,
+                2,
+                'D',
+                "Tag",
+                message);
+    }
+}
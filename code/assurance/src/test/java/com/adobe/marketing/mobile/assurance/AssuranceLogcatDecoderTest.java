@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import org.junit.Test;
+
+public class AssuranceLogcatDecoderTest {
+
+    private static final int SECONDS = 1700000000;
+    private static final int NANOSECONDS = 123456789;
+
+    @Test
+    public void test_next_DecodesVersion1Entry() throws IOException {
+        final AssuranceLogcatDecoder decoder =
+                decoder(entry(AssuranceLogcatDecoder.V1_HEADER_SIZE, 4, "MyTag", "hello\n"));
+
+        final AssuranceLogcatParser.LogEntry entry = decoder.next();
+
+        assertEquals(4242, entry.pid);
+        assertEquals(4257, entry.tid);
+        assertEquals('I', entry.level);
+        assertEquals("MyTag", entry.tag);
+        assertEquals("hello", entry.message);
+        assertEquals(expectedTimestamp(), entry.timestamp);
+        assertEquals("[ " + expectedTimestamp() + "  4242: 4257 I/MyTag    ]", entry.header);
+        assertNull(decoder.next());
+    }
+
+    @Test
+    public void test_next_SkipsExtendedHeaderFields() throws IOException {
+        final AssuranceLogcatDecoder decoder =
+                decoder(entry(24, 6, "Tag", "v3 entry"), entry(28, 3, "Other", "v4 entry"));
+
+        final AssuranceLogcatParser.LogEntry first = decoder.next();
+        final AssuranceLogcatParser.LogEntry second = decoder.next();
+
+        assertEquals('E', first.level);
+        assertEquals("Tag", first.tag);
+        assertEquals("v3 entry", first.message);
+        assertEquals('D', second.level);
+        assertEquals("Other", second.tag);
+        assertEquals("v4 entry", second.message);
+        assertNull(decoder.next());
+    }
+
+    @Test
+    public void test_next_EntriesSplitAcrossReads() throws IOException {
+        final byte[] bytes =
+                concat(entry(24, 5, "Tag", "first"), entry(24, 5, "Tag", "second"));
+        final AssuranceLogcatDecoder decoder =
+                new AssuranceLogcatDecoder(new TrickleInputStream(bytes, 3));
+
+        assertEquals("first", decoder.next().message);
+        assertEquals("second", decoder.next().message);
+        assertNull(decoder.next());
+    }
+
+    @Test
+    public void test_next_SkipsEntriesWithoutMessage() throws IOException {
+        final AssuranceLogcatDecoder decoder =
+                decoder(entry(24, 4, "Empty", "\n"), entry(24, 4, "Tag", "message"));
+
+        assertEquals("message", decoder.next().message);
+    }
+
+    @Test
+    public void test_next_MultiByteText() throws IOException {
+        final AssuranceLogcatDecoder decoder =
+                decoder(entry(24, 4, "T\u00e5g", "h\u00e9llo w\u00f6rld"));
+
+        final AssuranceLogcatParser.LogEntry entry = decoder.next();
+
+        assertEquals("T\u00e5g", entry.tag);
+        assertEquals("h\u00e9llo w\u00f6rld", entry.message);
+    }
+
+    @Test
+    public void test_next_TruncatedEntry_ReturnsNull() throws IOException {
+        final byte[] bytes = entry(24, 4, "Tag", "message");
+        final byte[] truncated = new byte[bytes.length - 3];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        assertNull(decoder(truncated).next());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void test_next_TextOutput_ThrowsStreamCorruptedException() throws IOException {
+        decoder("[ 03-14 15:09:26.535  4242: 4257 W/MyTag    ]\n".getBytes(StandardCharsets.UTF_8))
+                .next();
+    }
+
+    @Test
+    public void test_next_UnknownPriorities_AreClamped() throws IOException {
+        final AssuranceLogcatDecoder decoder =
+                decoder(entry(24, 0, "Low", "message"), entry(24, 8, "High", "message"));
+
+        assertEquals('V', decoder.next().level);
+        assertEquals('F', decoder.next().level);
+    }
+
+    private static AssuranceLogcatDecoder decoder(final byte[]... entries) {
+        return new AssuranceLogcatDecoder(new ByteArrayInputStream(concat(entries)));
+    }
+
+    private static byte[] entry(
+            final int headerSize, final int priority, final String tag, final String message) {
+        final byte[] tagBytes = tag.getBytes(StandardCharsets.UTF_8);
+        final byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+        final int payloadLength = 1 + tagBytes.length + 1 + messageBytes.length + 1;
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(headerSize + payloadLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) payloadLength);
+        buffer.putShort(
+                (short) (headerSize == AssuranceLogcatDecoder.V1_HEADER_SIZE ? 0 : headerSize));
+        buffer.putInt(4242);
+        buffer.putInt(4257);
+        buffer.putInt(SECONDS);
+        buffer.putInt(NANOSECONDS);
+        buffer.position(headerSize);
+        buffer.put((byte) priority);
+        buffer.put(tagBytes).put((byte) 0);
+        buffer.put(messageBytes).put((byte) 0);
+        return buffer.array();
+    }
+
+    private static byte[] concat(final byte[]... arrays) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        for (final byte[] array : arrays) {
+            outputStream.write(array, 0, array.length);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    private static String expectedTimestamp() {
+        return new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US)
+                .format(new Date(SECONDS * 1000L + NANOSECONDS / 1000000));
+    }
+
+    /** Returns at most {@code chunkSize} bytes per read, like a pipe under load. */
+    private static final class TrickleInputStream extends InputStream {
+        private final ByteArrayInputStream delegate;
+        private final int chunkSize;
+
+        TrickleInputStream(final byte[] bytes, final int chunkSize) {
+            this.delegate = new ByteArrayInputStream(bytes);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read() {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            return delegate.read(b, off, Math.min(len, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+import org.junit.Test;
+
+public class AssuranceLogcatParserTest {
+
+    private static final String HEADER = "[ 03-14 15:09:26.535  4242: 4257 W/MyTag    ]";
+
+    @Test
+    public void test_parseLine_EntryTerminatedByBlankLine() {
+        final AssuranceLogcatParser parser = new AssuranceLogcatParser();
+
+        assertNull(parser.parseLine(HEADER));
+        assertNull(parser.parseLine("something happened"));
+        final AssuranceLogcatParser.LogEntry entry = parser.parseLine("");
+
+        assertNotNull(entry);
+        assertEquals(HEADER, entry.header);
+        assertEquals("03-14 15:09:26.535", entry.timestamp);
+        assertEquals(4242, entry.pid);
+        assertEquals(4257, entry.tid);
+        assertEquals('W', entry.level);
+        assertEquals("MyTag", entry.tag);
+        assertEquals("something happened", entry.message);
+    }
+
+    @Test
+    public void test_parseLine_MultiLineMessage() {
+        final AssuranceLogcatParser parser = new AssuranceLogcatParser();
+
+        parser.parseLine(HEADER);
+        parser.parseLine("java.lang.IllegalStateException: boom");
+        parser.parseLine("\tat com.example.Foo.bar(Foo.java:12)");
+        final AssuranceLogcatParser.LogEntry entry = parser.parseLine("");
+
+        assertEquals(
+                "java.lang.IllegalStateException: boom\n\tat com.example.Foo.bar(Foo.java:12)",
+                entry.message);
+    }
+
+    @Test
+    public void test_parseLine_EntryEndsAtNextHeader() {
+        final AssuranceLogcatParser parser = new AssuranceLogcatParser();
+
+        parser.parseLine(HEADER);
+        parser.parseLine("first");
+        final AssuranceLogcatParser.LogEntry first =
+                parser.parseLine("[ 03-14 15:09:27.000   42:   43 E/Other ]");
+        parser.parseLine("second");
+        final AssuranceLogcatParser.LogEntry second = parser.flush();
+
+        assertEquals("MyTag", first.tag);
+        assertEquals("first", first.message);
+        assertEquals("Other", second.tag);
+        assertEquals('E', second.level);
+        assertEquals(42, second.pid);
+        assertEquals(43, second.tid);
+        assertEquals("second", second.message);
+    }
+
+    @Test
+    public void test_parseLine_HeaderWithoutMessage_IsDropped() {
+        final AssuranceLogcatParser parser = new AssuranceLogcatParser();
+
+        parser.parseLine(HEADER);
+
+        assertNull(parser.parseLine(""));
+        assertNull(parser.flush());
+    }
+
+    @Test
+    public void test_parseLine_LinesBeforeFirstHeader_AreIgnored() {
+        final AssuranceLogcatParser parser = new AssuranceLogcatParser();
+
+        assertNull(parser.parseLine("--------- beginning of main"));
+        assertNull(parser.parseLine(""));
+        assertNull(parser.flush());
+    }
+
+    @Test
+    public void test_parseLine_MalformedHeader_TreatedAsMessage() {
+        final AssuranceLogcatParser parser = new AssuranceLogcatParser();
+
+        parser.parseLine(HEADER);
+        parser.parseLine("[ not a header ]");
+        parser.parseLine("[ 03-14 15:09:26.535  4242: 4257 X/MyTag    ]");
+        parser.parseLine("[ 03-14 15:09:26.535  4242: 4257 W/MyTag]");
+        final AssuranceLogcatParser.LogEntry entry = parser.parseLine("");
+
+        assertEquals(
+                "[ not a header ]\n"
+                        + "[ 03-14 15:09:26.535  4242: 4257 X/MyTag    ]\n"
+                        + "[ 03-14 15:09:26.535  4242: 4257 W/MyTag]",
+                entry.message);
+    }
+
+    @Test
+    public void test_toMap_ContainsStructuredFields() {
+        final AssuranceLogcatParser parser = new AssuranceLogcatParser();
+        parser.parseLine(HEADER);
+        parser.parseLine("message");
+
+        final Map<String, Object> map = parser.flush().toMap();
+
+        assertEquals("03-14 15:09:26.535", map.get("timestamp"));
+        assertEquals(4242, map.get("pid"));
+        assertEquals(4257, map.get("tid"));
+        assertEquals("W", map.get("level"));
+        assertEquals("MyTag", map.get("tag"));
+        assertEquals("message", map.get("message"));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import com.adobe.marketing.mobile.assurance.AssuranceConstants.WebViewStartupMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssuranceManifestMetadataTest {
+    @Mock private Context mockContext;
+    @Mock private PackageManager mockPackageManager;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        AssuranceManifestMetadata.reset();
+    }
+
+    @After
+    public void teardown() {
+        AssuranceManifestMetadata.reset();
+    }
+
+    @Test
+    public void test_read_FromManifest() throws Exception {
+        final Bundle metaData = new Bundle();
+        metaData.putString(
+                AssuranceConstants.ManifestMetadataKeys.WEBVIEW_STARTUP_MODE, "firstFrame");
+        metaData.putString(
+                AssuranceConstants.ManifestMetadataKeys.JSON_CODEC, AssuranceJsonCodecs.STREAMING);
+        mockMetaData(metaData);
+
+        final AssuranceManifestMetadata metadata = AssuranceManifestMetadata.read(mockContext);
+
+        assertEquals(WebViewStartupMode.FIRST_FRAME, metadata.getWebViewStartupMode());
+        assertEquals(AssuranceJsonCodecs.STREAMING, metadata.getJsonCodecName());
+    }
+
+    @Test
+    public void test_read_DefaultsWhenNotConfigured() throws Exception {
+        assertEquals(
+                WebViewStartupMode.IDLE,
+                AssuranceManifestMetadata.read(null).getWebViewStartupMode());
+
+        mockMetaData(null);
+        assertEquals(
+                WebViewStartupMode.IDLE,
+                AssuranceManifestMetadata.read(mockContext).getWebViewStartupMode());
+        assertNull(AssuranceManifestMetadata.read(mockContext).getJsonCodecName());
+
+        final Bundle metaData = new Bundle();
+        metaData.putString(
+                AssuranceConstants.ManifestMetadataKeys.WEBVIEW_STARTUP_MODE, "invalidMode");
+        mockMetaData(metaData);
+        assertEquals(
+                WebViewStartupMode.IDLE,
+                AssuranceManifestMetadata.read(mockContext).getWebViewStartupMode());
+    }
+
+    @Test
+    public void test_read_WhenPackageManagerThrows() throws Exception {
+        when(mockContext.getPackageManager()).thenReturn(mockPackageManager);
+        when(mockContext.getPackageName()).thenReturn("com.adobe.test");
+        when(mockPackageManager.getApplicationInfo(anyString(), anyInt()))
+                .thenThrow(new PackageManager.NameNotFoundException());
+
+        final AssuranceManifestMetadata metadata = AssuranceManifestMetadata.read(mockContext);
+
+        assertEquals(WebViewStartupMode.IDLE, metadata.getWebViewStartupMode());
+        assertNull(metadata.getJsonCodecName());
+    }
+
+    @Test
+    public void test_load_ReadsManifestOnce() throws Exception {
+        final Bundle metaData = new Bundle();
+        metaData.putString(
+                AssuranceConstants.ManifestMetadataKeys.WEBVIEW_STARTUP_MODE, "firstFrame");
+        mockMetaData(metaData);
+
+        final AssuranceManifestMetadata metadata = AssuranceManifestMetadata.load(mockContext);
+
+        assertSame(metadata, AssuranceManifestMetadata.load(mockContext));
+        assertSame(metadata, AssuranceManifestMetadata.get());
+        verify(mockPackageManager, times(1))
+                .getApplicationInfo("com.adobe.test", PackageManager.GET_META_DATA);
+    }
+
+    @Test
+    public void test_get_BeforeLoad_ReturnsDefaultsWithoutReading() {
+        final AssuranceManifestMetadata metadata = AssuranceManifestMetadata.get();
+
+        assertEquals(WebViewStartupMode.IDLE, metadata.getWebViewStartupMode());
+        assertNull(metadata.getJsonCodecName());
+        verify(mockContext, times(0)).getPackageManager();
+    }
+
+    private void mockMetaData(final Bundle metaData) throws Exception {
+        final ApplicationInfo applicationInfo = new ApplicationInfo();
+        applicationInfo.metaData = metaData;
+        when(mockContext.getPackageManager()).thenReturn(mockPackageManager);
+        when(mockContext.getPackageName()).thenReturn("com.adobe.test");
+        when(mockPackageManager.getApplicationInfo("com.adobe.test", PackageManager.GET_META_DATA))
+                .thenReturn(applicationInfo);
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class AssurancePayloadDeduplicatorTest {
+
+    @Test
+    public void test_deduplicate_smallSubtreesUnchanged() {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator();
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put("key", "value");
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("ACPExtensionEventData", eventData);
+
+        deduplicator.deduplicate(payload);
+        deduplicator.onSent();
+
+        assertSame(eventData, deduplicator.deduplicate(payload).get("ACPExtensionEventData"));
+    }
+
+    @Test
+    public void test_deduplicate_repeatedSubtreeReferencedOnceSent() throws JSONException {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator();
+        final ServerStandIn server = new ServerStandIn();
+        final Map<String, Object> payload = samplePayload(0);
+
+        final JSONObject first = send(deduplicator, server, payload);
+        final JSONObject second = send(deduplicator, server, payload);
+
+        assertTrue(
+                first.getJSONObject("ACPExtensionEventData")
+                        .has(AssurancePayloadDeduplicator.DEFINITION_KEY));
+        assertTrue(
+                second.getJSONObject("ACPExtensionEventData")
+                        .has(AssurancePayloadDeduplicator.REFERENCE_KEY));
+        assertTrue(new JSONObject(payload).similar(server.resolve(first)));
+        assertTrue(new JSONObject(payload).similar(server.resolve(second)));
+    }
+
+    @Test
+    public void test_deduplicate_notReferencedUntilSent() {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator();
+        final Map<String, Object> payload = samplePayload(0);
+
+        deduplicator.deduplicate(payload);
+        final Map<?, ?> second =
+                (Map<?, ?>) deduplicator.deduplicate(payload).get("ACPExtensionEventData");
+
+        assertTrue(second.containsKey(AssurancePayloadDeduplicator.DEFINITION_KEY));
+    }
+
+    @Test
+    public void test_deduplicate_repeatedChildOfChangedSubtree() throws JSONException {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator();
+        final ServerStandIn server = new ServerStandIn();
+
+        send(deduplicator, server, samplePayload(0));
+        final Map<String, Object> payload = samplePayload(1);
+        final JSONObject second = send(deduplicator, server, payload);
+
+        // the event data changed, but its identity map did not
+        final JSONObject eventData =
+                second.getJSONObject("ACPExtensionEventData")
+                        .getJSONObject(AssurancePayloadDeduplicator.VALUE_KEY);
+        assertTrue(
+                eventData
+                        .getJSONObject("identityMap")
+                        .has(AssurancePayloadDeduplicator.REFERENCE_KEY));
+        assertTrue(new JSONObject(payload).similar(server.resolve(second)));
+    }
+
+    @Test
+    public void test_deduplicate_leastRecentlyUsedHashesEvicted() {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator(2);
+
+        // each payload defines its event data and identity map
+        deduplicator.deduplicate(samplePayload(0));
+        deduplicator.onSent();
+        deduplicator.deduplicate(samplePayload(1));
+        deduplicator.onSent();
+
+        final Map<?, ?> eventData =
+                (Map<?, ?>) deduplicator.deduplicate(samplePayload(0)).get("ACPExtensionEventData");
+        assertTrue(eventData.containsKey(AssurancePayloadDeduplicator.DEFINITION_KEY));
+    }
+
+    @Test
+    public void test_reset_forgetsSentSubtrees() {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator();
+        deduplicator.deduplicate(samplePayload(0));
+        deduplicator.onSent();
+
+        deduplicator.reset();
+
+        final Map<?, ?> eventData =
+                (Map<?, ?>) deduplicator.deduplicate(samplePayload(0)).get("ACPExtensionEventData");
+        assertTrue(eventData.containsKey(AssurancePayloadDeduplicator.DEFINITION_KEY));
+    }
+
+    @Test
+    public void test_deduplicate_repeatedPayloadsShrink() throws JSONException {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator();
+        final ServerStandIn server = new ServerStandIn();
+        long originalLength = 0;
+        long sentLength = 0;
+
+        for (int i = 0; i < 50; i++) {
+            final Map<String, Object> payload = samplePayload(0);
+            originalLength += new JSONObject(payload).toString().length();
+            final JSONObject sent = send(deduplicator, server, payload);
+            sentLength += sent.toString().length();
+            assertTrue(new JSONObject(payload).similar(server.resolve(sent)));
+        }
+
+        assertTrue(sentLength * 10 < originalLength);
+    }
+
+    @Test
+    public void test_hash_fnv1a() {
+        assertEquals(
+                "cbf29ce484222325", Long.toHexString(AssurancePayloadDeduplicator.fnv1a("")));
+        assertEquals(
+                "af63dc4c8601ec8c", Long.toHexString(AssurancePayloadDeduplicator.fnv1a("a")));
+    }
+
+    @Test
+    public void test_deduplicate_equalSubtreesReferencedRegardlessOfOrder() {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator();
+        final Map<String, Object> payload = samplePayload(0);
+        final Map<?, ?> eventData = (Map<?, ?>) payload.get("ACPExtensionEventData");
+        final Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("ACPExtensionEventName", payload.get("ACPExtensionEventName"));
+        final Map<Object, Object> reorderedEventData = new LinkedHashMap<>();
+        reorderedEventData.put("sequence", eventData.get("sequence"));
+        reorderedEventData.put("identityMap", eventData.get("identityMap"));
+        reordered.put("ACPExtensionEventData", reorderedEventData);
+
+        deduplicator.deduplicate(payload);
+        deduplicator.onSent();
+        final Map<?, ?> second =
+                (Map<?, ?>) deduplicator.deduplicate(reordered).get("ACPExtensionEventData");
+
+        assertTrue(second.containsKey(AssurancePayloadDeduplicator.REFERENCE_KEY));
+    }
+
+    @Test
+    public void test_deduplicate_referencedSubtreeDefinesNoChildren() {
+        final AssurancePayloadDeduplicator deduplicator = new AssurancePayloadDeduplicator(2);
+        final Map<String, Object> payload = samplePayload(0);
+
+        // the ECID list, the identity map and the event data are defined, the list is evicted
+        deduplicator.deduplicate(payload);
+        deduplicator.onSent();
+
+        // the event data is referenced, so the ECID list met on the way must not be defined and
+        // evict the identity map
+        deduplicator.deduplicate(payload);
+        deduplicator.onSent();
+
+        final Map<?, ?> eventData =
+                (Map<?, ?>)
+                        ((Map<?, ?>)
+                                        deduplicator
+                                                .deduplicate(samplePayload(1))
+                                                .get("ACPExtensionEventData"))
+                                .get(AssurancePayloadDeduplicator.VALUE_KEY);
+        assertTrue(
+                ((Map<?, ?>) eventData.get("identityMap"))
+                        .containsKey(AssurancePayloadDeduplicator.REFERENCE_KEY));
+    }
+
+    private static JSONObject send(
+            final AssurancePayloadDeduplicator deduplicator,
+            final ServerStandIn server,
+            final Map<String, Object> payload)
+            throws JSONException {
+        final JSONObject sent = new JSONObject(deduplicator.deduplicate(payload));
+        deduplicator.onSent();
+        return new JSONObject(sent.toString());
+    }
+
+    private static Map<String, Object> samplePayload(final int sequence) {
+        final Map<String, Object> identityMap = new HashMap<>();
+        final List<Object> ecids = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            final Map<String, Object> id = new HashMap<>();
+            id.put("id", "0123456789012345678901234567890123456789-" + i);
+            id.put("authenticatedState", "ambiguous");
+            ecids.add(id);
+        }
+
+        identityMap.put("ECID", ecids);
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put("identityMap", identityMap);
+        eventData.put("sequence", sequence);
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("ACPExtensionEventName", "Identity Response");
+        payload.put("ACPExtensionEventData", eventData);
+        return payload;
+    }
+
+    /** Resolves references the way the server does, remembering every definition. */
+    private static class ServerStandIn {
+        private final Map<String, Object> definitions = new HashMap<>();
+
+        JSONObject resolve(final JSONObject sent) throws JSONException {
+            return (JSONObject) resolveValue(sent);
+        }
+
+        private Object resolveValue(final Object value) throws JSONException {
+            if (value instanceof JSONArray) {
+                final JSONArray array = (JSONArray) value;
+                final JSONArray resolved = new JSONArray();
+
+                for (int i = 0; i < array.length(); i++) {
+                    resolved.put(resolveValue(array.get(i)));
+                }
+
+                return resolved;
+            }
+
+            if (!(value instanceof JSONObject)) {
+                return value;
+            }
+
+            final JSONObject object = (JSONObject) value;
+
+            if (object.has(AssurancePayloadDeduplicator.REFERENCE_KEY)) {
+                return definitions.get(
+                        object.getString(AssurancePayloadDeduplicator.REFERENCE_KEY));
+            }
+
+            if (object.has(AssurancePayloadDeduplicator.DEFINITION_KEY)) {
+                final Object resolved =
+                        resolveValue(object.get(AssurancePayloadDeduplicator.VALUE_KEY));
+                definitions.put(
+                        object.getString(AssurancePayloadDeduplicator.DEFINITION_KEY), resolved);
+                return resolved;
+            }
+
+            final JSONObject resolved = new JSONObject();
+            final JSONArray names = object.names();
+
+            for (int i = 0; names != null && i < names.length(); i++) {
+                final String name = names.getString(i);
+                resolved.put(name, resolveValue(object.get(name)));
+            }
+
+            return resolved;
+        }
+    }
+}
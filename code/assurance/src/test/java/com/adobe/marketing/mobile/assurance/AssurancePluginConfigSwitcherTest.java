@@ -21,8 +21,6 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import android.app.Application;
-import android.content.SharedPreferences;
 import com.adobe.marketing.mobile.MobileCore;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -32,7 +30,6 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -44,13 +41,9 @@ public class AssurancePluginConfigSwitcherTest {
     private static final String PREF_KEY_MODIFIED_CONFIG_KEYS = "modifiedConfigKeys";
     AssurancePluginConfigSwitcher assurancePluginConfigSwitcher;
 
-    @Mock Application application;
+    @Mock AssuranceDataStore dataStore;
 
-    @Mock SharedPreferences preferences;
-
-    @Mock SharedPreferences.Editor editor;
-
-    @Mock AssuranceSession mockSession;
+    @Mock AssurancePluginSession mockSession;
 
     private MockedStatic<MobileCore> mockedStaticMobileCore;
 
@@ -59,15 +52,9 @@ public class AssurancePluginConfigSwitcherTest {
 
         MockitoAnnotations.openMocks(this);
         mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class);
-        mockedStaticMobileCore.when(MobileCore::getApplication).thenReturn(application);
-
-        // mock shared preference
-        Mockito.when(application.getSharedPreferences(anyString(), ArgumentMatchers.anyInt()))
-                .thenReturn(preferences);
-        Mockito.when(preferences.edit()).thenReturn(editor);
 
         // create plugin instance to test
-        assurancePluginConfigSwitcher = new AssurancePluginConfigSwitcher();
+        assurancePluginConfigSwitcher = new AssurancePluginConfigSwitcher(dataStore);
         assurancePluginConfigSwitcher.onRegistered(mockSession);
     }
 
@@ -106,7 +93,7 @@ public class AssurancePluginConfigSwitcherTest {
         Set<String> previouslyUpdatedConfig = new HashSet<>();
         previouslyUpdatedConfig.add("key1");
         previouslyUpdatedConfig.add("key2");
-        when(preferences.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null))
+        when(dataStore.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null))
                 .thenReturn(previouslyUpdatedConfig);
         final ArgumentCaptor<Set> savedConfigKeysCaptor = ArgumentCaptor.forClass(Set.class);
 
@@ -114,8 +101,8 @@ public class AssurancePluginConfigSwitcherTest {
         assurancePluginConfigSwitcher.onEventReceived(event);
 
         // verify
-        verify(preferences, times(1)).getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
-        verify(editor, times(1)).putStringSet(anyString(), savedConfigKeysCaptor.capture());
+        verify(dataStore, times(1)).getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
+        verify(dataStore, times(1)).putStringSet(anyString(), savedConfigKeysCaptor.capture());
 
         // check if the correct keys are saved to persistence
         assertEquals(4, savedConfigKeysCaptor.getValue().size());
@@ -131,11 +118,11 @@ public class AssurancePluginConfigSwitcherTest {
 
         // verify that config change is logged in the clientUI
         verify(mockSession, times(1))
-                .logLocalUI(eq(AssuranceConstants.UILogColorVisibility.HIGH), any(String.class));
+                .logLocalUI(eq(AssurancePluginSession.LogLevel.HIGH), any(String.class));
     }
 
     @Test
-    public void test_onEventReceived_WhenSharedPreferenceisNull() {
+    public void test_onEventReceived_WhenDataStoreIsNull() {
         // setup
         HashMap<String, Object> configUpdateDetails = new HashMap<String, Object>();
         configUpdateDetails.put("key3", "best rsids");
@@ -143,9 +130,7 @@ public class AssurancePluginConfigSwitcherTest {
         payload.put("type", AssuranceConstants.ControlType.CONFIG_UPDATE);
         payload.put("detail", configUpdateDetails);
 
-        Mockito.when(application.getSharedPreferences(anyString(), ArgumentMatchers.anyInt()))
-                .thenReturn(null);
-        assurancePluginConfigSwitcher = new AssurancePluginConfigSwitcher();
+        assurancePluginConfigSwitcher = new AssurancePluginConfigSwitcher(null);
         AssuranceEvent event =
                 new AssuranceEvent(AssuranceConstants.AssuranceEventType.CONTROL, payload);
 
@@ -170,7 +155,7 @@ public class AssurancePluginConfigSwitcherTest {
         assurancePluginConfigSwitcher.onEventReceived(event);
 
         // verify
-        verify(preferences, times(0)).getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
+        verify(dataStore, times(0)).getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
 
         // verify updateConfiguration method is not called
         mockedStaticMobileCore.verify(
@@ -183,7 +168,7 @@ public class AssurancePluginConfigSwitcherTest {
         Set<String> tobeRemovedKeys = new HashSet<>();
         tobeRemovedKeys.add("key1");
         tobeRemovedKeys.add("key2");
-        when(preferences.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null))
+        when(dataStore.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null))
                 .thenReturn(tobeRemovedKeys);
         final ArgumentCaptor<Map> configCaptor = ArgumentCaptor.forClass(Map.class);
 
@@ -200,14 +185,14 @@ public class AssurancePluginConfigSwitcherTest {
         assertNull(configCaptor.getValue().get("key2"));
 
         // verify
-        verify(preferences, times(1)).getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
-        verify(editor, times(1)).remove(PREF_KEY_MODIFIED_CONFIG_KEYS);
+        verify(dataStore, times(1)).getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
+        verify(dataStore, times(1)).remove(PREF_KEY_MODIFIED_CONFIG_KEYS);
     }
 
     @Test
     public void test_onGriffonUIRemoved_whenNoConfigChange() {
         // setup
-        when(preferences.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null)).thenReturn(null);
+        when(dataStore.getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null)).thenReturn(null);
 
         // test
         assurancePluginConfigSwitcher.onSessionTerminated();
@@ -217,16 +202,14 @@ public class AssurancePluginConfigSwitcherTest {
                 () -> MobileCore.updateConfiguration(any(Map.class)), times(0));
 
         // verify
-        verify(preferences, times(1)).getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
-        verify(editor, times(1)).remove(PREF_KEY_MODIFIED_CONFIG_KEYS);
+        verify(dataStore, times(1)).getStringSet(PREF_KEY_MODIFIED_CONFIG_KEYS, null);
+        verify(dataStore, times(1)).remove(PREF_KEY_MODIFIED_CONFIG_KEYS);
     }
 
     @Test
-    public void test_onGriffonUIRemoved_whenSharedPreferenceNull() {
+    public void test_onGriffonUIRemoved_whenDataStoreNull() {
         // setup
-        Mockito.when(application.getSharedPreferences(anyString(), ArgumentMatchers.anyInt()))
-                .thenReturn(null);
-        assurancePluginConfigSwitcher = new AssurancePluginConfigSwitcher();
+        assurancePluginConfigSwitcher = new AssurancePluginConfigSwitcher(null);
 
         // test
         assurancePluginConfigSwitcher.onSessionTerminated();
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssurancePluginLogForwarderTest {
+
+    private AssurancePluginSession mockSession;
+    private AssurancePluginLogForwarder logForwarder;
+
+    @Before
+    public void setup() {
+        mockSession = Mockito.mock(AssurancePluginSession.class);
+        logForwarder = new AssurancePluginLogForwarder();
+        logForwarder.onRegistered(mockSession);
+    }
+
+    @Test
+    public void test_getVendorAndControlType() {
+        assertEquals(AssuranceTestConstants.VENDOR_ASSURANCE_MOBILE, logForwarder.getVendor());
+        assertEquals(
+                AssuranceTestConstants.ControlType.LOG_FORWARDING, logForwarder.getControlType());
+    }
+
+    @Test
+    public void test_logFilter_Default_AcceptsAllButAssuranceLogs() {
+        final AssurancePluginLogForwarder.LogFilter filter =
+                AssurancePluginLogForwarder.LogFilter.fromControlDetail(new HashMap<>());
+
+        assertTrue(filter.accepts(entry('V', "MyTag", "message")));
+        assertTrue(filter.accepts(entry('A', "MyTag", "message")));
+        assertFalse(filter.accepts(entry('D', "MyTag", "[Assurance/Session] connected")));
+    }
+
+    @Test
+    public void test_logFilter_MinimumLevel() {
+        final HashMap<String, Object> detail = new HashMap<>();
+        detail.put("level", "w");
+        final AssurancePluginLogForwarder.LogFilter filter =
+                AssurancePluginLogForwarder.LogFilter.fromControlDetail(detail);
+
+        assertFalse(filter.accepts(entry('D', "MyTag", "message")));
+        assertFalse(filter.accepts(entry('I', "MyTag", "message")));
+        assertTrue(filter.accepts(entry('W', "MyTag", "message")));
+        assertTrue(filter.accepts(entry('E', "MyTag", "message")));
+        assertTrue(filter.accepts(entry('A', "MyTag", "message")));
+    }
+
+    @Test
+    public void test_logFilter_Tags() {
+        final HashMap<String, Object> detail = new HashMap<>();
+        detail.put("tags", Arrays.asList("Network", "Database"));
+        final AssurancePluginLogForwarder.LogFilter filter =
+                AssurancePluginLogForwarder.LogFilter.fromControlDetail(detail);
+
+        assertTrue(filter.accepts(entry('D', "Network", "message")));
+        assertTrue(filter.accepts(entry('D', "Database", "message")));
+        assertFalse(filter.accepts(entry('D', "MyTag", "message")));
+    }
+
+    @Test
+    public void test_logFilter_InvalidLevel_AcceptsAllLevels() {
+        final HashMap<String, Object> detail = new HashMap<>();
+        detail.put("level", "loud");
+        final AssurancePluginLogForwarder.LogFilter filter =
+                AssurancePluginLogForwarder.LogFilter.fromControlDetail(detail);
+
+        assertTrue(filter.accepts(entry('V', "MyTag", "message")));
+    }
+
+    @Test
+    public void test_onEventReceived_UpdatesLogFilter() {
+        final HashMap<String, Object> detail = new HashMap<>();
+        detail.put("enable", false);
+        detail.put("level", "E");
+        final AssuranceEvent event = Mockito.mock(AssuranceEvent.class);
+        Mockito.when(event.getControlDetail()).thenReturn(detail);
+
+        logForwarder.onEventReceived(event);
+
+        assertFalse(logForwarder.getLogFilter().accepts(entry('W', "MyTag", "message")));
+        assertTrue(logForwarder.getLogFilter().accepts(entry('E', "MyTag", "message")));
+    }
+
+    @Test
+    public void test_sendLogBatch_QueuesSingleEvent() {
+        final ArgumentCaptor<Map<String, Object>> payloadCaptor =
+                ArgumentCaptor.forClass(Map.class);
+
+        logForwarder.sendLogBatch(
+                Arrays.asList(entry('I', "First", "one"), entry('E', "Second", "two")));
+
+        verify(mockSession)
+                .sendEvent(
+                        eq(AssuranceTestConstants.AssuranceEventType.LOG),
+                        payloadCaptor.capture());
+        final Map<String, Object> payload = payloadCaptor.getValue();
+        assertEquals(
+                "[ header I/First ]\none\n[ header E/Second ]\ntwo\n", payload.get("logline"));
+        final List<Map<String, Object>> entries =
+                (List<Map<String, Object>>) payload.get("entries");
+        assertEquals(2, entries.size());
+        assertEquals("First", entries.get(0).get("tag"));
+        assertEquals("E", entries.get(1).get("level"));
+    }
+
+    @Test
+    public void test_sendLogBatch_NoSession_DoesNotQueue() {
+        logForwarder.onSessionTerminated();
+
+        logForwarder.sendLogBatch(Arrays.asList(entry('I', "First", "one")));
+
+        verify(mockSession, never()).sendEvent(anyString(), Mockito.any());
+    }
+
+    @Test
+    public void test_enable_ForwardsBinaryLogs() throws Exception {
+        final FakeLauncher launcher = new FakeLauncher();
+        logForwarder = new AssurancePluginLogForwarder(newThreadExecutor(), launcher);
+        logForwarder.onRegistered(mockSession);
+        final ArgumentCaptor<Map<String, Object>> payloadCaptor =
+                ArgumentCaptor.forClass(Map.class);
+
+        logForwarder.onEventReceived(controlEvent(true));
+        final FakeProcess logcat = launcher.awaitLogcat(0);
+        logcat.write(binaryEntry("MyTag", "hello"));
+        logForwarder.onEventReceived(controlEvent(false));
+
+        // the pending batch is flushed when forwarding stops
+        verify(mockSession, timeout(2000)).sendEvent(anyString(), payloadCaptor.capture());
+        final List<Map<String, Object>> entries =
+                (List<Map<String, Object>>) payloadCaptor.getValue().get("entries");
+        assertEquals("hello", entries.get(0).get("message"));
+        assertTrue(launcher.commands.get(0).contains("-P"));
+        assertTrue(launcher.commands.get(1).contains("-B"));
+    }
+
+    @Test
+    public void test_filteredLogs_RecordedAsGaps() throws Exception {
+        final FakeLauncher launcher = new FakeLauncher();
+        logForwarder = new AssurancePluginLogForwarder(newThreadExecutor(), launcher);
+        logForwarder.onRegistered(mockSession);
+
+        logForwarder.onEventReceived(controlEvent(true));
+        final FakeProcess logcat = launcher.awaitLogcat(0);
+        logcat.write(binaryEntry("MyTag", "[Assurance/Session] connected"));
+        logcat.write(binaryEntry("MyTag", "hello"));
+        logForwarder.onEventReceived(controlEvent(false));
+
+        verify(mockSession, timeout(2000)).sendEvent(anyString(), Mockito.any());
+        verify(mockSession)
+                .recordGap(
+                        AssuranceConstants.SequenceLane.LOGS,
+                        AssuranceConstants.GapReason.FILTERED,
+                        1);
+    }
+
+    @Test
+    public void test_disable_KillsAndReapsLogcatPromptly() throws Exception {
+        final FakeLauncher launcher = new FakeLauncher();
+        logForwarder = new AssurancePluginLogForwarder(newThreadExecutor(), launcher);
+        logForwarder.onRegistered(mockSession);
+
+        logForwarder.onEventReceived(controlEvent(true));
+        final FakeProcess logcat = launcher.awaitLogcat(0);
+        logForwarder.onEventReceived(controlEvent(false));
+
+        // no further log line is needed for the forwarding thread to notice
+        assertTrue(logcat.reaped.await(2, TimeUnit.SECONDS));
+        assertTrue(awaitStopped(logForwarder));
+        assertTrue(launcher.processes.get(0).reaped.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_sessionDisconnected_KillsLogcat() throws Exception {
+        final FakeLauncher launcher = new FakeLauncher();
+        logForwarder = new AssurancePluginLogForwarder(newThreadExecutor(), launcher);
+        logForwarder.onRegistered(mockSession);
+
+        logForwarder.onEventReceived(controlEvent(true));
+        final FakeProcess logcat = launcher.awaitLogcat(0);
+        logForwarder.onSessionDisconnected(1000);
+
+        assertTrue(logcat.reaped.await(2, TimeUnit.SECONDS));
+        assertTrue(awaitStopped(logForwarder));
+    }
+
+    @Test
+    public void test_enableTwice_StartsSingleForwardingThread() throws Exception {
+        final FakeLauncher launcher = new FakeLauncher();
+        final CountingExecutor executor = new CountingExecutor();
+        logForwarder = new AssurancePluginLogForwarder(executor, launcher);
+        logForwarder.onRegistered(mockSession);
+
+        logForwarder.onEventReceived(controlEvent(true));
+        launcher.awaitLogcat(0);
+        logForwarder.onEventReceived(controlEvent(true));
+
+        assertEquals(1, executor.count);
+        assertTrue(logForwarder.isBackgroundThreadRunning());
+
+        logForwarder.onEventReceived(controlEvent(false));
+        assertTrue(awaitStopped(logForwarder));
+    }
+
+    @Test
+    public void test_reenableWhileStopping_RestartsLogcat() throws Exception {
+        final FakeLauncher launcher = new FakeLauncher();
+        logForwarder = new AssurancePluginLogForwarder(newThreadExecutor(), launcher);
+        logForwarder.onRegistered(mockSession);
+
+        logForwarder.onEventReceived(controlEvent(true));
+        final FakeProcess first = launcher.awaitLogcat(0);
+        logForwarder.onEventReceived(controlEvent(false));
+        logForwarder.onEventReceived(controlEvent(true));
+
+        // either the running thread restarts logcat or a new thread is started
+        final FakeProcess second = launcher.awaitLogcat(1);
+        assertTrue(first.reaped.await(2, TimeUnit.SECONDS));
+        assertTrue(logForwarder.isBackgroundThreadRunning());
+
+        logForwarder.onEventReceived(controlEvent(false));
+        assertTrue(second.reaped.await(2, TimeUnit.SECONDS));
+        assertTrue(awaitStopped(logForwarder));
+    }
+
+    @Test
+    public void test_undecodableBinaryOutput_FallsBackToText() throws Exception {
+        final FakeLauncher launcher = new FakeLauncher();
+        logForwarder = new AssurancePluginLogForwarder(newThreadExecutor(), launcher);
+        logForwarder.onRegistered(mockSession);
+
+        logForwarder.onEventReceived(controlEvent(true));
+        launcher
+                .awaitLogcat(0)
+                .write(
+                        "[ 03-14 15:09:26.535  4242: 4257 W/MyTag    ]\n"
+                                .getBytes(StandardCharsets.UTF_8));
+        final FakeProcess textLogcat = launcher.awaitLogcat(1);
+
+        assertTrue(launcher.commands.get(2).contains("-vlong"));
+
+        logForwarder.onEventReceived(controlEvent(false));
+        assertTrue(textLogcat.reaped.await(2, TimeUnit.SECONDS));
+    }
+
+    private AssuranceEvent controlEvent(final boolean enable) {
+        final HashMap<String, Object> detail = new HashMap<>();
+        detail.put("enable", enable);
+        final AssuranceEvent event = Mockito.mock(AssuranceEvent.class);
+        Mockito.when(event.getControlDetail()).thenReturn(detail);
+        return event;
+    }
+
+    private static boolean awaitStopped(final AssurancePluginLogForwarder forwarder)
+            throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 2000;
+
+        while (forwarder.isBackgroundThreadRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        return !forwarder.isBackgroundThreadRunning();
+    }
+
+    private static Executor newThreadExecutor() {
+        return new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                new Thread(command).start();
+            }
+        };
+    }
+
+    private static byte[] binaryEntry(final String tag, final String message) {
+        final byte[] tagBytes = tag.getBytes(StandardCharsets.UTF_8);
+        final byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+        final int payloadLength = tagBytes.length + messageBytes.length + 3;
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(24 + payloadLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) payloadLength).putShort((short) 24);
+        buffer.putInt(1).putInt(2).putInt(1700000000).putInt(0).putInt(0);
+        buffer.put((byte) 4).put(tagBytes).put((byte) 0).put(messageBytes).put((byte) 0);
+        return buffer.array();
+    }
+
+    private static final class CountingExecutor implements Executor {
+        volatile int count;
+
+        @Override
+        public void execute(final Runnable command) {
+            count++;
+            new Thread(command).start();
+        }
+    }
+
+    /** Starts {@link FakeProcess}es, recording their commands. */
+    private static final class FakeLauncher implements AssurancePluginLogForwarder.LogcatLauncher {
+        final List<List<String>> commands = new CopyOnWriteArrayList<>();
+        final List<FakeProcess> processes = new CopyOnWriteArrayList<>();
+        final List<FakeProcess> logcatProcesses = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Process start(final List<String> command) throws IOException {
+            commands.add(command);
+            // the prune list command exits right away
+            final FakeProcess process = new FakeProcess(command.contains("-P"));
+            processes.add(process);
+
+            if (!command.contains("-P")) {
+                logcatProcesses.add(process);
+            }
+
+            return process;
+        }
+
+        FakeProcess awaitLogcat(final int index) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + 2000;
+
+            while (logcatProcesses.size() <= index && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            return logcatProcesses.get(index);
+        }
+    }
+
+    /** A process whose output is written by the test, and which ends when destroyed. */
+    private static final class FakeProcess extends Process {
+        final CountDownLatch destroyed = new CountDownLatch(1);
+        final CountDownLatch reaped = new CountDownLatch(1);
+        private final PipedOutputStream output = new PipedOutputStream();
+        private final PipedInputStream input;
+        private final boolean exited;
+
+        FakeProcess(final boolean exited) throws IOException {
+            this.input = new PipedInputStream(output, 64 * 1024);
+            this.exited = exited;
+
+            if (exited) {
+                output.close();
+            }
+        }
+
+        void write(final byte[] bytes) throws IOException {
+            output.write(bytes);
+            output.flush();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            if (!exited) {
+                destroyed.await();
+            }
+
+            reaped.countDown();
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            if (!exited && destroyed.getCount() > 0) {
+                throw new IllegalThreadStateException();
+            }
+
+            return 0;
+        }
+
+        @Override
+        public void destroy() {
+            try {
+                output.close();
+            } catch (final IOException ignored) {
+                // already closed
+            }
+
+            destroyed.countDown();
+        }
+    }
+
+    private static AssuranceLogcatParser.LogEntry entry(
+            final char level, final String tag, final String message) {
+        return new AssuranceLogcatParser.LogEntry(
+                "[ header " + level + "/" + tag + " ]",
+                "03-14 15:09:26.535",
+                1,
+                2,
+                level,
+                tag,
+                message);
+    }
+}
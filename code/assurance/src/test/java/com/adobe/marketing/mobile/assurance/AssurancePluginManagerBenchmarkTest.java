@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Measures the dispatch of inbound events with dozens of registered plugins, from the lookup to
+ * the delivery on the plugins' executors. The numbers are logged for comparison between changes;
+ * only the delivery counts are asserted.
+ */
+@Ignore("Benchmark, run on demand")
+public class AssurancePluginManagerBenchmarkTest {
+    private static final Logger LOG =
+            Logger.getLogger(AssurancePluginManagerBenchmarkTest.class.getName());
+    private static final int VENDOR_COUNT = 4;
+    private static final int CONTROL_TYPES_PER_VENDOR = 10;
+    private static final int WILDCARDS_PER_VENDOR = 2;
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int MEASURED_ITERATIONS = 200000;
+
+    private AssuranceScheduler scheduler;
+
+    @Before
+    public void setup() {
+        scheduler = new AssuranceScheduler();
+    }
+
+    @After
+    public void teardown() {
+        scheduler.getWorkerExecutor().shutdownNow();
+        scheduler.getScheduledExecutor().shutdownNow();
+    }
+
+    @Test
+    public void benchmark_onAssuranceEvent() throws InterruptedException {
+        final AssurancePluginManager pluginManager =
+                new AssurancePluginManager(
+                        Mockito.mock(AssuranceSession.class),
+                        new ConcurrentHashMap<String, ConcurrentLinkedQueue<AssurancePlugin>>(),
+                        scheduler,
+                        AssurancePluginManager.DEFAULT_PLUGIN_TIMEOUT_MILLIS);
+        final List<CountingPlugin> plugins = new ArrayList<>();
+
+        for (int vendor = 0; vendor < VENDOR_COUNT; vendor++) {
+            for (int type = 0; type < CONTROL_TYPES_PER_VENDOR; type++) {
+                plugins.add(new CountingPlugin(vendorName(vendor), controlTypeName(type)));
+            }
+
+            for (int wildcard = 0; wildcard < WILDCARDS_PER_VENDOR; wildcard++) {
+                plugins.add(
+                        new CountingPlugin(
+                                vendorName(vendor), AssuranceConstants.ControlType.WILDCARD));
+            }
+        }
+
+        for (final CountingPlugin plugin : plugins) {
+            pluginManager.addPlugin(plugin);
+        }
+
+        final AssuranceEvent[] events = new AssuranceEvent[VENDOR_COUNT * CONTROL_TYPES_PER_VENDOR];
+
+        for (int vendor = 0; vendor < VENDOR_COUNT; vendor++) {
+            for (int type = 0; type < CONTROL_TYPES_PER_VENDOR; type++) {
+                final Map<String, Object> payload = new HashMap<>();
+                payload.put(AssuranceConstants.PayloadDataKeys.TYPE, controlTypeName(type));
+                events[vendor * CONTROL_TYPES_PER_VENDOR + type] =
+                        new AssuranceEvent(
+                                vendorName(vendor),
+                                AssuranceConstants.AssuranceEventType.CONTROL,
+                                null,
+                                payload,
+                                System.currentTimeMillis());
+            }
+        }
+
+        dispatch(pluginManager, events, WARMUP_ITERATIONS);
+        awaitDelivery(plugins, WARMUP_ITERATIONS);
+        final long start = System.nanoTime();
+        dispatch(pluginManager, events, MEASURED_ITERATIONS);
+        awaitDelivery(plugins, WARMUP_ITERATIONS + MEASURED_ITERATIONS);
+        final long elapsed = System.nanoTime() - start;
+
+        LOG.info(
+                String.format(
+                        "AssurancePluginManager: %d plugins, %.1f ns per dispatched event",
+                        plugins.size(), (double) elapsed / MEASURED_ITERATIONS));
+
+        // every event reaches its control type plugin and the wildcards of its vendor
+        for (final CountingPlugin plugin : plugins) {
+            assertEquals(
+                    expectedCount(plugin, WARMUP_ITERATIONS + MEASURED_ITERATIONS),
+                    plugin.received.get());
+        }
+    }
+
+    private static void awaitDelivery(final List<CountingPlugin> plugins, final int dispatches)
+            throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 60000;
+
+        for (final CountingPlugin plugin : plugins) {
+            while (plugin.received.get() < expectedCount(plugin, dispatches)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static int expectedCount(final CountingPlugin plugin, final int dispatches) {
+        final int eventsPerVendor = dispatches / VENDOR_COUNT;
+        return AssuranceConstants.ControlType.WILDCARD.equals(plugin.controlType)
+                ? eventsPerVendor
+                : eventsPerVendor / CONTROL_TYPES_PER_VENDOR;
+    }
+
+    private static void dispatch(
+            final AssurancePluginManager pluginManager,
+            final AssuranceEvent[] events,
+            final int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            pluginManager.onAssuranceEvent(events[i % events.length]);
+        }
+    }
+
+    private static String vendorName(final int vendor) {
+        return vendor == 0 ? AssuranceConstants.VENDOR_ASSURANCE_MOBILE : "com.example.v" + vendor;
+    }
+
+    private static String controlTypeName(final int type) {
+        return "controlType" + type;
+    }
+
+    private static final class CountingPlugin implements AssurancePlugin {
+        private final String vendor;
+        private final String controlType;
+        private final AtomicInteger received = new AtomicInteger();
+
+        CountingPlugin(final String vendor, final String controlType) {
+            this.vendor = vendor;
+            this.controlType = controlType;
+        }
+
+        @Override
+        public String getVendor() {
+            return vendor;
+        }
+
+        @Override
+        public String getControlType() {
+            return controlType;
+        }
+
+        @Override
+        public void onEventReceived(final AssuranceEvent event) {
+            received.incrementAndGet();
+        }
+
+        @Override
+        public void onRegistered(final AssurancePluginSession session) {}
+
+        @Override
+        public void onSessionConnected() {}
+
+        @Override
+        public void onSessionDisconnected(final int code) {}
+
+        @Override
+        public void onSessionTerminated() {}
+    }
+}
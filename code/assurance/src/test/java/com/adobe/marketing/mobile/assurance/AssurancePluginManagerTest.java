@@ -12,23 +12,38 @@
 package com.adobe.marketing.mobile.assurance;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 public class AssurancePluginManagerTest {
     @Mock private AssuranceSession mockAssuranceSession;
     @Mock private AssurancePlugin mockPlugin1;
     @Mock private AssurancePlugin mockPlugin2;
+    @Mock private AssuranceScheduler mockScheduler;
+    @Mock private ScheduledFuture<?> mockWatchdog;
 
     private AssurancePluginManager assurancePluginManager;
+    private List<Runnable> watchdogs;
 
     @Before
     public void setUp() throws Exception {
@@ -36,7 +51,32 @@ public class AssurancePluginManagerTest {
 
         when(mockPlugin1.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
         when(mockPlugin2.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
-        assurancePluginManager = new AssurancePluginManager(mockAssuranceSession);
+
+        // run the plugins on the calling thread and hold on to the watchdogs
+        watchdogs = new ArrayList<>();
+        Mockito.doAnswer(
+                        invocation -> {
+                            ((Runnable) invocation.getArgument(0)).run();
+                            return null;
+                        })
+                .when(mockScheduler)
+                .executePluginTask(any(Runnable.class));
+        Mockito.doAnswer(
+                        invocation -> {
+                            watchdogs.add(invocation.getArgument(0));
+                            return mockWatchdog;
+                        })
+                .when(mockScheduler)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assurancePluginManager = newPluginManager(mockScheduler);
+    }
+
+    private AssurancePluginManager newPluginManager(final AssuranceScheduler scheduler) {
+        return new AssurancePluginManager(
+                mockAssuranceSession,
+                new ConcurrentHashMap<String, ConcurrentLinkedQueue<AssurancePlugin>>(),
+                scheduler,
+                1000);
     }
 
     @Test
@@ -55,6 +95,16 @@ public class AssurancePluginManagerTest {
         verify(mockPlugin1).onRegistered(mockAssuranceSession);
     }
 
+    @Test
+    public void test_addPlugin_withPluginSession_notifiesPluginWithPluginSession() {
+        final AssurancePluginSession mockPluginSession = mock(AssurancePluginSession.class);
+
+        assurancePluginManager.addPlugin(mockPlugin1, mockPluginSession);
+
+        verify(mockPlugin1).onRegistered(mockPluginSession);
+        verify(mockPlugin1, never()).onRegistered(mockAssuranceSession);
+    }
+
     @Test
     public void test_onAssuranceEvent_nullOrEmptyVendor() {
         when(mockPlugin1.getControlType()).thenReturn(null);
@@ -96,6 +146,227 @@ public class AssurancePluginManagerTest {
         verify(mockPlugin1, times(1)).onEventReceived(mockAssuranceEvent);
     }
 
+    @Test
+    public void test_onAssuranceEvent_nonMatchingControlType() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.SCREENSHOT);
+        assurancePluginManager.addPlugin(mockPlugin1);
+        AssuranceEvent mockAssuranceEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(mockAssuranceEvent.getControlType())
+                .thenReturn(AssuranceConstants.ControlType.LOG_FORWARDING);
+
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+
+        verify(mockPlugin1, never()).onEventReceived(mockAssuranceEvent);
+    }
+
+    @Test
+    public void test_onAssuranceEvent_noneControlType() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.NONE);
+        assurancePluginManager.addPlugin(mockPlugin1);
+        AssuranceEvent mockAssuranceEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(mockAssuranceEvent.getControlType()).thenReturn(AssuranceConstants.ControlType.NONE);
+
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+
+        verify(mockPlugin1, never()).onEventReceived(mockAssuranceEvent);
+    }
+
+    @Test
+    public void test_onAssuranceEvent_otherVendor() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        assurancePluginManager.addPlugin(mockPlugin1);
+        AssuranceEvent mockAssuranceEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceEvent.getVendor()).thenReturn("com.example.vendor");
+
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+
+        verify(mockPlugin1, never()).onEventReceived(mockAssuranceEvent);
+    }
+
+    @Test
+    public void test_onAssuranceEvent_wildCardAndMatchingPlugins_InRegistrationOrder() {
+        final AssurancePlugin mockPlugin3 = mock(AssurancePlugin.class);
+        when(mockPlugin3.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.SCREENSHOT);
+        when(mockPlugin2.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        when(mockPlugin3.getControlType()).thenReturn(AssuranceConstants.ControlType.SCREENSHOT);
+        assurancePluginManager.addPlugin(mockPlugin1);
+        assurancePluginManager.addPlugin(mockPlugin2);
+        assurancePluginManager.addPlugin(mockPlugin3);
+        AssuranceEvent mockAssuranceEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(mockAssuranceEvent.getControlType())
+                .thenReturn(AssuranceConstants.ControlType.SCREENSHOT);
+
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+
+        final InOrder inOrder = Mockito.inOrder(mockPlugin1, mockPlugin2, mockPlugin3);
+        inOrder.verify(mockPlugin1).onEventReceived(mockAssuranceEvent);
+        inOrder.verify(mockPlugin2).onEventReceived(mockAssuranceEvent);
+        inOrder.verify(mockPlugin3).onEventReceived(mockAssuranceEvent);
+    }
+
+    @Test
+    public void test_onAssuranceEvent_pluginControlTypeReadOnce() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.SCREENSHOT);
+        assurancePluginManager.addPlugin(mockPlugin1);
+        AssuranceEvent mockAssuranceEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(mockAssuranceEvent.getControlType())
+                .thenReturn(AssuranceConstants.ControlType.SCREENSHOT);
+
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+
+        verify(mockPlugin1, times(2)).onEventReceived(mockAssuranceEvent);
+        verify(mockPlugin1, times(1)).getControlType();
+        verify(mockAssuranceEvent, times(2)).getControlType();
+    }
+
+    @Test
+    public void test_onAssuranceEvent_slowPluginDoesNotDelayOtherPlugins() throws Exception {
+        final CountDownLatch releasePlugin1 = new CountDownLatch(1);
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        when(mockPlugin2.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        Mockito.doAnswer(
+                        invocation -> {
+                            releasePlugin1.await(5, TimeUnit.SECONDS);
+                            return null;
+                        })
+                .when(mockPlugin1)
+                .onEventReceived(any(AssuranceEvent.class));
+        assurancePluginManager = newPluginManager(new AssuranceScheduler());
+        assurancePluginManager.addPlugin(mockPlugin1);
+        assurancePluginManager.addPlugin(mockPlugin2);
+        AssuranceEvent firstEvent = mock(AssuranceEvent.class);
+        AssuranceEvent secondEvent = mock(AssuranceEvent.class);
+        when(firstEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(secondEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+
+        assurancePluginManager.onAssuranceEvent(firstEvent);
+        assurancePluginManager.onAssuranceEvent(secondEvent);
+
+        // plugin 2 handles both events while plugin 1 is still busy with the first one
+        verify(mockPlugin2, timeout(2000)).onEventReceived(secondEvent);
+        verify(mockPlugin1, never()).onEventReceived(secondEvent);
+
+        releasePlugin1.countDown();
+        verify(mockPlugin1, timeout(2000)).onEventReceived(secondEvent);
+        final InOrder inOrder = Mockito.inOrder(mockPlugin1);
+        inOrder.verify(mockPlugin1).onEventReceived(firstEvent);
+        inOrder.verify(mockPlugin1).onEventReceived(secondEvent);
+    }
+
+    @Test
+    public void test_onAssuranceEvent_pluginExceedingTimeout_IsSkippedUntilItReturns() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        final AssuranceEvent slowEvent = mock(AssuranceEvent.class);
+        final AssuranceEvent skippedEvent = mock(AssuranceEvent.class);
+        final AssuranceEvent laterEvent = mock(AssuranceEvent.class);
+        when(slowEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(skippedEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(laterEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        Mockito.doAnswer(
+                        invocation -> {
+                            // the watchdog fires while the plugin is still handling the event
+                            watchdogs.get(0).run();
+                            assurancePluginManager.onAssuranceEvent(skippedEvent);
+                            return null;
+                        })
+                .when(mockPlugin1)
+                .onEventReceived(slowEvent);
+        assurancePluginManager.addPlugin(mockPlugin1);
+
+        assurancePluginManager.onAssuranceEvent(slowEvent);
+        assurancePluginManager.onAssuranceEvent(laterEvent);
+
+        verify(mockPlugin1).onEventReceived(slowEvent);
+        verify(mockPlugin1, never()).onEventReceived(skippedEvent);
+        // the plugin receives events again once the slow call has returned
+        verify(mockPlugin1).onEventReceived(laterEvent);
+        final AssurancePluginManager.PluginMetrics metrics =
+                assurancePluginManager.getPluginMetrics().get(0);
+        assertEquals(2, metrics.invocationCount);
+        assertEquals(1, metrics.timeoutCount);
+        assertEquals(1, metrics.skippedEventCount);
+    }
+
+    @Test
+    public void test_onAssuranceEvent_watchdogCancelledWhenPluginCompletes() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        assurancePluginManager.addPlugin(mockPlugin1);
+        AssuranceEvent mockAssuranceEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+
+        verify(mockScheduler).schedule(any(Runnable.class), Mockito.eq(1000L), any(TimeUnit.class));
+        verify(mockWatchdog).cancel(false);
+
+        // a late watchdog has no effect
+        watchdogs.get(0).run();
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+        verify(mockPlugin1, times(2)).onEventReceived(mockAssuranceEvent);
+        assertEquals(0, assurancePluginManager.getPluginMetrics().get(0).timeoutCount);
+    }
+
+    @Test
+    public void test_onAssuranceEvent_pluginException_DoesNotStopDispatch() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        AssuranceEvent failingEvent = mock(AssuranceEvent.class);
+        AssuranceEvent nextEvent = mock(AssuranceEvent.class);
+        when(failingEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(nextEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        Mockito.doThrow(new IllegalStateException("boom"))
+                .when(mockPlugin1)
+                .onEventReceived(failingEvent);
+        assurancePluginManager.addPlugin(mockPlugin1);
+
+        assurancePluginManager.onAssuranceEvent(failingEvent);
+        assurancePluginManager.onAssuranceEvent(nextEvent);
+
+        verify(mockPlugin1).onEventReceived(nextEvent);
+        assertEquals(2, assurancePluginManager.getPluginMetrics().get(0).invocationCount);
+    }
+
+    @Test
+    public void test_getPluginMetrics_PerPluginInRegistrationOrder() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.SCREENSHOT);
+        when(mockPlugin2.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        assurancePluginManager.addPlugin(mockPlugin1);
+        assurancePluginManager.addPlugin(mockPlugin2);
+        AssuranceEvent mockAssuranceEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+        when(mockAssuranceEvent.getControlType())
+                .thenReturn(AssuranceConstants.ControlType.LOG_FORWARDING);
+
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+
+        final List<AssurancePluginManager.PluginMetrics> metrics =
+                assurancePluginManager.getPluginMetrics();
+        assertEquals(2, metrics.size());
+        assertEquals(AssuranceConstants.ControlType.SCREENSHOT, metrics.get(0).controlType);
+        assertEquals(0, metrics.get(0).invocationCount);
+        assertEquals(1, metrics.get(1).invocationCount);
+        assertTrue(metrics.get(1).maxLatencyNanos >= 0);
+    }
+
+    @Test
+    public void test_onSessionTerminated_DropsFurtherEvents() {
+        when(mockPlugin1.getControlType()).thenReturn(AssuranceConstants.ControlType.WILDCARD);
+        assurancePluginManager.addPlugin(mockPlugin1);
+        AssuranceEvent mockAssuranceEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceEvent.getVendor()).thenReturn(AssuranceConstants.VENDOR_ASSURANCE_MOBILE);
+
+        assurancePluginManager.onSessionTerminated();
+        assurancePluginManager.onAssuranceEvent(mockAssuranceEvent);
+
+        verify(mockPlugin1, never()).onEventReceived(mockAssuranceEvent);
+        assertEquals(1, assurancePluginManager.getPluginMetrics().get(0).skippedEventCount);
+    }
+
     @Test
     public void test_onSessionConnected_notifiesPlugin() {
         assurancePluginManager.addPlugin(mockPlugin1);
@@ -105,6 +376,29 @@ public class AssurancePluginManagerTest {
         verify(mockPlugin1, times(1)).onSessionConnected();
     }
 
+    @Test
+    public void test_addPlugin_afterSessionConnected_notifiesConnectionOnPluginExecutor() {
+        assurancePluginManager.onSessionConnected();
+
+        assurancePluginManager.addPlugin(mockPlugin1);
+
+        final InOrder inOrder = Mockito.inOrder(mockScheduler, mockPlugin1);
+        inOrder.verify(mockPlugin1).onRegistered(mockAssuranceSession);
+        inOrder.verify(mockScheduler).executePluginTask(any(Runnable.class));
+        inOrder.verify(mockPlugin1).onSessionConnected();
+    }
+
+    @Test
+    public void test_addPlugin_afterSessionDisconnected_doesNotNotifyConnection() {
+        assurancePluginManager.onSessionConnected();
+        assurancePluginManager.onSessionDisconnected(AssuranceConstants.SocketCloseCode.NORMAL);
+
+        assurancePluginManager.addPlugin(mockPlugin1);
+
+        verify(mockPlugin1).onRegistered(mockAssuranceSession);
+        verify(mockPlugin1, never()).onSessionConnected();
+    }
+
     @Test
     public void test_onSessionDisconnected_notifiesPlugin() {
         assurancePluginManager.addPlugin(mockPlugin1);
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class AssurancePluginRegistryTest {
+
+    @Before
+    public void setup() {
+        AssurancePluginRegistry.reset();
+    }
+
+    @After
+    public void teardown() {
+        AssurancePluginRegistry.reset();
+    }
+
+    @Test
+    public void test_addListener_ReturnsRegisteredPlugins() {
+        final AssurancePlugin plugin = mockPlugin("com.example.vendor");
+        AssurancePluginRegistry.register(plugin, 7);
+
+        final List<AssurancePluginRegistry.Registration> registrations =
+                AssurancePluginRegistry.addListener(new RecordingListener());
+
+        assertEquals(1, registrations.size());
+        assertSame(plugin, registrations.get(0).plugin);
+        assertEquals(7, registrations.get(0).maxEventsPerSecond);
+    }
+
+    @Test
+    public void test_register_NotifiesListeners() {
+        final RecordingListener listener = new RecordingListener();
+        assertTrue(AssurancePluginRegistry.addListener(listener).isEmpty());
+        final AssurancePlugin plugin = mockPlugin("com.example.vendor");
+
+        AssurancePluginRegistry.register(plugin, 7);
+
+        assertEquals(1, listener.registrations.size());
+        assertSame(plugin, listener.registrations.get(0).plugin);
+    }
+
+    @Test
+    public void test_removeListener_StopsNotifications() {
+        final RecordingListener listener = new RecordingListener();
+        AssurancePluginRegistry.addListener(listener);
+        AssurancePluginRegistry.removeListener(listener);
+
+        AssurancePluginRegistry.register(mockPlugin("com.example.vendor"), 7);
+
+        assertTrue(listener.registrations.isEmpty());
+    }
+
+    private static AssurancePlugin mockPlugin(final String vendor) {
+        final AssurancePlugin plugin = Mockito.mock(AssurancePlugin.class);
+        when(plugin.getVendor()).thenReturn(vendor);
+        return plugin;
+    }
+
+    private static final class RecordingListener
+            implements AssurancePluginRegistry.RegistrationListener {
+        final List<AssurancePluginRegistry.Registration> registrations = new ArrayList<>();
+
+        @Override
+        public void onPluginRegistered(final AssurancePluginRegistry.Registration registration) {
+            registrations.add(registration);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssurancePluginScreenRecordingTest {
+
+    private static final int FRAME_WIDTH = 80;
+    private static final int FRAME_HEIGHT = 40;
+
+    private MockedStatic<AssuranceBlob> mockedStaticAssuranceBlob;
+    private AssuranceSession mockSession;
+    private AssuranceScreenCapture mockScreenCapture;
+    private ScheduledExecutorService mockFrameScheduler;
+    private ScheduledFuture<?> mockScheduledFuture;
+    private List<Runnable> scheduledFrames;
+    private Bitmap nextFrame;
+    private AssurancePluginScreenRecording plugin;
+
+    @Before
+    public void testSetup() {
+        mockedStaticAssuranceBlob = Mockito.mockStatic(AssuranceBlob.class);
+        mockSession = Mockito.mock(AssuranceSession.class);
+        Mockito.when(mockSession.getCurrentActivity()).thenReturn(Mockito.mock(Activity.class));
+        mockScreenCapture = Mockito.mock(AssuranceScreenCapture.class);
+        mockFrameScheduler = Mockito.mock(ScheduledExecutorService.class);
+        mockScheduledFuture = Mockito.mock(ScheduledFuture.class);
+        scheduledFrames = new ArrayList<>();
+
+        Mockito.doAnswer(
+                        invocation -> {
+                            scheduledFrames.add(invocation.getArgument(0));
+                            return mockScheduledFuture;
+                        })
+                .when(mockFrameScheduler)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        Mockito.doAnswer(
+                        invocation -> {
+                            final AssuranceScreenCapture.CaptureCallback callback =
+                                    invocation.getArgument(2);
+                            callback.onCaptured(nextFrame);
+                            return null;
+                        })
+                .when(mockScreenCapture)
+                .capture(any(Activity.class), anyFloat(), any());
+
+        plugin =
+                new AssurancePluginScreenRecording(
+                        mockScreenCapture,
+                        new Executor() {
+                            @Override
+                            public void execute(final Runnable command) {
+                                command.run();
+                            }
+                        },
+                        mockFrameScheduler);
+        plugin.onRegistered(mockSession);
+    }
+
+    @After
+    public void teardown() {
+        mockedStaticAssuranceBlob.close();
+    }
+
+    @Test
+    public void test_getVendorAndControlType() {
+        assertEquals(AssuranceTestConstants.VENDOR_ASSURANCE_MOBILE, plugin.getVendor());
+        assertEquals(
+                AssuranceTestConstants.ControlType.SCREEN_RECORDING, plugin.getControlType());
+    }
+
+    @Test
+    public void test_onEventReceived_NoSession_DoesNotRecord() {
+        plugin.onSessionTerminated();
+
+        plugin.onEventReceived(controlEvent(null));
+
+        assertFalse(plugin.isRecording());
+        verify(mockFrameScheduler, never())
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void test_onEventReceived_Start_SchedulesFirstFrameAtHalfScale() {
+        nextFrame = frame(Color.BLACK);
+
+        plugin.onEventReceived(controlEvent(null));
+
+        assertTrue(plugin.isRecording());
+        verify(mockFrameScheduler).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+
+        runNextFrame();
+
+        verify(mockScreenCapture).capture(any(Activity.class), eq(0.5f), any());
+    }
+
+    @Test
+    public void test_firstFrame_UploadedAsKeyframe() {
+        nextFrame = frame(Color.BLACK);
+        final ArgumentCaptor<AssuranceBlob.BlobUploadCallback> callbackCaptor =
+                ArgumentCaptor.forClass(AssuranceBlob.BlobUploadCallback.class);
+        final ArgumentCaptor<AssuranceEvent> eventCaptor =
+                ArgumentCaptor.forClass(AssuranceEvent.class);
+
+        plugin.onEventReceived(controlEvent(null));
+        runNextFrame();
+
+        mockedStaticAssuranceBlob.verify(
+                () ->
+                        AssuranceBlob.upload(
+                                any(byte[].class),
+                                eq("image/jpeg"),
+                                eq(mockSession),
+                                callbackCaptor.capture()),
+                times(1));
+        verify(mockScreenCapture).release(nextFrame);
+
+        callbackCaptor.getValue().onSuccess("frameBlobID");
+
+        verify(mockSession).queueOutboundEvent(eventCaptor.capture());
+        final AssuranceEvent event = eventCaptor.getValue();
+        assertEquals(AssuranceTestConstants.AssuranceEventType.BLOB, event.type);
+        assertEquals("frameBlobID", event.getPayload().get("blobId"));
+        assertEquals("image/jpeg", event.getPayload().get("mimeType"));
+        final Map<String, Object> recording =
+                (Map<String, Object>) event.getPayload().get("recording");
+        assertEquals("key", recording.get("frameType"));
+        assertEquals(0, recording.get("sequence"));
+        assertEquals(FRAME_WIDTH, recording.get("frameWidth"));
+        assertEquals(FRAME_HEIGHT, recording.get("frameHeight"));
+    }
+
+    @Test
+    public void test_unchangedFrame_IsSkipped() {
+        nextFrame = frame(Color.BLACK);
+        plugin.onEventReceived(controlEvent(null));
+        runNextFrame();
+
+        nextFrame = frame(Color.BLACK);
+        runNextFrame();
+
+        mockedStaticAssuranceBlob.verify(
+                () -> AssuranceBlob.upload(any(byte[].class), anyString(), any(), any()),
+                times(1));
+        // the recording continues
+        assertEquals(1, scheduledFrames.size());
+    }
+
+    @Test
+    public void test_partiallyChangedFrame_UploadedAsDeltaOfChangedRegion() {
+        final ArgumentCaptor<AssuranceBlob.BlobUploadCallback> callbackCaptor =
+                ArgumentCaptor.forClass(AssuranceBlob.BlobUploadCallback.class);
+        final ArgumentCaptor<AssuranceEvent> eventCaptor =
+                ArgumentCaptor.forClass(AssuranceEvent.class);
+        nextFrame = frame(Color.BLACK);
+        plugin.onEventReceived(controlEvent(null));
+        runNextFrame();
+
+        // change a pixel in the tile at column 1, row 0 of the 8 x 8 grid (tiles are 10 x 5)
+        nextFrame = frame(Color.BLACK);
+        nextFrame.setPixel(15, 2, Color.WHITE);
+        runNextFrame();
+
+        mockedStaticAssuranceBlob.verify(
+                () ->
+                        AssuranceBlob.upload(
+                                any(byte[].class),
+                                anyString(),
+                                any(),
+                                callbackCaptor.capture()),
+                times(2));
+        callbackCaptor.getValue().onSuccess("deltaBlobID");
+        verify(mockSession).queueOutboundEvent(eventCaptor.capture());
+        final Map<String, Object> recording =
+                (Map<String, Object>) eventCaptor.getValue().getPayload().get("recording");
+        assertEquals("delta", recording.get("frameType"));
+        assertEquals(1, recording.get("sequence"));
+        assertEquals(10, recording.get("x"));
+        assertEquals(0, recording.get("y"));
+        assertEquals(10, recording.get("width"));
+        assertEquals(5, recording.get("height"));
+    }
+
+    @Test
+    public void test_onEventReceived_Stop_CancelsRecording() {
+        nextFrame = frame(Color.BLACK);
+        plugin.onEventReceived(controlEvent(null));
+
+        final HashMap<String, Object> stopDetail = new HashMap<>();
+        stopDetail.put("action", "stop");
+        plugin.onEventReceived(controlEvent(stopDetail));
+
+        assertFalse(plugin.isRecording());
+        verify(mockScheduledFuture).cancel(false);
+        verify(mockSession)
+                .logLocalUI(
+                        AssuranceConstants.UILogColorVisibility.LOW,
+                        "Screen recording stopped. 0 frame(s) sent, 0 unchanged frame(s)"
+                                + " skipped.");
+    }
+
+    @Test
+    public void test_onSessionDisconnected_StopsRecording() {
+        nextFrame = frame(Color.BLACK);
+        plugin.onEventReceived(controlEvent(null));
+
+        plugin.onSessionDisconnected(1000);
+
+        assertFalse(plugin.isRecording());
+        verify(mockScheduledFuture).cancel(false);
+    }
+
+    @Test
+    public void test_noActivity_SkipsCaptureAndReschedules() {
+        Mockito.when(mockSession.getCurrentActivity()).thenReturn(null);
+        plugin.onEventReceived(controlEvent(null));
+
+        runNextFrame();
+
+        verify(mockScreenCapture, never()).capture(any(), anyFloat(), any());
+        assertEquals(1, scheduledFrames.size());
+    }
+
+    @Test
+    public void test_fps_ClampedToMaximum() {
+        final HashMap<String, Object> controlDetail = new HashMap<>();
+        controlDetail.put("fps", 60);
+        nextFrame = frame(Color.BLACK);
+        plugin.onEventReceived(controlEvent(controlDetail));
+        runNextFrame();
+
+        // 5 fps at most, the frame took no measurable time to process
+        final ArgumentCaptor<Long> delayCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(mockFrameScheduler, times(2))
+                .schedule(any(Runnable.class), delayCaptor.capture(), any(TimeUnit.class));
+        assertTrue(delayCaptor.getValue() >= 150);
+    }
+
+    private void runNextFrame() {
+        scheduledFrames.remove(0).run();
+    }
+
+    private AssuranceEvent controlEvent(final HashMap<String, Object> controlDetail) {
+        final AssuranceEvent event = Mockito.mock(AssuranceEvent.class);
+        Mockito.when(event.getControlDetail()).thenReturn(controlDetail);
+        return event;
+    }
+
+    private static Bitmap frame(final int color) {
+        final Bitmap bitmap =
+                Bitmap.createBitmap(FRAME_WIDTH, FRAME_HEIGHT, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        return bitmap;
+    }
+}
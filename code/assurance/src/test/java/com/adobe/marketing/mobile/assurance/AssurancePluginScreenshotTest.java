@@ -16,6 +16,8 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -23,6 +25,10 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -45,6 +51,7 @@ public class AssurancePluginScreenshotTest {
     private AssurancePluginScreenshot assurancePluginScreenshot;
     private AssuranceSession mockSession;
     private AssuranceEvent mockAssuranceEvent;
+    private List<Runnable> pendingEncodeTasks;
 
     @Before
     public void testSetup() {
@@ -52,8 +59,16 @@ public class AssurancePluginScreenshotTest {
         mockAssuranceEvent = Mockito.mock(AssuranceEvent.class);
         mockedStaticAssuranceBlob = Mockito.mockStatic(AssuranceBlob.class);
 
-        // create plugin instance to test
-        assurancePluginScreenshot = new AssurancePluginScreenshot();
+        // create plugin instance to test, encoding on the calling thread
+        assurancePluginScreenshot =
+                new AssurancePluginScreenshot(
+                        new AssuranceScreenCapture(),
+                        new Executor() {
+                            @Override
+                            public void execute(final Runnable command) {
+                                command.run();
+                            }
+                        });
         assurancePluginScreenshot.onRegistered(mockSession);
     }
 
@@ -153,8 +168,86 @@ public class AssurancePluginScreenshotTest {
         AssuranceEvent queuedEvent = assuranceEventCaptor.getValue();
         assertNotNull(queuedEvent);
         assertEquals(AssuranceTestConstants.AssuranceEventType.BLOB, queuedEvent.type);
-        assertEquals("sampleBlobID", queuedEvent.payload.get(PAYLOAD_BLOBID));
-        assertEquals("image/png", queuedEvent.payload.get(PAYLOAD_MIMETYPE));
+        assertEquals("sampleBlobID", queuedEvent.getPayload().get(PAYLOAD_BLOBID));
+        assertEquals("image/jpeg", queuedEvent.getPayload().get(PAYLOAD_MIMETYPE));
+    }
+
+    @Test
+    public void test_onTakeScreenShotEventReceived_WebPFormat() {
+        // prepare
+        final HashMap<String, Object> controlDetail = new HashMap<>();
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_FORMAT, "webp");
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_QUALITY, 50);
+        Mockito.when(mockAssuranceEvent.getControlDetail()).thenReturn(controlDetail);
+        final ArgumentCaptor<AssuranceBlob.BlobUploadCallback> assuranceBlobCallbackCaptor =
+                ArgumentCaptor.forClass(AssuranceBlob.BlobUploadCallback.class);
+        final ArgumentCaptor<AssuranceEvent> assuranceEventCaptor =
+                ArgumentCaptor.forClass(AssuranceEvent.class);
+
+        // test
+        assurancePluginScreenshot.onEventReceived(mockAssuranceEvent);
+        assurancePluginScreenshot
+                .getCaptureScreenShotListener()
+                .onCaptureScreenshot(sampleBitMapImage());
+
+        // verify
+        mockedStaticAssuranceBlob.verify(
+                () ->
+                        AssuranceBlob.upload(
+                                any(byte[].class),
+                                eq("image/webp"),
+                                any(AssuranceSession.class),
+                                assuranceBlobCallbackCaptor.capture()),
+                times(1));
+
+        assuranceBlobCallbackCaptor.getValue().onSuccess("sampleBlobID");
+        verify(mockSession, times(1)).queueOutboundEvent(assuranceEventCaptor.capture());
+        assertEquals(
+                "image/webp", assuranceEventCaptor.getValue().getPayload().get(PAYLOAD_MIMETYPE));
+    }
+
+    @Test
+    public void test_onCaptureScreenshot_EncodesOnExecutor() {
+        // prepare
+        pendingEncodeTasks = new ArrayList<>();
+        assurancePluginScreenshot =
+                new AssurancePluginScreenshot(
+                        new AssuranceScreenCapture(),
+                        new Executor() {
+                            @Override
+                            public void execute(final Runnable command) {
+                                pendingEncodeTasks.add(command);
+                            }
+                        });
+        assurancePluginScreenshot.onRegistered(mockSession);
+
+        // test
+        assurancePluginScreenshot.onEventReceived(mockAssuranceEvent);
+        assurancePluginScreenshot
+                .getCaptureScreenShotListener()
+                .onCaptureScreenshot(sampleBitMapImage());
+
+        // verify that nothing is encoded or uploaded on the capturing thread
+        mockedStaticAssuranceBlob.verify(
+                () ->
+                        AssuranceBlob.upload(
+                                any(byte[].class),
+                                anyString(),
+                                any(AssuranceSession.class),
+                                any(AssuranceBlob.BlobUploadCallback.class)),
+                never());
+        assertEquals(1, pendingEncodeTasks.size());
+
+        pendingEncodeTasks.get(0).run();
+
+        mockedStaticAssuranceBlob.verify(
+                () ->
+                        AssuranceBlob.upload(
+                                any(byte[].class),
+                                eq("image/jpeg"),
+                                any(AssuranceSession.class),
+                                any(AssuranceBlob.BlobUploadCallback.class)),
+                times(1));
     }
 
     @Test
@@ -194,8 +287,8 @@ public class AssurancePluginScreenshotTest {
         AssuranceEvent queuedEvent = assuranceEventCaptor.getValue();
         assertNotNull(queuedEvent);
         assertEquals(AssuranceTestConstants.AssuranceEventType.BLOB, queuedEvent.type);
-        assertEquals("", queuedEvent.payload.get(PAYLOAD_BLOBID));
-        assertEquals("give no reason", queuedEvent.payload.get(PAYLOAD_ERROR));
+        assertEquals("", queuedEvent.getPayload().get(PAYLOAD_BLOBID));
+        assertEquals("give no reason", queuedEvent.getPayload().get(PAYLOAD_ERROR));
     }
 
     @After
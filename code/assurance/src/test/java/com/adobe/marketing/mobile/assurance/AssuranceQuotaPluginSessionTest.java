@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Activity;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssuranceQuotaPluginSessionTest {
+    private static final String VENDOR = "com.example.vendor";
+
+    private AssuranceSession mockSession;
+    private AssuranceQuotaPluginSession pluginSession;
+
+    @Before
+    public void setup() {
+        mockSession = Mockito.mock(AssuranceSession.class);
+        when(mockSession.queueOutboundEvent(any(AssuranceEvent.class))).thenReturn(true);
+        pluginSession =
+                new AssuranceQuotaPluginSession(mockSession, VENDOR, new AssuranceEventQuota(2));
+    }
+
+    @Test
+    public void test_sendEvent_StampsPluginVendor() {
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("metric", 42);
+
+        assertTrue(pluginSession.sendEvent("metrics", payload));
+
+        final ArgumentCaptor<AssuranceEvent> eventCaptor =
+                ArgumentCaptor.forClass(AssuranceEvent.class);
+        verify(mockSession).queueOutboundEvent(eventCaptor.capture());
+        assertEquals(VENDOR, eventCaptor.getValue().getVendor());
+        assertEquals("metrics", eventCaptor.getValue().getType());
+        assertEquals(payload, eventCaptor.getValue().getPayload());
+    }
+
+    @Test
+    public void test_sendEvent_OverQuota_DropsEvents() {
+        assertTrue(pluginSession.sendEvent("metrics", new HashMap<String, Object>()));
+        assertTrue(pluginSession.sendEvent("metrics", new HashMap<String, Object>()));
+        assertFalse(pluginSession.sendEvent("metrics", new HashMap<String, Object>()));
+        assertFalse(pluginSession.sendEvent("metrics", new HashMap<String, Object>()));
+
+        verify(mockSession, times(2)).queueOutboundEvent(any(AssuranceEvent.class));
+        assertEquals(2, pluginSession.getDroppedEventCount());
+        verify(mockSession, times(2))
+                .recordGap(VENDOR, AssuranceConstants.GapReason.QUOTA, 1);
+    }
+
+    @Test
+    public void test_sendEvent_QueueRejects_ReturnsFalse() {
+        when(mockSession.queueOutboundEvent(any(AssuranceEvent.class))).thenReturn(false);
+
+        assertFalse(pluginSession.sendEvent("metrics", new HashMap<String, Object>()));
+        assertEquals(0, pluginSession.getDroppedEventCount());
+    }
+
+    @Test
+    public void test_delegatesToSession() {
+        final Activity mockActivity = Mockito.mock(Activity.class);
+        when(mockSession.getCurrentActivity()).thenReturn(mockActivity);
+        when(mockSession.getSessionId()).thenReturn("sessionId");
+
+        pluginSession.logLocalUI(AssurancePluginSession.LogLevel.HIGH, "message");
+        pluginSession.recordGap(
+                AssuranceConstants.SequenceLane.LOGS, AssuranceConstants.GapReason.FILTERED, 3);
+
+        verify(mockSession).logLocalUI(AssurancePluginSession.LogLevel.HIGH, "message");
+        verify(mockSession)
+                .recordGap(
+                        AssuranceConstants.SequenceLane.LOGS,
+                        AssuranceConstants.GapReason.FILTERED,
+                        3);
+        assertSame(mockActivity, pluginSession.getCurrentActivity());
+        assertEquals("sessionId", pluginSession.getSessionId());
+    }
+}
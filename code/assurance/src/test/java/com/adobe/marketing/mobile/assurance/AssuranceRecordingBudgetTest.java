@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AssuranceRecordingBudgetTest {
+
+    @Test
+    public void test_getNextFrameDelay_WithinBudget_UsesFrameInterval() {
+        final AssuranceRecordingBudget budget = new AssuranceRecordingBudget(1000, 0.2);
+        budget.recordUpload(100, 0);
+
+        assertTrue(budget.canSend(0));
+        assertEquals(990, budget.getNextFrameDelay(1000, 10, 0));
+    }
+
+    @Test
+    public void test_getNextFrameDelay_SlowProcessing_StretchesInterval() {
+        final AssuranceRecordingBudget budget = new AssuranceRecordingBudget(1000, 0.2);
+
+        // 100 ms of processing at 20% cpu requires a period of 500 ms
+        assertEquals(400, budget.getNextFrameDelay(200, 100, 0));
+    }
+
+    @Test
+    public void test_getNextFrameDelay_OverdrawnBandwidth_WaitsForRefill() {
+        final AssuranceRecordingBudget budget = new AssuranceRecordingBudget(1000, 0.2);
+        budget.recordUpload(1500, 0);
+
+        assertFalse(budget.canSend(0));
+        // 501 bytes are missing at 1000 bytes per second
+        assertEquals(501, budget.getNextFrameDelay(100, 0, 0));
+    }
+
+    @Test
+    public void test_canSend_RefillsOverTime() {
+        final AssuranceRecordingBudget budget = new AssuranceRecordingBudget(1000, 0.2);
+        budget.recordUpload(1500, 0);
+
+        assertFalse(budget.canSend(400));
+        assertTrue(budget.canSend(600));
+    }
+
+    @Test
+    public void test_refill_CappedAtOneSecondOfBytes() {
+        final AssuranceRecordingBudget budget = new AssuranceRecordingBudget(1000, 0.2);
+        budget.recordUpload(0, 0);
+
+        // an idle period does not allow a burst larger than one second of bytes
+        budget.recordUpload(1500, 10000);
+
+        assertFalse(budget.canSend(10000));
+    }
+
+    @Test
+    public void test_getNextFrameDelay_NeverNegative() {
+        final AssuranceRecordingBudget budget = new AssuranceRecordingBudget(1000, 1);
+
+        assertEquals(0, budget.getNextFrameDelay(100, 300, 0));
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssuranceSchedulerTest {
+
+    @After
+    public void teardown() {
+        AssuranceScheduler.shutdown();
+    }
+
+    @Test
+    public void test_getInstance_ReturnsSharedInstance() {
+        assertSame(AssuranceScheduler.getInstance(), AssuranceScheduler.getInstance());
+    }
+
+    @Test
+    public void test_shutdown_RecreatesInstanceOnNextUse() {
+        final AssuranceScheduler scheduler = AssuranceScheduler.getInstance();
+
+        AssuranceScheduler.shutdown();
+
+        assertTrue(scheduler.getWorkerExecutor().isShutdown());
+        assertTrue(scheduler.getScheduledExecutor().isShutdown());
+        assertNotSame(scheduler, AssuranceScheduler.getInstance());
+    }
+
+    @Test
+    public void test_getThreadCount_BoundedAcrossRepeatedWork() throws Exception {
+        final AssuranceScheduler scheduler = AssuranceScheduler.getInstance();
+        assertEquals(0, scheduler.getThreadCount());
+
+        final int taskCount = AssuranceScheduler.WORKER_POOL_SIZE * 5;
+        final CountDownLatch latch = new CountDownLatch(taskCount);
+
+        for (int i = 0; i < taskCount; i++) {
+            scheduler.execute(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            latch.countDown();
+                        }
+                    });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.getThreadCount() <= AssuranceScheduler.WORKER_POOL_SIZE);
+    }
+
+    @Test
+    public void test_executePluginTask_RunsWhileWorkerPoolIsBusy() throws Exception {
+        final AssuranceScheduler scheduler = AssuranceScheduler.getInstance();
+        final CountDownLatch releaseWorkers = new CountDownLatch(1);
+
+        for (int i = 0; i < AssuranceScheduler.WORKER_POOL_SIZE; i++) {
+            scheduler.execute(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                releaseWorkers.await(5, TimeUnit.SECONDS);
+                            } catch (final InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+        }
+
+        final CountDownLatch pluginLatch = new CountDownLatch(1);
+        scheduler.executePluginTask(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        pluginLatch.countDown();
+                    }
+                });
+
+        assertTrue(pluginLatch.await(2, TimeUnit.SECONDS));
+        releaseWorkers.countDown();
+    }
+
+    @Test
+    public void test_executePluginTask_RunsWhileOtherPluginTasksAreStuck() throws Exception {
+        final AssuranceScheduler scheduler = AssuranceScheduler.getInstance();
+        final CountDownLatch releasePlugins = new CountDownLatch(1);
+
+        for (int i = 0; i < 4; i++) {
+            scheduler.executePluginTask(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                releasePlugins.await(5, TimeUnit.SECONDS);
+                            } catch (final InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+        }
+
+        final CountDownLatch pluginLatch = new CountDownLatch(1);
+        scheduler.executePluginTask(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        pluginLatch.countDown();
+                    }
+                });
+
+        assertTrue(pluginLatch.await(2, TimeUnit.SECONDS));
+        releasePlugins.countDown();
+    }
+
+    @Test
+    public void test_executeBlockingTask_RunsWhileWorkerPoolIsBusy() throws Exception {
+        final AssuranceScheduler scheduler = AssuranceScheduler.getInstance();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        for (int i = 0; i < AssuranceScheduler.WORKER_POOL_SIZE; i++) {
+            scheduler.execute(awaiting(release));
+        }
+
+        final CountDownLatch blockingLatch = new CountDownLatch(1);
+        scheduler.executeBlockingTask(countingDown(blockingLatch));
+
+        assertTrue(blockingLatch.await(2, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void test_executeOnDedicatedThread_RunsWhileOtherPoolsAreBusy() throws Exception {
+        final AssuranceScheduler scheduler = AssuranceScheduler.getInstance();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        for (int i = 0; i < AssuranceScheduler.WORKER_POOL_SIZE; i++) {
+            scheduler.execute(awaiting(release));
+        }
+
+        for (int i = 0; i < AssuranceScheduler.BLOCKING_POOL_SIZE; i++) {
+            scheduler.executeBlockingTask(awaiting(release));
+        }
+
+        // a long-running task does not hold up the next one
+        scheduler.executeOnDedicatedThread(awaiting(release));
+        final CountDownLatch dedicatedLatch = new CountDownLatch(1);
+        scheduler.executeOnDedicatedThread(countingDown(dedicatedLatch));
+
+        assertTrue(dedicatedLatch.await(2, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void test_schedule_RunsTaskAfterDelay() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        AssuranceScheduler.getInstance()
+                .schedule(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                latch.countDown();
+                            }
+                        },
+                        50,
+                        TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_newSerialExecutor_RunsTasksInOrder() throws Exception {
+        final ExecutorService serialExecutor = AssuranceScheduler.getInstance().newSerialExecutor();
+        final List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<Integer>());
+        final int taskCount = 100;
+
+        for (int i = 0; i < taskCount; i++) {
+            final int taskNumber = i;
+            serialExecutor.submit(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            executionOrder.add(taskNumber);
+                        }
+                    });
+        }
+
+        serialExecutor.shutdown();
+        assertTrue(serialExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(taskCount, executionOrder.size());
+
+        for (int i = 0; i < taskCount; i++) {
+            assertEquals(i, (int) executionOrder.get(i));
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void test_newSerialExecutor_RejectsTasksAfterShutdown() {
+        final ExecutorService serialExecutor = AssuranceScheduler.getInstance().newSerialExecutor();
+        serialExecutor.shutdown();
+
+        serialExecutor.execute(
+                new Runnable() {
+                    @Override
+                    public void run() {}
+                });
+    }
+
+    @Test
+    public void test_serialExecutor_BackingExecutorShutDown_ShutsDown() throws Exception {
+        final ExecutorService backingExecutor = Executors.newSingleThreadExecutor();
+        final ExecutorService serialExecutor =
+                new AssuranceScheduler.SerialExecutor(backingExecutor);
+        final CountDownLatch releaseTask = new CountDownLatch(1);
+        serialExecutor.execute(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            releaseTask.await(5, TimeUnit.SECONDS);
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+        serialExecutor.execute(
+                new Runnable() {
+                    @Override
+                    public void run() {}
+                });
+
+        // the second task is rejected by the backing executor when the first one completes
+        backingExecutor.shutdown();
+        releaseTask.countDown();
+
+        assertTrue(serialExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(serialExecutor.isShutdown());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void test_serialExecutor_BackingExecutorRejects_RejectsTask() {
+        final ExecutorService backingExecutor = Executors.newSingleThreadExecutor();
+        backingExecutor.shutdown();
+
+        new AssuranceScheduler.SerialExecutor(backingExecutor)
+                .execute(
+                        new Runnable() {
+                            @Override
+                            public void run() {}
+                        });
+    }
+
+    private static Runnable awaiting(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private static Runnable countingDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+}
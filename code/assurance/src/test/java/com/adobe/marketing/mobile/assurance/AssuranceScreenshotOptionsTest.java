@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.Bitmap;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssuranceScreenshotOptionsTest {
+
+    @Test
+    public void test_fromControlDetail_Defaults() {
+        final AssuranceScreenshotOptions options =
+                AssuranceScreenshotOptions.fromControlDetail(null);
+
+        assertEquals(Bitmap.CompressFormat.JPEG, options.getCompressFormat());
+        assertEquals("image/jpeg", options.getMimeType());
+        assertEquals(AssuranceScreenshotOptions.DEFAULT_QUALITY, options.getQuality());
+        assertEquals(AssuranceScreenshotOptions.DEFAULT_SCALE, options.getScale(), 0f);
+    }
+
+    @Test
+    public void test_fromControlDetail_WebP() {
+        final Map<String, Object> controlDetail = new HashMap<>();
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_FORMAT, "WebP");
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_QUALITY, 60);
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_SCALE, 0.5);
+
+        final AssuranceScreenshotOptions options =
+                AssuranceScreenshotOptions.fromControlDetail(controlDetail);
+
+        assertEquals(Bitmap.CompressFormat.WEBP, options.getCompressFormat());
+        assertEquals("image/webp", options.getMimeType());
+        assertEquals(60, options.getQuality());
+        assertEquals(0.5f, options.getScale(), 0f);
+    }
+
+    @Test
+    public void test_fromControlDetail_InvalidValuesFallBackToDefaults() {
+        final Map<String, Object> controlDetail = new HashMap<>();
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_FORMAT, "gif");
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_QUALITY, 101);
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_SCALE, "half");
+
+        final AssuranceScreenshotOptions options =
+                AssuranceScreenshotOptions.fromControlDetail(controlDetail);
+
+        assertEquals(Bitmap.CompressFormat.JPEG, options.getCompressFormat());
+        assertEquals(AssuranceScreenshotOptions.DEFAULT_QUALITY, options.getQuality());
+        assertEquals(AssuranceScreenshotOptions.DEFAULT_SCALE, options.getScale(), 0f);
+
+        controlDetail.put(AssuranceScreenshotOptions.DETAIL_KEY_SCALE, 0);
+        assertEquals(
+                AssuranceScreenshotOptions.DEFAULT_SCALE,
+                AssuranceScreenshotOptions.fromControlDetail(controlDetail).getScale(),
+                0f);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Stands in for the Assurance server: decodes the frames sent over the socket, whether JSON text
+ * or CBOR, into the maps {@link AssuranceJsonCodec} produces, and reassembles chunked CBOR events.
+ *
+ * <p>A frame is CBOR if it starts with a CBOR map head (0xa0 to 0xbf), and JSON text otherwise.
+ */
+final class AssuranceServerStandIn {
+    private final byte[] data;
+    private int position;
+
+    private AssuranceServerStandIn(final byte[] data) {
+        this.data = data;
+    }
+
+    static boolean isCbor(final byte[] frame) {
+        return frame.length > 0 && (frame[0] & 0xe0) == 0xa0;
+    }
+
+    static Map<String, Object> decodeFrame(final byte[] frame) throws JSONException {
+        if (!isCbor(frame)) {
+            return AssuranceJsonCodecs.forName(AssuranceJsonCodecs.ORG_JSON)
+                    .decodeObject(new String(frame, StandardCharsets.UTF_8));
+        }
+
+        return (Map<String, Object>) decodeCbor(frame);
+    }
+
+    static Object decodeCbor(final byte[] cbor) {
+        final AssuranceServerStandIn decoder = new AssuranceServerStandIn(cbor);
+        final Object value = decoder.read();
+
+        if (decoder.position != cbor.length) {
+            throw new IllegalArgumentException("Trailing bytes after the CBOR item");
+        }
+
+        return value;
+    }
+
+    /**
+     * Reassembles the payload of an event from its decoded CBOR chunks, in any order.
+     *
+     * @param chunks the decoded chunk events
+     * @return the payload of the chunked event
+     */
+    static Map<String, Object> reassemblePayload(final List<Map<String, Object>> chunks) {
+        final List<Map<String, Object>> sorted = new ArrayList<>(chunks);
+        Collections.sort(
+                sorted,
+                new Comparator<Map<String, Object>>() {
+                    @Override
+                    public int compare(final Map<String, Object> a, final Map<String, Object> b) {
+                        return Integer.compare(sequenceNumber(a), sequenceNumber(b));
+                    }
+                });
+
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+        for (final Map<String, Object> chunk : sorted) {
+            final Map<String, Object> chunkPayload =
+                    (Map<String, Object>) chunk.get(AssuranceConstants.AssuranceEventKeys.PAYLOAD);
+            final byte[] chunkData =
+                    (byte[]) chunkPayload.get(AssuranceConstants.AssuranceEventKeys.CHUNK_DATA);
+            payload.write(chunkData, 0, chunkData.length);
+        }
+
+        return (Map<String, Object>) decodeCbor(payload.toByteArray());
+    }
+
+    private static int sequenceNumber(final Map<String, Object> chunk) {
+        final Map<String, Object> metadata =
+                (Map<String, Object>) chunk.get(AssuranceConstants.AssuranceEventKeys.METADATA);
+        return ((Number) metadata.get(AssuranceConstants.AssuranceEventKeys.CHUNK_SEQUENCE_NUMBER))
+                .intValue();
+    }
+
+    private Object read() {
+        final int initialByte = data[position++] & 0xff;
+        final int majorType = initialByte >> 5;
+        final int additionalInfo = initialByte & 0x1f;
+
+        if (majorType == 7) {
+            return readSimple(additionalInfo);
+        }
+
+        final long argument = readArgument(additionalInfo);
+
+        switch (majorType) {
+            case 0:
+                return toInteger(argument);
+
+            case 1:
+                return toInteger(-1 - argument);
+
+            case 2:
+                final byte[] bytes = new byte[(int) argument];
+                System.arraycopy(data, position, bytes, 0, bytes.length);
+                position += bytes.length;
+                return bytes;
+
+            case 3:
+                final String text =
+                        new String(data, position, (int) argument, StandardCharsets.UTF_8);
+                position += (int) argument;
+                return text;
+
+            case 4:
+                final List<Object> array = new ArrayList<>();
+
+                for (long i = 0; i < argument; i++) {
+                    array.add(read());
+                }
+
+                return array;
+
+            case 5:
+                final Map<String, Object> map = new HashMap<>();
+
+                for (long i = 0; i < argument; i++) {
+                    map.put((String) read(), read());
+                }
+
+                return map;
+
+            default:
+                throw new IllegalArgumentException("Unsupported major type " + majorType);
+        }
+    }
+
+    private Object readSimple(final int additionalInfo) {
+        switch (additionalInfo) {
+            case 20:
+                return false;
+
+            case 21:
+                return true;
+
+            case 22:
+                return JSONObject.NULL;
+
+            case 26:
+                return (double) Float.intBitsToFloat((int) readBigEndian(4));
+
+            case 27:
+                return Double.longBitsToDouble(readBigEndian(8));
+
+            default:
+                throw new IllegalArgumentException("Unsupported simple value " + additionalInfo);
+        }
+    }
+
+    private long readArgument(final int additionalInfo) {
+        if (additionalInfo < 24) {
+            return additionalInfo;
+        }
+
+        if (additionalInfo > 27) {
+            throw new IllegalArgumentException("Indefinite lengths are not expected");
+        }
+
+        return readBigEndian(1 << (additionalInfo - 24));
+    }
+
+    private long readBigEndian(final int byteCount) {
+        long value = 0;
+
+        for (int i = 0; i < byteCount; i++) {
+            value = (value << 8) | (data[position++] & 0xff);
+        }
+
+        return value;
+    }
+
+    /** Narrows integers like the JSON codecs do. */
+    private static Object toInteger(final long value) {
+        return value == (int) value ? (Object) (int) value : (Object) value;
+    }
+}
@@ -14,12 +14,21 @@ package com.adobe.marketing.mobile.assurance;
 import static com.adobe.marketing.mobile.assurance.AssuranceTestUtils.setInternalState;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.Application;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -29,6 +38,8 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
@@ -84,7 +95,7 @@ public class AssuranceSessionOrchestratorTest {
                         eq(mockPluginList),
                         eq(mockAssuranceConnectionDataStore),
                         eq(mockApplicationHandle),
-                        ArgumentMatchers.<List<AssuranceEvent>>any()))
+                        ArgumentMatchers.<AssuranceBootEventBuffer>any()))
                 .thenReturn(mockAssuranceSession);
         Assert.assertNull(assuranceSessionOrchestrator.getActiveSession());
 
@@ -110,7 +121,7 @@ public class AssuranceSessionOrchestratorTest {
                         eq(mockPluginList),
                         eq(mockAssuranceConnectionDataStore),
                         eq(mockApplicationHandle),
-                        ArgumentMatchers.<List<AssuranceEvent>>any()))
+                        ArgumentMatchers.<AssuranceBootEventBuffer>any()))
                 .thenReturn(mockAssuranceSession);
         Assert.assertNull(assuranceSessionOrchestrator.getActiveSession());
 
@@ -137,7 +148,7 @@ public class AssuranceSessionOrchestratorTest {
                         eq(mockPluginList),
                         eq(mockAssuranceConnectionDataStore),
                         eq(mockApplicationHandle),
-                        ArgumentMatchers.<List<AssuranceEvent>>any()))
+                        ArgumentMatchers.<AssuranceBootEventBuffer>any()))
                 .thenReturn(mockAssuranceSession);
 
         assuranceSessionOrchestrator.createSession(
@@ -190,7 +201,7 @@ public class AssuranceSessionOrchestratorTest {
                         eq(mockPluginList),
                         eq(mockAssuranceConnectionDataStore),
                         eq(mockApplicationHandle),
-                        ArgumentMatchers.<List<AssuranceEvent>>any()))
+                        ArgumentMatchers.<AssuranceBootEventBuffer>any()))
                 .thenReturn(mockAssuranceSession);
         when(mockAssuranceConnectionDataStore.getStoredConnectionURL()).thenReturn(connectionUrl);
 
@@ -204,13 +215,13 @@ public class AssuranceSessionOrchestratorTest {
                         eq(mockPluginList),
                         eq(mockAssuranceConnectionDataStore),
                         eq(mockApplicationHandle),
-                        ArgumentMatchers.<List<AssuranceEvent>>any());
+                        ArgumentMatchers.<AssuranceBootEventBuffer>any());
     }
 
     @Test
     public void testQueueEvent_SessionNotEstablished() {
-        final List<AssuranceEvent> mockBuffer = Mockito.mock(List.class);
-        setInternalState(assuranceSessionOrchestrator, "outboundEventBuffer", mockBuffer);
+        final AssuranceBootEventBuffer mockBuffer = Mockito.mock(AssuranceBootEventBuffer.class);
+        setSessionState(null, mockBuffer);
 
         AssuranceEvent event = new AssuranceEvent("EventName", Collections.EMPTY_MAP);
         assuranceSessionOrchestrator.queueEvent(event);
@@ -220,39 +231,86 @@ public class AssuranceSessionOrchestratorTest {
 
     @Test
     public void testQueueEvent_SessionEstablished_NotConnected() {
-        final List<AssuranceEvent> mockBuffer = Mockito.mock(List.class);
-        setInternalState(assuranceSessionOrchestrator, "outboundEventBuffer", mockBuffer);
-        setInternalState(assuranceSessionOrchestrator, "session", mockAssuranceSession);
+        final AssuranceBootEventBuffer mockBuffer = Mockito.mock(AssuranceBootEventBuffer.class);
+        setSessionState(mockAssuranceSession, mockBuffer);
 
         AssuranceEvent event = new AssuranceEvent("EventName", Collections.EMPTY_MAP);
         assuranceSessionOrchestrator.queueEvent(event);
 
         verify(mockBuffer).add(event);
-        verify(mockAssuranceSession).queueOutboundEvent(event);
+        verify(mockAssuranceSession, never()).queueOutboundEvent(event);
+    }
+
+    @Test
+    public void testCreateSession_ReplaysBufferAfterPublishing() {
+        when(mockAssuranceSessionCreator.create(
+                        anyString(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any()))
+                .thenReturn(mockAssuranceSession);
+        final AtomicReference<AssuranceSession> publishedSession = new AtomicReference<>();
+        doAnswer(
+                        new Answer<Void>() {
+                            @Override
+                            public Void answer(final InvocationOnMock invocation) {
+                                publishedSession.set(
+                                        assuranceSessionOrchestrator.getActiveSession());
+                                return null;
+                            }
+                        })
+                .when(mockAssuranceSession)
+                .replayBootEvents();
+
+        assuranceSessionOrchestrator.createSession(
+                "SessionID", AssuranceConstants.AssuranceEnvironment.PROD, "1234");
+
+        Assert.assertSame(mockAssuranceSession, publishedSession.get());
+    }
+
+    @Test
+    public void testCreateSession_ActiveSessionExists() {
+        setSessionState(mockAssuranceSession, null);
+
+        assuranceSessionOrchestrator.createSession(
+                "SessionID", AssuranceConstants.AssuranceEnvironment.PROD, "1234");
+
+        verify(mockAssuranceSessionCreator, never())
+                .create(
+                        anyString(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any());
+        Assert.assertSame(mockAssuranceSession, assuranceSessionOrchestrator.getActiveSession());
     }
 
     @Test
     public void testCanProcessSDKEvents() {
-        setInternalState(assuranceSessionOrchestrator, "outboundEventBuffer", (Object[]) null);
-        setInternalState(assuranceSessionOrchestrator, "session", (Object[]) null);
+        setSessionState(null, null);
         Assert.assertFalse(assuranceSessionOrchestrator.canProcessSDKEvents());
 
-        final List<AssuranceEvent> mockBuffer = Mockito.mock(List.class);
-        setInternalState(assuranceSessionOrchestrator, "outboundEventBuffer", mockBuffer);
+        final AssuranceBootEventBuffer mockBuffer = Mockito.mock(AssuranceBootEventBuffer.class);
+        setSessionState(null, mockBuffer);
         Assert.assertTrue(assuranceSessionOrchestrator.canProcessSDKEvents());
 
-        setInternalState(assuranceSessionOrchestrator, "outboundEventBuffer", (Object[]) null);
-        setInternalState(assuranceSessionOrchestrator, "session", mockAssuranceSession);
+        setSessionState(mockAssuranceSession, null);
         Assert.assertTrue(assuranceSessionOrchestrator.canProcessSDKEvents());
 
-        setInternalState(assuranceSessionOrchestrator, "outboundEventBuffer", mockBuffer);
-        setInternalState(assuranceSessionOrchestrator, "session", mockAssuranceSession);
+        setSessionState(mockAssuranceSession, mockBuffer);
         Assert.assertTrue(assuranceSessionOrchestrator.canProcessSDKEvents());
     }
 
     @Test
     public void testSessionUIOperationHandler_OnConnect() {
-        setInternalState(assuranceSessionOrchestrator, "session", mockAssuranceSession);
+        setSessionState(mockAssuranceSession, null);
 
         AssuranceSessionOrchestrator.SessionUIOperationHandler sessionUIOperationHandler =
                 assuranceSessionOrchestrator.getSessionUIOperationHandler();
@@ -265,7 +323,7 @@ public class AssuranceSessionOrchestratorTest {
 
     @Test
     public void testSessionUIOperationHandler_OnDisconnect() {
-        setInternalState(assuranceSessionOrchestrator, "session", mockAssuranceSession);
+        setSessionState(mockAssuranceSession, null);
         AssuranceSessionOrchestrator.SessionUIOperationHandler sessionUIOperationHandler =
                 assuranceSessionOrchestrator.getSessionUIOperationHandler();
         Assert.assertNotNull(sessionUIOperationHandler);
@@ -278,4 +336,229 @@ public class AssuranceSessionOrchestratorTest {
         verify(mockAssuranceSession).disconnect();
         Assert.assertNull(assuranceSessionOrchestrator.getActiveSession());
     }
+
+    @Test
+    public void testSessionStatusListener_OnSessionConnected_ReleasesBuffer() {
+        final AssuranceBootEventBuffer mockBuffer = Mockito.mock(AssuranceBootEventBuffer.class);
+        setSessionState(mockAssuranceSession, mockBuffer);
+
+        assuranceSessionOrchestrator.getAssuranceSessionStatusListener().onSessionConnected();
+
+        verify(mockBuffer).clear();
+        Assert.assertSame(mockAssuranceSession, assuranceSessionOrchestrator.getActiveSession());
+
+        final AssuranceEvent event = new AssuranceEvent("EventName", Collections.EMPTY_MAP);
+        assuranceSessionOrchestrator.queueEvent(event);
+
+        verify(mockBuffer, never()).add(event);
+        verify(mockAssuranceSession).queueOutboundEvent(event);
+    }
+
+    @Test
+    public void testQueueEvent_ConcurrentWithSessionCreateAndTerminate() throws Exception {
+        final AtomicInteger deliveredCount = countDeliveredEvents();
+
+        final int producerCount = 4;
+        final int eventsPerProducer = 1000;
+        final int sessionCycles = 200;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(producerCount + 1);
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        final AssuranceEvent event = new AssuranceEvent("EventName", Collections.EMPTY_MAP);
+
+        for (int i = 0; i < producerCount; i++) {
+            new Thread(
+                            new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        startLatch.await();
+
+                                        for (int j = 0; j < eventsPerProducer; j++) {
+                                            assuranceSessionOrchestrator.queueEvent(event);
+                                            assuranceSessionOrchestrator.canProcessSDKEvents();
+                                        }
+                                    } catch (final Throwable t) {
+                                        failures.add(t);
+                                    } finally {
+                                        doneLatch.countDown();
+                                    }
+                                }
+                            })
+                    .start();
+        }
+
+        new Thread(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    startLatch.await();
+
+                                    for (int j = 0; j < sessionCycles; j++) {
+                                        assuranceSessionOrchestrator.createSession(
+                                                "SessionID",
+                                                AssuranceConstants.AssuranceEnvironment.PROD,
+                                                "1234");
+
+                                        if (j % 2 == 0) {
+                                            assuranceSessionOrchestrator
+                                                    .getAssuranceSessionStatusListener()
+                                                    .onSessionConnected();
+                                        }
+
+                                        assuranceSessionOrchestrator.terminateSession();
+                                    }
+                                } catch (final Throwable t) {
+                                    failures.add(t);
+                                } finally {
+                                    doneLatch.countDown();
+                                }
+                            }
+                        })
+                .start();
+
+        startLatch.countDown();
+
+        Assert.assertTrue(doneLatch.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+        Assert.assertNull(assuranceSessionOrchestrator.getActiveSession());
+        Assert.assertFalse(assuranceSessionOrchestrator.canProcessSDKEvents());
+        verify(mockAssuranceSession, times(sessionCycles)).disconnect();
+        // Events queued without a session or buffer are dropped, but none is delivered twice.
+        Assert.assertTrue(deliveredCount.get() > 0);
+        Assert.assertTrue(deliveredCount.get() <= producerCount * eventsPerProducer);
+    }
+
+    @Test
+    public void testQueueEvent_ConcurrentWithSessionCreate_DeliversEveryEvent() throws Exception {
+        final int producerCount = 4;
+        final int eventsPerProducer = 1000;
+        setSessionState(
+                null,
+                new AssuranceBootEventBuffer(producerCount * eventsPerProducer, Long.MAX_VALUE));
+        final AtomicInteger deliveredCount = countDeliveredEvents();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(producerCount + 1);
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        final AssuranceEvent event = new AssuranceEvent("EventName", Collections.EMPTY_MAP);
+
+        for (int i = 0; i < producerCount; i++) {
+            new Thread(
+                            new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        startLatch.await();
+
+                                        for (int j = 0; j < eventsPerProducer; j++) {
+                                            assuranceSessionOrchestrator.queueEvent(event);
+                                        }
+                                    } catch (final Throwable t) {
+                                        failures.add(t);
+                                    } finally {
+                                        doneLatch.countDown();
+                                    }
+                                }
+                            })
+                    .start();
+        }
+
+        new Thread(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    startLatch.await();
+                                    assuranceSessionOrchestrator.createSession(
+                                            "SessionID",
+                                            AssuranceConstants.AssuranceEnvironment.PROD,
+                                            "1234");
+                                    assuranceSessionOrchestrator
+                                            .getAssuranceSessionStatusListener()
+                                            .onSessionConnected();
+                                } catch (final Throwable t) {
+                                    failures.add(t);
+                                } finally {
+                                    doneLatch.countDown();
+                                }
+                            }
+                        })
+                .start();
+
+        startLatch.countDown();
+
+        Assert.assertTrue(doneLatch.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+        Assert.assertEquals(producerCount * eventsPerProducer, deliveredCount.get());
+    }
+
+    /**
+     * Stubs the created sessions to count the events queued to them, both directly and through the
+     * boot event buffer they are created with.
+     */
+    private AtomicInteger countDeliveredEvents() {
+        final AtomicInteger deliveredCount = new AtomicInteger();
+        final AtomicReference<AssuranceBootEventBuffer> sessionBuffer = new AtomicReference<>();
+
+        when(mockAssuranceSessionCreator.create(
+                        anyString(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any(),
+                        ArgumentMatchers.any()))
+                .thenAnswer(
+                        new Answer<AssuranceSession>() {
+                            @Override
+                            public AssuranceSession answer(final InvocationOnMock invocation) {
+                                sessionBuffer.set(
+                                        (AssuranceBootEventBuffer) invocation.getArgument(7));
+                                return mockAssuranceSession;
+                            }
+                        });
+        when(mockAssuranceSession.queueOutboundEvent(ArgumentMatchers.<AssuranceEvent>any()))
+                .thenAnswer(
+                        new Answer<Boolean>() {
+                            @Override
+                            public Boolean answer(final InvocationOnMock invocation) {
+                                deliveredCount.incrementAndGet();
+                                return true;
+                            }
+                        });
+        doAnswer(
+                        new Answer<Void>() {
+                            @Override
+                            public Void answer(final InvocationOnMock invocation) {
+                                final AssuranceBootEventBuffer buffer = sessionBuffer.get();
+
+                                if (buffer != null) {
+                                    buffer.attach(
+                                            new AssuranceBootEventBuffer.ReplayListener() {
+                                                @Override
+                                                public void onEvent(final AssuranceEvent event) {
+                                                    mockAssuranceSession.queueOutboundEvent(event);
+                                                }
+                                            });
+                                }
+
+                                return null;
+                            }
+                        })
+                .when(mockAssuranceSession)
+                .replayBootEvents();
+        return deliveredCount;
+    }
+
+    private void setSessionState(
+            final AssuranceSession session, final AssuranceBootEventBuffer outboundEventBuffer) {
+        setInternalState(
+                assuranceSessionOrchestrator,
+                "state",
+                new AtomicReference<>(
+                        new AssuranceSessionOrchestrator.SessionState(
+                                session, outboundEventBuffer)));
+    }
 }
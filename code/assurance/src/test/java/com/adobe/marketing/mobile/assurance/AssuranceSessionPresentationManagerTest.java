@@ -105,7 +105,7 @@ public class AssuranceSessionPresentationManagerTest extends TestCase {
         assuranceSessionPresentationManager.onSessionDisconnected(
                 AssuranceConstants.SocketCloseCode.NORMAL);
         verify(mockAssuranceFloatingButton).remove();
-        verify(mockConnectionStatusUI).dismiss();
+        verify(mockConnectionStatusUI).release();
     }
 
     @Test
@@ -117,7 +117,7 @@ public class AssuranceSessionPresentationManagerTest extends TestCase {
                 AssuranceConstants.SocketCloseCode.ORG_MISMATCH);
 
         verify(mockAssuranceFloatingButton).remove();
-        verify(mockConnectionStatusUI).dismiss();
+        verify(mockConnectionStatusUI).release();
         final ArgumentCaptor<Intent> intentArgumentCaptor = ArgumentCaptor.forClass(Intent.class);
         verify(mockActivity).startActivity(intentArgumentCaptor.capture());
     }
@@ -131,7 +131,7 @@ public class AssuranceSessionPresentationManagerTest extends TestCase {
                 AssuranceConstants.SocketCloseCode.CLIENT_ERROR);
 
         verify(mockAssuranceFloatingButton).remove();
-        verify(mockConnectionStatusUI).dismiss();
+        verify(mockConnectionStatusUI).release();
         final ArgumentCaptor<Intent> intentArgumentCaptor = ArgumentCaptor.forClass(Intent.class);
         verify(mockActivity).startActivity(intentArgumentCaptor.capture());
     }
@@ -145,7 +145,7 @@ public class AssuranceSessionPresentationManagerTest extends TestCase {
                 AssuranceConstants.SocketCloseCode.CONNECTION_LIMIT);
 
         verify(mockAssuranceFloatingButton).remove();
-        verify(mockConnectionStatusUI).dismiss();
+        verify(mockConnectionStatusUI).release();
         final ArgumentCaptor<Intent> intentArgumentCaptor = ArgumentCaptor.forClass(Intent.class);
         verify(mockActivity).startActivity(intentArgumentCaptor.capture());
     }
@@ -159,7 +159,7 @@ public class AssuranceSessionPresentationManagerTest extends TestCase {
                 AssuranceConstants.SocketCloseCode.EVENT_LIMIT);
 
         verify(mockAssuranceFloatingButton).remove();
-        verify(mockConnectionStatusUI).dismiss();
+        verify(mockConnectionStatusUI).release();
         final ArgumentCaptor<Intent> intentArgumentCaptor = ArgumentCaptor.forClass(Intent.class);
         verify(mockActivity, times(1)).startActivity(intentArgumentCaptor.capture());
     }
@@ -173,7 +173,7 @@ public class AssuranceSessionPresentationManagerTest extends TestCase {
                 AssuranceConstants.SocketCloseCode.EVENT_LIMIT);
 
         verify(mockAssuranceFloatingButton).remove();
-        verify(mockConnectionStatusUI).dismiss();
+        verify(mockConnectionStatusUI).release();
         final ArgumentCaptor<Intent> intentArgumentCaptor = ArgumentCaptor.forClass(Intent.class);
         verify(mockActivity, times(1)).startActivity(intentArgumentCaptor.capture());
     }
@@ -188,7 +188,7 @@ public class AssuranceSessionPresentationManagerTest extends TestCase {
                 AssuranceConstants.SocketCloseCode.ABNORMAL);
 
         verify(mockAssuranceFloatingButton, times(0)).remove();
-        verify(mockConnectionStatusUI, times(0)).dismiss();
+        verify(mockConnectionStatusUI, times(0)).release();
         verify(mockActivity, times(0)).startActivity(any(Intent.class));
     }
 
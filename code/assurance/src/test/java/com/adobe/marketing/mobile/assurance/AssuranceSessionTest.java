@@ -12,10 +12,14 @@
 package com.adobe.marketing.mobile.assurance;
 
 import static com.adobe.marketing.mobile.assurance.AssuranceTestUtils.setInternalState;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -24,12 +28,16 @@ import android.app.Activity;
 import android.app.Application;
 import android.content.SharedPreferences;
 import android.net.Uri;
-import android.os.Handler;
 import com.adobe.marketing.mobile.MobileCore;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
@@ -74,6 +82,7 @@ public class AssuranceSessionTest {
     @Before
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        AssurancePluginRegistry.reset();
 
         mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class);
         mockedStaticMobileCore.when(MobileCore::getApplication).thenReturn(mockApplication);
@@ -101,7 +110,7 @@ public class AssuranceSessionTest {
                         mockAssuranceConnectionDataStore,
                         mockSessionUIOperationHandler,
                         Collections.EMPTY_LIST,
-                        Collections.EMPTY_LIST);
+                        new AssuranceBootEventBuffer());
 
         // Assign mocks to private fields instantiated inside the constructor
         setInternalState(
@@ -315,8 +324,9 @@ public class AssuranceSessionTest {
 
     @Test
     public void test_onSocketDisconnected_ABNORMAL() throws Exception {
-        final Handler mockHandler = Mockito.mock(Handler.class);
-        setInternalState(assuranceSession, "socketReconnectHandler", mockHandler);
+        final ScheduledExecutorService mockReconnectExecutor =
+                Mockito.mock(ScheduledExecutorService.class);
+        setInternalState(assuranceSession, "socketReconnectExecutor", mockReconnectExecutor);
         doAnswer(
                         new Answer() {
                             @Override
@@ -327,8 +337,8 @@ public class AssuranceSessionTest {
                                 return null;
                             }
                         })
-                .when(mockHandler)
-                .postDelayed(any(Runnable.class), anyLong());
+                .when(mockReconnectExecutor)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
 
         final String sessionID = "sampleSessionId";
         final String token = "1234";
@@ -360,8 +370,9 @@ public class AssuranceSessionTest {
 
     @Test
     public void test_onSocketDisconnected_ABNORMAL_retry() throws Exception {
-        final Handler mockHandler = Mockito.mock(Handler.class);
-        setInternalState(assuranceSession, "socketReconnectHandler", mockHandler);
+        final ScheduledExecutorService mockReconnectExecutor =
+                Mockito.mock(ScheduledExecutorService.class);
+        setInternalState(assuranceSession, "socketReconnectExecutor", mockReconnectExecutor);
         doAnswer(
                         new Answer() {
                             @Override
@@ -372,8 +383,8 @@ public class AssuranceSessionTest {
                                 return null;
                             }
                         })
-                .when(mockHandler)
-                .postDelayed(any(Runnable.class), anyLong());
+                .when(mockReconnectExecutor)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
 
         final String sessionID = "sampleSessionId";
         final String token = "1234";
@@ -412,8 +423,9 @@ public class AssuranceSessionTest {
 
     @Test
     public void test_onSocketDisconnected_ABNORMAL_badStoredURL() throws Exception {
-        final Handler mockHandler = Mockito.mock(Handler.class);
-        setInternalState(assuranceSession, "socketReconnectHandler", mockHandler);
+        final ScheduledExecutorService mockReconnectExecutor =
+                Mockito.mock(ScheduledExecutorService.class);
+        setInternalState(assuranceSession, "socketReconnectExecutor", mockReconnectExecutor);
         doAnswer(
                         new Answer() {
                             @Override
@@ -424,8 +436,8 @@ public class AssuranceSessionTest {
                                 return null;
                             }
                         })
-                .when(mockHandler)
-                .postDelayed(any(Runnable.class), anyLong());
+                .when(mockReconnectExecutor)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
 
         final String sessionID = "sampleSessionId";
         final String token = null;
@@ -467,8 +479,56 @@ public class AssuranceSessionTest {
         verify(mockAssuranceSessionPresentationManager).onActivityStarted(mockActivity);
     }
 
+    @Test
+    public void test_sendEvent_QueuesEventWithMobileVendor() {
+        when(mockOutboundEventQueueWorker.offer(any(AssuranceEvent.class))).thenReturn(true);
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("key", "value");
+
+        assertTrue(assuranceSession.sendEvent("log", payload));
+
+        final ArgumentCaptor<AssuranceEvent> eventCaptor =
+                ArgumentCaptor.forClass(AssuranceEvent.class);
+        verify(mockOutboundEventQueueWorker).offer(eventCaptor.capture());
+        assertEquals(AssuranceConstants.VENDOR_ASSURANCE_MOBILE, eventCaptor.getValue().vendor);
+        assertEquals("log", eventCaptor.getValue().type);
+        assertEquals(payload, eventCaptor.getValue().getPayload());
+    }
+
+    @Test
+    public void test_logLocalUI_MapsPluginLogLevel() {
+        assuranceSession.logLocalUI(AssurancePluginSession.LogLevel.CRITICAL, "message");
+
+        verify(mockAssuranceSessionPresentationManager)
+                .logLocalUI(AssuranceConstants.UILogColorVisibility.CRITICAL, "message");
+    }
+
+    @Test
+    public void test_registerPlugin_AddsPluginWithQuotaSession() {
+        final AssurancePlugin mockPlugin = Mockito.mock(AssurancePlugin.class);
+        when(mockPlugin.getVendor()).thenReturn("com.example.vendor");
+
+        assertTrue(AssurancePluginRegistry.register(mockPlugin, 5));
+
+        verify(mockAssurancePluginManager)
+                .addPlugin(eq(mockPlugin), any(AssuranceQuotaPluginSession.class));
+    }
+
+    @Test
+    public void test_registerPlugin_AfterDisconnect_NotAdded() {
+        final AssurancePlugin mockPlugin = Mockito.mock(AssurancePlugin.class);
+        when(mockPlugin.getVendor()).thenReturn("com.example.vendor");
+
+        assuranceSession.disconnect();
+        AssurancePluginRegistry.register(mockPlugin, 5);
+
+        verify(mockAssurancePluginManager, never())
+                .addPlugin(eq(mockPlugin), any(AssurancePluginSession.class));
+    }
+
     @After
     public void teardown() {
+        AssurancePluginRegistry.reset();
         mockedStaticUri.close();
         mockedStaticMobileCore.close();
     }
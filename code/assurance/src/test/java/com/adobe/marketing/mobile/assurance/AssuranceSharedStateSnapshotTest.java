@@ -0,0 +1,189 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class AssuranceSharedStateSnapshotTest {
+    private static final String STATE_DATA = AssuranceConstants.PayloadDataKeys.STATE_DATA;
+    private static final String XDM_STATE_DATA = AssuranceConstants.PayloadDataKeys.XDM_STATE_DATA;
+
+    @Mock private AssuranceStateManager mockAssuranceStateManager;
+
+    private final Map<String, Long> sentStateHashes = new ConcurrentHashMap<>();
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+
+        final Map<String, String> stateOwners = new LinkedHashMap<>();
+        stateOwners.put("com.adobe.module.eventhub", "EventHub State");
+        stateOwners.put("com.adobe.module.identity", "Identity State");
+        when(mockAssuranceStateManager.getStateOwners()).thenReturn(stateOwners);
+    }
+
+    @Test
+    public void test_next_producesStatesLazilyInOrder() {
+        final Map<String, Object> hubState = Collections.singletonMap("version", "2.0.0");
+        final Map<String, Object> identityXdmState = Collections.singletonMap("ecid", "1234");
+        final AssuranceEvent hubEvent = mock(AssuranceEvent.class);
+        final AssuranceEvent identityEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceStateManager.getStateContent("com.adobe.module.eventhub", STATE_DATA))
+                .thenReturn(hubState);
+        when(mockAssuranceStateManager.getStateContent(
+                        "com.adobe.module.identity", XDM_STATE_DATA))
+                .thenReturn(identityXdmState);
+        when(mockAssuranceStateManager.prepareSharedStateEvent(
+                        "com.adobe.module.eventhub", "EventHub State", hubState, STATE_DATA))
+                .thenReturn(hubEvent);
+        when(mockAssuranceStateManager.prepareSharedStateEvent(
+                        "com.adobe.module.identity",
+                        "Identity State",
+                        identityXdmState,
+                        XDM_STATE_DATA))
+                .thenReturn(identityEvent);
+
+        final AssuranceSharedStateSnapshot snapshot =
+                new AssuranceSharedStateSnapshot(mockAssuranceStateManager, sentStateHashes);
+
+        // verify that nothing is fetched until the first state is requested
+        verify(mockAssuranceStateManager, never()).getStateOwners();
+
+        assertSame(hubEvent, snapshot.next());
+        verify(mockAssuranceStateManager, never())
+                .getStateContent("com.adobe.module.identity", STATE_DATA);
+        snapshot.onSent();
+
+        assertSame(identityEvent, snapshot.next());
+        snapshot.onSent();
+        assertNull(snapshot.next());
+        assertNull(snapshot.next());
+        verify(mockAssuranceStateManager, times(1)).getStateOwners();
+        assertEquals(2, sentStateHashes.size());
+    }
+
+    @Test
+    public void test_next_skipsStatesAlreadySentUnchanged() {
+        final Map<String, Object> hubState = new HashMap<>();
+        hubState.put("version", "2.0.0");
+        final AssuranceEvent hubEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceStateManager.getStateContent("com.adobe.module.eventhub", STATE_DATA))
+                .thenReturn(hubState);
+        when(mockAssuranceStateManager.prepareSharedStateEvent(
+                        anyString(), anyString(), anyMap(), anyString()))
+                .thenReturn(hubEvent);
+
+        final AssuranceSharedStateSnapshot snapshot =
+                new AssuranceSharedStateSnapshot(mockAssuranceStateManager, sentStateHashes);
+        assertSame(hubEvent, snapshot.next());
+        snapshot.onSent();
+
+        // the same content is not sent again
+        final AssuranceSharedStateSnapshot repeatedSnapshot =
+                new AssuranceSharedStateSnapshot(mockAssuranceStateManager, sentStateHashes);
+        assertNull(repeatedSnapshot.next());
+        assertEquals(1, repeatedSnapshot.getSkippedStateCount());
+
+        // a changed content is sent again
+        hubState.put("version", "2.0.1");
+        assertSame(
+                hubEvent,
+                new AssuranceSharedStateSnapshot(mockAssuranceStateManager, sentStateHashes)
+                        .next());
+    }
+
+    @Test
+    public void test_next_resendsStatesNotWritten() {
+        final Map<String, Object> hubState = new HashMap<>();
+        hubState.put("version", "2.0.0");
+        final AssuranceEvent hubEvent = mock(AssuranceEvent.class);
+        when(mockAssuranceStateManager.getStateContent("com.adobe.module.eventhub", STATE_DATA))
+                .thenReturn(hubState);
+        when(mockAssuranceStateManager.prepareSharedStateEvent(
+                        anyString(), anyString(), anyMap(), anyString()))
+                .thenReturn(hubEvent);
+
+        // the state was produced but never reported as sent
+        assertSame(
+                hubEvent,
+                new AssuranceSharedStateSnapshot(mockAssuranceStateManager, sentStateHashes)
+                        .next());
+        assertTrue(sentStateHashes.isEmpty());
+
+        final AssuranceSharedStateSnapshot repeatedSnapshot =
+                new AssuranceSharedStateSnapshot(mockAssuranceStateManager, sentStateHashes);
+        assertSame(hubEvent, repeatedSnapshot.next());
+        assertEquals(0, repeatedSnapshot.getSkippedStateCount());
+    }
+
+    @Test
+    public void test_next_noStateOwners() {
+        when(mockAssuranceStateManager.getStateOwners())
+                .thenReturn(Collections.<String, String>emptyMap());
+
+        assertNull(
+                new AssuranceSharedStateSnapshot(mockAssuranceStateManager, sentStateHashes)
+                        .next());
+    }
+
+    @Test
+    public void test_hash_mapOrderIndependent() {
+        final Map<String, Object> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", Arrays.asList("x", "y"));
+        final Map<String, Object> second = new LinkedHashMap<>();
+        second.put("b", Arrays.asList("x", "y"));
+        second.put("a", 1);
+
+        assertEquals(
+                AssuranceSharedStateSnapshot.hash(first),
+                AssuranceSharedStateSnapshot.hash(second));
+    }
+
+    @Test
+    public void test_hash_contentSensitive() {
+        assertNotEquals(
+                AssuranceSharedStateSnapshot.hash(Arrays.asList("x", "y")),
+                AssuranceSharedStateSnapshot.hash(Arrays.asList("y", "x")));
+        assertNotEquals(
+                AssuranceSharedStateSnapshot.hash(Collections.singletonMap("a", "b")),
+                AssuranceSharedStateSnapshot.hash(Collections.singletonMap("b", "a")));
+        assertNotEquals(
+                AssuranceSharedStateSnapshot.hash(Collections.singletonMap("a", 1)),
+                AssuranceSharedStateSnapshot.hash(Collections.singletonMap("a", 1L)));
+        assertNotEquals(
+                AssuranceSharedStateSnapshot.hash(Collections.singletonMap("a", null)),
+                AssuranceSharedStateSnapshot.hash(Collections.emptyMap()));
+    }
+}
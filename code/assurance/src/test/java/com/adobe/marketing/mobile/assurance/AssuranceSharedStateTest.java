@@ -11,18 +11,19 @@
 
 package com.adobe.marketing.mobile.assurance;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
-import android.app.Application;
-import android.content.Context;
-import android.content.SharedPreferences;
 import java.util.Map;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -30,189 +31,167 @@ public class AssuranceSharedStateTest {
 
     private AssuranceStateManager.AssuranceSharedState assuranceSharedState;
 
-    @Mock private Application mockAppplication;
-
-    @Mock private SharedPreferences mockSharedPreferences;
-
-    @Mock private SharedPreferences.Editor mockPreferenceEditor;
+    @Mock private AssuranceDataStore mockDataStore;
 
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
+
+        // run the load callbacks as if the data store was already loaded
+        doAnswer(
+                        invocation -> {
+                            ((Runnable) invocation.getArgument(0)).run();
+                            return null;
+                        })
+                .when(mockDataStore)
+                .whenLoaded(any(Runnable.class));
     }
 
     @Test
-    public void test_Init_nullSharedPreferences() {
-        // Prepare
-        when(mockAppplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(null);
-
+    public void test_Init_nullDataStore() {
         // Test
-        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockAppplication);
+        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(null);
 
         // Verify
         Assert.assertNotNull(assuranceSharedState.getClientId());
         Assert.assertNotEquals("", assuranceSharedState.getClientId());
         Assert.assertEquals("", assuranceSharedState.getSessionId());
-        verifyNoMoreInteractions(mockSharedPreferences);
+        verifyNoMoreInteractions(mockDataStore);
     }
 
     @Test
-    public void test_Init_validSharedPreferences() {
+    public void test_Init_validPersistedState() {
         // Prepare
-        when(mockAppplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(mockSharedPreferences);
-        when(mockSharedPreferences.edit()).thenReturn(mockPreferenceEditor);
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
                 .thenReturn("sampleClientID");
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
                 .thenReturn("sampleSessionID");
 
         // Test
-        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockAppplication);
+        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockDataStore);
 
         // Verify
         Assert.assertEquals("sampleClientID", assuranceSharedState.getClientId());
         Assert.assertEquals("sampleSessionID", assuranceSharedState.getSessionId());
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(AssuranceConstants.DataStoreKeys.CLIENT_ID, "sampleClientID");
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(AssuranceConstants.DataStoreKeys.SESSION_ID, "sampleSessionID");
     }
 
     @Test
     public void test_Init_emptyPersistedClientId() {
         // Prepare
-        when(mockAppplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(mockSharedPreferences);
-        when(mockSharedPreferences.edit()).thenReturn(mockPreferenceEditor);
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
                 .thenReturn("");
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
                 .thenReturn("sampleSessionID");
 
         // Test
-        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockAppplication);
+        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockDataStore);
 
         // Verify
         Assert.assertNotEquals("", assuranceSharedState.getClientId());
         Assert.assertNotNull(assuranceSharedState.getClientId());
         Assert.assertEquals("sampleSessionID", assuranceSharedState.getSessionId());
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(
                         AssuranceConstants.DataStoreKeys.CLIENT_ID,
                         assuranceSharedState.getClientId());
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(AssuranceConstants.DataStoreKeys.SESSION_ID, "sampleSessionID");
     }
 
     @Test
     public void test_setSessionId_nonNullSessionId() {
         // Prepare
-        when(mockAppplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(mockSharedPreferences);
-        when(mockSharedPreferences.edit()).thenReturn(mockPreferenceEditor);
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
                 .thenReturn("sampleClientID");
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
                 .thenReturn("sampleSessionID");
 
-        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockAppplication);
+        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockDataStore);
 
         // Verify preparation
         Assert.assertEquals("sampleSessionID", assuranceSharedState.getSessionId());
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(
                         AssuranceConstants.DataStoreKeys.CLIENT_ID,
                         assuranceSharedState.getClientId());
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(AssuranceConstants.DataStoreKeys.SESSION_ID, "sampleSessionID");
-        reset(mockPreferenceEditor);
+        reset(mockDataStore);
 
         // Test
         assuranceSharedState.setSessionId("aNewSessionId");
 
         // Verify
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(AssuranceConstants.DataStoreKeys.SESSION_ID, "aNewSessionId");
         Assert.assertEquals("aNewSessionId", assuranceSharedState.getSessionId());
-        verify(mockPreferenceEditor).apply();
     }
 
     @Test
     public void test_setSessionId_nullSessionId() {
         // Prepare
-        when(mockAppplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(mockSharedPreferences);
-        when(mockSharedPreferences.edit()).thenReturn(mockPreferenceEditor);
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
                 .thenReturn("sampleClientID");
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
                 .thenReturn("sampleSessionID");
 
-        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockAppplication);
+        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockDataStore);
 
         // Verify preparation
         Assert.assertEquals("sampleSessionID", assuranceSharedState.getSessionId());
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(
                         AssuranceConstants.DataStoreKeys.CLIENT_ID,
                         assuranceSharedState.getClientId());
-        verify(mockPreferenceEditor)
+        verify(mockDataStore)
                 .putString(AssuranceConstants.DataStoreKeys.SESSION_ID, "sampleSessionID");
-        reset(mockPreferenceEditor);
+        reset(mockDataStore);
 
         // Test
         assuranceSharedState.setSessionId(null);
 
         // Verify
-        verify(mockPreferenceEditor).remove(AssuranceConstants.DataStoreKeys.SESSION_ID);
+        verify(mockDataStore).remove(AssuranceConstants.DataStoreKeys.SESSION_ID);
         Assert.assertNull(assuranceSharedState.getSessionId());
-        verify(mockPreferenceEditor).apply();
     }
 
     @Test
-    public void test_setSessionId_nullSharedPreferencesEditor() {
+    public void test_Init_deferredUntilDataStoreLoaded() {
         // Prepare
-        when(mockAppplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(mockSharedPreferences);
-        when(mockSharedPreferences.edit()).thenReturn(null);
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
+        reset(mockDataStore);
+        doNothing().when(mockDataStore).whenLoaded(any(Runnable.class));
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
                 .thenReturn("sampleClientID");
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
                 .thenReturn("sampleSessionID");
 
-        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockAppplication);
+        // Test
+        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockDataStore);
 
-        // Verify preparation
-        Assert.assertEquals("sampleSessionID", assuranceSharedState.getSessionId());
+        // Verify that the persisted identifiers are read only once the data store is loaded
+        final ArgumentCaptor<Runnable> loadCallbackCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockDataStore).whenLoaded(loadCallbackCaptor.capture());
+        verifyNoMoreInteractions(mockDataStore);
 
-        // Test
-        assuranceSharedState.setSessionId(null);
+        loadCallbackCaptor.getValue().run();
 
-        // Verify
-        verifyNoMoreInteractions(mockPreferenceEditor);
+        Assert.assertEquals("sampleClientID", assuranceSharedState.getClientId());
+        Assert.assertEquals("sampleSessionID", assuranceSharedState.getSessionId());
     }
 
     @Test
     public void test_getAssuranceSharedState() {
         // Prepare
-        when(mockAppplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(mockSharedPreferences);
-        when(mockSharedPreferences.edit()).thenReturn(mockPreferenceEditor);
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
                 .thenReturn("sampleClientID");
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
                 .thenReturn("sampleSessionID");
 
-        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockAppplication);
+        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockDataStore);
 
         // Test
         final Map<String, Object> sharedState = assuranceSharedState.getAssuranceSharedState();
@@ -231,16 +210,12 @@ public class AssuranceSharedStateTest {
     @Test
     public void test_getAssuranceSharedState_nullSessionId() {
         // Prepare
-        when(mockAppplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(mockSharedPreferences);
-        when(mockSharedPreferences.edit()).thenReturn(mockPreferenceEditor);
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.CLIENT_ID, ""))
                 .thenReturn("sampleClientID");
-        when(mockSharedPreferences.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
+        when(mockDataStore.getString(AssuranceConstants.DataStoreKeys.SESSION_ID, ""))
                 .thenReturn(null);
 
-        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockAppplication);
+        assuranceSharedState = new AssuranceStateManager.AssuranceSharedState(mockDataStore);
 
         // Test
         final Map<String, Object> sharedState = assuranceSharedState.getAssuranceSharedState();
@@ -21,9 +21,6 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import android.app.Application;
-import android.content.Context;
-import android.content.SharedPreferences;
 import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
@@ -48,12 +45,6 @@ public class AssuranceStateManagerTest extends TestCase {
 
     @Mock private ExtensionApi mockApi;
 
-    @Mock private Application mockApplication;
-
-    @Mock SharedPreferences mockSharedPreference;
-
-    @Mock SharedPreferences.Editor mockSharedPreferenceEditor;
-
     private AssuranceStateManager assuranceStateManager;
 
     private Map<String, Object> SAMPLE_STATE_DATA;
@@ -68,11 +59,8 @@ public class AssuranceStateManagerTest extends TestCase {
         SAMPLE_XDM_STATE_DATA = new HashMap<String, Object>();
         SAMPLE_XDM_STATE_DATA.put("xdmStateKey", "xdmStateValue");
 
-        when(mockApplication.getSharedPreferences(
-                        AssuranceConstants.DataStoreKeys.DATASTORE_NAME, Context.MODE_PRIVATE))
-                .thenReturn(mockSharedPreference);
-        when(mockSharedPreference.edit()).thenReturn(mockSharedPreferenceEditor);
-        assuranceStateManager = new AssuranceStateManager(mockApi, mockApplication);
+        assuranceStateManager =
+                new AssuranceStateManager(mockApi, AssuranceDataStore.inMemory());
     }
 
     @Test
@@ -265,26 +253,29 @@ public class AssuranceStateManagerTest extends TestCase {
         assertEquals(AssuranceConstants.AssuranceEventType.GENERIC, eventHubStateEvent.type);
         assertEquals(
                 "EventHub State",
-                eventHubStateEvent.payload.get(
+                eventHubStateEvent.getPayload().get(
                         AssuranceConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_NAME));
         assertEquals(
                 EventType.HUB,
-                eventHubStateEvent.payload.get(
+                eventHubStateEvent.getPayload().get(
                         AssuranceConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_TYPE));
         assertEquals(
                 EventSource.SHARED_STATE,
-                eventHubStateEvent.payload.get(
+                eventHubStateEvent.getPayload().get(
                         AssuranceConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_SOURCE));
         assertEquals(
                 "com.adobe.module.eventhub",
                 ((Map)
-                                eventHubStateEvent.payload.get(
+                                eventHubStateEvent.getPayload().get(
                                         AssuranceConstants.GenericEventPayloadKey
                                                 .ACP_EXTENSION_EVENT_DATA))
                         .get("stateowner"));
         assertEquals(
                 extensionDetails,
-                ((Map) eventHubStateEvent.payload.get(AssuranceConstants.PayloadDataKeys.METADATA))
+                ((Map)
+                                eventHubStateEvent
+                                        .getPayload()
+                                        .get(AssuranceConstants.PayloadDataKeys.METADATA))
                         .get("state.data"));
 
         // verify state event 2  : Configuration with regular shared state
@@ -292,14 +283,14 @@ public class AssuranceStateManagerTest extends TestCase {
         assertEquals(
                 "com.adobe.module.configuration",
                 ((Map)
-                                configurationStateEvent.payload.get(
+                                configurationStateEvent.getPayload().get(
                                         AssuranceConstants.GenericEventPayloadKey
                                                 .ACP_EXTENSION_EVENT_DATA))
                         .get("stateowner"));
         assertEquals(
                 SAMPLE_STATE_DATA,
                 ((Map)
-                                configurationStateEvent.payload.get(
+                                configurationStateEvent.getPayload().get(
                                         AssuranceConstants.PayloadDataKeys.METADATA))
                         .get("state.data"));
 
@@ -308,13 +299,16 @@ public class AssuranceStateManagerTest extends TestCase {
         assertEquals(
                 "com.adobe.edge.consent",
                 ((Map)
-                                consentStateEvent.payload.get(
+                                consentStateEvent.getPayload().get(
                                         AssuranceConstants.GenericEventPayloadKey
                                                 .ACP_EXTENSION_EVENT_DATA))
                         .get("stateowner"));
         assertEquals(
                 SAMPLE_XDM_STATE_DATA,
-                ((Map) consentStateEvent.payload.get(AssuranceConstants.PayloadDataKeys.METADATA))
+                ((Map)
+                                consentStateEvent
+                                        .getPayload()
+                                        .get(AssuranceConstants.PayloadDataKeys.METADATA))
                         .get("xdm.state.data"));
     }
 
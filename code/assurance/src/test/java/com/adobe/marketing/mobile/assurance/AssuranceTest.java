@@ -38,6 +38,7 @@ public class AssuranceTest {
     @Before
     public void setup() {
         mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class);
+        AssurancePluginRegistry.reset();
     }
 
     @Test
@@ -89,6 +90,47 @@ public class AssuranceTest {
         mockedStaticMobileCore.verify(() -> MobileCore.dispatchEvent(any(Event.class)), times(0));
     }
 
+    @Test
+    public void test_RegisterPlugin() {
+        final AssurancePlugin mockPlugin = Mockito.mock(AssurancePlugin.class);
+        Mockito.when(mockPlugin.getVendor()).thenReturn("com.example.vendor");
+
+        TestCase.assertTrue(Assurance.registerPlugin(mockPlugin));
+
+        final AssurancePluginRegistry.Registration registration =
+                AssurancePluginRegistry.addListener(
+                                new AssurancePluginRegistry.RegistrationListener() {
+                                    @Override
+                                    public void onPluginRegistered(
+                                            final AssurancePluginRegistry.Registration
+                                                    registration) {}
+                                })
+                        .get(0);
+        TestCase.assertSame(mockPlugin, registration.plugin);
+        assertEquals(20, registration.maxEventsPerSecond);
+    }
+
+    @Test
+    public void test_RegisterPlugin_AlreadyRegistered() {
+        final AssurancePlugin mockPlugin = Mockito.mock(AssurancePlugin.class);
+        Mockito.when(mockPlugin.getVendor()).thenReturn("com.example.vendor");
+
+        TestCase.assertTrue(Assurance.registerPlugin(mockPlugin, 100));
+        TestCase.assertFalse(Assurance.registerPlugin(mockPlugin, 100));
+    }
+
+    @Test
+    public void test_RegisterPlugin_InvalidPlugin() {
+        final AssurancePlugin mockPlugin = Mockito.mock(AssurancePlugin.class);
+
+        TestCase.assertFalse(Assurance.registerPlugin(null));
+        // null vendor
+        TestCase.assertFalse(Assurance.registerPlugin(mockPlugin));
+
+        Mockito.when(mockPlugin.getVendor()).thenReturn("com.example.vendor");
+        TestCase.assertFalse(Assurance.registerPlugin(mockPlugin, 0));
+    }
+
     @Test
     public void test_RegisterExtension() {
         // prepare
@@ -112,6 +154,7 @@ public class AssuranceTest {
 
     @After
     public void teardown() {
+        AssurancePluginRegistry.reset();
         mockedStaticMobileCore.close();
     }
 }
@@ -51,6 +51,7 @@ public class AssuranceTestConstants {
     final class ControlType {
         static final String START_EVENT_FORWARDING = "startEventForwarding";
         static final String SCREENSHOT = "screenshot";
+        static final String SCREEN_RECORDING = "screenRecording";
         static final String LOG_FORWARDING = "logForwarding";
         static final String FAKE_EVENT = "fakeEvent";
         static final String CONFIG_UPDATE = "configUpdate";
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class AssuranceUILogBufferTest {
+    @Test
+    public void testAdd_ReportsWhetherBufferWasEmpty() {
+        final AssuranceUILogBuffer buffer = new AssuranceUILogBuffer(3);
+
+        assertTrue(buffer.add(0, "a"));
+        assertFalse(buffer.add(1, "b"));
+
+        buffer.drainTo(new ArrayList<AssuranceUILogBuffer.Entry>());
+
+        assertTrue(buffer.add(2, "c"));
+    }
+
+    @Test
+    public void testDrainTo_OldestFirst() {
+        final AssuranceUILogBuffer buffer = new AssuranceUILogBuffer(3);
+        buffer.add(0, "a");
+        buffer.add(1, "b");
+        final List<AssuranceUILogBuffer.Entry> entries = new ArrayList<>();
+
+        assertEquals(0, buffer.drainTo(entries));
+        assertEquals(2, entries.size());
+        assertEquals(0, entries.get(0).level);
+        assertEquals("a", entries.get(0).message);
+        assertEquals(1, entries.get(1).level);
+        assertEquals("b", entries.get(1).message);
+        assertEquals(2, buffer.size());
+        assertEquals(0, buffer.drainTo(entries));
+        assertEquals(2, entries.size());
+    }
+
+    @Test
+    public void testAdd_Full_OverwritesOldestAndCountsDropped() {
+        final AssuranceUILogBuffer buffer = new AssuranceUILogBuffer(3);
+
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i, "m" + i);
+        }
+
+        final List<AssuranceUILogBuffer.Entry> entries = new ArrayList<>();
+
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.drainTo(entries));
+        assertEquals("m2", entries.get(0).message);
+        assertEquals("m3", entries.get(1).message);
+        assertEquals("m4", entries.get(2).message);
+        assertEquals(0, buffer.drainTo(new ArrayList<AssuranceUILogBuffer.Entry>()));
+    }
+
+    @Test
+    public void testDrainTo_AfterWrapAround_KeepsOrder() {
+        final AssuranceUILogBuffer buffer = new AssuranceUILogBuffer(3);
+        buffer.add(0, "m0");
+        buffer.add(0, "m1");
+        buffer.drainTo(new ArrayList<AssuranceUILogBuffer.Entry>());
+        buffer.add(0, "m2");
+        buffer.add(0, "m3");
+        buffer.add(0, "m4");
+        final List<AssuranceUILogBuffer.Entry> entries = new ArrayList<>();
+
+        assertEquals(0, buffer.drainTo(entries));
+        assertEquals("m2", entries.get(0).message);
+        assertEquals("m3", entries.get(1).message);
+        assertEquals("m4", entries.get(2).message);
+    }
+
+    @Test
+    public void testAdd_Full_OverwritingRenderedMessages_NotCountedDropped() {
+        final AssuranceUILogBuffer buffer = new AssuranceUILogBuffer(3);
+        buffer.add(0, "m0");
+        buffer.add(0, "m1");
+        buffer.add(0, "m2");
+        buffer.drainTo(new ArrayList<AssuranceUILogBuffer.Entry>());
+        buffer.add(0, "m3");
+        buffer.add(0, "m4");
+        final List<AssuranceUILogBuffer.Entry> entries = new ArrayList<>();
+
+        assertEquals(0, buffer.drainTo(entries));
+        assertEquals(2, entries.size());
+        assertEquals("m3", entries.get(0).message);
+        assertEquals("m4", entries.get(1).message);
+    }
+
+    @Test
+    public void testRewind_DrainsRetainedMessagesAgain() {
+        final AssuranceUILogBuffer buffer = new AssuranceUILogBuffer(3);
+
+        for (int i = 0; i < 4; i++) {
+            buffer.add(i, "m" + i);
+        }
+
+        buffer.drainTo(new ArrayList<AssuranceUILogBuffer.Entry>());
+        buffer.rewind();
+        final List<AssuranceUILogBuffer.Entry> entries = new ArrayList<>();
+
+        assertEquals(1, buffer.drainTo(entries));
+        assertEquals(3, entries.size());
+        assertEquals("m1", entries.get(0).message);
+        assertEquals("m2", entries.get(1).message);
+        assertEquals("m3", entries.get(2).message);
+        assertTrue(buffer.add(0, "m4"));
+    }
+
+    @Test
+    public void testClear_DiscardsMessagesAndDroppedCount() {
+        final AssuranceUILogBuffer buffer = new AssuranceUILogBuffer(1);
+        buffer.add(0, "a");
+        buffer.add(0, "b");
+
+        buffer.clear();
+
+        final List<AssuranceUILogBuffer.Entry> entries = new ArrayList<>();
+
+        assertEquals(0, buffer.drainTo(entries));
+        assertTrue(entries.isEmpty());
+        buffer.rewind();
+        assertEquals(0, buffer.drainTo(entries));
+        assertTrue(buffer.add(0, "c"));
+    }
+}
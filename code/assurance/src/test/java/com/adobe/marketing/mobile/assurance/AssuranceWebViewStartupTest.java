@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.view.View;
+import android.view.Window;
+import com.adobe.marketing.mobile.assurance.AssuranceConstants.WebViewStartupMode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AssuranceWebViewStartupTest {
+    @Mock private Handler mockMainThreadHandler;
+    @Mock private AssuranceSessionOrchestrator.ApplicationHandle mockApplicationHandle;
+    @Mock private Activity mockActivity;
+    @Mock private Window mockWindow;
+    @Mock private View mockDecorView;
+    @Mock private Runnable mockTask;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void test_runWhenReady_Immediate() {
+        final AssuranceWebViewStartup webViewStartup =
+                new AssuranceWebViewStartup(
+                        WebViewStartupMode.IMMEDIATE, mockApplicationHandle, mockMainThreadHandler);
+        mockMainHandlerAndRunTheRunnable();
+
+        webViewStartup.runWhenReady(mockTask);
+
+        verify(mockTask, times(1)).run();
+        verify(mockMainThreadHandler, never()).postDelayed(any(Runnable.class), anyLong());
+    }
+
+    @Test
+    public void test_runWhenReady_Idle_RunsOnceAfterMaxDeferral() {
+        final AssuranceWebViewStartup webViewStartup =
+                new AssuranceWebViewStartup(
+                        WebViewStartupMode.IDLE, mockApplicationHandle, mockMainThreadHandler);
+        final ArgumentCaptor<Runnable> deferredTaskCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+        webViewStartup.runWhenReady(mockTask);
+
+        verify(mockMainThreadHandler)
+                .postDelayed(
+                        deferredTaskCaptor.capture(),
+                        eq(AssuranceWebViewStartup.MAX_STARTUP_DEFERRAL_MS));
+        verify(mockTask, never()).run();
+
+        deferredTaskCaptor.getValue().run();
+        deferredTaskCaptor.getValue().run();
+
+        verify(mockTask, times(1)).run();
+    }
+
+    @Test
+    public void test_runWhenReady_FirstFrame_WhenActivityAlreadyDrawn() {
+        final AssuranceWebViewStartup webViewStartup =
+                new AssuranceWebViewStartup(
+                        WebViewStartupMode.FIRST_FRAME,
+                        mockApplicationHandle,
+                        mockMainThreadHandler);
+        when(mockApplicationHandle.getCurrentActivity()).thenReturn(mockActivity);
+        when(mockActivity.getWindow()).thenReturn(mockWindow);
+        when(mockWindow.getDecorView()).thenReturn(mockDecorView);
+        when(mockDecorView.getWidth()).thenReturn(1080);
+        when(mockDecorView.getHeight()).thenReturn(1920);
+        mockMainHandlerAndRunTheRunnable();
+
+        webViewStartup.runWhenReady(mockTask);
+
+        verify(mockTask, times(1)).run();
+        verify(mockDecorView, never()).getViewTreeObserver();
+    }
+
+    private void mockMainHandlerAndRunTheRunnable() {
+        doAnswer(
+                        new Answer() {
+                            @Override
+                            public Object answer(InvocationOnMock invocation) throws Throwable {
+                                ((Runnable) invocation.getArguments()[0]).run();
+                                return true;
+                            }
+                        })
+                .when(mockMainThreadHandler)
+                .post(any(Runnable.class));
+    }
+}
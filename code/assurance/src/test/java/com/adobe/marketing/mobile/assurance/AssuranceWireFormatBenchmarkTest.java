@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.logging.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the JSON and CBOR frames of generic events carrying the payload fixtures: the bytes
+ * per event, before and after the base64 encoding of the socket, and the throughput of encoding
+ * the frames on the client and decoding them with the {@link AssuranceServerStandIn}. The numbers
+ * are logged for comparison between changes; only the equivalence of the decoded frames is
+ * asserted.
+ */
+@Ignore("Benchmark, run on demand")
+public class AssuranceWireFormatBenchmarkTest {
+    private static final Logger LOG =
+            Logger.getLogger(AssuranceWireFormatBenchmarkTest.class.getName());
+    private static final String[] PAYLOAD_FIXTURES = {
+        "assurance_event_payload_key_value_5KB.txt",
+        "assurance_large_event_payload_key_value_20KB.txt",
+        "assurance_large_event_payload_key_value_40KB.txt",
+        "assurance_large_event_payload_key_value_emptylines.txt",
+        "assurance_large_event_payload_key_value_html.txt"
+    };
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Test
+    public void benchmark_wireFormats() throws Exception {
+        final List<AssuranceEvent> events = buildEvents();
+        long jsonBytes = 0;
+        long cborBytes = 0;
+
+        for (final AssuranceEvent event : events) {
+            final byte[] json = encode(event, false);
+            final byte[] cbor = encode(event, true);
+            jsonBytes += json.length;
+            cborBytes += cbor.length;
+
+            assertTrue(AssuranceServerStandIn.isCbor(cbor));
+            assertEquals(
+                    AssuranceServerStandIn.decodeFrame(json),
+                    AssuranceServerStandIn.decodeFrame(cbor));
+        }
+
+        for (final boolean isCbor : Arrays.asList(false, true)) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                roundTripAll(events, isCbor);
+            }
+
+            final long start = System.nanoTime();
+
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                roundTripAll(events, isCbor);
+            }
+
+            final long nanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+            final long bytes = isCbor ? cborBytes : jsonBytes;
+
+            LOG.info(
+                    String.format(
+                            "Assurance wire format %s: %d events, %.1f bytes per event (%.1f"
+                                    + " base64), encode and decode %.2f ms",
+                            isCbor ? "CBOR" : "JSON",
+                            events.size(),
+                            (double) bytes / events.size(),
+                            4d * ((bytes + 2 * events.size()) / 3) / events.size(),
+                            nanos / 1e6));
+        }
+    }
+
+    private static byte[] encode(final AssuranceEvent event, final boolean isCbor) {
+        return isCbor
+                ? event.getCborRepresentation()
+                : event.getJSONRepresentation().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void roundTripAll(final List<AssuranceEvent> events, final boolean isCbor)
+            throws Exception {
+        for (final AssuranceEvent event : events) {
+            AssuranceServerStandIn.decodeFrame(encode(event, isCbor));
+        }
+    }
+
+    private List<AssuranceEvent> buildEvents() throws IOException {
+        final List<AssuranceEvent> events = new ArrayList<>();
+
+        for (final String fixture : PAYLOAD_FIXTURES) {
+            final String content = readResourceFile(fixture);
+            final Map<String, Object> eventData = new HashMap<>();
+            eventData.put("content", content);
+            eventData.put("lines", Arrays.asList(content.split("\n")));
+            eventData.put("length", content.length());
+            eventData.put("weight", content.length() + 0.5d);
+            eventData.put("isFixture", true);
+
+            final Map<String, Object> payload = new HashMap<>();
+            payload.put(
+                    AssuranceConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_TYPE, "type");
+            payload.put(
+                    AssuranceConstants.GenericEventPayloadKey.ACP_EXTENSION_EVENT_DATA, eventData);
+            events.add(
+                    new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload));
+        }
+
+        return events;
+    }
+
+    private String readResourceFile(final String fileName) throws IOException {
+        try (InputStream inputStream =
+                        getClass().getClassLoader().getResource(fileName).openStream();
+                Scanner scanner = new Scanner(inputStream, "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
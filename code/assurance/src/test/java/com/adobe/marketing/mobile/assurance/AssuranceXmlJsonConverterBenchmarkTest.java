@@ -0,0 +1,208 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Stack;
+import java.util.logging.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Compares {@link AssuranceIOUtils#convertXMLToJSON(XmlPullParser)}, which streams the XML into
+ * JSON text with {@link AssuranceXmlJsonConverter} and parses the text into a {@code JSONObject},
+ * with the previous conversion through a tree of {@code JSONObject}s, on a synthetic manifest with
+ * 500 components. Both produce the {@code JSONObject} put in the client info payload and both
+ * include the XML parsing. The streaming half alone is timed as well. The numbers are logged for
+ * comparison between changes; only the equivalence of the outputs is asserted.
+ */
+@Ignore("Benchmark, run on demand")
+public class AssuranceXmlJsonConverterBenchmarkTest {
+    private static final Logger LOG =
+            Logger.getLogger(AssuranceXmlJsonConverterBenchmarkTest.class.getName());
+    private static final int COMPONENT_COUNT = 500;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Test
+    public void benchmark_convert() throws Exception {
+        final String manifest = buildManifest(COMPONENT_COUNT);
+
+        assertTrue(convertWithTree(manifest).similar(convert(manifest)));
+        assertTrue(
+                convertWithTree(manifest)
+                        .similar(new JSONObject(new String(convertStreaming(manifest), "UTF-8"))));
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            convert(manifest);
+            convertStreaming(manifest);
+            convertWithTree(manifest);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            convert(manifest);
+        }
+
+        final long convertNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+        start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            convertStreaming(manifest);
+        }
+
+        final long streamingNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+        start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            convertWithTree(manifest);
+        }
+
+        final long treeNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        LOG.info(
+                String.format(
+                        "AssuranceIOUtils.convertXMLToJSON: %d components, %.2f ms (streaming"
+                                + " alone %.2f ms), tree %.2f ms per manifest",
+                        COMPONENT_COUNT,
+                        convertNanos / 1e6,
+                        streamingNanos / 1e6,
+                        treeNanos / 1e6));
+    }
+
+    /** The conversion used by {@link AssuranceClientInfo}, streaming then parsing. */
+    private static JSONObject convert(final String xml)
+            throws IOException, XmlPullParserException, JSONException {
+        final KXmlParser parser = new KXmlParser();
+        parser.setInput(new StringReader(xml));
+        return AssuranceIOUtils.convertXMLToJSON(parser);
+    }
+
+    private static byte[] convertStreaming(final String xml)
+            throws IOException, XmlPullParserException {
+        final KXmlParser parser = new KXmlParser();
+        parser.setInput(new StringReader(xml));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AssuranceXmlJsonConverter.convert(parser, out);
+        return out.toByteArray();
+    }
+
+    /** The conversion previously used by {@link AssuranceIOUtils}. */
+    private static JSONObject convertWithTree(final String xml)
+            throws IOException, XmlPullParserException, JSONException {
+        final XmlPullParser xmlPullParser = new KXmlParser();
+        xmlPullParser.setInput(new StringReader(xml));
+        final Stack<JSONObject> xmlJsonObjectStack = new Stack<>();
+        xmlJsonObjectStack.add(new JSONObject());
+
+        while (xmlPullParser.getEventType() != XmlPullParser.END_DOCUMENT) {
+            switch (xmlPullParser.getEventType()) {
+                case XmlPullParser.START_TAG:
+                    final JSONObject jsonObject = new JSONObject();
+
+                    for (int i = 0; i < xmlPullParser.getAttributeCount(); i++) {
+                        jsonObject.put(
+                                xmlPullParser.getAttributeName(i),
+                                xmlPullParser.getAttributeValue(i));
+                    }
+
+                    xmlJsonObjectStack.push(jsonObject);
+                    break;
+
+                case XmlPullParser.TEXT:
+                    final String content = xmlPullParser.getText().trim();
+
+                    if (!content.isEmpty()) {
+                        xmlJsonObjectStack.peek().put("content", content);
+                    }
+
+                    break;
+
+                case XmlPullParser.END_TAG:
+                    final JSONObject child = xmlJsonObjectStack.pop();
+                    final JSONObject parent = xmlJsonObjectStack.peek();
+                    final String name = xmlPullParser.getName();
+
+                    if (parent.has(name)) {
+                        if (parent.get(name) instanceof JSONArray) {
+                            ((JSONArray) parent.get(name)).put(child);
+                        } else {
+                            parent.put(name, new JSONArray().put(parent.get(name)).put(child));
+                        }
+                    } else {
+                        parent.put(name, child);
+                    }
+
+                    break;
+
+                default:
+                    break;
+            }
+
+            xmlPullParser.next();
+        }
+
+        return xmlJsonObjectStack.pop();
+    }
+
+    private static String buildManifest(final int componentCount) {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<manifest xmlns:android=\"http://schemas.android.com/apk/res/android\"")
+                .append(" package=\"com.example.app\">\n")
+                .append("<uses-permission android:name=\"android.permission.INTERNET\"/>\n")
+                .append("<application android:name=\".App\" android:label=\"App\">\n");
+        final String[] components = {"activity", "service", "receiver", "provider"};
+
+        for (int i = 0; i < componentCount; i++) {
+            final String component = components[i % components.length];
+            xml.append('<')
+                    .append(component)
+                    .append(" android:name=\"com.example.app.Component")
+                    .append(i)
+                    .append("\" android:exported=\"")
+                    .append(i % 2 == 0)
+                    .append("\">\n");
+
+            if (i % 3 == 0) {
+                xml.append("<intent-filter>")
+                        .append("<action android:name=\"com.example.action.A")
+                        .append(i)
+                        .append("\"/>")
+                        .append("<category android:name=\"android.intent.category.DEFAULT\"/>")
+                        .append("<category android:name=\"android.intent.category.BROWSABLE\"/>")
+                        .append("</intent-filter>\n");
+            }
+
+            xml.append("<meta-data android:name=\"key")
+                    .append(i)
+                    .append("\" android:value=\"value")
+                    .append(i)
+                    .append("\"/>\n</")
+                    .append(component)
+                    .append(">\n");
+        }
+
+        return xml.append("</application>\n</manifest>\n").toString();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+
+package com.adobe.marketing.mobile.assurance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+public class AssuranceXmlJsonConverterTest {
+
+    @Test
+    public void testConvert_ManifestFixture() throws Exception {
+        final String json = convert(readResourceFile("AndroidManifest_Test.xml"));
+
+        assertTrue(
+                new JSONObject(readResourceFile("AndroidManifest_Test.json"))
+                        .similar(new JSONObject(json)));
+    }
+
+    @Test
+    public void testConvert_RepeatedSiblings_GroupedIntoArray() throws Exception {
+        assertEquals(
+                "{\"a\":{\"x\":\"1\",\"b\":[{\"n\":\"1\"},{\"n\":\"2\"}],\"c\":{}}}",
+                convert("<a x=\"1\"><b n=\"1\"/><c/><b n=\"2\"/></a>"));
+    }
+
+    @Test
+    public void testConvert_Content_PlacedWhereFirstSeen() throws Exception {
+        assertEquals(
+                "{\"a\":{\"b\":{},\"content\":\"text\",\"c\":{}}}",
+                convert("<a><b/>  text  <c/></a>"));
+    }
+
+    @Test
+    public void testConvert_WhitespaceOnlyText_Ignored() throws Exception {
+        assertEquals("{\"a\":{\"b\":{}}}", convert("<a>\n  <b/>\n</a>"));
+    }
+
+    @Test
+    public void testConvert_EscapesAndEncodesUtf8() throws Exception {
+        final String json = convert("<a q=\"&quot;\\\">line1\nline2 \u00e9\u4e2d\ud83d\ude00</a>");
+
+        assertEquals(
+                "{\"a\":{\"q\":\"\\\"\\\\\","
+                        + "\"content\":\"line1\\nline2 \u00e9\u4e2d\ud83d\ude00\"}}",
+                json);
+        assertEquals(
+                "line1\nline2 \u00e9\u4e2d\ud83d\ude00",
+                new JSONObject(json).getJSONObject("a").getString("content"));
+    }
+
+    @Test
+    public void testConvert_EmptyElement() throws Exception {
+        assertEquals("{\"a\":{}}", convert("<a/>"));
+    }
+
+    private static String convert(final String xml)
+            throws IOException, XmlPullParserException {
+        final KXmlParser parser = new KXmlParser();
+        parser.setInput(new StringReader(xml));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AssuranceXmlJsonConverter.convert(parser, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String readResourceFile(final String fileName) throws IOException {
+        try (InputStream inputStream =
+                        getClass().getClassLoader().getResource(fileName).openStream();
+                Scanner scanner = new Scanner(inputStream, "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -278,6 +279,256 @@ public class OutboundEventQueueWorkerTest {
         verifyNoMoreInteractions(mockAssuranceWebViewSocket);
     }
 
+    @Test
+    public void test_sendSharedStates_sentAfterQueuedEvents() {
+        when(mockAssuranceWebViewSocket.getState())
+                .thenReturn(AssuranceWebViewSocket.SocketReadyState.OPEN);
+        final AssuranceSharedStateSnapshot mockSnapshot =
+                Mockito.mock(AssuranceSharedStateSnapshot.class);
+        final AssuranceEvent queuedEvent = new AssuranceEvent("type", Collections.EMPTY_MAP);
+        final AssuranceEvent stateEvent1 = new AssuranceEvent("state1", Collections.EMPTY_MAP);
+        final AssuranceEvent stateEvent2 = new AssuranceEvent("state2", Collections.EMPTY_MAP);
+        when(mockSnapshot.next()).thenReturn(stateEvent1, stateEvent2, null);
+
+        outboundEventQueueWorker.start();
+        outboundEventQueueWorker.offer(queuedEvent);
+        outboundEventQueueWorker.sendSharedStates(mockSnapshot);
+        outboundEventQueueWorker.unblock();
+
+        // Verify that the states are sent once the queued event is sent
+        ArgumentCaptor<byte[]> eventByteCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockAssuranceWebViewSocket, times(4)).sendData(eventByteCaptor.capture());
+        final List<byte[]> capturedEventData = eventByteCaptor.getAllValues();
+        assertEquals(
+                queuedEvent.getJSONRepresentation(),
+                new String(capturedEventData.get(1), Charset.forName("UTF-8")));
+        assertEquals(
+                stateEvent1.getJSONRepresentation(),
+                new String(capturedEventData.get(2), Charset.forName("UTF-8")));
+        assertEquals(
+                stateEvent2.getJSONRepresentation(),
+                new String(capturedEventData.get(3), Charset.forName("UTF-8")));
+
+        // Verify that each state is recorded once it is written
+        verify(mockSnapshot, times(2)).onSent();
+
+        // Verify that the exhausted snapshot is released
+        outboundEventQueueWorker.offer(new AssuranceEvent("type", Collections.EMPTY_MAP));
+        verify(mockSnapshot, times(3)).next();
+        verify(mockSnapshot, times(2)).onSent();
+    }
+
+    @Test
+    public void test_sendSharedStates_notSentWhenBlocked() {
+        when(mockAssuranceWebViewSocket.getState())
+                .thenReturn(AssuranceWebViewSocket.SocketReadyState.OPEN);
+        final AssuranceSharedStateSnapshot mockSnapshot =
+                Mockito.mock(AssuranceSharedStateSnapshot.class);
+
+        outboundEventQueueWorker.start();
+        outboundEventQueueWorker.sendSharedStates(mockSnapshot);
+
+        verify(mockSnapshot, never()).next();
+    }
+
+    @Test
+    public void test_payloadReferencesEnabled_repeatedEventDataReferenced() {
+        when(mockAssuranceWebViewSocket.getState())
+                .thenReturn(AssuranceWebViewSocket.SocketReadyState.OPEN);
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put("largeValue", new String(new char[1024]).replace('\0', 'a'));
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("ACPExtensionEventData", eventData);
+
+        outboundEventQueueWorker.start();
+        outboundEventQueueWorker.setPayloadReferencesEnabled(true);
+        outboundEventQueueWorker.unblock();
+        outboundEventQueueWorker.offer(
+                new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload));
+        outboundEventQueueWorker.offer(
+                new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload));
+
+        ArgumentCaptor<byte[]> eventByteCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockAssuranceWebViewSocket, times(3)).sendData(eventByteCaptor.capture());
+        final List<byte[]> capturedEventData = eventByteCaptor.getAllValues();
+        final String firstEvent = new String(capturedEventData.get(1), Charset.forName("UTF-8"));
+        final String secondEvent = new String(capturedEventData.get(2), Charset.forName("UTF-8"));
+        assertTrue(firstEvent.contains(AssurancePayloadDeduplicator.DEFINITION_KEY));
+        assertTrue(secondEvent.contains(AssurancePayloadDeduplicator.REFERENCE_KEY));
+        assertFalse(secondEvent.contains("aaaa"));
+    }
+
+    @Test
+    public void test_payloadReferencesDisabled_eventDataSentAsIs() {
+        when(mockAssuranceWebViewSocket.getState())
+                .thenReturn(AssuranceWebViewSocket.SocketReadyState.OPEN);
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put("largeValue", new String(new char[1024]).replace('\0', 'a'));
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("ACPExtensionEventData", eventData);
+        final AssuranceEvent event =
+                new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload);
+
+        outboundEventQueueWorker.start();
+        outboundEventQueueWorker.unblock();
+        outboundEventQueueWorker.offer(event);
+        outboundEventQueueWorker.offer(event);
+
+        ArgumentCaptor<byte[]> eventByteCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockAssuranceWebViewSocket, times(3)).sendData(eventByteCaptor.capture());
+        assertEquals(
+                event.getJSONRepresentation(),
+                new String(eventByteCaptor.getAllValues().get(2), Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void test_cborFramesEnabled_eventSentAsCbor() throws Exception {
+        when(mockAssuranceWebViewSocket.getState())
+                .thenReturn(AssuranceWebViewSocket.SocketReadyState.OPEN);
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("key", "value");
+        payload.put("number", 5);
+        final AssuranceEvent event =
+                new AssuranceEvent(AssuranceConstants.AssuranceEventType.GENERIC, payload);
+
+        outboundEventQueueWorker.start();
+        outboundEventQueueWorker.setCborFramesEnabled(true);
+        outboundEventQueueWorker.unblock();
+        outboundEventQueueWorker.offer(event);
+
+        ArgumentCaptor<byte[]> eventByteCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockAssuranceWebViewSocket, times(2)).sendData(eventByteCaptor.capture());
+        final List<byte[]> capturedEventData = eventByteCaptor.getAllValues();
+        // The client info event is sent before the capabilities are negotiated.
+        assertFalse(AssuranceServerStandIn.isCbor(capturedEventData.get(0)));
+        assertTrue(AssuranceServerStandIn.isCbor(capturedEventData.get(1)));
+        assertArrayEquals(event.getCborRepresentation(), capturedEventData.get(1));
+        assertEquals(
+                AssuranceServerStandIn.decodeFrame(
+                        event.getJSONRepresentation().getBytes(Charset.forName("UTF-8"))),
+                AssuranceServerStandIn.decodeFrame(capturedEventData.get(1)));
+    }
+
+    @Test
+    public void test_cborFramesEnabled_largeEventChunkedAsByteStrings() throws Exception {
+        when(mockAssuranceWebViewSocket.getState())
+                .thenReturn(AssuranceWebViewSocket.SocketReadyState.OPEN);
+        final String expectedPayloadKeyValue =
+                readPayloadFromResource("assurance_large_event_payload_key_value_40KB.txt");
+        final HashMap<String, Object> expectedEventPayload = new HashMap<>();
+        expectedEventPayload.put("largeKey", expectedPayloadKeyValue);
+        final AssuranceEvent largeAssuranceEvent =
+                new AssuranceEvent(
+                        AssuranceConstants.AssuranceEventType.GENERIC, expectedEventPayload);
+
+        outboundEventQueueWorker.setCborFramesEnabled(true);
+        outboundEventQueueWorker.offer(largeAssuranceEvent);
+        outboundEventQueueWorker.start();
+        outboundEventQueueWorker.unblock();
+
+        ArgumentCaptor<byte[]> socketDataCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockAssuranceWebViewSocket, Mockito.atLeast(3))
+                .sendData(socketDataCaptor.capture());
+        final List<byte[]> capturedEventData = socketDataCaptor.getAllValues();
+        final List<Map<String, Object>> chunks = new ArrayList<>();
+
+        for (int i = 1; i < capturedEventData.size(); i++) {
+            assertTrue(capturedEventData.get(i).length < OutboundEventQueueWorker.MAX_EVENT_SIZE);
+            chunks.add(AssuranceServerStandIn.decodeFrame(capturedEventData.get(i)));
+        }
+
+        // Deliver the chunks out of order.
+        Collections.reverse(chunks);
+        assertEquals(
+                expectedEventPayload, AssuranceServerStandIn.reassemblePayload(chunks));
+    }
+
+    @Test
+    public void test_sequenceLanesEnabled_eventsNumberedAfterGapRecords() throws Exception {
+        when(mockAssuranceWebViewSocket.getState())
+                .thenReturn(AssuranceWebViewSocket.SocketReadyState.OPEN);
+        outboundEventQueueWorker.recordGap(
+                AssuranceConstants.SequenceLane.EVENTS, AssuranceConstants.GapReason.EVICTED, 2);
+        outboundEventQueueWorker.recordGap(
+                AssuranceConstants.SequenceLane.LOGS, AssuranceConstants.GapReason.FILTERED, 5);
+
+        outboundEventQueueWorker.offer(
+                new AssuranceEvent(
+                        AssuranceConstants.AssuranceEventType.GENERIC,
+                        Collections.<String, Object>emptyMap()));
+        outboundEventQueueWorker.offer(
+                new AssuranceEvent(
+                        AssuranceConstants.AssuranceEventType.GENERIC,
+                        Collections.<String, Object>emptyMap()));
+        outboundEventQueueWorker.start();
+        outboundEventQueueWorker.setSequenceLanesEnabled(true);
+        outboundEventQueueWorker.unblock();
+
+        // 1 client info event, 1 gap record and 2 events in the event lane, and 1 gap record in
+        // the log lane sent once the queue is drained.
+        ArgumentCaptor<byte[]> eventByteCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockAssuranceWebViewSocket, times(5)).sendData(eventByteCaptor.capture());
+        final List<byte[]> capturedEventData = eventByteCaptor.getAllValues();
+        final AssuranceEvent[] sentEvents = new AssuranceEvent[capturedEventData.size()];
+
+        for (int i = 0; i < sentEvents.length; i++) {
+            sentEvents[i] =
+                    new AssuranceEvent(
+                            new String(capturedEventData.get(i), Charset.forName("UTF-8")));
+        }
+
+        // the client info event is sent before the capabilities are negotiated
+        assertNull(sentEvents[0].getMetadata());
+
+        assertEquals(AssuranceConstants.AssuranceEventType.GAP, sentEvents[1].type);
+        assertEquals(
+                AssuranceConstants.GapReason.EVICTED,
+                sentEvents[1].getPayload().get(AssuranceConstants.GapRecordKeys.REASON));
+        assertEquals(2, sentEvents[1].getPayload().get(AssuranceConstants.GapRecordKeys.COUNT));
+
+        for (int i = 1; i <= 3; i++) {
+            final Map<String, Object> metadata = sentEvents[i].getMetadata();
+            assertEquals(
+                    AssuranceConstants.SequenceLane.EVENTS,
+                    metadata.get(AssuranceConstants.AssuranceEventKeys.SEQUENCE_LANE));
+            assertEquals(i, metadata.get(AssuranceConstants.AssuranceEventKeys.SEQUENCE_NUMBER));
+        }
+
+        assertEquals(AssuranceConstants.AssuranceEventType.GAP, sentEvents[4].type);
+        assertEquals(
+                AssuranceConstants.SequenceLane.LOGS,
+                sentEvents[4]
+                        .getMetadata()
+                        .get(AssuranceConstants.AssuranceEventKeys.SEQUENCE_LANE));
+        assertEquals(
+                1,
+                sentEvents[4]
+                        .getMetadata()
+                        .get(AssuranceConstants.AssuranceEventKeys.SEQUENCE_NUMBER));
+    }
+
+    @Test
+    public void test_sequenceLanesDisabled_gapRecordsNotSent() {
+        when(mockAssuranceWebViewSocket.getState())
+                .thenReturn(AssuranceWebViewSocket.SocketReadyState.OPEN);
+        outboundEventQueueWorker.recordGap(
+                AssuranceConstants.SequenceLane.EVENTS, AssuranceConstants.GapReason.EVICTED, 2);
+        final AssuranceEvent event =
+                new AssuranceEvent(
+                        AssuranceConstants.AssuranceEventType.GENERIC,
+                        Collections.<String, Object>emptyMap());
+
+        outboundEventQueueWorker.start();
+        outboundEventQueueWorker.unblock();
+        outboundEventQueueWorker.offer(event);
+
+        ArgumentCaptor<byte[]> eventByteCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockAssuranceWebViewSocket, times(2)).sendData(eventByteCaptor.capture());
+        assertEquals(
+                event.getJSONRepresentation(),
+                new String(eventByteCaptor.getAllValues().get(1), Charset.forName("UTF-8")));
+    }
+
     @Test
     public void test_sendClientInfoEvent_workerBlocked() {
         outboundEventQueueWorker.block();